@@ -0,0 +1,60 @@
+package aquarium.bench;
+
+import aquarium.AlarmEngine;
+import aquarium.AlarmRule;
+import aquarium.TemperatureControllerImpl;
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a sensor reading reaching a controller with and without an alarm engine attached,
+ * for an increasing number of rules.
+ *
+ * @version Oct 18, 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class AlarmEvaluationBenchmark {
+    @Param({"2", "16", "64"})
+    private int             ruleCount; // The number of rules of the engine
+    private PrimitiveSensor bare; // The sensor of the controller without alarms
+    private PrimitiveSensor alarmed; // The sensor of the controller with the alarm engine
+    private int             next; // The index of the next reading
+    
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        bare = new PrimitiveSensor();
+        TemperatureControllerImpl.makeTemperatureController(bare, blackhole::consume);
+        alarmed = new PrimitiveSensor();
+        TemperatureControllerImpl controller = (TemperatureControllerImpl)
+                TemperatureControllerImpl.makeTemperatureController(alarmed, blackhole::consume);
+        List<AlarmRule> rules = new ArrayList<>();
+        for (int i = 0; i < ruleCount; i++)
+            if (i % 2 == 0)
+                rules.add(AlarmRule.outsideBand("band " + i, 1.0 + i, 5, TimeUnit.MINUTES));
+            else rules.add(AlarmRule.stuckIn("stuck " + i, AdjusterState.HEATING, 2,
+                                             TimeUnit.HOURS));
+        AlarmEngine engine = new AlarmEngine(rules);
+        engine.addListener((tankId, rule, timeMillis, temperature) -> blackhole.consume(rule));
+        controller.addListener(engine.listenerFor(0, controller));
+    }
+    
+    @Benchmark
+    public void withoutAlarms() {
+        bare.setTemperature(17.0 + (next++ & 7));
+    }
+    
+    @Benchmark
+    public void withAlarms() {
+        alarmed.setTemperature(17.0 + (next++ & 7));
+    }
+}
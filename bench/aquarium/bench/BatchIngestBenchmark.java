@@ -0,0 +1,72 @@
+package aquarium.bench;
+
+import aquarium.BatchIngestor;
+import aquarium.TemperatureControllerImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures feeding a frame of readings covering many tanks to their controllers, one
+ * sensor notification at a time and through the batch ingestor.
+ *
+ * @version Oct 18, 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class BatchIngestBenchmark {
+    @Param({"64", "512"})
+    private int               tankCount; // The number of tanks in a frame
+    private PrimitiveSensor[] sensors; // The sensors of the tanks notified one at a time
+    private BatchIngestor     ingestor; // The ingestor of the batched tanks
+    private int[]             tanks; // The tank index of each reading of a frame
+    private double[][]        frames; // The temperatures of the frames to replay
+    private int[]             transitions; // The transitions of a frame
+    private int               next; // The index of the next frame
+    
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        sensors = new PrimitiveSensor[tankCount];
+        List<TemperatureControllerImpl> controllers = new ArrayList<>();
+        for (int i = 0; i < tankCount; i++) {
+            sensors[i] = new PrimitiveSensor();
+            TemperatureControllerImpl.makeTemperatureController(sensors[i], blackhole::consume);
+            PrimitiveSensor batched = new PrimitiveSensor();
+            controllers.add((TemperatureControllerImpl) TemperatureControllerImpl
+                    .makeTemperatureController(batched, blackhole::consume));
+        }
+        ingestor = new BatchIngestor(controllers);
+        tanks = new int[tankCount];
+        transitions = new int[tankCount];
+        frames = new double[16][tankCount];
+        Random random = new Random(42);
+        for (int i = 0; i < tankCount; i++)
+            tanks[i] = i;
+        for (double[] frame : frames)
+            for (int i = 0; i < tankCount; i++)
+                frame[i] = 17.0 + 6.0 * random.nextDouble();
+    }
+    
+    @Benchmark
+    public void readingByReading() {
+        double[] frame = frames[next++ & frames.length - 1];
+        for (int i = 0; i < tankCount; i++)
+            sensors[i].setTemperature(frame[i]);
+    }
+    
+    @Benchmark
+    public int batch() {
+        double[] frame = frames[next++ & frames.length - 1];
+        int count = ingestor.ingest(tanks, frame, tankCount, transitions);
+        ingestor.apply(transitions, count);
+        return count;
+    }
+}
@@ -0,0 +1,72 @@
+package aquarium.bench;
+
+import aquarium.Utility;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting a telemetry series to Fahrenheit, value by value through the scalar
+ * conversion and through the bulk array and buffer conversions of Utility.
+ *
+ * @version Oct 18, 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class BulkConversionBenchmark {
+    @Param({"65536"})
+    private int          length; // The number of values in the series
+    private double[]     series; // The series in Celsius degrees
+    private double[]     converted; // The series in Fahrenheit degrees
+    private DoubleBuffer direct; // The series in Celsius degrees off-heap
+    private DoubleBuffer directConverted; // The series in Fahrenheit degrees off-heap
+    
+    @Setup
+    public void setUp() {
+        series = new double[length];
+        converted = new double[length];
+        direct = ByteBuffer.allocateDirect(length * 8).order(ByteOrder.nativeOrder())
+                .asDoubleBuffer();
+        directConverted = ByteBuffer.allocateDirect(length * 8).order(ByteOrder.nativeOrder())
+                .asDoubleBuffer();
+        for (int i = 0; i < length; i++) {
+            series[i] = 15.0 + (i % 1000) / 100.0;
+            direct.put(i, series[i]);
+        }
+    }
+    
+    @Benchmark
+    public double[] scalarArray() {
+        for (int i = 0; i < length; i++)
+            converted[i] = Utility.celsiusToFahrenheit(series[i]);
+        return converted;
+    }
+    
+    @Benchmark
+    public double[] bulkArray() {
+        Utility.celsiusToFahrenheit(series, 0, converted, 0, length);
+        return converted;
+    }
+    
+    @Benchmark
+    public DoubleBuffer scalarDirectBuffer() {
+        for (int i = 0; i < length; i++)
+            directConverted.put(i, Utility.celsiusToFahrenheit(direct.get(i)));
+        return directConverted;
+    }
+    
+    @Benchmark
+    public DoubleBuffer bulkDirectBuffer() {
+        direct.clear();
+        directConverted.clear();
+        Utility.celsiusToFahrenheit(direct, directConverted);
+        return directConverted;
+    }
+}
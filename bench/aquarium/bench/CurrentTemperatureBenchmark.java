@@ -0,0 +1,66 @@
+package aquarium.bench;
+
+import aquarium.TemperatureController;
+import aquarium.TemperatureControllerImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static aquarium.TemperatureController.TemperatureScale.FAHRENHEIT;
+
+/**
+ * Measures getCurrentTemperature polled by several dashboard threads while the sensor
+ * thread keeps delivering readings to the same controller.
+ *
+ * @version Oct 18, 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Group)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class CurrentTemperatureBenchmark {
+    private PrimitiveSensor       sensor; // The sensor of the polled controller
+    private TemperatureController controller; // The polled controller
+    
+    @Setup
+    public void setUp() {
+        sensor = new PrimitiveSensor();
+        sensor.setTemperature(20.0);
+        controller = TemperatureControllerImpl.makeTemperatureController(sensor, state -> {
+        });
+        controller.setTemperatureScale(FAHRENHEIT);
+    }
+    
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public double poll() {
+        return controller.getCurrentTemperature();
+    }
+    
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void readings(ReadingState state) {
+        sensor.setTemperature(state.next());
+    }
+    
+    /**
+     * The readings delivered by the sensor thread
+     */
+    @State(Scope.Thread)
+    public static class ReadingState {
+        private int reading; // The index of the next reading
+        
+        /**
+         * Get the next reading, sweeping around the desired temperature
+         *
+         * @return the next reading
+         */
+        double next() {
+            return 19.5 + (reading++ & 1023) / 1024.0;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package aquarium.bench;
+
+import aquarium.TemperatureControllerImpl;
+import aquarium.hw.TestTemperatureSensor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the adjuster decision made by the controller on every reading, delivered through
+ * the legacy boxed observer and through the primitive observer. The readings sweep across
+ * the acceptable band so every adjuster state is decided.
+ *
+ * @version Oct 18, 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class DecisionBenchmark {
+    private static final int      READINGS = 1024; // The number of distinct readings
+    private final        double[] readings = new double[READINGS]; // The readings to replay
+    private TestTemperatureSensor legacySensor; // The sensor notifying the boxed observer
+    private PrimitiveSensor       primitiveSensor; // The sensor notifying the primitive
+    // observer
+    private int                   next; // The index of the next reading
+    
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        for (int i = 0; i < READINGS; i++)
+            readings[i] = 17.0 + 6.0 * i / READINGS;
+        legacySensor = new TestTemperatureSensor(0.0);
+        primitiveSensor = new PrimitiveSensor();
+        TemperatureControllerImpl.makeTemperatureController(legacySensor, blackhole::consume);
+        TemperatureControllerImpl.makeTemperatureController(primitiveSensor,
+                                                            blackhole::consume);
+    }
+    
+    @Benchmark
+    public void legacyDecision() {
+        legacySensor.setTemperature(readings[next++ & READINGS - 1]);
+    }
+    
+    @Benchmark
+    public void primitiveDecision() {
+        primitiveSensor.setTemperature(readings[next++ & READINGS - 1]);
+    }
+}
@@ -0,0 +1,52 @@
+package aquarium.bench;
+
+import aquarium.TemperatureControllerFleet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures fleet-wide setpoint updates and current-temperature fan-in across many tanks.
+ *
+ * @version Oct 18, 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class FleetBenchmark {
+    @Param({"1000", "10000"})
+    private int tankCount; // The number of tanks in the fleet
+    
+    private TemperatureControllerFleet fleet; // The fleet
+    private double                     setpoint = 20.0; // The next fleet-wide setpoint
+    
+    @Setup
+    public void setUp() {
+        fleet = new TemperatureControllerFleet();
+        for (int tankId = 0; tankId < tankCount; tankId++) {
+            PrimitiveSensor sensor = new PrimitiveSensor();
+            sensor.setTemperature(20.0);
+            fleet.addTank(tankId, sensor, state -> {
+            });
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        fleet.close();
+    }
+    
+    @Benchmark
+    public Map<Integer, Double> currentTemperatures() {
+        return fleet.getCurrentTemperatures();
+    }
+    
+    @Benchmark
+    public void setTemperature() {
+        fleet.setTemperature(setpoint = setpoint > 21.0 ? 19.0 : setpoint + 0.01);
+    }
+}
@@ -0,0 +1,85 @@
+package aquarium.bench;
+
+import aquarium.FleetSnapshot;
+import aquarium.TemperatureController;
+import aquarium.TemperatureControllerFleet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static aquarium.TemperatureController.TemperatureScale.FAHRENHEIT;
+
+/**
+ * Measures the cold start of a fleet, configuring every tank through its setters and
+ * restoring every tank from a snapshot.
+ *
+ * @version Oct 18, 2026
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(3)
+public class FleetRestoreBenchmark {
+    @Param({"10000"})
+    private int                        tankCount; // The number of tanks in the fleet
+    private FleetSnapshot              snapshot; // The snapshot of the configured fleet
+    private TemperatureControllerFleet fleet; // The fleet started by the benchmark
+    
+    @Setup(Level.Trial)
+    public void snapshot(Blackhole blackhole) {
+        try (TemperatureControllerFleet configured = new TemperatureControllerFleet()) {
+            configure(configured, blackhole);
+            snapshot = configured.snapshot();
+        }
+    }
+    
+    @Setup(Level.Invocation)
+    public void setUp() {
+        fleet = new TemperatureControllerFleet();
+    }
+    
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        fleet.close();
+    }
+    
+    @Benchmark
+    public void setters(Blackhole blackhole) {
+        configure(fleet, blackhole);
+    }
+    
+    @Benchmark
+    public int restore(Blackhole blackhole) {
+        return fleet.restore(snapshot, tankId -> sensor(), tankId -> blackhole::consume);
+    }
+    
+    /**
+     * Add every tank to a fleet and configure it through its setters
+     *
+     * @param fleet     The fleet
+     * @param blackhole The blackhole consuming the commands of the adjusters
+     */
+    private void configure(TemperatureControllerFleet fleet, Blackhole blackhole) {
+        for (int tankId = 0; tankId < tankCount; tankId++) {
+            TemperatureController controller = fleet.addTank(tankId, sensor(),
+                                                             blackhole::consume);
+            controller.setTemperatureScale(FAHRENHEIT);
+            controller.setTemperature(75.0 + tankId % 5);
+            controller.setAcceptableVariation(1.5);
+        }
+    }
+    
+    /**
+     * Create the sensor of a tank
+     *
+     * @return the sensor, reading 24 Celsius degrees
+     */
+    private static PrimitiveSensor sensor() {
+        PrimitiveSensor sensor = new PrimitiveSensor();
+        sensor.setTemperature(24.0);
+        return sensor;
+    }
+}
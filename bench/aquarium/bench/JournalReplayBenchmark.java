@@ -0,0 +1,76 @@
+package aquarium.bench;
+
+import aquarium.ReadingJournal;
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures appending readings to the journal and replaying a journal of many readings.
+ * A day of one reading a second for 1,000 tanks is 86.4 million records, so the replay
+ * rate per record tells how long a restart takes to reload it.
+ *
+ * @version Oct 18, 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class JournalReplayBenchmark {
+    private static final int RECORDS = 4_000_000; // The number of records replayed
+    
+    private Path           directory; // The directory of the journals
+    private ReadingJournal replayed; // The journal replayed
+    private ReadingJournal appended; // The journal appended to
+    private long           time; // The time of the next appended reading
+    
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-bench");
+        replayed = ReadingJournal.open(directory.resolve("replayed"));
+        for (int i = 0; i < RECORDS; i++)
+            replayed.appendReading(i % 1000, i / 1000, 20.0 + (i & 7) / 8.0);
+        replayed.flush();
+        appended = ReadingJournal.open(directory.resolve("appended"));
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        replayed.close();
+        appended.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+    
+    @Benchmark
+    public void append() {
+        appended.appendReading(1, time++, 20.0);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long replay(Blackhole blackhole) throws IOException {
+        return replayed.replay(new ReadingJournal.Replay() {
+            @Override
+            public void reading(int tankId, long timeMillis, double temperature) {
+                blackhole.consume(temperature);
+            }
+            
+            @Override
+            public void transition(int tankId, long timeMillis, double temperature,
+                                   AdjusterState state) {
+                blackhole.consume(state);
+            }
+        });
+    }
+}
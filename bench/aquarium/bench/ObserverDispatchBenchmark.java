@@ -0,0 +1,63 @@
+package aquarium.bench;
+
+import aquarium.ObservableAdapter;
+import aquarium.hw.TestTemperatureSensor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Measures notifying observers of a reading through the legacy boxed Observable, through a
+ * legacy Observable bridged to primitive observers, and through the primitive
+ * DoubleObservable channel.
+ *
+ * @version Oct 18, 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class ObserverDispatchBenchmark {
+    @Param({"1", "4"})
+    private int observerCount; // The number of observers subscribed to the sensor
+    
+    private TestTemperatureSensor legacySensor; // The hardware test sensor, boxing readings
+    private TestTemperatureSensor bridgedSensor; // The hardware test sensor bridged to
+    // primitive observers
+    private PrimitiveSensor       primitiveSensor; // The sensor with a primitive channel
+    private double                temperature; // The next reading
+    
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        legacySensor = new TestTemperatureSensor(0.0);
+        bridgedSensor = new TestTemperatureSensor(0.0);
+        primitiveSensor = new PrimitiveSensor();
+        for (int i = 0; i < observerCount; i++) {
+            legacySensor.addObserver(t -> {
+                blackhole.consume(t);
+                return null;
+            });
+            ObservableAdapter.fromLegacy(bridgedSensor).addObserver(blackhole::consume);
+            primitiveSensor.addObserver((DoubleConsumer) blackhole::consume);
+        }
+    }
+    
+    @Benchmark
+    public void legacyObservable() {
+        legacySensor.setTemperature(temperature += 0.01);
+    }
+    
+    @Benchmark
+    public void bridgedObservable() {
+        bridgedSensor.setTemperature(temperature += 0.01);
+    }
+    
+    @Benchmark
+    public void primitiveObservable() {
+        primitiveSensor.setTemperature(temperature += 0.01);
+    }
+}
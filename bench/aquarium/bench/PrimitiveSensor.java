@@ -0,0 +1,92 @@
+package aquarium.bench;
+
+import aquarium.DoubleObservable;
+import aquarium.hw.TemperatureSensor;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+
+/**
+ * A TemperatureSensor driven by the benchmarks, notifying primitive observers directly and
+ * legacy observers with a boxed reading, like the hardware sensors do.
+ *
+ * @version Oct 18, 2026
+ */
+public final class PrimitiveSensor implements TemperatureSensor, DoubleObservable {
+    private DoubleConsumer[]         observers = new DoubleConsumer[0]; // The primitive observers
+    private Function<Double, Void>[] legacyObservers = newLegacyObservers(0); // The legacy
+    // observers
+    private volatile double          temperature; // The current temperature
+    
+    @Override
+    public void addObserver(DoubleConsumer observer) {
+        observers = Arrays.copyOf(observers, observers.length + 1);
+        observers[observers.length - 1] = observer;
+    }
+    
+    @Override
+    public void removeObserver(DoubleConsumer observer) {
+        for (int i = 0; i < observers.length; i++)
+            if (observers[i] == observer) {
+                DoubleConsumer[] remaining = new DoubleConsumer[observers.length - 1];
+                System.arraycopy(observers, 0, remaining, 0, i);
+                System.arraycopy(observers, i + 1, remaining, i, remaining.length - i);
+                observers = remaining;
+                return;
+            }
+    }
+    
+    @Override
+    public void addObserver(Function<Double, Void> observer) {
+        legacyObservers = Arrays.copyOf(legacyObservers, legacyObservers.length + 1);
+        legacyObservers[legacyObservers.length - 1] = observer;
+    }
+    
+    @Override
+    public void removeObserver(Function<Double, Void> observer) {
+        for (int i = 0; i < legacyObservers.length; i++)
+            if (legacyObservers[i] == observer) {
+                Function<Double, Void>[] remaining = newLegacyObservers(legacyObservers.length
+                                                                        - 1);
+                System.arraycopy(legacyObservers, 0, remaining, 0, i);
+                System.arraycopy(legacyObservers, i + 1, remaining, i, remaining.length - i);
+                legacyObservers = remaining;
+                return;
+            }
+    }
+    
+    @Override
+    public void setDelta(double delta) {
+    }
+    
+    @Override
+    public double getTemperature() {
+        return temperature;
+    }
+    
+    /**
+     * Set the temperature and notify every observer
+     *
+     * @param temperature The new temperature
+     */
+    public void setTemperature(double temperature) {
+        this.temperature = temperature;
+        for (DoubleConsumer observer : observers)
+            observer.accept(temperature);
+        for (Function<Double, Void> observer : legacyObservers)
+            observer.apply(temperature);
+    }
+    
+    /**
+     * Create an array of legacy observers
+     *
+     * @param length The length of the array
+     *
+     * @return the array
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Double, Void>[] newLegacyObservers(int length) {
+        return (Function<Double, Void>[]) new Function<?, ?>[length];
+    }
+}
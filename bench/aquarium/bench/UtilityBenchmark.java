@@ -0,0 +1,41 @@
+package aquarium.bench;
+
+import aquarium.Utility;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the scalar temperature scale conversions of Utility.
+ *
+ * @version Oct 18, 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class UtilityBenchmark {
+    private double temperature = 21.5; // The converted temperature
+    
+    @Benchmark
+    public double celsiusToFahrenheit() {
+        return Utility.celsiusToFahrenheit(temperature);
+    }
+    
+    @Benchmark
+    public double fahrenheitToCelsius() {
+        return Utility.fahrenheitToCelsius(temperature);
+    }
+    
+    @Benchmark
+    public double celsiusToFahrenheitVariance() {
+        return Utility.celsiusToFahrenheitVariance(temperature);
+    }
+    
+    @Benchmark
+    public double fahrenheitToCelsiusVariance() {
+        return Utility.fahrenheitToCelsiusVariance(temperature);
+    }
+}
@@ -0,0 +1,380 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Raises and clears alarms from the readings of many tanks as they are delivered. Each tank
+ * keeps, for every rule, only the time since which its condition holds and whether its alarm
+ * is raised, so a reading is evaluated in a bounded number of steps, proportional to the
+ * number of rules, and history is never read again.
+ * <p>
+ * Attach the engine to a controller with
+ * {@link TemperatureControllerImpl#addListener(ReadingListener)} and
+ * {@link #listenerFor(int, TemperatureControllerImpl)}. The deviation and variation given to
+ * the rules are taken from the configuration of the controller when the reading is
+ * evaluated. The time spent evaluating every reading, alarm listeners included, is recorded
+ * in a latency histogram.
+ * </p>
+ * <p>
+ * An alarm with a hold time is also raised by a timing wheel when the hold time of its
+ * condition expires, so a tank whose sensor goes quiet while the condition holds is not left
+ * unraised until its next reading. Such an alarm is raised at the time the hold expired, with
+ * the last reading of the tank.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class AlarmEngine implements AutoCloseable {
+    private static final int             MAX_RULES = Long.SIZE; // The number of rules a
+    // raised-alarm mask holds
+    private static final long            NOT_VIOLATED = Long.MIN_VALUE; // The time of a
+    // condition that does not hold
+    private static final AlarmListener[] NO_LISTENERS = new AlarmListener[0]; // The empty
+    // listener array
+    private static final long            DEFAULT_TICK = TimeUnit.MILLISECONDS.toNanos(100);
+    // The tick of the wheel created by the engine
+    
+    private final TimingWheel                               wheel; // The wheel raising the
+    // alarms whose hold time expires
+    private final boolean                                   ownsWheel; // True if closing the
+    // engine closes the wheel
+    private final AlarmRule[]                               rules; // The rules evaluated on
+    // every reading
+    private final Map<Integer, TankAlarms>                  tanks = new ConcurrentHashMap<>();
+    // The alarm state of each tank, keyed by tank id
+    private final AtomicInteger                             raised = new AtomicInteger(); // The
+    // number of alarms raised and not cleared
+    private final LatencyHistogram                          latency = new LatencyHistogram();
+    // The time spent evaluating each reading
+    private final ObserverRegistry.Listeners<AlarmListener> listeners = new ObserverRegistry
+            .Listeners<>(NO_LISTENERS); // The listeners of the alarms
+    
+    /**
+     * Constructor. Creates a timing wheel of 100 millisecond ticks driven by its own thread.
+     *
+     * @param rules The rules evaluated on every reading, at most 64
+     */
+    public AlarmEngine(List<AlarmRule> rules) {
+        this(rules, new TimingWheel(DEFAULT_TICK, TimeUnit.NANOSECONDS), true);
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param rules The rules evaluated on every reading, at most 64
+     * @param wheel The timing wheel raising the alarms whose hold time expires, left open on
+     *              close
+     */
+    public AlarmEngine(List<AlarmRule> rules, TimingWheel wheel) {
+        this(rules, wheel, false);
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param rules     The rules evaluated on every reading, at most 64
+     * @param wheel     The timing wheel raising the alarms whose hold time expires
+     * @param ownsWheel True if closing the engine closes the wheel
+     */
+    private AlarmEngine(List<AlarmRule> rules, TimingWheel wheel, boolean ownsWheel) {
+        if (rules.size() > MAX_RULES) {
+            if (ownsWheel)
+                wheel.close();
+            throw new IllegalArgumentException("At most " + MAX_RULES + " rules: " + rules
+                    .size());
+        }
+        this.rules = rules.toArray(new AlarmRule[0]);
+        this.wheel = wheel;
+        this.ownsWheel = ownsWheel;
+    }
+    
+    /**
+     * Create a listener evaluating the readings of one tank. A listener created before for the
+     * same tank is retired: its raised alarms are cleared and it ignores the readings it is
+     * still given.
+     *
+     * @param tankId     The id of the tank
+     * @param controller The controller of the tank, supplying the desired temperature and
+     *                   acceptable variation
+     *
+     * @return the listener
+     */
+    public ReadingListener listenerFor(int tankId, TemperatureControllerImpl controller) {
+        TankAlarms alarms = new TankAlarms(tankId, controller);
+        TankAlarms previous = tanks.put(tankId, alarms);
+        if (previous != null)
+            previous.retire();
+        return alarms;
+    }
+    
+    /**
+     * Add a listener of the alarms raised and cleared
+     *
+     * @param listener The listener
+     */
+    public void addListener(AlarmListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Remove a listener added by addListener
+     *
+     * @param listener The listener
+     */
+    public void removeListener(AlarmListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Get the rules evaluated on every reading
+     *
+     * @return the rules
+     */
+    public List<AlarmRule> getRules() {
+        return Collections.unmodifiableList(Arrays.asList(rules));
+    }
+    
+    /**
+     * Check whether the alarm of a rule is raised for a tank
+     *
+     * @param tankId The id of the tank
+     * @param rule   The rule
+     *
+     * @return true if the alarm is raised, false otherwise
+     */
+    public boolean isRaised(int tankId, AlarmRule rule) {
+        TankAlarms alarms = tanks.get(tankId);
+        int index = Arrays.asList(rules).indexOf(rule);
+        return alarms != null && index >= 0 && (alarms.raised & 1L << index) != 0;
+    }
+    
+    /**
+     * Get the rules whose alarm is raised for a tank
+     *
+     * @param tankId The id of the tank
+     *
+     * @return the rules of the raised alarms
+     */
+    public List<AlarmRule> getRaised(int tankId) {
+        TankAlarms alarms = tanks.get(tankId);
+        List<AlarmRule> raisedRules = new ArrayList<>();
+        long mask = alarms == null ? 0 : alarms.raised;
+        for (int i = 0; i < rules.length; i++)
+            if ((mask & 1L << i) != 0)
+                raisedRules.add(rules[i]);
+        return raisedRules;
+    }
+    
+    /**
+     * Get the number of alarms raised and not cleared, over every tank and rule
+     *
+     * @return the number of raised alarms
+     */
+    public int getRaisedCount() {
+        return raised.get();
+    }
+    
+    /**
+     * Get the time spent evaluating each reading
+     *
+     * @return the histogram of the evaluation latencies in nanoseconds
+     */
+    public LatencyHistogram getEvaluationLatency() {
+        return latency;
+    }
+    
+    /**
+     * Stop raising alarms on hold expiry, and stop the wheel if the engine created it
+     */
+    @Override
+    public void close() {
+        for (TankAlarms alarms : tanks.values())
+            alarms.cancelExpiries();
+        if (ownsWheel)
+            wheel.close();
+    }
+    
+    /**
+     * The alarm state of one tank, evaluated on the thread delivering its readings and on the
+     * wheel thread when a hold time expires
+     */
+    private final class TankAlarms implements ReadingListener {
+        private final int                       tankId; // The id of the tank
+        private final TemperatureControllerImpl controller; // The controller of the tank
+        private final long[]                    since; // The time since which the condition
+        // of each rule holds, or NOT_VIOLATED
+        private final TimingWheel.Timeout[]     expiries; // The pending hold expiry of each
+        // rule, or null
+        private volatile long                   raised; // The mask of the raised alarms
+        private double                          lastTemperature = Double.NaN; // The last
+        // reading evaluated
+        private boolean                         retired; // True once another listener
+        // evaluates the tank
+        
+        /**
+         * Constructor.
+         *
+         * @param tankId     The id of the tank
+         * @param controller The controller of the tank
+         */
+        TankAlarms(int tankId, TemperatureControllerImpl controller) {
+            this.tankId = tankId;
+            this.controller = controller;
+            this.since = new long[rules.length];
+            this.expiries = new TimingWheel.Timeout[rules.length];
+            Arrays.fill(since, NOT_VIOLATED);
+        }
+        
+        @Override
+        public synchronized void onReading(long timeMillis, double temperature,
+                                           AdjusterState state) {
+            if (retired)
+                return;
+            long start = System.nanoTime();
+            ControllerConfiguration config = controller.getConfiguration();
+            double deviation = temperature - config.getDesiredTemperature();
+            double variance = config.getTurnOnVariance();
+            lastTemperature = temperature;
+            long mask = raised;
+            for (int i = 0; i < rules.length; i++) {
+                long bit = 1L << i;
+                if (rules[i].getCondition().test(deviation, variance, state)) {
+                    if (since[i] == NOT_VIOLATED) {
+                        since[i] = timeMillis;
+                        if ((mask & bit) == 0 && rules[i].getHoldMillis() > 0)
+                            scheduleExpiry(i, timeMillis);
+                    }
+                    if ((mask & bit) == 0 && timeMillis - since[i] >= rules[i]
+                            .getHoldMillis())
+                        mask = raise(i, timeMillis, temperature);
+                } else {
+                    since[i] = NOT_VIOLATED;
+                    cancelExpiry(i);
+                    if ((mask & bit) != 0)
+                        mask = clear(i, timeMillis, temperature);
+                }
+            }
+            latency.record(System.nanoTime() - start);
+        }
+        
+        /**
+         * Raise the alarm of a rule whose hold time expired without a reading. Run by the
+         * wheel thread.
+         *
+         * @param rule          The index of the rule
+         * @param violatedSince The time since which the condition held when the expiry was
+         *                      scheduled
+         */
+        private synchronized void onHoldExpired(int rule, long violatedSince) {
+            if (retired || since[rule] != violatedSince || (raised & 1L << rule) != 0)
+                return;
+            expiries[rule] = null;
+            raise(rule, violatedSince + rules[rule].getHoldMillis(), lastTemperature);
+        }
+        
+        /**
+         * Stop evaluating the tank, clearing its raised alarms
+         */
+        synchronized void retire() {
+            retired = true;
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < rules.length; i++) {
+                cancelExpiry(i);
+                if ((raised & 1L << i) != 0)
+                    clear(i, now, lastTemperature);
+            }
+        }
+        
+        /**
+         * Cancel every pending hold expiry
+         */
+        synchronized void cancelExpiries() {
+            for (int i = 0; i < rules.length; i++)
+                cancelExpiry(i);
+        }
+        
+        /**
+         * Schedule the expiry of the hold time of a rule whose condition started to hold
+         *
+         * @param rule          The index of the rule
+         * @param violatedSince The time since which the condition holds
+         */
+        private void scheduleExpiry(int rule, long violatedSince) {
+            cancelExpiry(rule);
+            try {
+                expiries[rule] = wheel.schedule(() -> onHoldExpired(rule, violatedSince),
+                                                rules[rule].getHoldMillis(),
+                                                TimeUnit.MILLISECONDS);
+            } catch (IllegalStateException e) {
+                // The engine is closed, alarms are only raised by readings
+            }
+        }
+        
+        /**
+         * Cancel the pending hold expiry of a rule, if any
+         *
+         * @param rule The index of the rule
+         */
+        private void cancelExpiry(int rule) {
+            TimingWheel.Timeout expiry = expiries[rule];
+            if (expiry != null) {
+                expiry.cancel();
+                expiries[rule] = null;
+            }
+        }
+        
+        /**
+         * Raise the alarm of a rule and notify the listeners
+         *
+         * @param rule        The index of the rule
+         * @param timeMillis  The time the alarm is raised
+         * @param temperature The reading raising it
+         *
+         * @return the new mask of the raised alarms
+         */
+        private long raise(int rule, long timeMillis, double temperature) {
+            cancelExpiry(rule);
+            long mask = raised | 1L << rule;
+            raised = mask;
+            AlarmEngine.this.raised.incrementAndGet();
+            for (AlarmListener listener : listeners.snapshot())
+                try {
+                    listener.onRaised(tankId, rules[rule], timeMillis, temperature);
+                } catch (RuntimeException e) {
+                    listeners.failed(listener, e);
+                }
+            return mask;
+        }
+        
+        /**
+         * Clear the alarm of a rule and notify the listeners
+         *
+         * @param rule        The index of the rule
+         * @param timeMillis  The time the alarm is cleared
+         * @param temperature The reading clearing it
+         *
+         * @return the new mask of the raised alarms
+         */
+        private long clear(int rule, long timeMillis, double temperature) {
+            long mask = raised & ~(1L << rule);
+            raised = mask;
+            AlarmEngine.this.raised.decrementAndGet();
+            for (AlarmListener listener : listeners.snapshot())
+                try {
+                    listener.onCleared(tankId, rules[rule], timeMillis, temperature);
+                } catch (RuntimeException e) {
+                    listeners.failed(listener, e);
+                }
+            return mask;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package aquarium;
+
+/**
+ * Receives the alarms raised and cleared by an AlarmEngine. Listeners are called on the
+ * thread delivering the reading, normally the sensor's notification thread, so they must be
+ * quick and must not block.
+ *
+ * @version Oct 18, 2026
+ */
+public interface AlarmListener {
+    /**
+     * Handle an alarm being raised
+     *
+     * @param tankId      The id of the tank
+     * @param rule        The rule raising the alarm
+     * @param timeMillis  The time of the reading raising the alarm in milliseconds since the
+     *                    epoch
+     * @param temperature The water temperature in Celsius degrees
+     */
+    void onRaised(int tankId, AlarmRule rule, long timeMillis, double temperature);
+    
+    /**
+     * Handle an alarm being cleared
+     *
+     * @param tankId      The id of the tank
+     * @param rule        The rule of the alarm
+     * @param timeMillis  The time of the reading clearing the alarm in milliseconds since the
+     *                    epoch
+     * @param temperature The water temperature in Celsius degrees
+     */
+    default void onCleared(int tankId, AlarmRule rule, long timeMillis, double temperature) {
+    }
+}
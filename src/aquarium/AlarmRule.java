@@ -0,0 +1,140 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable alarm rule: a condition on a reading that raises the alarm once it has held on
+ * every reading for the hold time, and clears it on the first reading where it no longer
+ * holds. A rule is evaluated incrementally from the readings as they come, only remembering
+ * since when its condition holds.
+ *
+ * @version Oct 18, 2026
+ */
+public final class AlarmRule {
+    private final String    name; // The name of the rule
+    private final Condition condition; // The condition raising the alarm
+    private final long      holdMillis; // The time the condition must hold for
+    
+    /**
+     * Constructor.
+     *
+     * @param name       The name of the rule
+     * @param condition  The condition raising the alarm
+     * @param holdMillis The time the condition must hold for in milliseconds
+     */
+    private AlarmRule(String name, Condition condition, long holdMillis) {
+        if (name == null || condition == null)
+            throw new NullPointerException("name and condition are required");
+        if (holdMillis < 0)
+            throw new IllegalArgumentException("Invalid hold time: " + holdMillis);
+        this.name = name;
+        this.condition = condition;
+        this.holdMillis = holdMillis;
+    }
+    
+    /**
+     * Create a rule raised when a condition holds for a time
+     *
+     * @param name      The name of the rule
+     * @param condition The condition raising the alarm
+     * @param hold      The time the condition must hold for
+     * @param unit      The unit of the hold time
+     *
+     * @return the rule
+     */
+    public static AlarmRule when(String name, Condition condition, long hold, TimeUnit unit) {
+        return new AlarmRule(name, condition, unit.toMillis(hold));
+    }
+    
+    /**
+     * Create a rule raised when the water stays further than a multiple of the acceptable
+     * variation from the desired temperature
+     *
+     * @param name     The name of the rule
+     * @param multiple The multiple of the acceptable variation
+     * @param hold     The time the temperature must stay out of the band for
+     * @param unit     The unit of the hold time
+     *
+     * @return the rule
+     */
+    public static AlarmRule outsideBand(String name, double multiple, long hold,
+                                        TimeUnit unit) {
+        if (!(multiple > 0))
+            throw new IllegalArgumentException("Invalid multiple: " + multiple);
+        Condition outside = (deviation, variance, state) -> Math.abs(deviation) > multiple *
+                                                                             variance;
+        return when(name, outside, hold, unit);
+    }
+    
+    /**
+     * Create a rule raised when the adjuster stays in a state without the water reaching the
+     * acceptable band
+     *
+     * @param name  The name of the rule
+     * @param state The adjuster state, HEATING or COOLING
+     * @param hold  The time the adjuster may stay in the state out of the band
+     * @param unit  The unit of the hold time
+     *
+     * @return the rule
+     */
+    public static AlarmRule stuckIn(String name, AdjusterState state, long hold,
+                                    TimeUnit unit) {
+        if (state == null)
+            throw new NullPointerException("state");
+        Condition stuck = (deviation, variance, current) -> current == state && Math.abs
+                (deviation) > variance;
+        return when(name, stuck, hold, unit);
+    }
+    
+    /**
+     * Get the name of the rule
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Get the time the condition must hold for
+     *
+     * @return the hold time in milliseconds
+     */
+    public long getHoldMillis() {
+        return holdMillis;
+    }
+    
+    /**
+     * Get the condition raising the alarm
+     *
+     * @return the condition
+     */
+    Condition getCondition() {
+        return condition;
+    }
+    
+    @Override
+    public String toString() {
+        return name;
+    }
+    
+    /**
+     * A condition on a reading, evaluated on the sensor thread for every reading of every
+     * tank, so it must be cheap and must not allocate
+     */
+    @FunctionalInterface
+    public interface Condition {
+        /**
+         * Check whether a reading violates the condition
+         *
+         * @param deviation The temperature minus the desired temperature in Celsius degrees
+         * @param variance  The acceptable variation in Celsius degrees
+         * @param state     The adjuster state decided for the reading
+         *
+         * @return true if the reading violates the condition, false otherwise
+         */
+        boolean test(double deviation, double variance, AdjusterState state);
+    }
+}
@@ -0,0 +1,218 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The AsyncActuator decouples adjuster actuation from sensor notification. Adjusters wrapped
+ * by {@link #adjusterFor(TemperatureAdjuster)} only record the decided state and return
+ * immediately; an actuator thread drains the command queue and calls the real adjusters.
+ * Every tank holds at most one pending command, so when several states are decided before
+ * the actuator gets to a tank only the latest one is applied.
+ * <p>
+ * An adjuster may not return until its state is changed again, as one running its heater or
+ * chiller for as long as it is on. When a command is queued while the actuator thread is in
+ * an adjuster, another actuator thread takes over the queue, so the command changing that
+ * state is applied while the previous call is still running. The thread left in the
+ * adjuster stops once it returns. After the actuator is closed, commands are applied by the
+ * thread deciding them.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class AsyncActuator implements AutoCloseable {
+    private static final PendingAdjuster SHUTDOWN = new PendingAdjuster(null, null); // Marks
+    // the end of the command queue
+    private final BlockingQueue<PendingAdjuster> commands; // Tanks with a pending command
+    private final ExecutorService                threads; // The actuator threads
+    private final AtomicReference<Drainer>       current; // The drainer taking the commands
+    private final CountDownLatch                 stopped = new CountDownLatch(1); // Released
+    // once the commands queued before close are applied
+    private volatile boolean                     closed; // True once the actuator is closed
+    
+    /**
+     * Constructor. Starts the actuator thread.
+     */
+    public AsyncActuator() {
+        this(newThreadPool());
+    }
+    
+    /**
+     * Constructor. Starts the actuator thread.
+     *
+     * @param threads The executor running the actuator threads, shut down on close
+     */
+    AsyncActuator(ExecutorService threads) {
+        this.commands = new LinkedBlockingQueue<>();
+        this.threads = threads;
+        Drainer drainer = new Drainer();
+        this.current = new AtomicReference<>(drainer);
+        this.threads.execute(drainer);
+    }
+    
+    /**
+     * Wrap an adjuster so that its state changes are applied by the actuator thread
+     *
+     * @param adjuster The real TemperatureAdjuster
+     *
+     * @return the asynchronous TemperatureAdjuster to give to the controller
+     */
+    public TemperatureAdjuster adjusterFor(TemperatureAdjuster adjuster) {
+        return new PendingAdjuster(this, adjuster);
+    }
+    
+    /**
+     * Apply every pending command, then stop the actuator threads. Adjusters still running a
+     * state are not waited for.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        commands.offer(SHUTDOWN);
+        takeOver(current.get());
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        threads.shutdown();
+    }
+    
+    /**
+     * Queue a tank with a new pending command
+     *
+     * @param tank The tank
+     */
+    private void submit(PendingAdjuster tank) {
+        commands.offer(tank);
+        if (!closed)
+            takeOver(current.get());
+    }
+    
+    /**
+     * Start another drainer taking the commands if a drainer is in an adjuster, which may not
+     * return until a queued command is applied
+     *
+     * @param drainer The drainer taking the commands
+     */
+    private void takeOver(Drainer drainer) {
+        if (drainer.applying) {
+            Drainer next = new Drainer();
+            if (current.compareAndSet(drainer, next))
+                threads.execute(next);
+        }
+    }
+    
+    /**
+     * Create a pool of daemon actuator threads
+     *
+     * @return the pool
+     */
+    private static ExecutorService newThreadPool() {
+        AtomicInteger index = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "aquarium-actuator-" + index
+                    .getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Apply the command of a tank, isolating the actuator from an adjuster failing
+     *
+     * @param tank The tank
+     */
+    private static void apply(PendingAdjuster tank) {
+        try {
+            tank.apply();
+        } catch (RuntimeException | Error e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+    
+    /**
+     * A loop applying pending commands, until another one takes over or the actuator is
+     * closed
+     */
+    private final class Drainer implements Runnable {
+        private volatile boolean applying; // True while in an adjuster
+        
+        @Override
+        public void run() {
+            while (current.get() == this) {
+                PendingAdjuster tank;
+                try {
+                    tank = commands.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (tank == SHUTDOWN) {
+                    for (tank = commands.poll(); tank != null; tank = commands.poll())
+                        apply(tank);
+                    commands.offer(SHUTDOWN); // For a drainer taken over but still waiting
+                    stopped.countDown();
+                    return;
+                }
+                applying = true;
+                try {
+                    apply(tank);
+                } finally {
+                    applying = false;
+                }
+            }
+        }
+    }
+    
+    /**
+     * An adjuster holding the latest decided state of one tank until the actuator applies it
+     */
+    private static final class PendingAdjuster implements TemperatureAdjuster {
+        private final AsyncActuator                  owner; // The actuator applying commands
+        private final TemperatureAdjuster            target; // The real adjuster
+        private final AtomicReference<AdjusterState> pending; // The latest decided state, or
+        // null when the tank is not queued
+        
+        /**
+         * Constructor.
+         *
+         * @param owner  The actuator applying commands
+         * @param target The real adjuster
+         */
+        PendingAdjuster(AsyncActuator owner, TemperatureAdjuster target) {
+            this.owner = owner;
+            this.target = target;
+            this.pending = new AtomicReference<>();
+        }
+        
+        @Override
+        public void setState(AdjusterState newState) {
+            if (owner.closed) {
+                pending.set(newState);
+                apply();
+                return;
+            }
+            if (pending.getAndSet(newState) == null)
+                owner.submit(this);
+            if (owner.closed)
+                apply();
+        }
+        
+        /**
+         * Apply the latest decided state to the real adjuster
+         */
+        void apply() {
+            AdjusterState state = pending.getAndSet(null);
+            if (state != null)
+                target.setState(state);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Feeds frames of readings covering many tanks to their controllers at once. A frame is a
+ * pair of parallel arrays, the index of a tank and its water temperature in Celsius
+ * degrees. The adjuster decision for the whole frame is made in one pass over primitive
+ * arrays, then every reading is accounted for by its controller exactly as if its sensor
+ * had delivered it, taking the decision lock of the controller once per reading.
+ * <p>
+ * The transitions of a frame are returned packed in an int array, and are only applied to
+ * the adjusters by {@link #apply(int[], int)}, so a gateway can forward them in bulk. A
+ * transition is the commanded state of its controller as soon as ingest returns it. If it
+ * is never applied, because apply was skipped or the adjuster failed, it is returned again
+ * with the next reading of its tank, so the adjuster is not left out of the commanded
+ * state. An ingestor is not thread-safe; use one per gateway thread.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class BatchIngestor {
+    private static final int             STATE_BITS = 2; // The bits of a packed transition
+    // holding the state
+    private static final int             STATE_MASK = (1 << STATE_BITS) - 1; // The state bits
+    // of a packed transition
+    private static final int             NO_STATE = 3; // The code of a controller that has
+    // not commanded its adjuster yet
+    private static final AdjusterState[] STATES = AdjusterState.values(); // The adjuster
+    // states by ordinal
+    
+    private final TemperatureControllerImpl[] controllers; // The controllers by tank index
+    private double[]                          desired = new double[0]; // The desired
+    // temperature of each reading of the frame
+    private double[]                          coldBand = new double[0]; // The difference below
+    // which each reading is decided HEATING
+    private double[]                          hotBand = new double[0]; // The difference above
+    // which each reading is decided COOLING
+    private byte[]                            current = new byte[0]; // The state commanded
+    // by the controller of each reading when the frame was gathered
+    private byte[]                            decided = new byte[0]; // The state decided for
+    // each reading
+    private final int[]                       returned; // The frame in which a transition of
+    // each tank was last returned
+    private int                               frame; // The number of frames ingested
+    
+    /**
+     * Constructor.
+     *
+     * @param controllers The controllers, the tank index of a controller being its position
+     */
+    public BatchIngestor(List<TemperatureControllerImpl> controllers) {
+        this.controllers = controllers.toArray(new TemperatureControllerImpl[0]);
+        this.returned = new int[this.controllers.length];
+    }
+    
+    /**
+     * Get the number of tanks fed by this ingestor
+     *
+     * @return the number of tanks
+     */
+    public int size() {
+        return controllers.length;
+    }
+    
+    /**
+     * Decide the adjuster state for every reading of a frame and account for the readings in
+     * their controllers. A tank may appear more than once in a frame, its readings being
+     * taken in frame order.
+     *
+     * @param tanks        The tank index of each reading
+     * @param temperatures The water temperature of each reading in Celsius degrees
+     * @param length       The number of readings in the frame
+     * @param transitions  The array receiving the packed transitions, at least length long
+     *
+     * @return the number of transitions written to transitions
+     *
+     * @throws IndexOutOfBoundsException if a tank index is unknown or an array is too short
+     */
+    public int ingest(int[] tanks, double[] temperatures, int length, int[] transitions) {
+        if (length > tanks.length || length > temperatures.length || length >
+                                                                     transitions.length)
+            throw new IndexOutOfBoundsException("Frame of " + length + " readings");
+        ensureCapacity(length);
+        gather(tanks, length);
+        decide(temperatures, length);
+        long readingTime = System.nanoTime();
+        int count = 0;
+        frame++;
+        for (int i = 0; i < length; i++) {
+            // The controller decides again if its state changed since the frame was gathered,
+            // as when an earlier reading of the same tank in this frame was a transition
+            TemperatureControllerImpl controller = controllers[tanks[i]];
+            AdjusterState transition = controller.acceptDecision(temperatures[i], readingTime,
+                    current[i] == NO_STATE ? null : STATES[current[i]], STATES[decided[i]],
+                    true);
+            if (transition == null && returned[tanks[i]] != frame && controller
+                    .isCommandPending())
+                transition = controller.getCommandedState(); // Returned by an earlier frame
+            // but never applied
+            if (transition != null) {
+                returned[tanks[i]] = frame;
+                transitions[count++] = tanks[i] << STATE_BITS | transition.ordinal();
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Command the adjusters of the transitions returned by ingest. A transition superseded by
+     * a later one of the same tank is skipped. Every transition is applied even if an
+     * adjuster fails; the first failure is then rethrown, with the others suppressed in it.
+     *
+     * @param transitions The packed transitions
+     * @param count       The number of transitions
+     */
+    public void apply(int[] transitions, int count) {
+        RuntimeException failure = null;
+        for (int i = 0; i < count; i++)
+            try {
+                controllers[tankOf(transitions[i])].command(stateOf(transitions[i]));
+            } catch (RuntimeException e) {
+                if (failure == null)
+                    failure = e;
+                else failure.addSuppressed(e);
+            }
+        if (failure != null)
+            throw failure;
+    }
+    
+    /**
+     * Get the tank index of a packed transition
+     *
+     * @param transition The packed transition
+     *
+     * @return the tank index
+     */
+    public static int tankOf(int transition) {
+        return transition >>> STATE_BITS;
+    }
+    
+    /**
+     * Get the commanded state of a packed transition
+     *
+     * @param transition The packed transition
+     *
+     * @return the adjuster state
+     */
+    public static AdjusterState stateOf(int transition) {
+        return STATES[transition & STATE_MASK];
+    }
+    
+    /**
+     * Copy the configuration and commanded state of the controller of every reading into
+     * the primitive arrays the decision pass works on
+     *
+     * @param tanks  The tank index of each reading
+     * @param length The number of readings in the frame
+     */
+    private void gather(int[] tanks, int length) {
+        for (int i = 0; i < length; i++) {
+            TemperatureControllerImpl controller = controllers[tanks[i]];
+            ControllerConfiguration config = controller.getConfiguration();
+            AdjusterState state = controller.getCommandedState();
+            desired[i] = config.getDesiredTemperature();
+            coldBand[i] = state == AdjusterState.HEATING ? config.getTurnOffVariance() : config
+                    .getTurnOnVariance();
+            hotBand[i] = state == AdjusterState.COOLING ? config.getTurnOffVariance() : config
+                    .getTurnOnVariance();
+            current[i] = code(state);
+        }
+    }
+    
+    /**
+     * Decide the adjuster state of every reading. The loop reads and writes flat primitive
+     * arrays only and selects without branching, which leaves the JIT free to unroll and
+     * vectorize it.
+     *
+     * @param temperatures The water temperature of each reading in Celsius degrees
+     * @param length       The number of readings in the frame
+     */
+    private void decide(double[] temperatures, int length) {
+        byte heating = (byte) AdjusterState.HEATING.ordinal();
+        byte cooling = (byte) AdjusterState.COOLING.ordinal();
+        byte off = (byte) AdjusterState.OFF.ordinal();
+        for (int i = 0; i < length; i++) {
+            double diff = temperatures[i] - desired[i];
+            byte state = diff >= hotBand[i] ? cooling : off;
+            decided[i] = diff <= -coldBand[i] ? heating : state;
+        }
+    }
+    
+    /**
+     * Grow the frame arrays to hold a frame
+     *
+     * @param length The number of readings in the frame
+     */
+    private void ensureCapacity(int length) {
+        if (length <= desired.length)
+            return;
+        desired = Arrays.copyOf(desired, length);
+        coldBand = Arrays.copyOf(coldBand, length);
+        hotBand = Arrays.copyOf(hotBand, length);
+        current = Arrays.copyOf(current, length);
+        decided = Arrays.copyOf(decided, length);
+    }
+    
+    /**
+     * Get the code of a commanded state
+     *
+     * @param state The commanded state, or null before the first command
+     *
+     * @return the ordinal of the state, or NO_STATE
+     */
+    private static byte code(AdjusterState state) {
+        return (byte) (state == null ? NO_STATE : state.ordinal());
+    }
+}
@@ -0,0 +1,283 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster;
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends the adjuster commands of many tanks over a shared RelayBus in one frame per tick.
+ * Adjusters created by {@link #adjusterFor(int)} only record the latest state commanded and
+ * return immediately. At every tick the tanks commanded since the previous one are gathered
+ * into a single frame, so a tank flipping several times within a tick is sent only its
+ * latest state, and not at all if that is the state the bus last applied.
+ * <p>
+ * A frame the bus fails to send is retried at the next tick, each of its commands unless
+ * the tank was commanded again meanwhile. The latency from the first command of a tank in a
+ * tick to the acknowledgement of its frame is recorded in a latency histogram. After the
+ * actuator is closed, every command is sent at once in a frame of its own by the thread
+ * commanding it.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class BatchingActuator implements AutoCloseable {
+    private final RelayBus                 bus; // The bus the frames are sent over
+    private final long                     tickNanos; // The time between two frames
+    private final Map<Integer, Slot>       slots = new ConcurrentHashMap<>(); // The adjuster of
+    // each tank, keyed by tank id
+    private final Queue<Slot>              dirty = new ConcurrentLinkedQueue<>(); // The tanks
+    // commanded since the last frame
+    private final LatencyHistogram         latency = new LatencyHistogram(); // The time from a
+    // command to the acknowledgement of its frame
+    private final LongAdder                commanded = new LongAdder(); // The number of states
+    // commanded by the controllers
+    private final LongAdder                sent = new LongAdder(); // The number of commands
+    // sent over the bus
+    private final LongAdder                frames = new LongAdder(); // The number of frames sent
+    private final LongAdder                failures = new LongAdder(); // The number of frames
+    // the bus failed to send
+    private final Thread                   thread; // The thread sending the frames, or null
+    // when they are sent by flush
+    private int[]                          frameTanks = new int[64]; // The tank ids of the frame
+    private AdjusterState[]                frameStates = new AdjusterState[64]; // The states of
+    // the frame
+    private Slot[]                         frameSlots = new Slot[64]; // The tanks of the frame
+    private volatile boolean               closed; // True once the actuator is closed
+    
+    /**
+     * Constructor. Starts a thread sending a frame every tick.
+     *
+     * @param bus  The bus the frames are sent over
+     * @param tick The time between two frames
+     * @param unit The unit of the tick
+     */
+    public BatchingActuator(RelayBus bus, long tick, TimeUnit unit) {
+        this(bus, unit.toNanos(tick), true);
+    }
+    
+    /**
+     * Constructor. Frames are sent by calls to flush.
+     *
+     * @param bus The bus the frames are sent over
+     */
+    BatchingActuator(RelayBus bus) {
+        this(bus, 1, false);
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param bus         The bus the frames are sent over
+     * @param tickNanos   The time between two frames in nanoseconds
+     * @param startThread True to start a thread sending a frame every tick
+     */
+    private BatchingActuator(RelayBus bus, long tickNanos, boolean startThread) {
+        if (bus == null)
+            throw new NullPointerException("bus");
+        if (tickNanos <= 0)
+            throw new IllegalArgumentException("The tick must be positive: " + tickNanos);
+        this.bus = bus;
+        this.tickNanos = tickNanos;
+        if (startThread) {
+            thread = new Thread(this::drive, "aquarium-relay-bus");
+            thread.setDaemon(true);
+            thread.start();
+        } else thread = null;
+    }
+    
+    /**
+     * Get the adjuster of a tank, sending its commands over the bus
+     *
+     * @param tankId The id of the tank
+     *
+     * @return the TemperatureAdjuster to give to the controller of the tank
+     */
+    public TemperatureAdjuster adjusterFor(int tankId) {
+        return slots.computeIfAbsent(tankId, Slot::new);
+    }
+    
+    /**
+     * Get the number of states commanded by the controllers
+     *
+     * @return the number of setState calls
+     */
+    public long getCommandedCount() {
+        return commanded.sum();
+    }
+    
+    /**
+     * Get the number of commands sent over the bus
+     *
+     * @return the number of commands sent
+     */
+    public long getSentCount() {
+        return sent.sum();
+    }
+    
+    /**
+     * Get the number of frames sent over the bus
+     *
+     * @return the number of round-trips
+     */
+    public long getFrameCount() {
+        return frames.sum();
+    }
+    
+    /**
+     * Get the number of frames the bus failed to send
+     *
+     * @return the number of failed frames
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+    
+    /**
+     * Get the time from the first command of a tank in a tick to the acknowledgement of its
+     * frame
+     *
+     * @return the histogram of the command latencies in nanoseconds
+     */
+    public LatencyHistogram getCommandLatency() {
+        return latency;
+    }
+    
+    /**
+     * Send the pending commands, then stop sending frames
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+    
+    /**
+     * Send one frame holding the latest state of every tank commanded since the last frame
+     * and differing from the state last sent to it. Only one thread may flush.
+     *
+     * @return the number of commands sent
+     */
+    synchronized int flush() {
+        int count = 0;
+        for (Slot slot = dirty.poll(); slot != null; slot = dirty.poll()) {
+            AdjusterState state = slot.take();
+            if (state == null || state == slot.sent)
+                continue;
+            if (count == frameTanks.length) {
+                frameTanks = Arrays.copyOf(frameTanks, count * 2);
+                frameStates = Arrays.copyOf(frameStates, count * 2);
+                frameSlots = Arrays.copyOf(frameSlots, count * 2);
+            }
+            frameTanks[count] = slot.tankId;
+            frameStates[count] = state;
+            frameSlots[count++] = slot;
+        }
+        if (count == 0)
+            return 0;
+        try {
+            bus.send(frameTanks, frameStates, count);
+        } catch (RuntimeException e) {
+            failures.increment();
+            for (int i = 0; i < count; i++)
+                frameSlots[i].retry(frameStates[i]);
+            Arrays.fill(frameSlots, 0, count, null);
+            return 0;
+        }
+        long now = System.nanoTime();
+        frames.increment();
+        sent.add(count);
+        for (int i = 0; i < count; i++) {
+            Slot slot = frameSlots[i];
+            slot.sent = frameStates[i];
+            latency.record(now - slot.since);
+            frameSlots[i] = null;
+        }
+        return count;
+    }
+    
+    /**
+     * Send a frame every tick until the actuator is closed. Run by the bus thread.
+     */
+    private void drive() {
+        long next = System.nanoTime() + tickNanos;
+        while (!closed) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            flush();
+            next += tickNanos;
+            if (next - System.nanoTime() < 0)
+                next = System.nanoTime() + tickNanos;
+        }
+    }
+    
+    /**
+     * The adjuster of one tank, holding its latest commanded state until the next frame
+     */
+    private final class Slot implements TemperatureAdjuster {
+        private final int                             tankId; // The id of the tank
+        private final AtomicReference<AdjusterState> pending = new AtomicReference<>(); // The
+        // latest state commanded, or null when the tank is not queued
+        private volatile long                         since; // The System.nanoTime the tank
+        // was queued
+        private AdjusterState                         sent; // The state last sent, or null
+        
+        /**
+         * Constructor.
+         *
+         * @param tankId The id of the tank
+         */
+        Slot(int tankId) {
+            this.tankId = tankId;
+        }
+        
+        @Override
+        public void setState(AdjusterState newState) {
+            commanded.increment();
+            if (pending.getAndSet(newState) == null) {
+                since = System.nanoTime();
+                dirty.offer(this);
+            }
+            if (closed)
+                flush();
+        }
+        
+        /**
+         * Take the latest commanded state, leaving the tank unqueued
+         *
+         * @return the state, or null if the tank has no pending state
+         */
+        AdjusterState take() {
+            return pending.getAndSet(null);
+        }
+        
+        /**
+         * Queue a state again after its frame failed, unless a newer one is pending
+         *
+         * @param state The state of the failed frame
+         */
+        void retry(AdjusterState state) {
+            if (pending.compareAndSet(null, state))
+                dirty.offer(this);
+        }
+    }
+}
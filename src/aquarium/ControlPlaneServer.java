@@ -0,0 +1,619 @@
+package aquarium;
+
+import aquarium.ReadingPublisher.OverflowPolicy;
+import aquarium.ReadingPublisher.Subscriber;
+import aquarium.ReadingPublisher.Subscription;
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static aquarium.TemperatureController.TemperatureScale;
+
+/**
+ * An HTTP control plane for the tanks of a fleet, built on the HTTP server of the JDK. Every
+ * exchange is handled on its own virtual thread when the JVM has them, and on a pool of
+ * daemon platform threads otherwise. Temperatures and variations are read and written in
+ * the current scale of each tank.
+ * <ul>
+ * <li>GET /tanks dumps the state of every tank as a JSON array, GET /tanks/{id} that of one
+ * tank</li>
+ * <li>GET and PUT /tanks/{id}/temperature, /tanks/{id}/variance and /tanks/{id}/scale read
+ * the current temperature, the acceptable variation and the scale, and set the desired
+ * temperature, the acceptable variation and the scale, the value being the plain text
+ * body</li>
+ * <li>POST /tanks updates many tanks at once. Every line of the body is a tank id, or * for
+ * every tank, followed by settings such as temperature=24.5 variance=0.5 scale=CELSIUS.
+ * The whole body is validated before any tank is changed, and the scale of a line is set
+ * before its temperature and variance.</li>
+ * <li>GET /readings streams the readings and transitions of the fleet as chunked
+ * newline-delimited JSON, optionally of one tank with ?tank={id} and ending after
+ * ?limit={n} events. A slow client loses the oldest events.</li>
+ * </ul>
+ *
+ * @version Oct 18, 2026
+ */
+public final class ControlPlaneServer implements AutoCloseable {
+    private static final int    BACKLOG = 4096; // The connections waiting to be accepted
+    private static final int    MAX_BODY = 1 << 20; // The size of the largest request body
+    private static final int    STREAM_BUFFER = 1024; // The events buffered for a stream
+    private static final long   HEARTBEAT_SECONDS = 1; // The idle time after which a stream
+    // writes an empty line to detect a closed connection
+    private static final String JSON = "application/json"; // The type of JSON responses
+    private static final String TEXT = "text/plain; charset=utf-8"; // The type of text
+    // responses
+    
+    private final TemperatureControllerFleet fleet; // The fleet under control
+    private final HttpServer                 server; // The HTTP server
+    private final ExecutorService            executor; // The executor handling the exchanges
+    
+    /**
+     * Constructor.
+     *
+     * @param fleet    The fleet under control
+     * @param server   The HTTP server, bound but not started
+     * @param executor The executor handling the exchanges
+     */
+    private ControlPlaneServer(TemperatureControllerFleet fleet, HttpServer server,
+                               ExecutorService executor) {
+        this.fleet = fleet;
+        this.server = server;
+        this.executor = executor;
+    }
+    
+    /**
+     * Start serving the control plane of a fleet
+     *
+     * @param fleet   The fleet under control
+     * @param address The address to listen on, port 0 picking a free port
+     *
+     * @return the running server
+     *
+     * @throws IOException if the server cannot be bound
+     */
+    public static ControlPlaneServer start(TemperatureControllerFleet fleet,
+                                           InetSocketAddress address) throws IOException {
+        ExecutorService executor = PollingScheduler.newVirtualThreadPerTaskExecutor();
+        if (executor == null) {
+            AtomicInteger index = new AtomicInteger();
+            executor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "aquarium-control-" + index
+                        .getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        HttpServer server = HttpServer.create(address, BACKLOG);
+        ControlPlaneServer control = new ControlPlaneServer(fleet, server, executor);
+        server.createContext("/tanks", control::handleTanks);
+        server.createContext("/readings", control::handleReadings);
+        server.setExecutor(executor);
+        server.start();
+        return control;
+    }
+    
+    /**
+     * Get the address the server listens on
+     *
+     * @return the bound address
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+    
+    /**
+     * Stop the server, ending the streams in progress
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+    
+    /**
+     * Handle an exchange under /tanks
+     *
+     * @param exchange The exchange
+     *
+     * @throws IOException if the response cannot be sent
+     */
+    private void handleTanks(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            if (path.length < 2 || !"tanks".equals(path[1]))
+                throw new RequestException(404, "Not found");
+            if (path.length == 2) {
+                if ("GET".equals(method))
+                    respond(exchange, 200, JSON, dump());
+                else if ("POST".equals(method))
+                    respond(exchange, 200, JSON, "{\"updated\":" + batch(readBody(exchange)) +
+                                                 "}");
+                else throw new RequestException(405, "Use GET or POST on /tanks");
+            } else if (path.length == 3 && "GET".equals(method))
+                respond(exchange, 200, JSON, toJson(parseTankId(path[2]), tank(path[2])));
+            else if (path.length == 4 && "GET".equals(method))
+                respond(exchange, 200, TEXT, get(tank(path[2]), path[3]));
+            else if (path.length == 4 && "PUT".equals(method)) {
+                Setting setting = new Setting(path[3], readBody(exchange).trim());
+                setting.applyTo(tank(path[2]));
+                respond(exchange, 204, TEXT, "");
+            } else if (path.length == 3 || path.length == 4)
+                throw new RequestException(405, "Method not allowed");
+            else throw new RequestException(404, "Not found");
+        } catch (RequestException e) {
+            respond(exchange, e.status, TEXT, e.getMessage() + "\n");
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, TEXT, e.getMessage() + "\n");
+        }
+    }
+    
+    /**
+     * Handle an exchange under /readings by streaming events until the limit is reached, the
+     * client goes away or the fleet is closed
+     *
+     * @param exchange The exchange
+     *
+     * @throws IOException if the response cannot be sent
+     */
+    private void handleReadings(HttpExchange exchange) throws IOException {
+        int tankId;
+        long limit;
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()))
+                throw new RequestException(405, "Use GET on /readings");
+            Map<String, String> query = parseQuery(exchange.getRequestURI());
+            tankId = query.containsKey("tank") ? parseTankId(query.get("tank")) : -1;
+            limit = query.containsKey("limit") ? Long.parseLong(query.get("limit")) :
+                    Long.MAX_VALUE;
+            if (limit < 1)
+                throw new RequestException(400, "limit must be positive: " + limit);
+        } catch (RequestException e) {
+            respond(exchange, e.status, TEXT, e.getMessage() + "\n");
+            return;
+        } catch (NumberFormatException e) {
+            respond(exchange, 400, TEXT, e.getMessage() + "\n");
+            return;
+        }
+        Stream stream = new Stream();
+        try {
+            fleet.getPublisher().subscribe(stream, STREAM_BUFFER, OverflowPolicy.DROP_OLDEST);
+            exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                long sent = 0;
+                while (sent < limit) {
+                    ReadingEvent event = stream.events.poll(HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                    if (event == Stream.END)
+                        break;
+                    if (event == null)
+                        out.write('\n');
+                    else {
+                        stream.subscription.request(1);
+                        if (tankId >= 0 && event.getTankId() != tankId)
+                            continue;
+                        out.write(toJson(event).getBytes(StandardCharsets.UTF_8));
+                        sent++;
+                    }
+                    out.flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // The client went away
+        } finally {
+            stream.cancel();
+        }
+    }
+    
+    /**
+     * Dump the state of every tank
+     *
+     * @return the JSON array of the tanks ordered by id
+     */
+    private String dump() {
+        Map<Integer, String> tanks = new ConcurrentSkipListMap<>();
+        fleet.forEach((tankId, controller) -> tanks.put(tankId, toJson(tankId, controller)));
+        return "[" + String.join(",", tanks.values()) + "]";
+    }
+    
+    /**
+     * Read a setting of a tank
+     *
+     * @param controller The controller of the tank
+     * @param name       The name of the setting
+     *
+     * @return the value of the setting as plain text
+     */
+    private static String get(TemperatureController controller, String name) {
+        switch (name) {
+            case "temperature":
+                return controller.getCurrentTemperature() + "\n";
+            case "variance":
+                return controller.getAcceptableVariation() + "\n";
+            case "scale":
+                return controller.getTemperatureScale() + "\n";
+            default:
+                throw new RequestException(404, "Unknown setting: " + name);
+        }
+    }
+    
+    /**
+     * Validate then apply a batch of updates
+     *
+     * @param body The body of the request, one update per line
+     *
+     * @return the number of lines applied
+     */
+    private int batch(String body) {
+        List<Update> updates = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            String[] words = line.trim().split("\\s+");
+            if (words[0].isEmpty())
+                continue;
+            if (words.length == 1)
+                throw new RequestException(400, "No setting for tank " + words[0]);
+            Update update = new Update("*".equals(words[0]) ? null : tank(words[0]));
+            for (int i = 1; i < words.length; i++) {
+                int equals = words[i].indexOf('=');
+                if (equals < 0)
+                    throw new RequestException(400, "Expected name=value: " + words[i]);
+                update.add(new Setting(words[i].substring(0, equals), words[i].substring
+                        (equals + 1)));
+            }
+            updates.add(update);
+        }
+        for (Update update : updates)
+            update.apply(fleet);
+        return updates.size();
+    }
+    
+    /**
+     * Get the controller of a tank
+     *
+     * @param tankId The id of the tank, as text
+     *
+     * @return the controller
+     */
+    private TemperatureController tank(String tankId) {
+        TemperatureController controller = fleet.getTank(parseTankId(tankId));
+        if (controller == null)
+            throw new RequestException(404, "Unknown tank: " + tankId);
+        return controller;
+    }
+    
+    /**
+     * Parse a tank id
+     *
+     * @param tankId The id of the tank, as text
+     *
+     * @return the id of the tank
+     */
+    private static int parseTankId(String tankId) {
+        try {
+            int id = Integer.parseInt(tankId);
+            if (id >= 0)
+                return id;
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new RequestException(400, "Invalid tank id: " + tankId);
+    }
+    
+    /**
+     * Parse the query string of a request
+     *
+     * @param uri The URI of the request
+     *
+     * @return the parameters, keyed by name
+     */
+    private static Map<String, String> parseQuery(URI uri) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = uri.getQuery();
+        if (query != null)
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                if (equals > 0)
+                    parameters.put(parameter.substring(0, equals), parameter.substring(equals +
+                                                                                       1));
+            }
+        return parameters;
+    }
+    
+    /**
+     * Read the body of a request
+     *
+     * @param exchange The exchange
+     *
+     * @return the body decoded as UTF-8
+     *
+     * @throws IOException if the body cannot be read
+     */
+    private static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            for (int read = in.read(chunk); read >= 0; read = in.read(chunk)) {
+                if (body.size() + read > MAX_BODY)
+                    throw new RequestException(413, "The body exceeds " + MAX_BODY + " bytes");
+                body.write(chunk, 0, read);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Send a complete response and end the exchange
+     *
+     * @param exchange    The exchange
+     * @param status      The status code
+     * @param contentType The type of the body
+     * @param body        The body, empty for none
+     *
+     * @throws IOException if the response cannot be sent
+     */
+    private static void respond(HttpExchange exchange, int status, String contentType,
+                                String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+    
+    /**
+     * Describe the state of a tank
+     *
+     * @param tankId     The id of the tank
+     * @param controller The controller of the tank
+     *
+     * @return the JSON object of the tank
+     */
+    private static String toJson(int tankId, TemperatureController controller) {
+        StringBuilder json = new StringBuilder(128).append("{\"tank\":").append(tankId);
+        json.append(",\"temperature\":").append(number(controller.getCurrentTemperature()));
+        if (controller instanceof TemperatureControllerImpl) {
+            TemperatureControllerImpl impl = (TemperatureControllerImpl) controller;
+            ControllerConfiguration config = impl.getConfiguration();
+            json.append(",\"desired\":").append(number(config.fromCelsius(config
+                    .getDesiredTemperature())));
+            json.append(",\"state\":").append(state(impl.getCommandedState()));
+        }
+        json.append(",\"variance\":").append(number(controller.getAcceptableVariation()));
+        return json.append(",\"scale\":\"").append(controller.getTemperatureScale()).append
+                ("\"}").toString();
+    }
+    
+    /**
+     * Describe a reading or transition as a line of newline-delimited JSON
+     *
+     * @param event The event
+     *
+     * @return the JSON object of the event followed by a newline
+     */
+    private static String toJson(ReadingEvent event) {
+        StringBuilder json = new StringBuilder(128).append("{\"tank\":").append(event
+                .getTankId());
+        json.append(",\"time\":").append(event.getTimeMillis());
+        json.append(",\"type\":\"").append(event.isTransition() ? "transition" : "reading");
+        json.append("\",\"temperature\":").append(number(event.getTemperature()));
+        if (event.isTransition())
+            json.append(",\"from\":").append(state(event.getPreviousState()));
+        return json.append(",\"state\":").append(state(event.getState())).append("}\n")
+                .toString();
+    }
+    
+    /**
+     * Format an adjuster state as JSON
+     *
+     * @param state The adjuster state, or null
+     *
+     * @return the quoted name of the state, or null
+     */
+    private static String state(AdjusterState state) {
+        return state == null ? "null" : "\"" + state + "\"";
+    }
+    
+    /**
+     * Format a number as JSON
+     *
+     * @param value The number
+     *
+     * @return the number, or null if it is not finite
+     */
+    private static String number(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(
+                value);
+    }
+    
+    /**
+     * A failed request, answered with its status code and message
+     */
+    private static final class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L; // The version of the serialized form
+        
+        private final int status; // The HTTP status code
+        
+        /**
+         * Constructor.
+         *
+         * @param status  The HTTP status code
+         * @param message The message sent to the client
+         */
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+    
+    /**
+     * A validated setting of a tank
+     */
+    private static final class Setting {
+        private final String           name; // The name of the setting
+        private final double           value; // The temperature or variation
+        private final TemperatureScale scale; // The scale, or null
+        
+        /**
+         * Constructor.
+         *
+         * @param name  The name of the setting
+         * @param value The value of the setting, as text
+         */
+        Setting(String name, String value) {
+            this.name = name;
+            try {
+                switch (name) {
+                    case "temperature":
+                    case "variance":
+                        this.value = Double.parseDouble(value);
+                        if (Double.isNaN(this.value) || Double.isInfinite(this.value) ||
+                            "variance".equals(name) && this.value < 0)
+                            throw new NumberFormatException();
+                        this.scale = null;
+                        break;
+                    case "scale":
+                        this.value = Double.NaN;
+                        this.scale = TemperatureScale.valueOf(value.toUpperCase());
+                        break;
+                    default:
+                        throw new RequestException(404, "Unknown setting: " + name);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new RequestException(400, "Invalid " + name + ": " + value);
+            }
+        }
+        
+        /**
+         * Apply the setting to a tank
+         *
+         * @param controller The controller of the tank
+         */
+        void applyTo(TemperatureController controller) {
+            if (scale != null)
+                controller.setTemperatureScale(scale);
+            else if ("temperature".equals(name))
+                controller.setTemperature(value);
+            else controller.setAcceptableVariation(value);
+        }
+        
+        /**
+         * Apply the setting to every tank of a fleet
+         *
+         * @param fleet The fleet
+         */
+        void applyTo(TemperatureControllerFleet fleet) {
+            if (scale != null)
+                fleet.setTemperatureScale(scale);
+            else if ("temperature".equals(name))
+                fleet.setTemperature(value);
+            else fleet.setAcceptableVariation(value);
+        }
+    }
+    
+    /**
+     * The settings of one line of a batch, the scale first
+     */
+    private static final class Update {
+        private final TemperatureController controller; // The tank, or null for every tank
+        private final List<Setting>         settings = new ArrayList<>(); // The settings
+        
+        /**
+         * Constructor.
+         *
+         * @param controller The controller of the tank, or null for every tank
+         */
+        Update(TemperatureController controller) {
+            this.controller = controller;
+        }
+        
+        /**
+         * Add a setting, the scale being kept ahead of the others
+         *
+         * @param setting The setting
+         */
+        void add(Setting setting) {
+            if (setting.scale != null)
+                settings.add(0, setting);
+            else settings.add(setting);
+        }
+        
+        /**
+         * Apply the settings
+         *
+         * @param fleet The fleet, used when the update is for every tank
+         */
+        void apply(TemperatureControllerFleet fleet) {
+            for (Setting setting : settings)
+                if (controller == null)
+                    setting.applyTo(fleet);
+                else setting.applyTo(controller);
+        }
+    }
+    
+    /**
+     * The subscriber of a stream, handing the events to the thread writing the response
+     */
+    private static final class Stream implements Subscriber {
+        private static final ReadingEvent END = new ReadingEvent(-1, 0, Double.NaN, null, null,
+                                                                 false); // The end of stream
+        
+        private final BlockingQueue<ReadingEvent> events = new LinkedBlockingQueue<>(); // The
+        // events received and not yet written
+        private volatile Subscription             subscription; // The subscription
+        private volatile boolean                  cancelled; // True once the stream is ended
+        
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled)
+                subscription.cancel();
+            else subscription.request(STREAM_BUFFER);
+        }
+        
+        @Override
+        public void onNext(ReadingEvent event) {
+            events.add(event);
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            events.add(END);
+        }
+        
+        @Override
+        public void onComplete() {
+            events.add(END);
+        }
+        
+        /**
+         * End the subscription, also when it is not yet started
+         */
+        void cancel() {
+            cancelled = true;
+            Subscription current = subscription;
+            if (current != null)
+                current.cancel();
+        }
+    }
+}
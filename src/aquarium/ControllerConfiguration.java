@@ -0,0 +1,183 @@
+package aquarium;
+
+import static aquarium.TemperatureController.TemperatureScale;
+import static aquarium.TemperatureController.TemperatureScale.CELSIUS;
+
+/**
+ * An immutable snapshot of the configuration of a temperature controller. Temperatures and
+ * variations are always kept in Celsius degrees; the temperature scale only affects how they
+ * are reported and supplied through the TemperatureController interface. A controller
+ * publishes a whole snapshot at once, so a reader never sees half of an update.
+ *
+ * @version Oct 18, 2026
+ */
+public final class ControllerConfiguration {
+    public static final ControllerConfiguration DEFAULT = new ControllerConfiguration(CELSIUS,
+                                                                                      20.0, 1.0,
+                                                                                      1.0);
+    // The configuration of a newly created controller
+    
+    private final TemperatureScale temperatureScale; // The TemperatureScale
+    private final double           desiredTemperature; // The desired temperature in Celsius
+    // degrees
+    private final double           turnOnVariance; // The variation starting the adjuster in
+    // Celsius degrees
+    private final double           turnOffVariance; // The variation stopping the adjuster in
+    // Celsius degrees
+    
+    /**
+     * Constructor.
+     *
+     * @param temperatureScale   The TemperatureScale
+     * @param desiredTemperature The desired temperature in Celsius degrees
+     * @param turnOnVariance     The variation starting the adjuster in Celsius degrees
+     * @param turnOffVariance    The variation stopping the adjuster in Celsius degrees
+     *
+     * @throws IllegalArgumentException if the desired temperature is not finite, or if
+     *                                  turnOffVariance is negative, larger than
+     *                                  turnOnVariance or NaN
+     */
+    public ControllerConfiguration(TemperatureScale temperatureScale, double desiredTemperature,
+                                   double turnOnVariance, double turnOffVariance) {
+        if (temperatureScale == null)
+            throw new IllegalArgumentException("temperatureScale must not be null");
+        if (Double.isNaN(desiredTemperature) || Double.isInfinite(desiredTemperature))
+            throw new IllegalArgumentException("Invalid desired temperature: " +
+                                               desiredTemperature);
+        if (!(turnOffVariance >= 0 && turnOffVariance <= turnOnVariance))
+            throw new IllegalArgumentException("Turn-off variance " + turnOffVariance +
+                                               " must be between 0 and " + turnOnVariance);
+        this.temperatureScale = temperatureScale;
+        this.desiredTemperature = desiredTemperature;
+        this.turnOnVariance = turnOnVariance;
+        this.turnOffVariance = turnOffVariance;
+    }
+    
+    /**
+     * Get the temperature scale
+     *
+     * @return the temperature scale
+     */
+    public TemperatureScale getTemperatureScale() {
+        return temperatureScale;
+    }
+    
+    /**
+     * Get the desired temperature
+     *
+     * @return the desired temperature in Celsius degrees
+     */
+    public double getDesiredTemperature() {
+        return desiredTemperature;
+    }
+    
+    /**
+     * Get the variation starting the adjuster
+     *
+     * @return the variation starting the adjuster in Celsius degrees
+     */
+    public double getTurnOnVariance() {
+        return turnOnVariance;
+    }
+    
+    /**
+     * Get the variation stopping the adjuster
+     *
+     * @return the variation stopping the adjuster in Celsius degrees
+     */
+    public double getTurnOffVariance() {
+        return turnOffVariance;
+    }
+    
+    /**
+     * Return a copy of this configuration with another temperature scale
+     *
+     * @param scale The new temperature scale
+     *
+     * @return the new configuration
+     */
+    public ControllerConfiguration withTemperatureScale(TemperatureScale scale) {
+        return new ControllerConfiguration(scale, desiredTemperature, turnOnVariance,
+                                           turnOffVariance);
+    }
+    
+    /**
+     * Return a copy of this configuration with another desired temperature
+     *
+     * @param temperature The desired temperature in Celsius degrees
+     *
+     * @return the new configuration
+     */
+    public ControllerConfiguration withDesiredTemperature(double temperature) {
+        return new ControllerConfiguration(temperatureScale, temperature, turnOnVariance,
+                                           turnOffVariance);
+    }
+    
+    /**
+     * Return a copy of this configuration with other turn-on and turn-off variations
+     *
+     * @param turnOn  The variation starting the adjuster in Celsius degrees
+     * @param turnOff The variation stopping the adjuster in Celsius degrees
+     *
+     * @return the new configuration
+     */
+    public ControllerConfiguration withVariance(double turnOn, double turnOff) {
+        return new ControllerConfiguration(temperatureScale, desiredTemperature, turnOn,
+                                           turnOff);
+    }
+    
+    /**
+     * Convert a temperature from this configuration's scale to Celsius degrees
+     *
+     * @param temperature The temperature in this configuration's scale
+     *
+     * @return the temperature in Celsius degrees
+     */
+    public double toCelsius(double temperature) {
+        return temperatureScale == CELSIUS ? temperature : Utility.fahrenheitToCelsius
+                (temperature);
+    }
+    
+    /**
+     * Convert a temperature from Celsius degrees to this configuration's scale
+     *
+     * @param temperature The temperature in Celsius degrees
+     *
+     * @return the temperature in this configuration's scale
+     */
+    public double fromCelsius(double temperature) {
+        return temperatureScale == CELSIUS ? temperature : Utility.celsiusToFahrenheit
+                (temperature);
+    }
+    
+    /**
+     * Convert a temperature variation from this configuration's scale to Celsius degrees
+     *
+     * @param variance The variation in this configuration's scale
+     *
+     * @return the variation in Celsius degrees
+     */
+    public double varianceToCelsius(double variance) {
+        return temperatureScale == CELSIUS ? variance : Utility.fahrenheitToCelsiusVariance
+                (variance);
+    }
+    
+    /**
+     * Convert a temperature variation from Celsius degrees to this configuration's scale
+     *
+     * @param variance The variation in Celsius degrees
+     *
+     * @return the variation in this configuration's scale
+     */
+    public double varianceFromCelsius(double variance) {
+        return temperatureScale == CELSIUS ? variance : Utility.celsiusToFahrenheitVariance
+                (variance);
+    }
+    
+    @Override
+    public String toString() {
+        return "ControllerConfiguration{" + "temperatureScale=" + temperatureScale +
+               ", desiredTemperature=" + desiredTemperature + ", turnOnVariance=" +
+               turnOnVariance + ", turnOffVariance=" + turnOffVariance + '}';
+    }
+}
@@ -0,0 +1,186 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The hot-path metrics of one temperature controller: striped counters of readings,
+ * decisions and transitions, a histogram of decision latencies, and the time the adjuster
+ * spent in each state. Recording never allocates nor takes a lock. The metrics are published
+ * over JMX by registering the instance returned by
+ * {@link TemperatureControllerImpl#getMetrics()}.
+ *
+ * @version Oct 18, 2026
+ */
+public final class ControllerMetrics implements ControllerMetricsMBean {
+    private static final AdjusterState[] STATES = AdjusterState.values(); // The adjuster
+    // states by ordinal
+    
+    private final LongAdder        readings = new LongAdder(); // The number of readings
+    private final LongAdder        decisions = new LongAdder(); // The number of decisions
+    private final LongAdder        transitions = new LongAdder(); // The number of transitions
+    private final LongAdder        suppressions = new LongAdder(); // The number of decisions
+    // matching the commanded state
+    private final LatencyHistogram decisionLatency = new LatencyHistogram(); // The time taken
+    // by each decision
+    private final AtomicLongArray  timeInState = new AtomicLongArray(STATES.length); // The
+    // nanoseconds spent in each state before the current one
+    private volatile AdjusterState state; // The current state
+    private volatile long          stateSince; // The System.nanoTime the current state was
+    // entered
+    private volatile int           version; // Odd while a transition is being recorded, so
+    // that readers retry instead of seeing half of it
+    
+    /**
+     * Count a decision
+     *
+     * @param fromSensor True if the sensor delivered the reading decided on
+     */
+    void recordDecision(boolean fromSensor) {
+        decisions.increment();
+        if (fromSensor)
+            readings.increment();
+    }
+    
+    /**
+     * Count a decision that needed no command because it matched the commanded state
+     */
+    void recordSuppression() {
+        suppressions.increment();
+    }
+    
+    /**
+     * Record the time taken by a decision
+     *
+     * @param nanos The time in nanoseconds
+     */
+    void recordDecisionLatency(long nanos) {
+        decisionLatency.record(nanos);
+    }
+    
+    /**
+     * Count a transition and start accounting time to the new state. Transitions are recorded
+     * by one thread at a time, the one holding the decision lock of the controller.
+     *
+     * @param to       The new state
+     * @param nanoTime The System.nanoTime of the transition
+     */
+    void recordTransition(AdjusterState to, long nanoTime) {
+        transitions.increment();
+        int start = version;
+        version = start + 1;
+        AdjusterState from = state;
+        if (from != null)
+            timeInState.addAndGet(from.ordinal(), nanoTime - stateSince);
+        state = to;
+        stateSince = nanoTime;
+        version = start + 2;
+    }
+    
+    /**
+     * Get the time spent in a state, including the current one
+     *
+     * @param inState The adjuster state
+     * @param unit    The unit of the result
+     *
+     * @return the time spent in the state
+     */
+    public long getTimeInState(AdjusterState inState, TimeUnit unit) {
+        long nanos;
+        int start;
+        do {
+            start = version;
+            nanos = timeInState.get(inState.ordinal());
+            if (inState == state)
+                nanos += System.nanoTime() - stateSince;
+        } while ((start & 1) != 0 || start != version);
+        return unit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Get the histogram of decision latencies
+     *
+     * @return the histogram
+     */
+    public LatencyHistogram getDecisionLatency() {
+        return decisionLatency;
+    }
+    
+    @Override
+    public long getReadingCount() {
+        return readings.sum();
+    }
+    
+    @Override
+    public long getDecisionCount() {
+        return decisions.sum();
+    }
+    
+    @Override
+    public long getTransitionCount() {
+        return transitions.sum();
+    }
+    
+    /**
+     * Get the number of decisions that needed no command because they matched the commanded
+     * state
+     *
+     * @return the number of suppressed commands
+     */
+    public long getSuppressedCount() {
+        return suppressions.sum();
+    }
+    
+    @Override
+    public double getMeanDecisionNanos() {
+        return decisionLatency.getMean();
+    }
+    
+    @Override
+    public long getDecisionNanosP50() {
+        return decisionLatency.getPercentile(50);
+    }
+    
+    @Override
+    public long getDecisionNanosP99() {
+        return decisionLatency.getPercentile(99);
+    }
+    
+    @Override
+    public long getMaxDecisionNanos() {
+        return decisionLatency.getMax();
+    }
+    
+    @Override
+    public long getHeatingMillis() {
+        return getTimeInState(AdjusterState.HEATING, TimeUnit.MILLISECONDS);
+    }
+    
+    @Override
+    public long getCoolingMillis() {
+        return getTimeInState(AdjusterState.COOLING, TimeUnit.MILLISECONDS);
+    }
+    
+    @Override
+    public long getOffMillis() {
+        return getTimeInState(AdjusterState.OFF, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Get the state last commanded to the adjuster
+     *
+     * @return the state, or null if none was commanded
+     */
+    AdjusterState getState() {
+        return state;
+    }
+    
+    @Override
+    public String getAdjusterState() {
+        AdjusterState current = state;
+        return current == null ? null : current.name();
+    }
+}
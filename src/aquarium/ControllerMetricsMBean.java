@@ -0,0 +1,85 @@
+package aquarium;
+
+/**
+ * The management interface publishing the metrics of one temperature controller over JMX.
+ *
+ * @version Oct 18, 2026
+ */
+public interface ControllerMetricsMBean {
+    /**
+     * Get the number of readings delivered by the sensor
+     *
+     * @return the number of readings
+     */
+    long getReadingCount();
+    
+    /**
+     * Get the number of decisions made, one per reading or configuration change
+     *
+     * @return the number of decisions
+     */
+    long getDecisionCount();
+    
+    /**
+     * Get the number of adjuster transitions commanded
+     *
+     * @return the number of transitions
+     */
+    long getTransitionCount();
+    
+    /**
+     * Get the mean time taken by a decision, excluding commanding the adjuster
+     *
+     * @return the mean decision time in nanoseconds, or NaN if none was timed
+     */
+    double getMeanDecisionNanos();
+    
+    /**
+     * Get the median time taken by a decision
+     *
+     * @return the median decision time in nanoseconds
+     */
+    long getDecisionNanosP50();
+    
+    /**
+     * Get the 99th percentile of the time taken by a decision
+     *
+     * @return the 99th percentile decision time in nanoseconds
+     */
+    long getDecisionNanosP99();
+    
+    /**
+     * Get the longest time taken by a decision
+     *
+     * @return the longest decision time in nanoseconds
+     */
+    long getMaxDecisionNanos();
+    
+    /**
+     * Get the time the adjuster spent commanded to HEATING
+     *
+     * @return the time in milliseconds
+     */
+    long getHeatingMillis();
+    
+    /**
+     * Get the time the adjuster spent commanded to COOLING
+     *
+     * @return the time in milliseconds
+     */
+    long getCoolingMillis();
+    
+    /**
+     * Get the time the adjuster spent commanded to OFF
+     *
+     * @return the time in milliseconds
+     */
+    long getOffMillis();
+    
+    /**
+     * Get the state last commanded to the adjuster
+     *
+     * @return the name of the state, or null if no command has been issued yet
+     */
+    String getAdjusterState();
+}
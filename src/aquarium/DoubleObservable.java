@@ -0,0 +1,26 @@
+package aquarium;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * A primitive counterpart of {@link Observable}. Observers receive each reading as a plain
+ * double, so notifying them neither boxes the reading into a Double nor produces a
+ * meaningless Void result.
+ *
+ * @version Oct 18, 2026
+ */
+public interface DoubleObservable {
+    /**
+     * Add observer subscribing to readings
+     *
+     * @param observer The observer
+     */
+    void addObserver(DoubleConsumer observer);
+    
+    /**
+     * Unsubscribe observer from readings
+     *
+     * @param observer The observer
+     */
+    void removeObserver(DoubleConsumer observer);
+}
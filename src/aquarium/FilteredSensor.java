@@ -0,0 +1,381 @@
+package aquarium;
+
+import aquarium.hw.TemperatureSensor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * A filter stage between a noisy TemperatureSensor and its observers, normally a
+ * controller. Every reading of the sensor goes through the ReadingFilter, and only the
+ * readings it lets through are delivered, so sub-resolution noise no longer re-runs the
+ * decision on every change.
+ * <p>
+ * The latest reading held back by the minimum interval is delivered when the interval
+ * expires, unless a later reading was delivered first or fell back within the deadband; a
+ * step change inside the interval is therefore delayed, never lost. A TimingWheel times the
+ * interval and hands the held reading to a delivery executor, so the observers, normally the
+ * decision and its adjuster, never run on the wheel thread. A median window still accounts
+ * for the readings held back. Readings are filtered and delivered under a lock, so the
+ * observers are notified from one thread at a time and in order.
+ * </p>
+ * <p>
+ * Sensors built without a wheel share one, with its delivery threads, for as long as one of
+ * them is open; closing the last one stops the wheel.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class FilteredSensor implements TemperatureSensor, DoubleObservable,
+        AutoCloseable {
+    private final TemperatureSensor         sensor; // The filtered sensor
+    private final ReadingFilter             filter; // The filter applied to the readings
+    private final TimingWheel               wheel; // The wheel delivering held readings, or null
+    // when the filter has no minimum interval
+    private final Executor                  delivery; // The executor delivering held readings
+    private final SharedWheel               shared; // The shared wheel released on close, or
+    // null when the wheel was given
+    private final LongSupplier              clock; // The source of System.nanoTime
+    private final Object                    deliveryLock = new Object(); // Held while a reading is
+    // filtered and delivered
+    private final Observable                legacy; // The legacy view of the primitive observers
+    private final double[]                  window; // The last readings, for the median
+    private final double[]                  sorted; // The scratch array the median is taken in
+    private final ObserverRegistry.OfDouble observers = new ObserverRegistry.OfDouble();
+    // The observers
+    private int                             windowSize; // The number of readings in the window
+    private int                             windowNext; // The index of the next reading in window
+    private double                          lastForwarded = Double.NaN; // The last reading
+    // delivered
+    private long                            lastForwardedTime; // The time it was delivered
+    private double                          held = Double.NaN; // The latest reading held back by
+    // the minimum interval, NaN if none
+    private TimingWheel.Timeout             trailing; // The delivery of the held reading, or null
+    private boolean                         closed; // True once the sensor is closed
+    private volatile long                   received; // The number of readings of the sensor
+    private volatile long                   forwarded; // The number of readings delivered
+    
+    /**
+     * Constructor. A filter with a minimum interval uses the shared wheel until the sensor is
+     * closed.
+     *
+     * @param sensor The noisy sensor
+     * @param filter The filter applied to its readings
+     */
+    public FilteredSensor(TemperatureSensor sensor, ReadingFilter filter) {
+        this(sensor, filter, filter.getMinIntervalNanos() > 0 ? SharedWheel.acquire() : null);
+    }
+    
+    /**
+     * Constructor. The readings held back by the minimum interval are delivered by the wheel
+     * thread.
+     *
+     * @param sensor The noisy sensor
+     * @param filter The filter applied to its readings
+     * @param wheel  The wheel timing the readings held back by the minimum interval, left open
+     *               on close, and the source of time; null if the filter has no minimum
+     *               interval
+     */
+    public FilteredSensor(TemperatureSensor sensor, ReadingFilter filter, TimingWheel wheel) {
+        this(sensor, filter, wheel, Runnable::run);
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param sensor   The noisy sensor
+     * @param filter   The filter applied to its readings
+     * @param wheel    The wheel timing the readings held back by the minimum interval, left
+     *                 open on close, and the source of time; null if the filter has no minimum
+     *                 interval
+     * @param delivery The executor delivering the readings held back, such as the thread of
+     *                 the sensor or of its tank
+     */
+    public FilteredSensor(TemperatureSensor sensor, ReadingFilter filter, TimingWheel wheel,
+                          Executor delivery) {
+        this(sensor, filter, wheel, delivery, null);
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param sensor The noisy sensor
+     * @param filter The filter applied to its readings
+     * @param shared The shared wheel, or null if the filter has no minimum interval
+     */
+    private FilteredSensor(TemperatureSensor sensor, ReadingFilter filter, SharedWheel shared) {
+        this(sensor, filter, shared != null ? shared.wheel : null, shared != null ? shared
+                .delivery : Runnable::run, shared);
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param sensor   The noisy sensor
+     * @param filter   The filter applied to its readings
+     * @param wheel    The wheel timing the readings held back, or null
+     * @param delivery The executor delivering the readings held back
+     * @param shared   The shared wheel released on close, or null
+     */
+    private FilteredSensor(TemperatureSensor sensor, ReadingFilter filter, TimingWheel wheel,
+                           Executor delivery, SharedWheel shared) {
+        if (wheel == null && filter.getMinIntervalNanos() > 0)
+            throw new NullPointerException("wheel");
+        if (delivery == null)
+            throw new NullPointerException("delivery");
+        this.sensor = sensor;
+        this.filter = filter;
+        this.wheel = wheel;
+        this.delivery = delivery;
+        this.shared = shared;
+        this.clock = wheel != null ? wheel::nanoTime : System::nanoTime;
+        this.window = new double[filter.getMedianOf()];
+        this.sorted = new double[filter.getMedianOf()];
+        this.legacy = ObservableAdapter.toLegacy(new DoubleObservable() {
+            @Override
+            public void addObserver(DoubleConsumer observer) {
+                FilteredSensor.this.addObserver(observer);
+            }
+            
+            @Override
+            public void removeObserver(DoubleConsumer observer) {
+                FilteredSensor.this.removeObserver(observer);
+            }
+        });
+        ObservableAdapter.fromLegacy(sensor).addObserver(this::onReading);
+    }
+    
+    @Override
+    public void addObserver(DoubleConsumer observer) {
+        observers.add(observer);
+    }
+    
+    @Override
+    public void removeObserver(DoubleConsumer observer) {
+        observers.remove(observer);
+    }
+    
+    @Override
+    public void addObserver(Function<Double, Void> observer) {
+        legacy.addObserver(observer);
+    }
+    
+    @Override
+    public void removeObserver(Function<Double, Void> observer) {
+        legacy.removeObserver(observer);
+    }
+    
+    /**
+     * Set the change notifying the observers of the underlying sensor
+     *
+     * @param delta The change
+     */
+    @Override
+    public void setDelta(double delta) {
+        sensor.setDelta(delta);
+    }
+    
+    /**
+     * Read the underlying sensor directly, bypassing the filter
+     *
+     * @return the current temperature
+     */
+    @Override
+    public double getTemperature() {
+        return sensor.getTemperature();
+    }
+    
+    /**
+     * Get the filter applied to the readings
+     *
+     * @return the filter
+     */
+    public ReadingFilter getFilter() {
+        return filter;
+    }
+    
+    /**
+     * Get the number of readings delivered by the underlying sensor
+     *
+     * @return the number of readings received
+     */
+    public long getReceivedCount() {
+        return received;
+    }
+    
+    /**
+     * Get the number of readings let through the filter
+     *
+     * @return the number of readings forwarded
+     */
+    public long getForwardedCount() {
+        return forwarded;
+    }
+    
+    /**
+     * Stop holding back readings, dropping the one held if any, and release the shared wheel
+     * if the sensor uses it. Readings of the underlying sensor still go through the filter,
+     * without the minimum interval.
+     */
+    @Override
+    public void close() {
+        synchronized (deliveryLock) {
+            if (closed)
+                return;
+            closed = true;
+            held = Double.NaN;
+            if (trailing != null) {
+                trailing.cancel();
+                trailing = null;
+            }
+        }
+        if (shared != null)
+            shared.release();
+    }
+    
+    /**
+     * Filter a reading of the underlying sensor and deliver it if it passes
+     *
+     * @param temperature The reading
+     */
+    private void onReading(double temperature) {
+        synchronized (deliveryLock) {
+            received++;
+            double smoothed = median(temperature);
+            if (!Double.isNaN(lastForwarded) && Math.abs(smoothed - lastForwarded) < filter
+                    .getDeadband()) {
+                held = Double.NaN;
+                return;
+            }
+            long now = clock.getAsLong();
+            if (!closed && !Double.isNaN(lastForwarded) && now - lastForwardedTime < filter
+                    .getMinIntervalNanos()) {
+                held = smoothed;
+                if (trailing == null)
+                    trailing = wheel.scheduleAt(() -> delivery.execute(this::onIntervalExpired),
+                                                lastForwardedTime + filter.getMinIntervalNanos());
+                return;
+            }
+            deliver(smoothed, now);
+        }
+    }
+    
+    /**
+     * Deliver the reading held back by the minimum interval, if any. Run by the delivery
+     * executor when the interval expires, and ignored if a reading was delivered since it was
+     * scheduled or the sensor is closed.
+     */
+    private void onIntervalExpired() {
+        synchronized (deliveryLock) {
+            long now = clock.getAsLong();
+            if (closed || now - lastForwardedTime < filter.getMinIntervalNanos())
+                return;
+            trailing = null;
+            if (!Double.isNaN(held))
+                deliver(held, now);
+        }
+    }
+    
+    /**
+     * Deliver a reading to the observers, dropping any reading held back
+     *
+     * @param temperature The reading
+     * @param now         The time of delivery
+     */
+    private void deliver(double temperature, long now) {
+        held = Double.NaN;
+        if (trailing != null) {
+            trailing.cancel();
+            trailing = null;
+        }
+        lastForwarded = temperature;
+        lastForwardedTime = now;
+        forwarded++;
+        observers.notifyObservers(temperature);
+    }
+    
+    /**
+     * Add a reading to the median window and take the median of the window
+     *
+     * @param temperature The reading
+     *
+     * @return the median of the last readings
+     */
+    private double median(double temperature) {
+        if (window.length == 1)
+            return temperature;
+        window[windowNext] = temperature;
+        windowNext = (windowNext + 1) % window.length;
+        windowSize = Math.min(windowSize + 1, window.length);
+        for (int i = 0; i < windowSize; i++) {
+            double value = window[i];
+            int j = i;
+            for (; j > 0 && sorted[j - 1] > value; j--)
+                sorted[j] = sorted[j - 1];
+            sorted[j] = value;
+        }
+        int middle = windowSize / 2;
+        return windowSize % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+    
+    /**
+     * The wheel shared by the filtered sensors built without one, with the threads delivering
+     * their held readings. It is started by the first sensor acquiring it and stopped once
+     * every sensor has released it.
+     */
+    private static final class SharedWheel {
+        private static SharedWheel current; // The running shared wheel, or null
+        
+        private final TimingWheel     wheel = new TimingWheel(1, TimeUnit.MILLISECONDS); // The
+        // wheel
+        private final ExecutorService delivery = newDeliveryThreads(); // The delivery threads
+        private int                   users; // The number of sensors using the wheel
+        
+        /**
+         * Use the shared wheel, starting it if no sensor uses it
+         *
+         * @return the shared wheel
+         */
+        static synchronized SharedWheel acquire() {
+            if (current == null)
+                current = new SharedWheel();
+            current.users++;
+            return current;
+        }
+        
+        /**
+         * Stop using the shared wheel, stopping it if no other sensor uses it
+         */
+        void release() {
+            synchronized (SharedWheel.class) {
+                if (--users > 0)
+                    return;
+                if (current == this)
+                    current = null;
+            }
+            wheel.close();
+            delivery.shutdown();
+        }
+        
+        /**
+         * Create a pool of daemon threads delivering held readings
+         *
+         * @return the pool
+         */
+        private static ExecutorService newDeliveryThreads() {
+            AtomicInteger index = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "aquarium-filter-delivery-" + index
+                        .getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
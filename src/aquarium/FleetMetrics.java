@@ -0,0 +1,170 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The metrics of a fleet of temperature controllers, aggregated from the ControllerMetrics
+ * of every tank. The aggregates are computed all at once into a snapshot, which serves every
+ * attribute read within SNAPSHOT_NANOS of it, so a JMX client reading all the attributes
+ * gathers the tanks and merges their histograms only once. Tanks whose controller is not a
+ * TemperatureControllerImpl have no metrics and only count towards the number of tanks.
+ *
+ * @version Oct 18, 2026
+ */
+public final class FleetMetrics implements FleetMetricsMBean {
+    static final long SNAPSHOT_NANOS = TimeUnit.SECONDS.toNanos(1); // The time a snapshot
+    // serves attribute reads
+    
+    private final TemperatureControllerFleet fleet; // The fleet
+    private volatile Snapshot                snapshot; // The latest snapshot, or null
+    
+    /**
+     * Constructor.
+     *
+     * @param fleet The fleet
+     */
+    FleetMetrics(TemperatureControllerFleet fleet) {
+        this.fleet = fleet;
+    }
+    
+    /**
+     * Get the decision latencies of every tank merged into one histogram
+     *
+     * @return the merged histogram, shared with the other attributes of the snapshot
+     */
+    public LatencyHistogram getDecisionLatency() {
+        return snapshot().decisionLatency;
+    }
+    
+    @Override
+    public int getTankCount() {
+        return snapshot().tankCount;
+    }
+    
+    @Override
+    public int getTanksHeating() {
+        return snapshot().tanksInState[AdjusterState.HEATING.ordinal()];
+    }
+    
+    @Override
+    public int getTanksCooling() {
+        return snapshot().tanksInState[AdjusterState.COOLING.ordinal()];
+    }
+    
+    @Override
+    public long getReadingCount() {
+        return snapshot().readings;
+    }
+    
+    @Override
+    public long getDecisionCount() {
+        return snapshot().decisions;
+    }
+    
+    @Override
+    public long getTransitionCount() {
+        return snapshot().transitions;
+    }
+    
+    @Override
+    public double getMeanDecisionNanos() {
+        return getDecisionLatency().getMean();
+    }
+    
+    @Override
+    public long getDecisionNanosP50() {
+        return getDecisionLatency().getPercentile(50);
+    }
+    
+    @Override
+    public long getDecisionNanosP99() {
+        return getDecisionLatency().getPercentile(99);
+    }
+    
+    @Override
+    public long getMaxDecisionNanos() {
+        return getDecisionLatency().getMax();
+    }
+    
+    @Override
+    public long getHeatingMillis() {
+        return snapshot().millisInState[AdjusterState.HEATING.ordinal()];
+    }
+    
+    @Override
+    public long getCoolingMillis() {
+        return snapshot().millisInState[AdjusterState.COOLING.ordinal()];
+    }
+    
+    @Override
+    public long getOffMillis() {
+        return snapshot().millisInState[AdjusterState.OFF.ordinal()];
+    }
+    
+    /**
+     * Get the latest snapshot, taking a new one if it is older than SNAPSHOT_NANOS
+     *
+     * @return the snapshot
+     */
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        long now = System.nanoTime();
+        if (current != null && now - current.takenAt < SNAPSHOT_NANOS)
+            return current;
+        List<ControllerMetrics> metrics = new ArrayList<>();
+        fleet.forEach((tankId, controller) -> {
+            if (controller instanceof TemperatureControllerImpl)
+                synchronized (metrics) {
+                    metrics.add(((TemperatureControllerImpl) controller).getMetrics());
+                }
+        });
+        current = new Snapshot(now, fleet.size(), metrics);
+        snapshot = current;
+        return current;
+    }
+    
+    /**
+     * The aggregates of every tank at one time
+     */
+    private static final class Snapshot {
+        private final long             takenAt; // The System.nanoTime of the snapshot
+        private final int              tankCount; // The number of tanks
+        private final int[]            tanksInState = new int[AdjusterState.values().length];
+        // The number of tanks commanded to each state
+        private final long[]           millisInState = new long[AdjusterState.values()
+                .length]; // The time spent in each state, summed over tanks
+        private final LatencyHistogram decisionLatency = new LatencyHistogram(); // The
+        // decision latencies of every tank
+        private long                   readings; // The number of readings
+        private long                   decisions; // The number of decisions
+        private long                   transitions; // The number of transitions
+        
+        /**
+         * Constructor.
+         *
+         * @param takenAt   The System.nanoTime of the snapshot
+         * @param tankCount The number of tanks
+         * @param metrics   The metrics of the tanks that have some
+         */
+        Snapshot(long takenAt, int tankCount, List<ControllerMetrics> metrics) {
+            this.takenAt = takenAt;
+            this.tankCount = tankCount;
+            for (ControllerMetrics tank : metrics) {
+                AdjusterState state = tank.getState();
+                if (state != null)
+                    tanksInState[state.ordinal()]++;
+                for (AdjusterState each : AdjusterState.values())
+                    millisInState[each.ordinal()] += tank.getTimeInState(each,
+                                                                         TimeUnit.MILLISECONDS);
+                decisionLatency.add(tank.getDecisionLatency());
+                readings += tank.getReadingCount();
+                decisions += tank.getDecisionCount();
+                transitions += tank.getTransitionCount();
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package aquarium;
+
+/**
+ * The management interface publishing the metrics of a whole fleet of temperature
+ * controllers over JMX, aggregated over every tank into a snapshot at most a second old.
+ *
+ * @version Oct 18, 2026
+ */
+public interface FleetMetricsMBean {
+    /**
+     * Get the number of tanks in the fleet
+     *
+     * @return the number of tanks
+     */
+    int getTankCount();
+    
+    /**
+     * Get the number of tanks whose adjuster is commanded to HEATING
+     *
+     * @return the number of tanks heating
+     */
+    int getTanksHeating();
+    
+    /**
+     * Get the number of tanks whose adjuster is commanded to COOLING
+     *
+     * @return the number of tanks cooling
+     */
+    int getTanksCooling();
+    
+    /**
+     * Get the number of readings delivered by the sensors of the fleet
+     *
+     * @return the number of readings
+     */
+    long getReadingCount();
+    
+    /**
+     * Get the number of decisions made by the controllers of the fleet
+     *
+     * @return the number of decisions
+     */
+    long getDecisionCount();
+    
+    /**
+     * Get the number of adjuster transitions commanded in the fleet
+     *
+     * @return the number of transitions
+     */
+    long getTransitionCount();
+    
+    /**
+     * Get the mean time taken by a decision over the fleet
+     *
+     * @return the mean decision time in nanoseconds, or NaN if none was timed
+     */
+    double getMeanDecisionNanos();
+    
+    /**
+     * Get the median time taken by a decision over the fleet
+     *
+     * @return the median decision time in nanoseconds
+     */
+    long getDecisionNanosP50();
+    
+    /**
+     * Get the 99th percentile of the time taken by a decision over the fleet
+     *
+     * @return the 99th percentile decision time in nanoseconds
+     */
+    long getDecisionNanosP99();
+    
+    /**
+     * Get the longest time taken by a decision in the fleet
+     *
+     * @return the longest decision time in nanoseconds
+     */
+    long getMaxDecisionNanos();
+    
+    /**
+     * Get the time the adjusters of the fleet spent commanded to HEATING, summed over tanks
+     *
+     * @return the time in milliseconds
+     */
+    long getHeatingMillis();
+    
+    /**
+     * Get the time the adjusters of the fleet spent commanded to COOLING, summed over tanks
+     *
+     * @return the time in milliseconds
+     */
+    long getCoolingMillis();
+    
+    /**
+     * Get the time the adjusters of the fleet spent commanded to OFF, summed over tanks
+     *
+     * @return the time in milliseconds
+     */
+    long getOffMillis();
+}
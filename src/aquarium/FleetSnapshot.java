@@ -0,0 +1,201 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+import static aquarium.TemperatureController.TemperatureScale;
+
+/**
+ * An immutable snapshot of the state of every controller of a fleet, in a compact binary
+ * form written and read in one go. A fleet is rebuilt from a snapshot by
+ * {@link TemperatureControllerFleet#restore(FleetSnapshot, java.util.function.IntFunction,
+ * java.util.function.IntFunction)} without going through the setters, each of which reads
+ * the sensor and may command the adjuster.
+ * <p>
+ * The snapshot starts with a 12-byte header: a magic number, the format version and the
+ * number of tanks. Each tank then takes 40 bytes: the tank id, the temperature scale, the
+ * commanded adjuster state, two reserved bytes, the desired temperature and the turn-on and
+ * turn-off variations in Celsius degrees, and the maximum reading age in nanoseconds. A
+ * CRC-32 of everything before it ends the snapshot.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class FleetSnapshot {
+    public static final  int                RECORD_SIZE = 40; // The size of a tank in bytes
+    private static final int                MAGIC = 0x41515331; // The magic number of a
+    // snapshot
+    private static final int                VERSION = 1; // The version of the format
+    private static final int                HEADER_SIZE = 12; // The size of the header
+    private static final byte               NO_STATE = 3; // The state code of a controller
+    // that never commanded its adjuster
+    private static final AdjusterState[]    STATES = AdjusterState.values(); // The adjuster
+    // states by ordinal
+    private static final TemperatureScale[] SCALES = TemperatureScale.values(); // The
+    // temperature scales by ordinal
+    
+    private final ByteBuffer records; // The records of the tanks, positioned at the first
+    private final int        size; // The number of tanks
+    
+    /**
+     * Constructor.
+     *
+     * @param records The records of the tanks, positioned at the first
+     * @param size    The number of tanks
+     */
+    private FleetSnapshot(ByteBuffer records, int size) {
+        this.records = records;
+        this.size = size;
+    }
+    
+    /**
+     * Take a snapshot of controllers
+     *
+     * @param tankIds     The ids of the tanks
+     * @param controllers The controllers of the tanks, in the same order
+     * @param count       The number of tanks
+     *
+     * @return the snapshot
+     */
+    static FleetSnapshot of(int[] tankIds, TemperatureControllerImpl[] controllers, int count) {
+        ByteBuffer records = ByteBuffer.allocate(count * RECORD_SIZE);
+        for (int i = 0; i < count; i++) {
+            TemperatureControllerImpl controller = controllers[i];
+            ControllerConfiguration config = controller.getConfiguration();
+            AdjusterState state = controller.getCommandedState();
+            records.putInt(tankIds[i]);
+            records.put((byte) config.getTemperatureScale().ordinal());
+            records.put(state == null ? NO_STATE : (byte) state.ordinal());
+            records.putShort((short) 0);
+            records.putDouble(config.getDesiredTemperature());
+            records.putDouble(config.getTurnOnVariance());
+            records.putDouble(config.getTurnOffVariance());
+            records.putLong(controller.getMaxReadingAge());
+        }
+        records.flip();
+        return new FleetSnapshot(records.asReadOnlyBuffer(), count);
+    }
+    
+    /**
+     * Read a snapshot written by writeTo
+     *
+     * @param file The file holding the snapshot
+     *
+     * @return the snapshot
+     *
+     * @throws IOException if the file cannot be read or does not hold a valid snapshot
+     */
+    public static FleetSnapshot readFrom(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < HEADER_SIZE + Integer.BYTES || buffer.getInt() != MAGIC)
+            throw new IOException("Not a fleet snapshot: " + file);
+        int version = buffer.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported snapshot version " + version + ": " + file);
+        int size = buffer.getInt();
+        int end = HEADER_SIZE + size * RECORD_SIZE;
+        if (size < 0 || end != buffer.capacity() - Integer.BYTES)
+            throw new IOException("Truncated fleet snapshot: " + file);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, end);
+        if ((int) crc.getValue() != buffer.getInt(end))
+            throw new IOException("Corrupt fleet snapshot: " + file);
+        buffer.limit(end);
+        return new FleetSnapshot(buffer.slice().asReadOnlyBuffer(), size);
+    }
+    
+    /**
+     * Write the snapshot to a file, replacing it atomically
+     *
+     * @param file The file
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + records.remaining() +
+                                                Integer.BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(size).put(records.duplicate());
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, buffer.array());
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Get the number of tanks in the snapshot
+     *
+     * @return the number of tanks
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Get the id of a tank
+     *
+     * @param index The index of the tank in the snapshot
+     *
+     * @return the tank id
+     */
+    public int getTankId(int index) {
+        return records.getInt(offset(index));
+    }
+    
+    /**
+     * Get the configuration of the controller of a tank
+     *
+     * @param index The index of the tank in the snapshot
+     *
+     * @return the configuration
+     */
+    public ControllerConfiguration getConfiguration(int index) {
+        int offset = offset(index);
+        return new ControllerConfiguration(SCALES[records.get(offset + 4)], records.getDouble
+                (offset + 8), records.getDouble(offset + 16), records.getDouble(offset + 24));
+    }
+    
+    /**
+     * Get the state last commanded to the adjuster of a tank
+     *
+     * @param index The index of the tank in the snapshot
+     *
+     * @return the commanded state, or null if the controller never commanded its adjuster
+     */
+    public AdjusterState getCommandedState(int index) {
+        byte state = records.get(offset(index) + 5);
+        return state == NO_STATE ? null : STATES[state];
+    }
+    
+    /**
+     * Get the age after which the cached reading of a tank is stale
+     *
+     * @param index The index of the tank in the snapshot
+     *
+     * @return the age in nanoseconds, Long.MAX_VALUE when the cached reading never goes stale
+     */
+    public long getMaxReadingAge(int index) {
+        return records.getLong(offset(index) + 32);
+    }
+    
+    /**
+     * Get the offset of the record of a tank
+     *
+     * @param index The index of the tank in the snapshot
+     *
+     * @return the offset in bytes
+     */
+    private int offset(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Tank index " + index + " of " + size);
+        return index * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,197 @@
+package aquarium;
+
+import aquarium.hw.TemperatureSensor;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+
+/**
+ * A single TemperatureSensor standing for the several probes of a large tank. Every reading
+ * of a probe replaces its latest reading and delivers the fusion of the latest readings of
+ * every probe, by the tank's SensorFusion, to the observers, normally a controller.
+ * <p>
+ * Probes may notify concurrently from their own threads. The latest readings are kept as the
+ * bits of doubles in an atomic array stamped by a version. One probe thread at a time
+ * delivers: it fuses the latest readings and notifies the observers, again while other probes
+ * reported meanwhile, and the others leave their reading to it. Observers are thus notified
+ * from one thread at a time, in order, and a fusion superseded before its delivery is
+ * dropped; probe callbacks never take a lock and fusing allocates nothing. A probe counts
+ * once it has delivered a reading; until one has, no reading is delivered.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class FusedSensor implements TemperatureSensor, DoubleObservable {
+    private static final long NO_READING = Double.doubleToRawLongBits(Double.NaN); // The bits
+    // of a probe without a reading
+    
+    private final TemperatureSensor[]       probes; // The probes of the tank
+    private final SensorFusion              fusion; // The fusion of their readings
+    private final AtomicLongArray           latest; // The bits of the latest reading of each probe
+    private final ThreadLocal<double[]>     scratch; // The array each thread fuses readings in
+    private final Observable                legacy; // The legacy view of the primitive observers
+    private final ObserverRegistry.OfDouble observers = new ObserverRegistry.OfDouble();
+    // The observers
+    private final AtomicLong                version = new AtomicLong(); // The number of probe
+    // readings kept
+    private final AtomicBoolean             delivering = new AtomicBoolean(); // True while a
+    // thread delivers
+    private volatile long                   delivered; // The version last delivered,
+    // written by the delivering thread
+    
+    /**
+     * Constructor.
+     *
+     * @param probes The probes of the tank, at least one
+     * @param fusion The fusion of their readings
+     */
+    public FusedSensor(List<? extends TemperatureSensor> probes, SensorFusion fusion) {
+        if (probes.isEmpty())
+            throw new IllegalArgumentException("A fused sensor needs at least one probe");
+        if (fusion == null)
+            throw new NullPointerException("fusion");
+        this.probes = probes.toArray(new TemperatureSensor[0]);
+        this.fusion = fusion;
+        this.latest = new AtomicLongArray(this.probes.length);
+        this.scratch = ThreadLocal.withInitial(() -> new double[this.probes.length]);
+        this.legacy = ObservableAdapter.toLegacy(new DoubleObservable() {
+            @Override
+            public void addObserver(DoubleConsumer observer) {
+                FusedSensor.this.addObserver(observer);
+            }
+            
+            @Override
+            public void removeObserver(DoubleConsumer observer) {
+                FusedSensor.this.removeObserver(observer);
+            }
+        });
+        for (int i = 0; i < this.probes.length; i++) {
+            int probe = i;
+            latest.set(probe, NO_READING);
+            ObservableAdapter.fromLegacy(this.probes[probe]).addObserver(
+                    temperature -> onReading(probe, temperature));
+        }
+    }
+    
+    @Override
+    public void addObserver(DoubleConsumer observer) {
+        observers.add(observer);
+    }
+    
+    @Override
+    public void removeObserver(DoubleConsumer observer) {
+        observers.remove(observer);
+    }
+    
+    @Override
+    public void addObserver(Function<Double, Void> observer) {
+        legacy.addObserver(observer);
+    }
+    
+    @Override
+    public void removeObserver(Function<Double, Void> observer) {
+        legacy.removeObserver(observer);
+    }
+    
+    /**
+     * Set the change notifying the observers of every probe
+     *
+     * @param delta The change
+     */
+    @Override
+    public void setDelta(double delta) {
+        for (TemperatureSensor probe : probes)
+            probe.setDelta(delta);
+    }
+    
+    /**
+     * Read every probe directly and fuse the readings
+     *
+     * @return the fused temperature, or NaN if no probe gives a reading
+     */
+    @Override
+    public double getTemperature() {
+        double[] readings = scratch.get();
+        int count = 0;
+        for (TemperatureSensor probe : probes) {
+            double temperature = probe.getTemperature();
+            if (!Double.isNaN(temperature))
+                readings[count++] = temperature;
+        }
+        return fusion.fuse(readings, count);
+    }
+    
+    /**
+     * Get the fusion of the readings
+     *
+     * @return the fusion
+     */
+    public SensorFusion getFusion() {
+        return fusion;
+    }
+    
+    /**
+     * Get the number of probes
+     *
+     * @return the number of probes
+     */
+    public int getProbeCount() {
+        return probes.length;
+    }
+    
+    /**
+     * Get the latest reading of a probe
+     *
+     * @param probe The index of the probe
+     *
+     * @return the reading, or NaN if the probe has not delivered one
+     */
+    public double getProbeReading(int probe) {
+        return Double.longBitsToDouble(latest.get(probe));
+    }
+    
+    /**
+     * Keep the reading of a probe and deliver the fusion of the latest readings, unless
+     * another thread is delivering and will deliver it
+     *
+     * @param probe       The index of the probe
+     * @param temperature The reading
+     */
+    private void onReading(int probe, double temperature) {
+        latest.set(probe, Double.doubleToRawLongBits(temperature));
+        version.incrementAndGet();
+        while (delivering.compareAndSet(false, true)) {
+            try {
+                long current = version.get();
+                if (current != delivered) {
+                    delivered = current;
+                    deliverFusion();
+                }
+            } finally {
+                delivering.set(false);
+            }
+            if (version.get() == delivered)
+                return;
+        }
+    }
+    
+    /**
+     * Fuse the latest readings and notify the observers. Run by the delivering thread.
+     */
+    private void deliverFusion() {
+        double[] readings = scratch.get();
+        int count = 0;
+        for (int i = 0; i < readings.length; i++) {
+            double reading = Double.longBitsToDouble(latest.get(i));
+            if (!Double.isNaN(reading))
+                readings[count++] = reading;
+        }
+        double fused = fusion.fuse(readings, count);
+        if (!Double.isNaN(fused))
+            observers.notifyObservers(fused);
+    }
+}
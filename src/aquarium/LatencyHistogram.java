@@ -0,0 +1,152 @@
+package aquarium;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds with a fixed set of log-linear buckets: every
+ * power of two is split into four buckets, so a recorded latency is reported within 25% of
+ * its value. Recording is a bucket computation and an atomic increment, and never allocates.
+ *
+ * @version Oct 18, 2026
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 2; // The bits splitting each power of two
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // The buckets per power of
+    // two
+    public static final  int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS; // The
+    // number of buckets, covering every non-negative long
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT); // The number of
+    // latencies recorded in each bucket
+    private final AtomicLong      total = new AtomicLong(); // The sum of the latencies
+    private final AtomicLong      max = new AtomicLong(); // The highest latency
+    
+    /**
+     * Record a latency
+     *
+     * @param nanos The latency in nanoseconds, negative values counting as zero
+     */
+    public void record(long nanos) {
+        long latency = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(latency));
+        total.addAndGet(latency);
+        long highest = max.get();
+        while (latency > highest && !max.compareAndSet(highest, latency))
+            highest = max.get();
+    }
+    
+    /**
+     * Add every latency recorded by another histogram to this one
+     *
+     * @param other The other histogram
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other.counts.get(i);
+            if (count != 0)
+                counts.addAndGet(i, count);
+        }
+        total.addAndGet(other.total.get());
+        long latency = other.max.get();
+        long highest = max.get();
+        while (latency > highest && !max.compareAndSet(highest, latency))
+            highest = max.get();
+    }
+    
+    /**
+     * Get the number of latencies recorded
+     *
+     * @return the number of latencies
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            count += counts.get(i);
+        return count;
+    }
+    
+    /**
+     * Get the number of latencies recorded in a bucket
+     *
+     * @param bucket The index of the bucket
+     *
+     * @return the number of latencies
+     */
+    public long getCount(int bucket) {
+        return counts.get(bucket);
+    }
+    
+    /**
+     * Get the mean latency
+     *
+     * @return the mean latency in nanoseconds, or NaN if none was recorded
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? Double.NaN : (double) total.get() / count;
+    }
+    
+    /**
+     * Get the highest latency recorded
+     *
+     * @return the highest latency in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+    
+    /**
+     * Get a percentile of the recorded latencies
+     *
+     * @param percentile The percentile, between 0 and 100
+     *
+     * @return the upper bound of the bucket holding the percentile in nanoseconds, or 0 if
+     * none was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        long count = getCount();
+        if (count == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return Math.min(upperBound(i), getMax());
+        }
+        return getMax();
+    }
+    
+    /**
+     * Get the bucket of a latency
+     *
+     * @param nanos The latency in nanoseconds, not negative
+     *
+     * @return the index of the bucket
+     */
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS)
+            return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> exponent - SUB_BUCKET_BITS) & SUB_BUCKETS - 1;
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+    
+    /**
+     * Get the highest latency falling in a bucket
+     *
+     * @param bucket The index of the bucket
+     *
+     * @return the upper bound of the bucket in nanoseconds, inclusive
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << exponent - SUB_BUCKET_BITS;
+        return lower + (1L << exponent - SUB_BUCKET_BITS) - 1;
+    }
+}
@@ -0,0 +1,307 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Supervises the sensors and adjusters of many tanks from a timing wheel. A tank expires
+ * when its sensor has not notified for the reading timeout, or when its adjuster has been
+ * in a state other than the safe state for the state timeout, such as a heater running for
+ * hours without the water reaching the band. Its controller is then forced into the safe
+ * state. After a stalled sensor, the next reading decides again as usual; after a stuck
+ * adjuster, the safe state is kept whatever the readings until the water is back within the
+ * band or the tank is reset.
+ * <p>
+ * Every tank has one pending timeout, for the earlier of its two deadlines, and a reading
+ * only records its time, so fifty thousand tanks reporting many times a second are
+ * supervised by the wheel thread at the cost of one timeout per tank and timeout period.
+ * The sensors must notify at least once per reading timeout, as polled sensors do; a sensor
+ * only notifying changes of the water temperature looks stalled while the water is steady.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class LivenessWatchdog implements AutoCloseable {
+    private static final long DEFAULT_TICK = TimeUnit.MILLISECONDS.toNanos(100); // The tick of the
+    // wheel created by the watchdog
+    
+    private final TimingWheel         wheel; // The wheel firing the checks
+    private final boolean             ownsWheel; // True if closing the watchdog closes the wheel
+    private final long                readingTimeout; // The nanoseconds without a reading after
+    // which a tank expires
+    private final long                stateTimeout; // The nanoseconds in a state other than the
+    // safe state after which a tank expires, or 0 for no limit
+    private final AdjusterState       safeState; // The state expired tanks are forced into
+    private final Map<Integer, Watch> watches = new ConcurrentHashMap<>(); // The watch of each
+    // tank, keyed by tank id
+    private final LongAdder           stalled = new LongAdder(); // The number of expiries of a
+    // sensor
+    private final LongAdder           stuck = new LongAdder(); // The number of expiries of an
+    // adjuster
+    
+    /**
+     * Constructor. Creates a timing wheel of 100 millisecond ticks driven by its own thread.
+     *
+     * @param readingTimeout The time without a reading after which a tank expires
+     * @param stateTimeout   The time in a state other than the safe state after which a tank
+     *                       expires, or 0 for no limit
+     * @param unit           The unit of the timeouts
+     * @param safeState      The state expired tanks are forced into
+     */
+    public LivenessWatchdog(long readingTimeout, long stateTimeout, TimeUnit unit,
+                            AdjusterState safeState) {
+        this(new TimingWheel(DEFAULT_TICK, TimeUnit.NANOSECONDS), true, unit.toNanos
+                (readingTimeout), unit.toNanos(stateTimeout), safeState);
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param wheel          The timing wheel firing the checks, left open on close
+     * @param readingTimeout The time without a reading after which a tank expires
+     * @param stateTimeout   The time in a state other than the safe state after which a tank
+     *                       expires, or 0 for no limit
+     * @param unit           The unit of the timeouts
+     * @param safeState      The state expired tanks are forced into
+     */
+    public LivenessWatchdog(TimingWheel wheel, long readingTimeout, long stateTimeout,
+                            TimeUnit unit, AdjusterState safeState) {
+        this(wheel, false, unit.toNanos(readingTimeout), unit.toNanos(stateTimeout), safeState);
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param wheel          The timing wheel firing the checks
+     * @param ownsWheel      True if closing the watchdog closes the wheel
+     * @param readingTimeout The nanoseconds without a reading after which a tank expires
+     * @param stateTimeout   The nanoseconds in a state other than the safe state after which
+     *                       a tank expires, or 0 for no limit
+     * @param safeState      The state expired tanks are forced into
+     */
+    private LivenessWatchdog(TimingWheel wheel, boolean ownsWheel, long readingTimeout,
+                             long stateTimeout, AdjusterState safeState) {
+        if (readingTimeout <= 0 || stateTimeout < 0)
+            throw new IllegalArgumentException("Invalid timeouts: " + readingTimeout + ", " +
+                                               stateTimeout);
+        if (safeState == null)
+            throw new NullPointerException("safeState");
+        this.wheel = wheel;
+        this.ownsWheel = ownsWheel;
+        this.readingTimeout = readingTimeout;
+        this.stateTimeout = stateTimeout;
+        this.safeState = safeState;
+    }
+    
+    /**
+     * Start supervising a tank, replacing its previous supervision. The reading timeout
+     * starts now.
+     *
+     * @param tankId     The id of the tank
+     * @param controller The controller of the tank
+     */
+    public void watch(int tankId, TemperatureControllerImpl controller) {
+        Watch watch = new Watch(controller, wheel.nanoTime());
+        Watch previous = watches.put(tankId, watch);
+        if (previous != null)
+            previous.cancel();
+        controller.addListener(watch);
+        watch.schedule(watch.deadline());
+    }
+    
+    /**
+     * Stop supervising a tank
+     *
+     * @param tankId The id of the tank
+     *
+     * @return true if the tank was supervised, false otherwise
+     */
+    public boolean unwatch(int tankId) {
+        Watch watch = watches.remove(tankId);
+        if (watch == null)
+            return false;
+        watch.cancel();
+        return true;
+    }
+    
+    /**
+     * Release the safe state a tank was kept in after its adjuster was stuck, so that the
+     * next reading decides again
+     *
+     * @param tankId The id of the tank
+     *
+     * @return true if the tank was kept in the safe state, false otherwise
+     */
+    public boolean reset(int tankId) {
+        Watch watch = watches.get(tankId);
+        return watch != null && watch.controller.releaseLatch();
+    }
+    
+    /**
+     * Get the number of tanks supervised
+     *
+     * @return the number of tanks
+     */
+    public int getWatchedCount() {
+        return watches.size();
+    }
+    
+    /**
+     * Check whether a tank was forced into the safe state and has not reported since
+     *
+     * @param tankId The id of the tank
+     *
+     * @return true if the tank expired, false otherwise
+     */
+    public boolean isExpired(int tankId) {
+        Watch watch = watches.get(tankId);
+        return watch != null && watch.expired;
+    }
+    
+    /**
+     * Get the number of times a tank expired because its sensor stopped notifying
+     *
+     * @return the number of stalled sensors
+     */
+    public long getStalledCount() {
+        return stalled.sum();
+    }
+    
+    /**
+     * Get the number of times a tank expired because its adjuster stayed in a state too long
+     *
+     * @return the number of stuck adjusters
+     */
+    public long getStuckCount() {
+        return stuck.sum();
+    }
+    
+    /**
+     * Stop supervising every tank, and the wheel if the watchdog created it
+     */
+    @Override
+    public void close() {
+        for (Integer tankId : watches.keySet())
+            unwatch(tankId);
+        if (ownsWheel)
+            wheel.close();
+    }
+    
+    /**
+     * The supervision of one tank, listening to its controller and checked by the wheel
+     */
+    private final class Watch implements ReadingListener, Runnable {
+        private final TemperatureControllerImpl controller; // The controller of the tank
+        private final AtomicBoolean             idle = new AtomicBoolean(); // True while no check
+        // is pending, once the sensor stalled
+        private volatile long                   lastReading; // The wheel time of the last reading
+        private volatile AdjusterState          state; // The state last commanded
+        private volatile long                   stateSince; // The wheel time it was commanded
+        private volatile boolean                expired; // True once forced into the safe state,
+        // until the next reading
+        private volatile boolean                cancelled; // True once unwatched
+        private volatile TimingWheel.Timeout    timeout; // The pending check
+        
+        /**
+         * Constructor.
+         *
+         * @param controller The controller of the tank
+         * @param now        The wheel time
+         */
+        Watch(TemperatureControllerImpl controller, long now) {
+            this.controller = controller;
+            this.lastReading = now;
+            this.state = controller.getCommandedState();
+            this.stateSince = now;
+        }
+        
+        @Override
+        public void onReading(long timeMillis, double temperature, AdjusterState decided) {
+            lastReading = wheel.nanoTime();
+            if (expired)
+                expired = false;
+            if (idle.get() && idle.compareAndSet(true, false))
+                schedule(deadline());
+        }
+        
+        @Override
+        public void onTransition(long timeMillis, double temperature, AdjusterState from,
+                                 AdjusterState to) {
+            stateSince = wheel.nanoTime();
+            state = to;
+        }
+        
+        /**
+         * Check the tank, forcing it into the safe state if it expired. Run by the wheel
+         * thread.
+         */
+        @Override
+        public void run() {
+            if (cancelled)
+                return;
+            long now = wheel.nanoTime();
+            long seen = lastReading;
+            if (now - seen >= readingTimeout) {
+                idle.set(true);
+                if (lastReading != seen) {
+                    if (idle.compareAndSet(true, false))
+                        schedule(deadline());
+                    return;
+                }
+                stalled.increment();
+                expired = true;
+                controller.force(safeState);
+                return;
+            }
+            if (stateTimeout > 0 && state != safeState && state != null && now - stateSince >=
+                                                                             stateTimeout) {
+                stuck.increment();
+                expired = true;
+                controller.latch(safeState);
+            }
+            schedule(deadline());
+        }
+        
+        /**
+         * Stop supervising the tank
+         */
+        void cancel() {
+            cancelled = true;
+            controller.removeListener(this);
+            TimingWheel.Timeout current = timeout;
+            if (current != null)
+                current.cancel();
+        }
+        
+        /**
+         * Get the time of the next check
+         *
+         * @return the earlier of the reading and state deadlines, in wheel time
+         */
+        long deadline() {
+            long deadline = lastReading + readingTimeout;
+            AdjusterState current = state;
+            if (stateTimeout > 0 && current != safeState && current != null)
+                deadline = Math.min(deadline, stateSince + stateTimeout);
+            return deadline;
+        }
+        
+        /**
+         * Schedule the next check
+         *
+         * @param deadline The wheel time of the check
+         */
+        void schedule(long deadline) {
+            if (cancelled)
+                return;
+            timeout = wheel.scheduleAt(this, deadline);
+            if (cancelled)
+                timeout.cancel();
+        }
+    }
+}
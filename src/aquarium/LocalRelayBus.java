@@ -0,0 +1,102 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster;
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A RelayBus standing in for the real bus in tests and simulations. Each command of a frame
+ * is applied to the adjuster connected for its tank, after a simulated round-trip per frame.
+ * Commands to a tank without an adjuster are counted and dropped.
+ *
+ * @version Oct 18, 2026
+ */
+public final class LocalRelayBus implements RelayBus {
+    private final Map<Integer, TemperatureAdjuster> adjusters = new ConcurrentHashMap<>(); // The
+    // adjuster of each tank, keyed by tank id
+    private final long                              roundTripNanos; // The time a frame takes
+    private final LongAdder                         frames = new LongAdder(); // The number of
+    // frames sent
+    private final LongAdder                         commands = new LongAdder(); // The number of
+    // commands applied
+    private final LongAdder                         dropped = new LongAdder(); // The number of
+    // commands to a tank without an adjuster
+    
+    /**
+     * Constructor. Frames take no time.
+     */
+    public LocalRelayBus() {
+        this(0, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param roundTrip The time a frame takes, whatever its size
+     * @param unit      The unit of the round-trip
+     */
+    public LocalRelayBus(long roundTrip, TimeUnit unit) {
+        if (roundTrip < 0)
+            throw new IllegalArgumentException("Invalid round-trip: " + roundTrip);
+        this.roundTripNanos = unit.toNanos(roundTrip);
+    }
+    
+    /**
+     * Connect the adjuster of a tank to the bus, replacing the one it had
+     *
+     * @param tankId   The id of the tank
+     * @param adjuster The adjuster
+     */
+    public void connect(int tankId, TemperatureAdjuster adjuster) {
+        adjusters.put(tankId, adjuster);
+    }
+    
+    @Override
+    public void send(int[] tankIds, AdjusterState[] states, int count) {
+        frames.increment();
+        long end = System.nanoTime() + roundTripNanos;
+        for (long wait = roundTripNanos; wait > 0; wait = end - System.nanoTime())
+            LockSupport.parkNanos(wait);
+        for (int i = 0; i < count; i++) {
+            TemperatureAdjuster adjuster = adjusters.get(tankIds[i]);
+            if (adjuster == null)
+                dropped.increment();
+            else {
+                adjuster.setState(states[i]);
+                commands.increment();
+            }
+        }
+    }
+    
+    /**
+     * Get the number of frames sent
+     *
+     * @return the number of round-trips
+     */
+    public long getFrameCount() {
+        return frames.sum();
+    }
+    
+    /**
+     * Get the number of commands applied to an adjuster
+     *
+     * @return the number of commands
+     */
+    public long getCommandCount() {
+        return commands.sum();
+    }
+    
+    /**
+     * Get the number of commands to a tank without an adjuster
+     *
+     * @return the number of dropped commands
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,121 @@
+package aquarium;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+
+/**
+ * Bridges between the legacy boxed {@link Observable} and the primitive
+ * {@link DoubleObservable} channels.
+ *
+ * @version Oct 18, 2026
+ */
+public final class ObservableAdapter {
+    /**
+     * Private constructor. This class only provides static adapters.
+     */
+    private ObservableAdapter() {
+    }
+    
+    /**
+     * Expose a legacy Observable as a DoubleObservable. A single boxed observer is registered
+     * with the source while primitive observers are subscribed, and each reading is unboxed
+     * once for all of them.
+     *
+     * @param source The legacy Observable
+     *
+     * @return the DoubleObservable view of the source
+     */
+    public static DoubleObservable fromLegacy(Observable source) {
+        return source instanceof DoubleObservable ? (DoubleObservable) source : new
+                LegacyToDouble(source);
+    }
+    
+    /**
+     * Expose a DoubleObservable as a legacy Observable. Only the readings delivered to legacy
+     * observers are boxed, once per reading; primitive observers of the source are
+     * unaffected.
+     *
+     * @param source The DoubleObservable
+     *
+     * @return the legacy Observable view of the source
+     */
+    public static Observable toLegacy(DoubleObservable source) {
+        return source instanceof Observable ? (Observable) source : new DoubleToLegacy(source);
+    }
+    
+    /**
+     * A DoubleObservable view of a legacy Observable
+     */
+    private static final class LegacyToDouble implements DoubleObservable {
+        private final Observable                          source; // The legacy Observable
+        private final CopyOnWriteArrayList<DoubleConsumer> observers; // The primitive observers
+        private final Function<Double, Void>              bridge; // The boxed observer
+        // registered with the source
+        
+        /**
+         * Constructor.
+         *
+         * @param source The legacy Observable
+         */
+        LegacyToDouble(Observable source) {
+            this.source = source;
+            this.observers = new CopyOnWriteArrayList<>();
+            this.bridge = (Double temperature) -> {
+                double reading = temperature;
+                for (DoubleConsumer observer : observers)
+                    observer.accept(reading);
+                return null;
+            };
+        }
+        
+        @Override
+        public synchronized void addObserver(DoubleConsumer observer) {
+            if (observers.isEmpty())
+                source.addObserver(bridge);
+            observers.add(observer);
+        }
+        
+        @Override
+        public synchronized void removeObserver(DoubleConsumer observer) {
+            if (observers.remove(observer) && observers.isEmpty())
+                source.removeObserver(bridge);
+        }
+    }
+    
+    /**
+     * A legacy Observable view of a DoubleObservable. A single primitive observer is
+     * registered with the source while legacy observers are subscribed, and each reading is
+     * boxed once for all of them. A failing legacy observer does not keep the others from
+     * being notified.
+     */
+    private static final class DoubleToLegacy implements Observable {
+        private final DoubleObservable         source; // The DoubleObservable
+        private final ObserverRegistry<Double> observers; // The legacy observers
+        private final DoubleConsumer           bridge; // The primitive observer registered
+        // with the source
+        
+        /**
+         * Constructor.
+         *
+         * @param source The DoubleObservable
+         */
+        DoubleToLegacy(DoubleObservable source) {
+            this.source = source;
+            this.observers = new ObserverRegistry<>();
+            this.bridge = temperature -> observers.notifyObservers(temperature);
+        }
+        
+        @Override
+        public synchronized void addObserver(Function<Double, Void> observer) {
+            if (observers.add(observer) && observers.size() == 1)
+                source.addObserver(bridge);
+        }
+        
+        @Override
+        public synchronized void removeObserver(Function<Double, Void> observer) {
+            if (observers.remove(observer) && observers.isEmpty())
+                source.removeObserver(bridge);
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package aquarium;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+
+/**
+ * The observers of an {@link Observable} or of any other notifying component. Observers are
+ * kept in an array replaced as a whole on every change, so a notification iterates a stable
+ * snapshot without locking or allocating, while other threads add or remove observers.
+ * <p>
+ * An observer throwing an exception does not keep the others from being notified: the
+ * failure is counted and reported to the failure handler. A slow observer can be given its
+ * own executor so that it never stalls the notifying thread. Values are then delivered to it
+ * one at a time and in order, and values it has not caught up with are superseded by the
+ * latest one.
+ * </p>
+ * <p>
+ * {@link Listeners} keeps any listener interface the same way for components notifying
+ * several methods, and {@link OfDouble} notifies primitive readings without boxing them.
+ * </p>
+ *
+ * @param <T> The type of value the observers are notified of
+ *
+ * @version Oct 18, 2026
+ */
+public final class ObserverRegistry<T> {
+    private static final Entry<?>[] NO_ENTRIES = new Entry<?>[0]; // The empty snapshot
+    
+    private final LongAdder     failures = new LongAdder(); // The number of failed notifications
+    private volatile Entry<T>[] entries = noEntries(); // The observers
+    
+    private final BiConsumer<? super Function<T, Void>, ? super RuntimeException> onFailure; // The
+    // handler of the exceptions thrown by observers
+    
+    /**
+     * Constructor. Failures are reported to the uncaught exception handler of the notifying
+     * thread.
+     */
+    public ObserverRegistry() {
+        this(ObserverRegistry::reportUncaught);
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param onFailure The handler receiving an observer and the exception it threw
+     */
+    public ObserverRegistry(BiConsumer<? super Function<T, Void>, ? super RuntimeException>
+                                    onFailure) {
+        this.onFailure = onFailure;
+    }
+    
+    /**
+     * Add an observer notified on the notifying thread
+     *
+     * @param observer The observer
+     *
+     * @return true if the observer was added, false if it was already registered
+     */
+    public boolean add(Function<T, Void> observer) {
+        return add(observer, null);
+    }
+    
+    /**
+     * Add an observer notified on its own executor
+     *
+     * @param observer The observer
+     * @param executor The executor running the notifications, or null to notify on the
+     *                 notifying thread
+     *
+     * @return true if the observer was added, false if it was already registered
+     */
+    public synchronized boolean add(Function<T, Void> observer, Executor executor) {
+        Entry<T>[] current = entries;
+        if (indexOf(current, observer) >= 0)
+            return false;
+        Entry<T>[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = new Entry<>(this, observer, executor);
+        entries = next;
+        return true;
+    }
+    
+    /**
+     * Remove an observer. Notifications already handed to its executor may still run.
+     *
+     * @param observer The observer
+     *
+     * @return true if the observer was removed, false if it was not registered
+     */
+    public synchronized boolean remove(Function<T, Void> observer) {
+        Entry<T>[] current = entries;
+        int index = indexOf(current, observer);
+        if (index < 0)
+            return false;
+        if (current.length == 1) {
+            entries = noEntries();
+            return true;
+        }
+        Entry<T>[] next = Arrays.copyOf(current, current.length - 1);
+        System.arraycopy(current, index + 1, next, index, next.length - index);
+        entries = next;
+        return true;
+    }
+    
+    /**
+     * Get the number of observers
+     *
+     * @return the number of observers
+     */
+    public int size() {
+        return entries.length;
+    }
+    
+    /**
+     * Check whether there is no observer
+     *
+     * @return true if there is no observer, false otherwise
+     */
+    public boolean isEmpty() {
+        return entries.length == 0;
+    }
+    
+    /**
+     * Notify every observer of a value
+     *
+     * @param value The value, not null
+     */
+    public void notifyObservers(T value) {
+        for (Entry<T> entry : entries)
+            entry.deliver(value);
+    }
+    
+    /**
+     * Get the number of notifications where the observer threw an exception
+     *
+     * @return the number of failures
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+    
+    /**
+     * Notify an observer, isolating the others from its failure
+     *
+     * @param observer The observer
+     * @param value    The value
+     */
+    private void invoke(Function<T, Void> observer, T value) {
+        try {
+            observer.apply(value);
+        } catch (RuntimeException e) {
+            failed(observer, e);
+        }
+    }
+    
+    /**
+     * Count and report a failed notification
+     *
+     * @param observer The observer
+     * @param e        The exception
+     */
+    private void failed(Function<T, Void> observer, RuntimeException e) {
+        failures.increment();
+        try {
+            onFailure.accept(observer, e);
+        } catch (RuntimeException ignored) {
+            // The handler failing must not stop the notification either
+        }
+    }
+    
+    /**
+     * Find an observer in a snapshot
+     *
+     * @param snapshot The snapshot
+     * @param observer The observer
+     *
+     * @return the index of the observer, or -1 if it is not in the snapshot
+     */
+    private static int indexOf(Entry<?>[] snapshot, Function<?, Void> observer) {
+        for (int i = 0; i < snapshot.length; i++)
+            if (snapshot[i].observer == observer)
+                return i;
+        return -1;
+    }
+    
+    /**
+     * Get the empty snapshot
+     *
+     * @param <T> The type of value the observers are notified of
+     *
+     * @return the shared empty array, which holds no entry of any type
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Entry<T>[] noEntries() {
+        return (Entry<T>[]) NO_ENTRIES;
+    }
+    
+    /**
+     * Report a failed notification to the uncaught exception handler of the notifying thread
+     *
+     * @param observer The observer that threw
+     * @param e        The exception
+     */
+    private static void reportUncaught(Object observer, RuntimeException e) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+    
+    /**
+     * A registered observer, with the mailbox of the values waiting for its executor
+     *
+     * @param <T> The type of value the observer is notified of
+     */
+    private static final class Entry<T> implements Runnable {
+        private final ObserverRegistry<T> registry; // The registry of the observer
+        private final Function<T, Void>   observer; // The observer
+        private final Executor            executor; // The executor of the observer, or null
+        private final AtomicReference<T>  pending; // The latest value not yet delivered
+        private final AtomicBoolean       scheduled; // True while a delivery is scheduled
+        
+        /**
+         * Constructor.
+         *
+         * @param registry The registry of the observer
+         * @param observer The observer
+         * @param executor The executor of the observer, or null
+         */
+        Entry(ObserverRegistry<T> registry, Function<T, Void> observer, Executor executor) {
+            this.registry = registry;
+            this.observer = observer;
+            this.executor = executor;
+            this.pending = executor == null ? null : new AtomicReference<>();
+            this.scheduled = executor == null ? null : new AtomicBoolean();
+        }
+        
+        /**
+         * Deliver a value to the observer, or to its mailbox if it has an executor
+         *
+         * @param value The value
+         */
+        void deliver(T value) {
+            if (executor == null) {
+                registry.invoke(observer, value);
+                return;
+            }
+            pending.set(value);
+            if (scheduled.compareAndSet(false, true))
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    registry.failed(observer, e);
+                }
+        }
+        
+        /**
+         * Deliver the values of the mailbox until it is empty. Run by the executor.
+         */
+        @Override
+        public void run() {
+            while (true) {
+                T value = pending.getAndSet(null);
+                if (value != null)
+                    registry.invoke(observer, value);
+                else {
+                    scheduled.set(false);
+                    if (pending.get() == null || !scheduled.compareAndSet(false, true))
+                        return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * The listeners of a component notifying them through an interface of its own. They are
+     * kept in an array replaced as a whole on every change like the observers of a registry;
+     * the component iterates the snapshot and reports the listeners that throw, so that one
+     * failing listener does not keep the others from being called.
+     *
+     * @param <L> The type of listener
+     */
+    public static class Listeners<L> {
+        private final LongAdder                                    failures = new LongAdder();
+        // The number of failed notifications
+        private final BiConsumer<? super L, ? super RuntimeException> onFailure; // The handler
+        // of the exceptions thrown by listeners
+        private volatile L[]                                       listeners; // The listeners
+        
+        /**
+         * Constructor. Failures are reported to the uncaught exception handler of the
+         * notifying thread.
+         *
+         * @param empty An empty array of listeners, the first snapshot
+         */
+        public Listeners(L[] empty) {
+            this(empty, ObserverRegistry::reportUncaught);
+        }
+        
+        /**
+         * Constructor.
+         *
+         * @param empty     An empty array of listeners, the first snapshot
+         * @param onFailure The handler receiving a listener and the exception it threw
+         */
+        public Listeners(L[] empty, BiConsumer<? super L, ? super RuntimeException> onFailure) {
+            if (empty.length != 0)
+                throw new IllegalArgumentException("The first snapshot must be empty");
+            this.listeners = empty;
+            this.onFailure = onFailure;
+        }
+        
+        /**
+         * Add a listener
+         *
+         * @param listener The listener
+         *
+         * @return true if the listener was added, false if it was already registered
+         */
+        public synchronized boolean add(L listener) {
+            if (listener == null)
+                throw new NullPointerException("listener");
+            L[] current = listeners;
+            for (L registered : current)
+                if (registered == listener)
+                    return false;
+            L[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = listener;
+            listeners = next;
+            return true;
+        }
+        
+        /**
+         * Remove a listener
+         *
+         * @param listener The listener
+         *
+         * @return true if the listener was removed, false if it was not registered
+         */
+        public synchronized boolean remove(L listener) {
+            L[] current = listeners;
+            for (int i = 0; i < current.length; i++)
+                if (current[i] == listener) {
+                    L[] next = Arrays.copyOf(current, current.length - 1);
+                    System.arraycopy(current, i + 1, next, i, next.length - i);
+                    listeners = next;
+                    return true;
+                }
+            return false;
+        }
+        
+        /**
+         * Get the current listeners. The array is shared and must not be modified.
+         *
+         * @return the snapshot of the listeners
+         */
+        public L[] snapshot() {
+            return listeners;
+        }
+        
+        /**
+         * Get the number of listeners
+         *
+         * @return the number of listeners
+         */
+        public int size() {
+            return listeners.length;
+        }
+        
+        /**
+         * Check whether there is no listener
+         *
+         * @return true if there is no listener, false otherwise
+         */
+        public boolean isEmpty() {
+            return listeners.length == 0;
+        }
+        
+        /**
+         * Count and report a listener that threw while being notified
+         *
+         * @param listener The listener
+         * @param e        The exception
+         */
+        public void failed(L listener, RuntimeException e) {
+            failures.increment();
+            try {
+                onFailure.accept(listener, e);
+            } catch (RuntimeException ignored) {
+                // The handler failing must not stop the notification either
+            }
+        }
+        
+        /**
+         * Get the number of notifications where the listener threw an exception
+         *
+         * @return the number of failures
+         */
+        public long getFailureCount() {
+            return failures.sum();
+        }
+    }
+    
+    /**
+     * The observers of a primitive channel, notified of a double without boxing it
+     */
+    public static final class OfDouble extends Listeners<DoubleConsumer> {
+        private static final DoubleConsumer[] NO_OBSERVERS = new DoubleConsumer[0]; // The empty
+        // snapshot
+        
+        /**
+         * Constructor. Failures are reported to the uncaught exception handler of the
+         * notifying thread.
+         */
+        public OfDouble() {
+            super(NO_OBSERVERS);
+        }
+        
+        /**
+         * Constructor.
+         *
+         * @param onFailure The handler receiving an observer and the exception it threw
+         */
+        public OfDouble(BiConsumer<? super DoubleConsumer, ? super RuntimeException> onFailure) {
+            super(NO_OBSERVERS, onFailure);
+        }
+        
+        /**
+         * Notify every observer of a value
+         *
+         * @param value The value
+         */
+        public void notifyObservers(double value) {
+            for (DoubleConsumer observer : snapshot())
+                try {
+                    observer.accept(value);
+                } catch (RuntimeException e) {
+                    failed(observer, e);
+                }
+        }
+    }
+}
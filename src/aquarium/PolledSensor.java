@@ -0,0 +1,88 @@
+package aquarium;
+
+import aquarium.hw.TemperatureSensor;
+
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+
+/**
+ * The sensor observed by the controller of a pull-only probe. The PollingScheduler
+ * publishes every reading it polls, and observers are notified when the reading moved by at
+ * least the sensor delta since the last notification. Asking for the temperature answers
+ * the last polled reading without touching the probe, unless it was never polled.
+ *
+ * @version Oct 18, 2026
+ */
+final class PolledSensor implements TemperatureSensor, DoubleObservable {
+    private final TemperatureSensor         probe; // The pull-only probe
+    private final Observable                legacy; // The legacy view of the primitive observers
+    private final ObserverRegistry.OfDouble observers = new ObserverRegistry.OfDouble();
+    // The observers
+    private volatile double                 lastReading = Double.NaN; // The last polled reading
+    private double                          lastReported = Double.NaN; // The last reading notified
+    private volatile double                 delta; // The change notifying the observers
+    
+    /**
+     * Constructor.
+     *
+     * @param probe The pull-only probe
+     */
+    PolledSensor(TemperatureSensor probe) {
+        this.probe = probe;
+        this.legacy = ObservableAdapter.toLegacy(new DoubleObservable() {
+            @Override
+            public void addObserver(DoubleConsumer observer) {
+                PolledSensor.this.addObserver(observer);
+            }
+            
+            @Override
+            public void removeObserver(DoubleConsumer observer) {
+                PolledSensor.this.removeObserver(observer);
+            }
+        });
+    }
+    
+    @Override
+    public void addObserver(DoubleConsumer observer) {
+        observers.add(observer);
+    }
+    
+    @Override
+    public void removeObserver(DoubleConsumer observer) {
+        observers.remove(observer);
+    }
+    
+    @Override
+    public void addObserver(Function<Double, Void> observer) {
+        legacy.addObserver(observer);
+    }
+    
+    @Override
+    public void removeObserver(Function<Double, Void> observer) {
+        legacy.removeObserver(observer);
+    }
+    
+    @Override
+    public void setDelta(double delta) {
+        this.delta = Math.abs(delta);
+    }
+    
+    @Override
+    public double getTemperature() {
+        double reading = lastReading;
+        return Double.isNaN(reading) ? probe.getTemperature() : reading;
+    }
+    
+    /**
+     * Publish a polled reading. Called by one polling thread at a time.
+     *
+     * @param temperature The polled temperature
+     */
+    void publish(double temperature) {
+        lastReading = temperature;
+        if (!Double.isNaN(lastReported) && Math.abs(temperature - lastReported) < delta)
+            return;
+        lastReported = temperature;
+        observers.notifyObservers(temperature);
+    }
+}
@@ -0,0 +1,263 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster;
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+import aquarium.hw.TemperatureSensor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives pull-only probes, which only answer TemperatureSensor.getTemperature() and may
+ * block on a slow bus while doing so, into temperature controllers. Every probe is polled
+ * on its own schedule: at the active interval while its adjuster is commanded to HEATING
+ * or COOLING, and at the idle interval while it is OFF.
+ * <p>
+ * On a JVM with virtual threads every probe is polled by its own virtual thread, so tens
+ * of thousands of probes blocked on their bus cost no platform thread each. On older JVMs
+ * the probes share a fixed pool of platform threads, each poll being scheduled as a task.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class PollingScheduler implements AutoCloseable {
+    private final ExecutorService          virtualThreads; // The executor starting a virtual
+    // thread per probe, or null when virtual threads are not available
+    private final ScheduledExecutorService platformThreads; // The pool polling the probes
+    // when virtual threads are not available, or null
+    
+    /**
+     * Constructor. Polls with virtual threads when the JVM has them, and otherwise with a
+     * pool of four platform threads per core.
+     */
+    public PollingScheduler() {
+        this(newVirtualThreadPerTaskExecutor(), 4 * Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Constructor. Polls with a fixed pool of platform threads, even if the JVM has virtual
+     * threads.
+     *
+     * @param threadCount The number of platform threads
+     */
+    public PollingScheduler(int threadCount) {
+        this(null, threadCount);
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param virtualThreads The executor starting a virtual thread per probe, or null to
+     *                       poll with platform threads
+     * @param threadCount    The number of platform threads used without virtual threads
+     */
+    private PollingScheduler(ExecutorService virtualThreads, int threadCount) {
+        if (threadCount < 1)
+            throw new IllegalArgumentException("threadCount must be positive: " + threadCount);
+        this.virtualThreads = virtualThreads;
+        if (virtualThreads != null)
+            this.platformThreads = null;
+        else {
+            AtomicInteger index = new AtomicInteger();
+            ThreadFactory factory = runnable -> {
+                Thread thread = new Thread(runnable, "aquarium-poller-" + index
+                        .getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            };
+            ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(threadCount,
+                                                                               factory);
+            pool.setRemoveOnCancelPolicy(true);
+            this.platformThreads = pool;
+        }
+    }
+    
+    /**
+     * Check whether probes are polled by virtual threads
+     *
+     * @return true if every probe has its own virtual thread, false if the probes share a
+     * pool of platform threads
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads != null;
+    }
+    
+    /**
+     * Start polling a probe, creating the controller its readings are delivered to
+     *
+     * @param probe    The pull-only probe
+     * @param adjuster The TemperatureAdjuster of the tank
+     * @param active   The interval between polls while the adjuster is heating or cooling
+     * @param idle     The interval between polls while the adjuster is off
+     * @param unit     The unit of the intervals
+     *
+     * @return the polled probe
+     */
+    public Probe addProbe(TemperatureSensor probe, TemperatureAdjuster adjuster, long active,
+                          long idle, TimeUnit unit) {
+        if (active <= 0 || idle <= 0)
+            throw new IllegalArgumentException("Poll intervals must be positive");
+        Probe polled = new Probe(probe, adjuster, unit.toNanos(active), unit.toNanos(idle));
+        if (virtualThreads != null)
+            polled.pending = virtualThreads.submit(polled::pollForever);
+        else polled.pending = platformThreads.schedule(polled::pollAndReschedule, 0,
+                                                       TimeUnit.NANOSECONDS);
+        return polled;
+    }
+    
+    /**
+     * Stop polling every probe
+     */
+    @Override
+    public void close() {
+        if (virtualThreads != null)
+            virtualThreads.shutdownNow();
+        else platformThreads.shutdownNow();
+    }
+    
+    /**
+     * Create an executor starting a virtual thread per task, if the JVM supports them
+     *
+     * @return the executor, or null if the JVM has no virtual threads
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * A probe being polled, together with the controller its readings are delivered to
+     */
+    public final class Probe {
+        private final TemperatureSensor         probe; // The pull-only probe
+        private final PolledSensor              sensor; // The sensor the controller observes
+        private final TemperatureControllerImpl controller; // The controller of the tank
+        private final long                      activeNanos; // The poll interval while the
+        // adjuster is heating or cooling
+        private final long                      idleNanos; // The poll interval while the
+        // adjuster is off
+        private final LongAdder                 polls = new LongAdder(); // The number of
+        // successful polls
+        private final LongAdder                 failures = new LongAdder(); // The number of
+        // polls that failed
+        private volatile Future<?>              pending; // The running or scheduled poll
+        private volatile boolean                cancelled; // True once polling is stopped
+        
+        /**
+         * Constructor.
+         *
+         * @param probe       The pull-only probe
+         * @param adjuster    The TemperatureAdjuster of the tank
+         * @param activeNanos The poll interval while the adjuster is heating or cooling
+         * @param idleNanos   The poll interval while the adjuster is off
+         */
+        Probe(TemperatureSensor probe, TemperatureAdjuster adjuster, long activeNanos,
+              long idleNanos) {
+            this.probe = probe;
+            this.sensor = new PolledSensor(probe);
+            this.controller = (TemperatureControllerImpl) TemperatureControllerImpl
+                    .makeTemperatureController(sensor, adjuster);
+            this.activeNanos = activeNanos;
+            this.idleNanos = idleNanos;
+        }
+        
+        /**
+         * Get the controller the readings of the probe are delivered to
+         *
+         * @return the controller
+         */
+        public TemperatureControllerImpl getController() {
+            return controller;
+        }
+        
+        /**
+         * Get the number of successful polls
+         *
+         * @return the number of polls
+         */
+        public long getPollCount() {
+            return polls.sum();
+        }
+        
+        /**
+         * Get the number of polls where the probe failed to answer
+         *
+         * @return the number of failed polls
+         */
+        public long getFailureCount() {
+            return failures.sum();
+        }
+        
+        /**
+         * Stop polling the probe
+         */
+        public void cancel() {
+            cancelled = true;
+            Future<?> current = pending;
+            if (current != null)
+                current.cancel(true);
+        }
+        
+        /**
+         * Poll the probe until cancelled, sleeping between polls. Run by a virtual thread.
+         */
+        private void pollForever() {
+            try {
+                while (!cancelled)
+                    TimeUnit.NANOSECONDS.sleep(pollOnce());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        /**
+         * Poll the probe once and schedule the next poll. Run by the platform thread pool.
+         * The next poll is cancelled again if the probe was cancelled while it was being
+         * scheduled, since cancel may have missed it.
+         */
+        private void pollAndReschedule() {
+            long delay = pollOnce();
+            if (cancelled)
+                return;
+            try {
+                Future<?> next = platformThreads.schedule(this::pollAndReschedule, delay,
+                                                          TimeUnit.NANOSECONDS);
+                pending = next;
+                if (cancelled)
+                    next.cancel(false);
+            } catch (RejectedExecutionException e) {
+                // The scheduler was closed meanwhile
+            }
+        }
+        
+        /**
+         * Read the probe and deliver the reading to the controller
+         *
+         * @return the delay until the next poll in nanoseconds
+         */
+        private long pollOnce() {
+            try {
+                sensor.publish(probe.getTemperature());
+                polls.increment();
+            } catch (RuntimeException e) {
+                failures.increment();
+            }
+            AdjusterState state = controller.getCommandedState();
+            return state == AdjusterState.HEATING || state == AdjusterState.COOLING ?
+                   activeNanos : idleNanos;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+
+/**
+ * A reading handled by the controller of a tank, or a transition of its adjuster, as
+ * delivered to the subscribers of a {@link ReadingPublisher}. Events are immutable and shared
+ * by every subscriber.
+ *
+ * @version Oct 18, 2026
+ */
+public final class ReadingEvent {
+    private final int           tankId; // The id of the tank
+    private final long          timeMillis; // The time of the event
+    private final double        temperature; // The water temperature in Celsius degrees
+    private final AdjusterState state; // The state decided for the reading, or commanded
+    private final AdjusterState previous; // The state previously commanded for a transition
+    private final boolean       transition; // True for a transition, false for a reading
+    
+    /**
+     * Constructor.
+     *
+     * @param tankId      The id of the tank
+     * @param timeMillis  The time of the event in milliseconds since the epoch
+     * @param temperature The water temperature in Celsius degrees
+     * @param state       The state decided for the reading, or commanded by the transition
+     * @param previous    The state previously commanded, or null
+     * @param transition  True for a transition, false for a reading
+     */
+    ReadingEvent(int tankId, long timeMillis, double temperature, AdjusterState state,
+                 AdjusterState previous, boolean transition) {
+        this.tankId = tankId;
+        this.timeMillis = timeMillis;
+        this.temperature = temperature;
+        this.state = state;
+        this.previous = previous;
+        this.transition = transition;
+    }
+    
+    /**
+     * Get the id of the tank
+     *
+     * @return the id of the tank
+     */
+    public int getTankId() {
+        return tankId;
+    }
+    
+    /**
+     * Get the time of the event
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+    
+    /**
+     * Get the water temperature of the reading, or causing the transition
+     *
+     * @return the temperature in Celsius degrees
+     */
+    public double getTemperature() {
+        return temperature;
+    }
+    
+    /**
+     * Get the state decided for the reading, or commanded by the transition
+     *
+     * @return the adjuster state
+     */
+    public AdjusterState getState() {
+        return state;
+    }
+    
+    /**
+     * Get the state commanded before a transition
+     *
+     * @return the previous adjuster state, or null for a reading or the first command
+     */
+    public AdjusterState getPreviousState() {
+        return previous;
+    }
+    
+    /**
+     * Check whether the event is an adjuster transition
+     *
+     * @return true for a transition, false for a reading
+     */
+    public boolean isTransition() {
+        return transition;
+    }
+    
+    @Override
+    public String toString() {
+        return transition ? "Tank " + tankId + " " + previous + " -> " + state + " at " +
+                            temperature : "Tank " + tankId + " " + temperature + " " + state;
+    }
+}
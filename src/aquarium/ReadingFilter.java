@@ -0,0 +1,109 @@
+package aquarium;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable description of the filter stage applied by a FilteredSensor to the readings
+ * of a noisy sensor before they reach the controller. Readings are first smoothed by a
+ * median of the last N readings, then dropped if they are within the deadband of the last
+ * reading forwarded, then held back if they come sooner than the minimum interval after it.
+ * The default filter forwards every reading unchanged.
+ *
+ * @version Oct 18, 2026
+ */
+public final class ReadingFilter {
+    public static final ReadingFilter NONE = new ReadingFilter(0.0, 0, 1); // The filter
+    // forwarding every reading unchanged
+    
+    private final double deadband; // The smallest change forwarded, in Celsius degrees
+    private final long   minIntervalNanos; // The shortest time between two forwarded readings
+    private final int    medianOf; // The number of readings the median is taken over
+    
+    /**
+     * Constructor.
+     *
+     * @param deadband         The smallest change forwarded, in Celsius degrees
+     * @param minIntervalNanos The shortest time between two forwarded readings
+     * @param medianOf         The number of readings the median is taken over, 1 for none
+     *
+     * @throws IllegalArgumentException if a setting is negative or medianOf is below 1
+     */
+    private ReadingFilter(double deadband, long minIntervalNanos, int medianOf) {
+        if (!(deadband >= 0))
+            throw new IllegalArgumentException("Invalid deadband: " + deadband);
+        if (minIntervalNanos < 0)
+            throw new IllegalArgumentException("Invalid minimum interval: " + minIntervalNanos);
+        if (medianOf < 1)
+            throw new IllegalArgumentException("Invalid median size: " + medianOf);
+        this.deadband = deadband;
+        this.minIntervalNanos = minIntervalNanos;
+        this.medianOf = medianOf;
+    }
+    
+    /**
+     * Get the smallest change forwarded
+     *
+     * @return the deadband in Celsius degrees
+     */
+    public double getDeadband() {
+        return deadband;
+    }
+    
+    /**
+     * Get the shortest time between two forwarded readings
+     *
+     * @return the minimum interval in nanoseconds
+     */
+    public long getMinIntervalNanos() {
+        return minIntervalNanos;
+    }
+    
+    /**
+     * Get the number of readings the median is taken over
+     *
+     * @return the median size, 1 when no smoothing is done
+     */
+    public int getMedianOf() {
+        return medianOf;
+    }
+    
+    /**
+     * Return a copy of this filter with another deadband
+     *
+     * @param change The smallest change forwarded, in Celsius degrees
+     *
+     * @return the new filter
+     */
+    public ReadingFilter withDeadband(double change) {
+        return new ReadingFilter(change, minIntervalNanos, medianOf);
+    }
+    
+    /**
+     * Return a copy of this filter with another minimum interval
+     *
+     * @param interval The shortest time between two forwarded readings
+     * @param unit     The unit of interval
+     *
+     * @return the new filter
+     */
+    public ReadingFilter withMinInterval(long interval, TimeUnit unit) {
+        return new ReadingFilter(deadband, unit.toNanos(interval), medianOf);
+    }
+    
+    /**
+     * Return a copy of this filter smoothing readings by their median
+     *
+     * @param readings The number of readings the median is taken over, 1 for none
+     *
+     * @return the new filter
+     */
+    public ReadingFilter withMedianOf(int readings) {
+        return new ReadingFilter(deadband, minIntervalNanos, readings);
+    }
+    
+    @Override
+    public String toString() {
+        return "ReadingFilter{" + "deadband=" + deadband + ", minIntervalNanos=" +
+               minIntervalNanos + ", medianOf=" + medianOf + '}';
+    }
+}
@@ -0,0 +1,430 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * An append-only journal of the readings and adjuster transitions of many tanks, kept in
+ * memory-mapped segment files of fixed-width binary records. A new segment is started when
+ * the current one is full. Every record carries a checksum, so after a crash the journal
+ * resumes right after the last valid record, and replay skips the rest of a segment from
+ * its first torn record and goes on with the next segment.
+ * <p>
+ * Appending takes no lock: each thread reserves the next slot of the current segment and
+ * writes its record there, so the sensor threads of many tanks append in parallel. Only
+ * starting a new segment is serialized. A crash may leave a record unwritten before records
+ * of other threads; those are dropped like any record after a torn one in its segment. A
+ * record still being written to a full segment when the next one starts may leave a hole
+ * in a segment before the last; the records of the segments after it are still replayed.
+ * </p>
+ * <p>
+ * Each record is 32 bytes: the time in milliseconds, the temperature as a double, the tank
+ * id, the record type, the adjuster state, two reserved bytes, the checksum and a commit
+ * marker. Attach the journal to a controller with
+ * {@link TemperatureControllerImpl#addListener(ReadingListener)} and
+ * {@link #listenerFor(int)}.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class ReadingJournal implements AutoCloseable {
+    public static final  int             RECORD_SIZE = 32; // The size of a record in bytes
+    public static final  int             DEFAULT_SEGMENT_RECORDS = 1 << 21; // The number of
+    // records in a segment by default, 64 MiB
+    private static final int             COMMIT = 0x41514A31; // The commit marker of a record
+    private static final byte            READING = 1; // The type of a reading record
+    private static final byte            TRANSITION = 2; // The type of a transition record
+    private static final byte            NO_STATE = 3; // The state code of a record without
+    // a state
+    private static final AdjusterState[] STATES = AdjusterState.values(); // The adjuster
+    // states by ordinal
+    private static final String          SUFFIX = ".journal"; // The suffix of segment files
+    
+    private final Path       directory; // The directory holding the segment files
+    private final int        segmentRecords; // The number of records in a new segment
+    private volatile Segment segment; // The segment being appended to, or null once closed
+    private Segment          previous; // The segment before it, forced again by flush in case
+    // a record was still being written to it when it was full, guarded by this
+    
+    /**
+     * Constructor.
+     *
+     * @param directory      The directory holding the segment files
+     * @param segmentRecords The number of records in a segment
+     */
+    private ReadingJournal(Path directory, int segmentRecords) {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+    }
+    
+    /**
+     * Open the journal in a directory with segments of the default size, creating it if it
+     * does not exist and recovering it if it does
+     *
+     * @param directory The directory holding the segment files
+     *
+     * @return the journal, positioned after its last valid record
+     *
+     * @throws IOException if the journal cannot be opened
+     */
+    public static ReadingJournal open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_RECORDS);
+    }
+    
+    /**
+     * Open the journal in a directory, creating it if it does not exist and recovering it if
+     * it does
+     *
+     * @param directory      The directory holding the segment files
+     * @param segmentRecords The number of records in a new segment
+     *
+     * @return the journal, positioned after its last valid record
+     *
+     * @throws IOException if the journal cannot be opened
+     */
+    public static ReadingJournal open(Path directory, int segmentRecords) throws IOException {
+        if (segmentRecords < 1 || segmentRecords > Integer.MAX_VALUE / RECORD_SIZE)
+            throw new IllegalArgumentException("Invalid segment size: " + segmentRecords);
+        Files.createDirectories(directory);
+        ReadingJournal journal = new ReadingJournal(directory, segmentRecords);
+        List<Path> segments = segments(directory);
+        if (segments.isEmpty())
+            journal.segment = journal.map(0);
+        else journal.segment = journal.recover(segments.get(segments.size() - 1));
+        return journal;
+    }
+    
+    /**
+     * Create a listener appending the readings and transitions of one tank
+     *
+     * @param tankId The id of the tank
+     *
+     * @return the listener
+     */
+    public ReadingListener listenerFor(int tankId) {
+        return new ReadingListener() {
+            @Override
+            public void onReading(long timeMillis, double temperature, AdjusterState state) {
+                appendReading(tankId, timeMillis, temperature);
+            }
+            
+            @Override
+            public void onTransition(long timeMillis, double temperature, AdjusterState from,
+                                     AdjusterState to) {
+                appendTransition(tankId, timeMillis, temperature, to);
+            }
+        };
+    }
+    
+    /**
+     * Append a sensor reading
+     *
+     * @param tankId      The id of the tank
+     * @param timeMillis  The time of the reading in milliseconds since the epoch
+     * @param temperature The water temperature in Celsius degrees
+     */
+    public void appendReading(int tankId, long timeMillis, double temperature) {
+        append(tankId, timeMillis, temperature, READING, NO_STATE);
+    }
+    
+    /**
+     * Append an adjuster transition
+     *
+     * @param tankId      The id of the tank
+     * @param timeMillis  The time of the transition in milliseconds since the epoch
+     * @param temperature The water temperature in Celsius degrees causing the transition
+     * @param state       The state commanded to the adjuster
+     */
+    public void appendTransition(int tankId, long timeMillis, double temperature,
+                                 AdjusterState state) {
+        append(tankId, timeMillis, temperature, TRANSITION, (byte) state.ordinal());
+    }
+    
+    /**
+     * Force the records appended so far to the storage device
+     */
+    public synchronized void flush() {
+        if (previous != null)
+            previous.records.force();
+        Segment current = segment;
+        if (current != null)
+            current.records.force();
+    }
+    
+    /**
+     * Replay every valid record of the journal in the order it was appended. Within a segment,
+     * replay stops at the first record that is torn or was never written, and goes on with
+     * the next segment.
+     *
+     * @param replay The receiver of the records
+     *
+     * @return the number of records replayed
+     *
+     * @throws IOException if a segment cannot be read
+     */
+    public long replay(Replay replay) throws IOException {
+        long replayed = 0;
+        for (Path file : segments(directory)) {
+            try (FileChannel channel = FileChannel.open(file, READ)) {
+                MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                                       channel.size());
+                int count = (int) (channel.size() / RECORD_SIZE);
+                for (int i = 0; i < count; i++) {
+                    int offset = i * RECORD_SIZE;
+                    if (!isValid(records, offset))
+                        break;
+                    int tankId = records.getInt(offset + 16);
+                    long time = records.getLong(offset);
+                    double temperature = records.getDouble(offset + 8);
+                    if (records.get(offset + 20) == READING)
+                        replay.reading(tankId, time, temperature);
+                    else replay.transition(tankId, time, temperature, STATES[records.get
+                            (offset + 21)]);
+                    replayed++;
+                }
+            }
+        }
+        return replayed;
+    }
+    
+    /**
+     * Force the records appended so far to the storage device and stop appending
+     */
+    @Override
+    public synchronized void close() {
+        flush();
+        segment = null;
+        previous = null;
+    }
+    
+    /**
+     * Append a record to the next free slot, starting a new segment when the current one is
+     * full. May be called from any number of threads at once.
+     *
+     * @param tankId      The id of the tank
+     * @param timeMillis  The time in milliseconds since the epoch
+     * @param temperature The water temperature in Celsius degrees
+     * @param type        The type of record
+     * @param state       The state code of the record
+     */
+    private void append(int tankId, long timeMillis, double temperature, byte type,
+                        byte state) {
+        while (true) {
+            Segment current = segment;
+            if (current == null)
+                throw new IllegalStateException("The journal is closed");
+            int slot = current.position.getAndIncrement();
+            if (slot >= current.capacity) {
+                roll(current);
+                continue;
+            }
+            MappedByteBuffer records = current.records;
+            int offset = slot * RECORD_SIZE;
+            long temperatureBits = Double.doubleToRawLongBits(temperature);
+            records.putLong(offset, timeMillis);
+            records.putLong(offset + 8, temperatureBits);
+            records.putInt(offset + 16, tankId);
+            records.put(offset + 20, type);
+            records.put(offset + 21, state);
+            records.putShort(offset + 22, (short) 0);
+            records.putInt(offset + 24, checksum(timeMillis, temperatureBits, tankId, type,
+                                                 state));
+            records.putInt(offset + 28, COMMIT);
+            return;
+        }
+    }
+    
+    /**
+     * Start the segment after a full one, unless another thread already did
+     *
+     * @param full The full segment
+     */
+    private synchronized void roll(Segment full) {
+        if (segment != full)
+            return;
+        try {
+            full.records.force();
+            Segment next = map(full.index + 1);
+            previous = full;
+            segment = next;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Resume appending to the last segment after its last valid record. Records left after
+     * a torn one by a crash are cleared so that they are never replayed.
+     *
+     * @param file The last segment file
+     *
+     * @return the segment, positioned after its last valid record
+     *
+     * @throws IOException if the segment cannot be mapped
+     */
+    private Segment recover(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        Segment last = map(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+        MappedByteBuffer records = last.records;
+        int position = 0;
+        while (position < last.capacity && isValid(records, position * RECORD_SIZE))
+            position++;
+        for (int i = position; i < last.capacity && !isBlank(records, i * RECORD_SIZE); i++)
+            for (int offset = 0; offset < RECORD_SIZE; offset += 8)
+                records.putLong(i * RECORD_SIZE + offset, 0);
+        last.position.set(position);
+        return last;
+    }
+    
+    /**
+     * Map a segment file for appending, creating it if needed
+     *
+     * @param index The index of the segment
+     *
+     * @return the segment, positioned at its first record
+     *
+     * @throws IOException if the segment cannot be mapped
+     */
+    private Segment map(long index) throws IOException {
+        Path file = directory.resolve(String.format("%016d%s", index, SUFFIX));
+        try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE)) {
+            long size = channel.size() > 0 ? channel.size() : (long) segmentRecords *
+                                                               RECORD_SIZE;
+            return new Segment(index, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+    
+    /**
+     * List the segment files of a journal in the order they were written
+     *
+     * @param directory The directory holding the segment files
+     *
+     * @return the segment files
+     *
+     * @throws IOException if the directory cannot be listed
+     */
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files)
+                segments.add(file);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+    
+    /**
+     * Check whether a complete, uncorrupted record is stored at an offset
+     *
+     * @param records The buffer holding the records
+     * @param offset  The offset of the record
+     *
+     * @return true if the record is valid, false otherwise
+     */
+    private static boolean isValid(ByteBuffer records, int offset) {
+        if (records.getInt(offset + 28) != COMMIT)
+            return false;
+        byte type = records.get(offset + 20);
+        byte state = records.get(offset + 21);
+        if (type == READING ? state != NO_STATE : type != TRANSITION || state < 0 ||
+                                                  state >= NO_STATE)
+            return false;
+        return records.getInt(offset + 24) == checksum(records.getLong(offset), records.getLong
+                (offset + 8), records.getInt(offset + 16), type, state);
+    }
+    
+    /**
+     * Check whether nothing was ever written to the record at an offset
+     *
+     * @param records The buffer holding the records
+     * @param offset  The offset of the record
+     *
+     * @return true if every byte of the record is zero, false otherwise
+     */
+    private static boolean isBlank(ByteBuffer records, int offset) {
+        for (int i = 0; i < RECORD_SIZE; i += 8)
+            if (records.getLong(offset + i) != 0)
+                return false;
+        return true;
+    }
+    
+    /**
+     * Compute the checksum of a record
+     *
+     * @param timeMillis      The time of the record
+     * @param temperatureBits The raw bits of the temperature of the record
+     * @param tankId          The tank id of the record
+     * @param type            The type of the record
+     * @param state           The state code of the record
+     *
+     * @return the checksum
+     */
+    private static int checksum(long timeMillis, long temperatureBits, int tankId, byte type,
+                                byte state) {
+        long hash = timeMillis * 0x9E3779B97F4A7C15L ^ temperatureBits;
+        hash = (hash ^ hash >>> 31) * 0xBF58476D1CE4E5B9L ^ tankId;
+        hash = (hash ^ hash >>> 29) * 0x94D049BB133111EBL ^ (type << 8 | state);
+        return (int) (hash ^ hash >>> 32);
+    }
+    
+    /**
+     * A mapped segment file and the next free slot in it
+     */
+    private static final class Segment {
+        private final long             index; // The index of the segment
+        private final MappedByteBuffer records; // The records of the segment
+        private final int              capacity; // The number of records the segment holds
+        private final AtomicInteger    position = new AtomicInteger(); // The next slot to
+        // reserve, beyond capacity once the segment is full
+        
+        /**
+         * Constructor.
+         *
+         * @param index   The index of the segment
+         * @param records The records of the segment
+         */
+        Segment(long index, MappedByteBuffer records) {
+            this.index = index;
+            this.records = records;
+            this.capacity = records.capacity() / RECORD_SIZE;
+        }
+    }
+    
+    /**
+     * Receives the records of a journal during replay
+     */
+    public interface Replay {
+        /**
+         * Replay a sensor reading
+         *
+         * @param tankId      The id of the tank
+         * @param timeMillis  The time of the reading in milliseconds since the epoch
+         * @param temperature The water temperature in Celsius degrees
+         */
+        void reading(int tankId, long timeMillis, double temperature);
+        
+        /**
+         * Replay an adjuster transition
+         *
+         * @param tankId      The id of the tank
+         * @param timeMillis  The time of the transition in milliseconds since the epoch
+         * @param temperature The water temperature in Celsius degrees causing the transition
+         * @param state       The state commanded to the adjuster
+         */
+        void transition(int tankId, long timeMillis, double temperature, AdjusterState state);
+    }
+}
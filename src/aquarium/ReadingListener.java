@@ -0,0 +1,33 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+
+/**
+ * Receives the readings handled by a temperature controller and the adjuster transitions it
+ * commands. Listeners are called on the thread making the decision, normally the sensor's
+ * notification thread, so they must be quick and must not block.
+ *
+ * @version Oct 18, 2026
+ */
+public interface ReadingListener {
+    /**
+     * Handle a reading delivered by the sensor
+     *
+     * @param timeMillis  The time of the reading in milliseconds since the epoch
+     * @param temperature The water temperature in Celsius degrees
+     * @param state       The adjuster state decided for the reading
+     */
+    void onReading(long timeMillis, double temperature, AdjusterState state);
+    
+    /**
+     * Handle a transition of the adjuster, called before the adjuster is commanded
+     *
+     * @param timeMillis  The time of the transition in milliseconds since the epoch
+     * @param temperature The water temperature in Celsius degrees causing the transition
+     * @param from        The state previously commanded, or null for the first command
+     * @param to          The state being commanded
+     */
+    default void onTransition(long timeMillis, double temperature, AdjusterState from,
+                              AdjusterState to) {
+    }
+}
@@ -0,0 +1,430 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes the readings and adjuster transitions of one or many controllers as a stream with
+ * backpressure. Subscribers follow the protocol of java.util.concurrent.Flow and Reactive
+ * Streams: a subscriber receives onSubscribe, then at most as many events as it requested,
+ * then onComplete once the publisher is closed.
+ * <p>
+ * Every subscriber has its own bounded buffer and is called on an executor, never on the
+ * thread of the controller. Events published while its buffer is full are handled by its
+ * {@link OverflowPolicy}, so a slow subscriber loses events instead of slowing the control
+ * loop. Attach the publisher to a controller with
+ * {@link TemperatureControllerImpl#addListener(ReadingListener)} and
+ * {@link #listenerFor(int)}. Events are only created while there is a subscriber.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class ReadingPublisher implements AutoCloseable {
+    public static final  int        DEFAULT_CAPACITY = 256; // The number of events buffered
+    // for a subscriber by default
+    private static final Delivery[] NO_DELIVERIES = new Delivery[0]; // The empty subscriber
+    // array
+    
+    private final Executor      executor; // The executor calling the subscribers
+    private final LongAdder     dropped = new LongAdder(); // The number of events lost to a
+    // full buffer
+    private volatile Delivery[] deliveries = NO_DELIVERIES; // The subscriptions, replaced as a
+    // whole on every change
+    private boolean             closed; // True once the publisher is closed
+    
+    /**
+     * Constructor. Subscribers are called on the common fork-join pool, or on a new thread
+     * per delivery run when the pool has a single thread.
+     */
+    public ReadingPublisher() {
+        this(ForkJoinPool.getCommonPoolParallelism() > 1 ? ForkJoinPool.commonPool() :
+             runnable -> {
+                 Thread thread = new Thread(runnable, "aquarium-publisher");
+                 thread.setDaemon(true);
+                 thread.start();
+             });
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param executor The executor calling the subscribers
+     */
+    public ReadingPublisher(Executor executor) {
+        if (executor == null)
+            throw new NullPointerException("executor");
+        this.executor = executor;
+    }
+    
+    /**
+     * Create a listener publishing the readings and transitions of one tank
+     *
+     * @param tankId The id of the tank
+     *
+     * @return the listener
+     */
+    public ReadingListener listenerFor(int tankId) {
+        return new ReadingListener() {
+            @Override
+            public void onReading(long timeMillis, double temperature, AdjusterState state) {
+                publish(tankId, timeMillis, temperature, state, null, false);
+            }
+            
+            @Override
+            public void onTransition(long timeMillis, double temperature, AdjusterState from,
+                                     AdjusterState to) {
+                publish(tankId, timeMillis, temperature, to, from, true);
+            }
+        };
+    }
+    
+    /**
+     * Subscribe to the events with a buffer of DEFAULT_CAPACITY events dropping the oldest
+     * on overflow
+     *
+     * @param subscriber The subscriber
+     */
+    public void subscribe(Subscriber subscriber) {
+        subscribe(subscriber, DEFAULT_CAPACITY, OverflowPolicy.DROP_OLDEST);
+    }
+    
+    /**
+     * Subscribe to the events. A subscriber of a closed publisher is completed immediately,
+     * and a subscriber subscribing twice receives an IllegalStateException on the second
+     * subscription.
+     *
+     * @param subscriber The subscriber
+     * @param capacity   The number of events buffered for the subscriber
+     * @param policy     The handling of events published while the buffer is full
+     */
+    public void subscribe(Subscriber subscriber, int capacity, OverflowPolicy policy) {
+        if (subscriber == null || policy == null)
+            throw new NullPointerException("subscriber and policy are required");
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        Delivery delivery = new Delivery(subscriber, capacity, policy);
+        synchronized (this) {
+            Delivery[] current = deliveries;
+            for (Delivery other : current)
+                if (other.subscriber == subscriber)
+                    delivery.error = new IllegalStateException("Already subscribed");
+            if (closed)
+                delivery.completed = true;
+            else if (delivery.error == null) {
+                Delivery[] next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = delivery;
+                deliveries = next;
+            }
+        }
+        delivery.signal();
+    }
+    
+    /**
+     * Get the number of subscribers
+     *
+     * @return the number of active subscriptions
+     */
+    public int getSubscriberCount() {
+        return deliveries.length;
+    }
+    
+    /**
+     * Get the number of events lost because the buffer of a subscriber was full
+     *
+     * @return the number of dropped or conflated events
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+    
+    /**
+     * Stop publishing. Every subscriber receives the events it has buffered, then onComplete.
+     */
+    @Override
+    public void close() {
+        Delivery[] current;
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            current = deliveries;
+            deliveries = NO_DELIVERIES;
+        }
+        for (Delivery delivery : current)
+            delivery.complete();
+    }
+    
+    /**
+     * Hand an event to every subscriber. Never waits for a subscriber.
+     *
+     * @param tankId      The id of the tank
+     * @param timeMillis  The time of the event in milliseconds since the epoch
+     * @param temperature The water temperature in Celsius degrees
+     * @param state       The state decided for the reading, or commanded by the transition
+     * @param previous    The state previously commanded, or null
+     * @param transition  True for a transition, false for a reading
+     */
+    private void publish(int tankId, long timeMillis, double temperature, AdjusterState state,
+                         AdjusterState previous, boolean transition) {
+        Delivery[] current = deliveries;
+        if (current.length == 0)
+            return;
+        ReadingEvent event = new ReadingEvent(tankId, timeMillis, temperature, state, previous,
+                                              transition);
+        for (Delivery delivery : current)
+            delivery.offer(event);
+    }
+    
+    /**
+     * Forget a subscription
+     *
+     * @param delivery The subscription
+     */
+    private synchronized void remove(Delivery delivery) {
+        Delivery[] current = deliveries;
+        for (int i = 0; i < current.length; i++)
+            if (current[i] == delivery) {
+                Delivery[] next = new Delivery[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, next.length - i);
+                deliveries = next.length == 0 ? NO_DELIVERIES : next;
+                return;
+            }
+    }
+    
+    /**
+     * The handling of an event published while the buffer of a subscriber is full
+     */
+    public enum OverflowPolicy {
+        /**
+         * The oldest buffered event is dropped to make room for the new one, so the
+         * subscriber receives the most recent history
+         */
+        DROP_OLDEST,
+        /**
+         * The buffered events are kept and the newest of them is replaced by the new one, so
+         * the subscriber receives the start of the backlog followed by the latest event
+         */
+        CONFLATE_LATEST
+    }
+    
+    /**
+     * A subscriber to the events of a publisher, with the methods of Flow.Subscriber
+     */
+    public interface Subscriber {
+        /**
+         * Start the subscription, called before any other method
+         *
+         * @param subscription The subscription, used to request events or to cancel
+         */
+        void onSubscribe(Subscription subscription);
+        
+        /**
+         * Receive an event that was requested
+         *
+         * @param event The event
+         */
+        void onNext(ReadingEvent event);
+        
+        /**
+         * End the subscription on an error
+         *
+         * @param throwable The error
+         */
+        void onError(Throwable throwable);
+        
+        /**
+         * End the subscription once the publisher is closed and every buffered event was
+         * received
+         */
+        void onComplete();
+    }
+    
+    /**
+     * The link between a publisher and a subscriber, with the methods of Flow.Subscription
+     */
+    public interface Subscription {
+        /**
+         * Request more events
+         *
+         * @param n The number of events, positive
+         */
+        void request(long n);
+        
+        /**
+         * Stop receiving events
+         */
+        void cancel();
+    }
+    
+    /**
+     * The subscription of a subscriber, with its buffer. Only one delivery run is scheduled
+     * at a time, so the subscriber is called serially.
+     */
+    private final class Delivery implements Subscription, Runnable {
+        private final Subscriber     subscriber; // The subscriber
+        private final OverflowPolicy policy; // The handling of a full buffer
+        private final ReadingEvent[] buffer; // The ring of events not yet delivered
+        private int                  head; // The index of the oldest buffered event
+        private int                  size; // The number of buffered events
+        private long                 requested; // The number of events requested but not
+        // delivered
+        private boolean              started; // True once onSubscribe was called
+        private boolean              draining; // True while a delivery run is scheduled
+        private boolean              completed; // True once the publisher is closed
+        private boolean              cancelled; // True once the subscription ended
+        private Throwable            error; // The error to deliver, or null
+        
+        /**
+         * Constructor.
+         *
+         * @param subscriber The subscriber
+         * @param capacity   The number of events buffered
+         * @param policy     The handling of a full buffer
+         */
+        Delivery(Subscriber subscriber, int capacity, OverflowPolicy policy) {
+            this.subscriber = subscriber;
+            this.policy = policy;
+            this.buffer = new ReadingEvent[capacity];
+        }
+        
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (cancelled)
+                    return;
+                if (n <= 0)
+                    error = new IllegalArgumentException("Non-positive request: " + n);
+                else requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+                if (draining || size == 0 && error == null)
+                    return;
+                draining = true;
+            }
+            execute();
+        }
+        
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                Arrays.fill(buffer, null);
+                size = 0;
+            }
+            remove(this);
+        }
+        
+        /**
+         * Buffer an event, applying the overflow policy when the buffer is full
+         *
+         * @param event The event
+         */
+        void offer(ReadingEvent event) {
+            synchronized (this) {
+                if (cancelled || completed)
+                    return;
+                if (size < buffer.length)
+                    buffer[(head + size++) % buffer.length] = event;
+                else {
+                    dropped.increment();
+                    if (policy == OverflowPolicy.DROP_OLDEST) {
+                        buffer[head] = event;
+                        head = (head + 1) % buffer.length;
+                    } else buffer[(head + size - 1) % buffer.length] = event;
+                }
+                if (draining || requested == 0)
+                    return;
+                draining = true;
+            }
+            execute();
+        }
+        
+        /**
+         * Deliver the buffered events and onComplete once the publisher is closed
+         */
+        void complete() {
+            synchronized (this) {
+                completed = true;
+            }
+            signal();
+        }
+        
+        /**
+         * Schedule a delivery run unless one is already scheduled
+         */
+        void signal() {
+            synchronized (this) {
+                if (draining)
+                    return;
+                draining = true;
+            }
+            execute();
+        }
+        
+        /**
+         * Hand the delivery run to the executor, ending the subscription if it is refused
+         */
+        private void execute() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                cancel();
+            }
+        }
+        
+        /**
+         * Call the subscriber with the requested events until the buffer or the demand is
+         * exhausted. Run by the executor.
+         */
+        @Override
+        public void run() {
+            try {
+                if (!started) {
+                    started = true;
+                    subscriber.onSubscribe(this);
+                }
+                while (true) {
+                    ReadingEvent event = null;
+                    Throwable failure = null;
+                    synchronized (this) {
+                        if (cancelled)
+                            return;
+                        if (error != null) {
+                            failure = error;
+                            cancelled = true;
+                        } else if (size > 0 && requested > 0) {
+                            event = buffer[head];
+                            buffer[head] = null;
+                            head = (head + 1) % buffer.length;
+                            size--;
+                            if (requested != Long.MAX_VALUE)
+                                requested--;
+                        } else if (size == 0 && completed)
+                            cancelled = true;
+                        else {
+                            draining = false;
+                            return;
+                        }
+                    }
+                    if (failure != null) {
+                        remove(this);
+                        subscriber.onError(failure);
+                        return;
+                    }
+                    if (event == null) {
+                        subscriber.onComplete();
+                        return;
+                    }
+                    subscriber.onNext(event);
+                }
+            } catch (RuntimeException e) {
+                // A subscriber must not throw; one that does loses its subscription
+                cancel();
+            }
+        }
+    }
+}
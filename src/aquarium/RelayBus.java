@@ -0,0 +1,22 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+
+/**
+ * The shared relay bus driving the adjusters of many tanks, where every frame sent is one
+ * round-trip. A BatchingActuator sends it at most one frame per tick, holding the latest
+ * state commanded to each tank whose state changed.
+ *
+ * @version Oct 18, 2026
+ */
+public interface RelayBus {
+    /**
+     * Send a frame of commands and wait for the bus to acknowledge it. The arrays are reused
+     * for the next frame, so they must not be kept.
+     *
+     * @param tankIds The id of the tank of each command
+     * @param states  The state commanded to each tank
+     * @param count   The number of commands, at the start of the arrays
+     */
+    void send(int[] tankIds, AdjusterState[] states, int count);
+}
@@ -0,0 +1,124 @@
+package aquarium;
+
+import java.util.Arrays;
+
+/**
+ * An immutable strategy fusing the latest readings of the probes of one tank into the single
+ * temperature given to its controller. Probes further than the outlier limit from the median
+ * of the probes are rejected first, then the given fraction of the lowest and of the highest
+ * remaining readings is trimmed and the rest averaged. The mean trims nothing and the median
+ * trims everything but the middle reading, or the middle two.
+ *
+ * @version Oct 18, 2026
+ */
+public final class SensorFusion {
+    public static final SensorFusion MEAN = new SensorFusion(0.0, Double.POSITIVE_INFINITY);
+    // The mean of every probe
+    public static final SensorFusion MEDIAN = new SensorFusion(0.5, Double.POSITIVE_INFINITY);
+    // The median of the probes
+    
+    private final double trimFraction; // The fraction of the readings trimmed at each end
+    private final double outlierLimit; // The largest distance from the median of a reading
+    // kept, in Celsius degrees
+    
+    /**
+     * Constructor.
+     *
+     * @param trimFraction The fraction of the readings trimmed at each end, from 0 to 0.5
+     * @param outlierLimit The largest distance from the median of a reading kept, in Celsius
+     *                     degrees
+     *
+     * @throws IllegalArgumentException if a setting is out of range
+     */
+    private SensorFusion(double trimFraction, double outlierLimit) {
+        if (!(trimFraction >= 0 && trimFraction <= 0.5))
+            throw new IllegalArgumentException("Invalid trim fraction: " + trimFraction);
+        if (!(outlierLimit >= 0))
+            throw new IllegalArgumentException("Invalid outlier limit: " + outlierLimit);
+        this.trimFraction = trimFraction;
+        this.outlierLimit = outlierLimit;
+    }
+    
+    /**
+     * Create a trimmed mean
+     *
+     * @param fraction The fraction of the readings trimmed at each end, from 0 to 0.5
+     *
+     * @return the fusion
+     */
+    public static SensorFusion trimmedMean(double fraction) {
+        return new SensorFusion(fraction, Double.POSITIVE_INFINITY);
+    }
+    
+    /**
+     * Return a copy of this fusion rejecting the probes too far from the median
+     *
+     * @param celsius The largest distance from the median of a reading kept, in Celsius
+     *                degrees
+     *
+     * @return the new fusion
+     */
+    public SensorFusion withOutlierLimit(double celsius) {
+        return new SensorFusion(trimFraction, celsius);
+    }
+    
+    /**
+     * Get the fraction of the readings trimmed at each end
+     *
+     * @return the trim fraction, 0 for the mean and 0.5 for the median
+     */
+    public double getTrimFraction() {
+        return trimFraction;
+    }
+    
+    /**
+     * Get the largest distance from the median of a reading kept
+     *
+     * @return the outlier limit in Celsius degrees, infinite when no probe is rejected
+     */
+    public double getOutlierLimit() {
+        return outlierLimit;
+    }
+    
+    /**
+     * Fuse readings. Allocates nothing.
+     *
+     * @param readings The readings, reordered by the fusion
+     * @param count    The number of readings, at the start of the array
+     *
+     * @return the fused temperature, or NaN if there is no reading
+     */
+    double fuse(double[] readings, int count) {
+        if (count == 0)
+            return Double.NaN;
+        int from = 0;
+        int to = count;
+        if (trimFraction > 0 || outlierLimit != Double.POSITIVE_INFINITY) {
+            Arrays.sort(readings, 0, count);
+            if (outlierLimit != Double.POSITIVE_INFINITY) {
+                int middle = count / 2;
+                double median = count % 2 == 1 ? readings[middle] : (readings[middle - 1] +
+                                                                      readings[middle]) / 2;
+                while (median - readings[from] > outlierLimit)
+                    from++;
+                while (readings[to - 1] - median > outlierLimit)
+                    to--;
+                if (from >= to)
+                    return median;
+            }
+            int trimmed = Math.min((int) ((to - from) * trimFraction), (to - from - 1) / 2);
+            from += trimmed;
+            to -= trimmed;
+        }
+        double sum = 0;
+        for (int i = from; i < to; i++)
+            sum += readings[i];
+        return sum / (to - from);
+    }
+    
+    @Override
+    public String toString() {
+        return "SensorFusion{" + "trimFraction=" + trimFraction + ", outlierLimit=" +
+               outlierLimit + '}';
+    }
+}
@@ -0,0 +1,352 @@
+package aquarium;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable setpoint profile of a tank: a sequence of points, each giving the desired
+ * temperature from an offset on, run once from the time it is scheduled or repeated every
+ * period. A point is either a step, the temperature changing at its offset, or the end of a
+ * ramp, the temperature moving linearly from the previous point and being updated every ramp
+ * step. A point may also change the acceptable variation. Temperatures and variations are
+ * in the scale of the tank at the time they are applied.
+ * <p>
+ * A daily profile, such as slow overnight cooling, has its offsets counted from midnight, so
+ * its points are given as times of day. A one-off profile, such as an acclimation ramp, has
+ * its offsets counted from the time it is scheduled.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class SetpointProfile {
+    private static final long DAY_NANOS = TimeUnit.DAYS.toNanos(1); // The period of a daily
+    // profile
+    private static final long DEFAULT_RAMP_STEP = TimeUnit.MINUTES.toNanos(1); // The time
+    // between two setpoints of a ramp by default
+    
+    private final long      periodNanos; // The period of the profile, or 0 if it runs once
+    private final boolean   daily; // True if the offsets are counted from local midnight
+    private final long      rampStepNanos; // The time between two setpoints of a ramp
+    private final long[]    offsets; // The offset of each point in nanoseconds
+    private final double[]  temperatures; // The desired temperature from each point on
+    private final double[]  variances; // The acceptable variation from each point on, or
+    // NaN
+    private final boolean[] ramps; // True for a point reached by a ramp, false for a step
+    
+    /**
+     * Constructor.
+     *
+     * @param periodNanos   The period of the profile, or 0 if it runs once
+     * @param daily         True if the offsets are counted from local midnight
+     * @param rampStepNanos The time between two setpoints of a ramp
+     * @param offsets       The offset of each point in nanoseconds
+     * @param temperatures  The desired temperature from each point on
+     * @param variances     The acceptable variation from each point on, or NaN
+     * @param ramps         True for a point reached by a ramp, false for a step
+     */
+    private SetpointProfile(long periodNanos, boolean daily, long rampStepNanos, long[] offsets,
+                            double[] temperatures, double[] variances, boolean[] ramps) {
+        this.periodNanos = periodNanos;
+        this.daily = daily;
+        this.rampStepNanos = rampStepNanos;
+        this.offsets = offsets;
+        this.temperatures = temperatures;
+        this.variances = variances;
+        this.ramps = ramps;
+    }
+    
+    /**
+     * Create an empty profile run once from the time it is scheduled
+     *
+     * @return the profile
+     */
+    public static SetpointProfile once() {
+        return repeating(0, false);
+    }
+    
+    /**
+     * Create an empty profile repeated every day, its offsets counted from midnight
+     *
+     * @return the profile
+     */
+    public static SetpointProfile daily() {
+        return repeating(DAY_NANOS, true);
+    }
+    
+    /**
+     * Create an empty profile repeated every period, its offsets counted from the time it is
+     * scheduled
+     *
+     * @param period The period
+     * @param unit   The unit of the period
+     *
+     * @return the profile
+     */
+    public static SetpointProfile repeating(long period, TimeUnit unit) {
+        if (period <= 0)
+            throw new IllegalArgumentException("Invalid period: " + period);
+        return repeating(unit.toNanos(period), false);
+    }
+    
+    /**
+     * Create an empty profile
+     *
+     * @param periodNanos The period of the profile, or 0 if it runs once
+     * @param daily       True if the offsets are counted from local midnight
+     *
+     * @return the profile
+     */
+    private static SetpointProfile repeating(long periodNanos, boolean daily) {
+        return new SetpointProfile(periodNanos, daily, DEFAULT_RAMP_STEP, new long[0],
+                                   new double[0], new double[0], new boolean[0]);
+    }
+    
+    /**
+     * Return a copy of this profile with a step to a temperature at an offset
+     *
+     * @param offset      The offset of the step, after that of every other point
+     * @param unit        The unit of the offset
+     * @param temperature The desired temperature from the offset on
+     *
+     * @return the new profile
+     */
+    public SetpointProfile at(long offset, TimeUnit unit, double temperature) {
+        return withPoint(unit.toNanos(offset), temperature, false);
+    }
+    
+    /**
+     * Return a copy of this profile with a step to a temperature at a time of day
+     *
+     * @param time        The time of day of the step, after that of every other point
+     * @param temperature The desired temperature from the time on
+     *
+     * @return the new profile
+     */
+    public SetpointProfile at(LocalTime time, double temperature) {
+        return withPoint(time.toNanoOfDay(), temperature, false);
+    }
+    
+    /**
+     * Return a copy of this profile with a ramp from the previous point to a temperature
+     * reached at an offset. The ramp of the first point of a repeating profile starts from
+     * the last point of the previous period.
+     *
+     * @param offset      The offset at which the temperature is reached, after that of every
+     *                    other point
+     * @param unit        The unit of the offset
+     * @param temperature The desired temperature at the end of the ramp
+     *
+     * @return the new profile
+     */
+    public SetpointProfile rampTo(long offset, TimeUnit unit, double temperature) {
+        return withPoint(unit.toNanos(offset), temperature, true);
+    }
+    
+    /**
+     * Return a copy of this profile with a ramp from the previous point to a temperature
+     * reached at a time of day
+     *
+     * @param time        The time of day at which the temperature is reached, after that of
+     *                    every other point
+     * @param temperature The desired temperature at the end of the ramp
+     *
+     * @return the new profile
+     */
+    public SetpointProfile rampTo(LocalTime time, double temperature) {
+        return withPoint(time.toNanoOfDay(), temperature, true);
+    }
+    
+    /**
+     * Return a copy of this profile whose last point also sets the acceptable variation
+     *
+     * @param variance The acceptable variation from the last point on
+     *
+     * @return the new profile
+     */
+    public SetpointProfile withVariance(double variance) {
+        if (offsets.length == 0)
+            throw new IllegalStateException("The profile has no point");
+        if (!(variance >= 0) || Double.isInfinite(variance))
+            throw new IllegalArgumentException("Invalid variance: " + variance);
+        double[] nextVariances = variances.clone();
+        nextVariances[offsets.length - 1] = variance;
+        return new SetpointProfile(periodNanos, daily, rampStepNanos, offsets, temperatures,
+                                   nextVariances, ramps);
+    }
+    
+    /**
+     * Return a copy of this profile with another time between two setpoints of a ramp
+     *
+     * @param step The time between two setpoints of a ramp
+     * @param unit The unit of the step
+     *
+     * @return the new profile
+     */
+    public SetpointProfile withRampStep(long step, TimeUnit unit) {
+        if (step <= 0)
+            throw new IllegalArgumentException("Invalid ramp step: " + step);
+        return new SetpointProfile(periodNanos, daily, unit.toNanos(step), offsets,
+                                   temperatures, variances, ramps);
+    }
+    
+    /**
+     * Get the period of the profile
+     *
+     * @return the period in nanoseconds, or 0 if the profile runs once
+     */
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+    
+    /**
+     * Check whether the profile is repeated every day from local midnight, as created by
+     * daily. A profile repeated every 24 hours by repeating starts when it is scheduled
+     * instead.
+     *
+     * @return true for a daily profile, false otherwise
+     */
+    public boolean isDaily() {
+        return daily;
+    }
+    
+    /**
+     * Get the time between two setpoints of a ramp
+     *
+     * @return the ramp step in nanoseconds
+     */
+    public long getRampStepNanos() {
+        return rampStepNanos;
+    }
+    
+    /**
+     * Get the number of points of the profile
+     *
+     * @return the number of points
+     */
+    public int size() {
+        return offsets.length;
+    }
+    
+    /**
+     * Get the desired temperature at a position of the profile
+     *
+     * @param position The offset in nanoseconds, within the period of a repeating profile
+     *
+     * @return the temperature, or NaN before the first point of a one-off profile
+     */
+    double temperatureAt(long position) {
+        int n = offsets.length;
+        int i = indexAt(position);
+        long fromOffset;
+        double from;
+        if (i >= 0) {
+            fromOffset = offsets[i];
+            from = temperatures[i];
+        } else if (periodNanos > 0) {
+            fromOffset = offsets[n - 1] - periodNanos;
+            from = temperatures[n - 1];
+        } else return Double.NaN;
+        int j = i + 1;
+        long toOffset;
+        if (j < n)
+            toOffset = offsets[j];
+        else if (periodNanos > 0) {
+            j = 0;
+            toOffset = offsets[0] + periodNanos;
+        } else return from;
+        if (!ramps[j])
+            return from;
+        return from + (temperatures[j] - from) * (position - fromOffset) / (toOffset -
+                                                                            fromOffset);
+    }
+    
+    /**
+     * Get the acceptable variation set at a position of the profile
+     *
+     * @param position The offset in nanoseconds, within the period of a repeating profile
+     * @param exact    True for the variation of a point at exactly the position only, false
+     *                 for the variation in effect at the position
+     *
+     * @return the variation, or NaN if the profile sets none
+     */
+    double varianceAt(long position, boolean exact) {
+        int i = indexAt(position);
+        if (exact)
+            return i >= 0 && offsets[i] == position ? variances[i] : Double.NaN;
+        for (int k = i; k >= 0; k--)
+            if (!Double.isNaN(variances[k]))
+                return variances[k];
+        if (periodNanos > 0)
+            for (int k = offsets.length - 1; k > i; k--)
+                if (!Double.isNaN(variances[k]))
+                    return variances[k];
+        return Double.NaN;
+    }
+    
+    /**
+     * Get the next position at which the setpoint changes
+     *
+     * @param position The offset in nanoseconds, within the period of a repeating profile
+     *
+     * @return the next position, beyond the period when it falls in the next one, or -1 if
+     * a one-off profile is over
+     */
+    long nextChange(long position) {
+        int i = indexAt(position);
+        int j = i + 1;
+        long toOffset;
+        if (j < offsets.length)
+            toOffset = offsets[j];
+        else if (periodNanos > 0) {
+            j = 0;
+            toOffset = offsets[0] + periodNanos;
+        } else return -1;
+        if (ramps[j])
+            return Math.min(position + rampStepNanos, toOffset);
+        return toOffset;
+    }
+    
+    /**
+     * Find the last point at or before a position
+     *
+     * @param position The offset in nanoseconds
+     *
+     * @return the index of the point, or -1 if the position is before the first point
+     */
+    private int indexAt(long position) {
+        int index = Arrays.binarySearch(offsets, position);
+        return index >= 0 ? index : -index - 2;
+    }
+    
+    /**
+     * Return a copy of this profile with one more point
+     *
+     * @param offset      The offset of the point in nanoseconds
+     * @param temperature The desired temperature from the point on
+     * @param ramp        True for the end of a ramp, false for a step
+     *
+     * @return the new profile
+     */
+    private SetpointProfile withPoint(long offset, double temperature, boolean ramp) {
+        int n = offsets.length;
+        if (offset < 0 || periodNanos > 0 && offset >= periodNanos)
+            throw new IllegalArgumentException("Offset outside of the period: " + offset);
+        if (n > 0 && offset <= offsets[n - 1])
+            throw new IllegalArgumentException("Points must be added in order: " + offset);
+        if (Double.isNaN(temperature) || Double.isInfinite(temperature))
+            throw new IllegalArgumentException("Invalid temperature: " + temperature);
+        if (ramp && n == 0 && periodNanos == 0)
+            throw new IllegalStateException("A one-off profile cannot start with a ramp");
+        long[] nextOffsets = Arrays.copyOf(offsets, n + 1);
+        double[] nextTemperatures = Arrays.copyOf(temperatures, n + 1);
+        double[] nextVariances = Arrays.copyOf(variances, n + 1);
+        boolean[] nextRamps = Arrays.copyOf(ramps, n + 1);
+        nextOffsets[n] = offset;
+        nextTemperatures[n] = temperature;
+        nextVariances[n] = Double.NaN;
+        nextRamps[n] = ramp;
+        return new SetpointProfile(periodNanos, daily, rampStepNanos, nextOffsets,
+                                   nextTemperatures, nextVariances, nextRamps);
+    }
+}
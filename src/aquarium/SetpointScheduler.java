@@ -0,0 +1,290 @@
+package aquarium;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Applies the setpoint profiles of many tanks from a timing wheel. Every tank has at most one
+ * profile and one pending timeout, for the next change of its setpoint, so the wheel thread
+ * drives a hundred thousand tanks at the cost of the changes actually due.
+ * <p>
+ * When a profile is set, the setpoint it gives for the current time is applied at once, so
+ * a tank joining in the middle of a daily profile starts at the right temperature. Daily
+ * profiles follow the wall clock of the scheduler from local midnight: the deadline of every
+ * change is placed from the local date and time of day it is due at, so days shortened or
+ * lengthened by daylight saving and changes of the wall clock are followed. One-off and other
+ * repeating profiles start when they are set and follow the wheel. A setpoint change throwing
+ * an exception is counted by the wheel and does not stop the profile; a profile replaced or
+ * removed applies no setpoint once setProfile or removeProfile returned.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class SetpointScheduler implements AutoCloseable {
+    private final TimingWheel       wheel; // The wheel firing the setpoint changes
+    private final boolean           ownsWheel; // True if closing the scheduler closes the
+    // wheel
+    private final Clock             clock; // The wall clock placing daily profiles
+    private final Map<Integer, Run> runs = new ConcurrentHashMap<>(); // The running profile
+    // of each tank, keyed by tank id
+    private final LongAdder         applied = new LongAdder(); // The number of setpoint
+    // changes applied
+    
+    /**
+     * Constructor. Creates a timing wheel of 10 millisecond ticks driven by its own thread.
+     */
+    public SetpointScheduler() {
+        this(new TimingWheel(10, TimeUnit.MILLISECONDS), true, Clock.systemDefaultZone());
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param wheel The timing wheel firing the setpoint changes, left open on close
+     */
+    public SetpointScheduler(TimingWheel wheel) {
+        this(wheel, false, Clock.systemDefaultZone());
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param wheel The timing wheel firing the setpoint changes, left open on close
+     * @param clock The wall clock placing daily profiles
+     */
+    SetpointScheduler(TimingWheel wheel, Clock clock) {
+        this(wheel, false, clock);
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param wheel     The timing wheel firing the setpoint changes
+     * @param ownsWheel True if closing the scheduler closes the wheel
+     * @param clock     The wall clock placing daily profiles
+     */
+    private SetpointScheduler(TimingWheel wheel, boolean ownsWheel, Clock clock) {
+        this.wheel = wheel;
+        this.ownsWheel = ownsWheel;
+        this.clock = clock;
+    }
+    
+    /**
+     * Start the profile of a tank, replacing the one it had
+     *
+     * @param tankId     The id of the tank
+     * @param controller The controller of the tank
+     * @param profile    The profile, with at least one point
+     */
+    public void setProfile(int tankId, TemperatureController controller,
+                           SetpointProfile profile) {
+        if (profile.size() == 0)
+            throw new IllegalArgumentException("The profile has no point");
+        Run run = new Run(tankId, controller, profile);
+        Run previous = runs.put(tankId, run);
+        if (previous != null)
+            previous.cancel();
+        run.start();
+    }
+    
+    /**
+     * Stop the profile of a tank, leaving its last setpoint in place
+     *
+     * @param tankId The id of the tank
+     *
+     * @return true if the tank had a profile, false otherwise
+     */
+    public boolean removeProfile(int tankId) {
+        Run run = runs.remove(tankId);
+        if (run == null)
+            return false;
+        run.cancel();
+        return true;
+    }
+    
+    /**
+     * Get the profile of a tank
+     *
+     * @param tankId The id of the tank
+     *
+     * @return the profile, or null if the tank has none or its one-off profile is over
+     */
+    public SetpointProfile getProfile(int tankId) {
+        Run run = runs.get(tankId);
+        return run == null ? null : run.profile;
+    }
+    
+    /**
+     * Get the number of tanks with a running profile
+     *
+     * @return the number of profiles
+     */
+    public int getProfileCount() {
+        return runs.size();
+    }
+    
+    /**
+     * Get the number of setpoint changes applied to the tanks
+     *
+     * @return the number of temperature and variation changes
+     */
+    public long getAppliedCount() {
+        return applied.sum();
+    }
+    
+    /**
+     * Stop every profile, and the wheel if the scheduler created it
+     */
+    @Override
+    public void close() {
+        for (Integer tankId : runs.keySet())
+            removeProfile(tankId);
+        if (ownsWheel)
+            wheel.close();
+    }
+    
+    /**
+     * A profile running for a tank, firing itself from the wheel at every setpoint change.
+     * Applying a change and cancelling hold the run, so that once cancel returns the run
+     * applies nothing more.
+     */
+    private final class Run implements Runnable {
+        private final int                    tankId; // The id of the tank
+        private final TemperatureController  controller; // The controller of the tank
+        private final SetpointProfile        profile; // The profile
+        private long                         anchor; // The wheel time of offset 0 of the
+        // current period, for a profile that is not daily
+        private LocalDate                    day; // The local date of the current period, for
+        // a daily profile
+        private long                         position; // The offset of the next change
+        private double                       temperature = Double.NaN; // The temperature
+        // last applied
+        private volatile TimingWheel.Timeout timeout; // The timeout of the next change
+        private volatile boolean             cancelled; // True once the profile is stopped
+        
+        /**
+         * Constructor.
+         *
+         * @param tankId     The id of the tank
+         * @param controller The controller of the tank
+         * @param profile    The profile
+         */
+        Run(int tankId, TemperatureController controller, SetpointProfile profile) {
+            this.tankId = tankId;
+            this.controller = controller;
+            this.profile = profile;
+        }
+        
+        /**
+         * Apply the setpoint in effect now and schedule the next change
+         */
+        synchronized void start() {
+            if (cancelled)
+                return;
+            if (profile.isDaily()) {
+                ZonedDateTime now = ZonedDateTime.now(clock);
+                day = now.toLocalDate();
+                position = now.toLocalTime().toNanoOfDay();
+            } else {
+                anchor = wheel.nanoTime();
+                position = 0;
+            }
+            try {
+                apply(false);
+            } finally {
+                scheduleNext();
+            }
+        }
+        
+        /**
+         * Apply a change and schedule the next one. Run by the wheel thread.
+         */
+        @Override
+        public synchronized void run() {
+            if (cancelled)
+                return;
+            try {
+                apply(true);
+            } finally {
+                scheduleNext();
+            }
+        }
+        
+        /**
+         * Stop the profile, waiting for a change being applied
+         */
+        synchronized void cancel() {
+            cancelled = true;
+            TimingWheel.Timeout current = timeout;
+            if (current != null)
+                current.cancel();
+        }
+        
+        /**
+         * Apply the setpoint of the profile at the current position
+         *
+         * @param exact True to only apply a variation set at exactly the position, false to
+         *              apply the variation in effect
+         */
+        private void apply(boolean exact) {
+            double variance = profile.varianceAt(position, exact);
+            if (!Double.isNaN(variance)) {
+                controller.setAcceptableVariation(variance);
+                applied.increment();
+            }
+            double next = profile.temperatureAt(position);
+            if (!Double.isNaN(next) && next != temperature) {
+                controller.setTemperature(next);
+                temperature = next;
+                applied.increment();
+            }
+        }
+        
+        /**
+         * Schedule the next change of the profile, or end a one-off profile
+         */
+        private void scheduleNext() {
+            if (cancelled)
+                return;
+            long next = profile.nextChange(position);
+            if (next < 0) {
+                runs.remove(tankId, this);
+                return;
+            }
+            long period = profile.getPeriodNanos();
+            if (period > 0 && next >= period) {
+                next -= period;
+                if (day != null)
+                    day = day.plusDays(1);
+                else anchor += period;
+            }
+            position = next;
+            timeout = wheel.scheduleAt(this, deadline(next));
+        }
+        
+        /**
+         * Get the wheel time of an offset of the current period. The offset of a daily
+         * profile is a time of day, placed from the wall clock on the local date of the
+         * period.
+         *
+         * @param offset The offset
+         *
+         * @return the deadline on the time base of the wheel
+         */
+        private long deadline(long offset) {
+            if (day == null)
+                return anchor + offset;
+            ZonedDateTime due = ZonedDateTime.of(day, LocalTime.ofNanoOfDay(offset), clock
+                    .getZone());
+            return wheel.nanoTime() + Duration.between(clock.instant(), due.toInstant())
+                    .toNanos();
+        }
+    }
+}
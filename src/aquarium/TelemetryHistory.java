@@ -0,0 +1,276 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+
+/**
+ * A bounded history of the readings of one tank, each kept as a (timestamp, temperature,
+ * adjuster state) record in a primitive ring buffer. Appending overwrites the oldest record
+ * once the buffer is full and costs O(1) without allocating. The buffer lives either on the
+ * heap or off-heap in a direct buffer.
+ * <p>
+ * Records are appended by one writer, normally the sensor thread, in timestamp order, and
+ * may be queried concurrently from other threads. Windowed queries locate the window by
+ * binary search and scan it in place, so they neither allocate nor copy the buffer. A record
+ * the writer starts overwriting while a query reads it is skipped, as if it had been
+ * overwritten before the query started, so a query never sees a torn record. As in a
+ * StampedLock, a store fence keeps the writer from overwriting a record before it publishes
+ * that it started, and a load fence keeps a query from checking it before reading the record.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class TelemetryHistory {
+    private static final int             RECORD_SIZE = 16; // A long holding the timestamp and
+    // state, followed by the temperature as a double
+    private static final int             STATE_SHIFT = 56; // The position of the state in the
+    // first long of a record
+    private static final long            TIME_MASK = (1L << STATE_SHIFT) - 1; // The timestamp
+    // bits of the first long of a record
+    private static final int             NO_STATE = 3; // The state code of a reading taken
+    // before any command was issued
+    private static final AdjusterState[] STATES = AdjusterState.values(); // The adjuster
+    // states by ordinal
+    private static final MethodHandle    STORE_FENCE = fence("storeFence"); // Orders the
+    // start of an append before its writes of the record
+    private static final MethodHandle    LOAD_FENCE = fence("loadFence"); // Orders the reads of
+    // a record before the check that it is intact
+    
+    private final ByteBuffer records; // The ring of records
+    private final int        capacity; // The maximum number of records kept
+    private volatile long    started; // The number of records ever started to be appended
+    private volatile long    written; // The number of records ever appended
+    
+    /**
+     * Constructor.
+     *
+     * @param records  The buffer holding the records
+     * @param capacity The maximum number of records kept
+     */
+    private TelemetryHistory(ByteBuffer records, int capacity) {
+        this.records = records;
+        this.capacity = capacity;
+    }
+    
+    /**
+     * Create a history kept on the heap
+     *
+     * @param capacity The maximum number of records kept
+     *
+     * @return the history
+     */
+    public static TelemetryHistory onHeap(int capacity) {
+        return new TelemetryHistory(ByteBuffer.allocate(bufferSize(capacity)), capacity);
+    }
+    
+    /**
+     * Create a history kept off-heap, outside of the garbage collected heap
+     *
+     * @param capacity The maximum number of records kept
+     *
+     * @return the history
+     */
+    public static TelemetryHistory offHeap(int capacity) {
+        return new TelemetryHistory(ByteBuffer.allocateDirect(bufferSize(capacity)), capacity);
+    }
+    
+    /**
+     * Append a record, overwriting the oldest one when the history is full. Timestamps must
+     * not decrease from one record to the next.
+     *
+     * @param timeMillis  The time of the reading in milliseconds since the epoch
+     * @param temperature The water temperature in Celsius degrees
+     * @param state       The state commanded to the adjuster, or null if none was commanded
+     */
+    public void append(long timeMillis, double temperature, AdjusterState state) {
+        long sequence = written;
+        started = sequence + 1;
+        invoke(STORE_FENCE);
+        int offset = (int) (sequence % capacity) * RECORD_SIZE;
+        long code = state == null ? NO_STATE : state.ordinal();
+        records.putLong(offset, code << STATE_SHIFT | timeMillis & TIME_MASK);
+        records.putDouble(offset + 8, temperature);
+        written = sequence + 1;
+    }
+    
+    /**
+     * Get the maximum number of records kept
+     *
+     * @return the capacity of the history
+     */
+    public int capacity() {
+        return capacity;
+    }
+    
+    /**
+     * Get the number of records currently kept
+     *
+     * @return the number of records
+     */
+    public int size() {
+        return (int) Math.min(written, capacity);
+    }
+    
+    /**
+     * Aggregate the records taken within a time window
+     *
+     * @param fromMillis The start of the window, inclusive
+     * @param toMillis   The end of the window, inclusive
+     * @param window     The window receiving the aggregates, reset before use
+     *
+     * @return the window
+     */
+    public TelemetryWindow aggregate(long fromMillis, long toMillis, TelemetryWindow window) {
+        window.reset(fromMillis, toMillis);
+        long end = written;
+        for (long sequence = firstAtOrAfter(fromMillis, end); sequence < end; sequence++) {
+            int offset = (int) (sequence % capacity) * RECORD_SIZE;
+            long head = records.getLong(offset);
+            double temperature = records.getDouble(offset + 8);
+            long intact = oldestIntact();
+            if (sequence < intact) {
+                sequence = intact - 1; // The writer lapped the query, skip to the oldest intact
+                continue;
+            }
+            long time = head & TIME_MASK;
+            if (time > toMillis)
+                break;
+            window.add(time, temperature, (int) (head >>> STATE_SHIFT));
+        }
+        return window;
+    }
+    
+    /**
+     * Visit the records taken within a time window, oldest first, without copying them
+     *
+     * @param fromMillis The start of the window, inclusive
+     * @param toMillis   The end of the window, inclusive
+     * @param visitor    The visitor receiving each record
+     *
+     * @return the number of records visited
+     */
+    public int forEach(long fromMillis, long toMillis, Visitor visitor) {
+        long end = written;
+        int visited = 0;
+        for (long sequence = firstAtOrAfter(fromMillis, end); sequence < end; sequence++) {
+            int offset = (int) (sequence % capacity) * RECORD_SIZE;
+            long head = records.getLong(offset);
+            double temperature = records.getDouble(offset + 8);
+            long intact = oldestIntact();
+            if (sequence < intact) {
+                sequence = intact - 1; // The writer lapped the query, skip to the oldest intact
+                continue;
+            }
+            long time = head & TIME_MASK;
+            if (time > toMillis)
+                break;
+            int code = (int) (head >>> STATE_SHIFT);
+            visitor.visit(time, temperature, code == NO_STATE ? null : STATES[code]);
+            visited++;
+        }
+        return visited;
+    }
+    
+    /**
+     * Find the first record taken at or after a time by binary search over the records kept
+     *
+     * @param timeMillis The time
+     * @param end        The sequence number after the newest record
+     *
+     * @return the sequence number of the record, or end if there is none
+     */
+    private long firstAtOrAfter(long timeMillis, long end) {
+        long low = Math.max(0, end - capacity);
+        long high = end;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if ((records.getLong((int) (middle % capacity) * RECORD_SIZE) & TIME_MASK) <
+                timeMillis)
+                low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+    
+    /**
+     * Get the oldest record the writer has not started to overwrite. The record of sequence
+     * number s is overwritten by the append of sequence number s + capacity, so it may be
+     * torn from the moment that append starts, before written reaches it. The records read
+     * before the call are read before started is.
+     *
+     * @return the sequence number of the oldest intact record
+     */
+    private long oldestIntact() {
+        invoke(LOAD_FENCE);
+        return started - capacity;
+    }
+    
+    /**
+     * Compute the buffer size of a history
+     *
+     * @param capacity The maximum number of records kept
+     *
+     * @return the size of the buffer in bytes
+     */
+    private static int bufferSize(int capacity) {
+        if (capacity < 1 || capacity > Integer.MAX_VALUE / RECORD_SIZE)
+            throw new IllegalArgumentException("Invalid history capacity: " + capacity);
+        return capacity * RECORD_SIZE;
+    }
+    
+    /**
+     * Find a memory fence of sun.misc.Unsafe, the only fences of Java 8. It is looked up
+     * reflectively, since the class is not part of the Java 8 API the sources are compiled
+     * against.
+     *
+     * @param name The name of the fence method
+     *
+     * @return the fence, bound to the Unsafe instance
+     */
+    private static MethodHandle fence(String name) {
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup().findVirtual(type, name, MethodType.methodType(void
+                    .class)).bindTo(field.get(null));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    /**
+     * Issue a memory fence
+     *
+     * @param fence The fence
+     */
+    private static void invoke(MethodHandle fence) {
+        try {
+            fence.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * Receives the records of a history one at a time
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * Visit a record
+         *
+         * @param timeMillis  The time of the reading in milliseconds since the epoch
+         * @param temperature The water temperature in Celsius degrees
+         * @param state       The state commanded to the adjuster, or null if none was commanded
+         */
+        void visit(long timeMillis, double temperature, AdjusterState state);
+    }
+}
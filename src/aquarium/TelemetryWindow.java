@@ -0,0 +1,141 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+
+/**
+ * The aggregates of the readings of a tank within a time window, computed by
+ * {@link TelemetryHistory#aggregate(long, long, TelemetryWindow)}. A window is mutable so
+ * that a caller can reuse one instance across queries without allocating.
+ *
+ * @version Oct 18, 2026
+ */
+public final class TelemetryWindow {
+    private long         fromMillis; // The start of the window, inclusive
+    private long         toMillis; // The end of the window, inclusive
+    private int          count; // The number of readings
+    private double       min; // The lowest temperature in Celsius degrees
+    private double       max; // The highest temperature in Celsius degrees
+    private double       sum; // The sum of the temperatures in Celsius degrees
+    private long         firstMillis; // The time of the first reading
+    private long         lastMillis; // The time of the last reading
+    private final int[]  stateCounts = new int[4]; // The number of readings per adjuster
+    // state ordinal, the last slot counting readings taken before any command
+    
+    /**
+     * Get the start of the window
+     *
+     * @return the start of the window in milliseconds since the epoch
+     */
+    public long getFromMillis() {
+        return fromMillis;
+    }
+    
+    /**
+     * Get the end of the window
+     *
+     * @return the end of the window in milliseconds since the epoch
+     */
+    public long getToMillis() {
+        return toMillis;
+    }
+    
+    /**
+     * Get the number of readings in the window
+     *
+     * @return the number of readings
+     */
+    public int getCount() {
+        return count;
+    }
+    
+    /**
+     * Get the lowest temperature in the window
+     *
+     * @return the lowest temperature in Celsius degrees, or NaN if the window is empty
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+    
+    /**
+     * Get the highest temperature in the window
+     *
+     * @return the highest temperature in Celsius degrees, or NaN if the window is empty
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+    
+    /**
+     * Get the average temperature of the readings in the window
+     *
+     * @return the average temperature in Celsius degrees, or NaN if the window is empty
+     */
+    public double getAverage() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+    
+    /**
+     * Get the time of the first reading in the window
+     *
+     * @return the time of the first reading, or -1 if the window is empty
+     */
+    public long getFirstMillis() {
+        return count == 0 ? -1 : firstMillis;
+    }
+    
+    /**
+     * Get the time of the last reading in the window
+     *
+     * @return the time of the last reading, or -1 if the window is empty
+     */
+    public long getLastMillis() {
+        return count == 0 ? -1 : lastMillis;
+    }
+    
+    /**
+     * Get the number of readings taken while the adjuster was commanded to a state
+     *
+     * @param state The adjuster state
+     *
+     * @return the number of readings
+     */
+    public int getCount(AdjusterState state) {
+        return stateCounts[state.ordinal()];
+    }
+    
+    /**
+     * Empty the window and move it to a new time range
+     *
+     * @param fromMillis The start of the window, inclusive
+     * @param toMillis   The end of the window, inclusive
+     */
+    void reset(long fromMillis, long toMillis) {
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+        count = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        sum = 0;
+        for (int i = 0; i < stateCounts.length; i++)
+            stateCounts[i] = 0;
+    }
+    
+    /**
+     * Add a reading to the window
+     *
+     * @param timeMillis  The time of the reading
+     * @param temperature The water temperature in Celsius degrees
+     * @param stateCode   The ordinal of the commanded state, or 3 if none was commanded
+     */
+    void add(long timeMillis, double temperature, int stateCode) {
+        if (count == 0)
+            firstMillis = timeMillis;
+        lastMillis = timeMillis;
+        count++;
+        min = Math.min(min, temperature);
+        max = Math.max(max, temperature);
+        sum += temperature;
+        stateCounts[stateCode]++;
+    }
+}
@@ -27,6 +27,8 @@ public interface TemperatureController {
      *
      * @param temperature the desired water temperature in the aquarium, specified
      *                    as degrees in the current temperature scale
+     *
+     * @throws IllegalArgumentException if the temperature is NaN or infinite
      */
     void setTemperature(double temperature);
     
@@ -53,6 +55,10 @@ public interface TemperatureController {
      *
      * @param variance the variation in temperature, specified in the current
      *                 temperature scale
+     *
+     * @throws IllegalArgumentException if the variation is negative or NaN. A negative
+     *                                  variation used to be accepted, leaving the adjuster
+     *                                  running whatever the temperature.
      */
     void setAcceptableVariation(double variance);
     
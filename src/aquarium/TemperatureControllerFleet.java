@@ -0,0 +1,571 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster;
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+import aquarium.hw.TemperatureSensor;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import static aquarium.TemperatureController.TemperatureScale;
+
+/**
+ * The TemperatureControllerFleet owns the temperature controllers of many aquarium tanks.
+ * Tanks are keyed by their tank id and sharded across a fixed set of worker threads, one
+ * per available core. Bulk operations are fanned out to every shard and run in parallel,
+ * so fleet-wide updates and reading fan-in scale with the number of cores instead of
+ * looping over every tank on the caller's thread.
+ *
+ * @version Oct 18, 2026
+ */
+public final class TemperatureControllerFleet implements AutoCloseable {
+    private final Shard[]                       shards; // The shards, each owning a
+    // disjoint set of tanks
+    private final FleetMetrics                  metrics = new FleetMetrics(this); // The
+    // fleet-wide metrics
+    private final ReadingPublisher              publisher = new ReadingPublisher(); // The
+    // stream of the readings and transitions of every tank
+    private final Map<Integer, ReadingListener> streams = new ConcurrentHashMap<>(); // The
+    // listeners publishing each tank, keyed by tank id
+    private volatile Registration               registration; // The JMX registration of the
+    // fleet, or null if its metrics are not published
+    
+    /**
+     * Constructor. Creates one shard per available core.
+     */
+    public TemperatureControllerFleet() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param shardCount The number of shards, and therefore worker threads
+     */
+    public TemperatureControllerFleet(int shardCount) {
+        if (shardCount < 1)
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++)
+            shards[i] = new Shard(i);
+    }
+    
+    /**
+     * Create a controller for a new tank and add it to the fleet
+     *
+     * @param tankId   The id of the tank
+     * @param sensor   The TemperatureSensor of the tank
+     * @param adjuster The TemperatureAdjuster of the tank
+     *
+     * @return the controller of the tank
+     */
+    public TemperatureController addTank(int tankId, TemperatureSensor sensor,
+                                         TemperatureAdjuster adjuster) {
+        return addTank(tankId, TemperatureControllerImpl.makeTemperatureController(sensor,
+                                                                                   adjuster));
+    }
+    
+    /**
+     * Add the controller of a tank to the fleet
+     *
+     * @param tankId     The id of the tank
+     * @param controller The controller of the tank
+     *
+     * @return the controller of the tank
+     */
+    public TemperatureController addTank(int tankId, TemperatureController controller) {
+        if (shardOf(tankId).tanks.putIfAbsent(tankId, controller) != null)
+            throw new IllegalArgumentException("Tank " + tankId + " is already in the fleet");
+        if (controller instanceof TemperatureControllerImpl) {
+            ReadingListener stream = publisher.listenerFor(tankId);
+            streams.put(tankId, stream);
+            ((TemperatureControllerImpl) controller).addListener(stream);
+        }
+        Registration registration = this.registration;
+        if (registration != null)
+            registration.registerTank(tankId, controller);
+        return controller;
+    }
+    
+    /**
+     * Remove a tank from the fleet
+     *
+     * @param tankId The id of the tank
+     *
+     * @return the controller of the removed tank, or null if there is no such tank
+     */
+    public TemperatureController removeTank(int tankId) {
+        TemperatureController controller = shardOf(tankId).tanks.remove(tankId);
+        ReadingListener stream = streams.remove(tankId);
+        if (stream != null)
+            ((TemperatureControllerImpl) controller).removeListener(stream);
+        Registration registration = this.registration;
+        if (controller != null && registration != null)
+            registration.unregisterTank(tankId);
+        return controller;
+    }
+    
+    /**
+     * Get the controller of a tank
+     *
+     * @param tankId The id of the tank
+     *
+     * @return the controller of the tank, or null if there is no such tank
+     */
+    public TemperatureController getTank(int tankId) {
+        return shardOf(tankId).tanks.get(tankId);
+    }
+    
+    /**
+     * Get the number of tanks in the fleet
+     *
+     * @return the number of tanks in the fleet
+     */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards)
+            size += shard.tanks.size();
+        return size;
+    }
+    
+    /**
+     * Get the number of shards of the fleet
+     *
+     * @return the number of shards of the fleet
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+    
+    /**
+     * Set the desired temperature of every tank in the fleet
+     *
+     * @param temperature The desired temperature, in the current scale of each tank
+     */
+    public void setTemperature(double temperature) {
+        forEach((tankId, controller) -> controller.setTemperature(temperature));
+    }
+    
+    /**
+     * Set the acceptable variation of every tank in the fleet
+     *
+     * @param variance The acceptable variation, in the current scale of each tank
+     */
+    public void setAcceptableVariation(double variance) {
+        forEach((tankId, controller) -> controller.setAcceptableVariation(variance));
+    }
+    
+    /**
+     * Set the temperature scale of every tank in the fleet
+     *
+     * @param scale The new temperature scale
+     */
+    public void setTemperatureScale(TemperatureScale scale) {
+        forEach((tankId, controller) -> controller.setTemperatureScale(scale));
+    }
+    
+    /**
+     * Get the current temperature of every tank in the fleet
+     *
+     * @return the current temperature of every tank keyed by tank id, each reported in the
+     * current scale of the tank
+     */
+    public Map<Integer, Double> getCurrentTemperatures() {
+        Map<Integer, Double> temperatures = new HashMap<>(size() * 2);
+        for (Map<Integer, Double> partial : fanIn(shard -> {
+            Map<Integer, Double> readings = new HashMap<>(shard.tanks.size() * 2);
+            shard.tanks.forEach((tankId, controller) -> readings.put(tankId, controller
+                    .getCurrentTemperature()));
+            return readings;
+        }))
+            temperatures.putAll(partial);
+        return temperatures;
+    }
+    
+    /**
+     * Apply an action to every tank in the fleet. The action runs on the worker thread of the
+     * shard owning each tank, and this call returns once every shard is done.
+     *
+     * @param action The action receiving the tank id and its controller
+     */
+    public void forEach(BiConsumer<Integer, TemperatureController> action) {
+        fanIn(shard -> {
+            shard.tanks.forEach(action);
+            return null;
+        });
+    }
+    
+    /**
+     * Take a snapshot of the state of every tank of the fleet. Only tanks controlled by a
+     * TemperatureControllerImpl are part of the snapshot.
+     *
+     * @return the snapshot
+     */
+    public FleetSnapshot snapshot() {
+        List<Integer> ids = new ArrayList<>();
+        List<TemperatureControllerImpl> controllers = new ArrayList<>();
+        for (Shard shard : shards)
+            shard.tanks.forEach((tankId, controller) -> {
+                if (controller instanceof TemperatureControllerImpl) {
+                    ids.add(tankId);
+                    controllers.add((TemperatureControllerImpl) controller);
+                }
+            });
+        int[] tankIds = new int[ids.size()];
+        for (int i = 0; i < tankIds.length; i++)
+            tankIds[i] = ids.get(i);
+        return FleetSnapshot.of(tankIds, controllers.toArray(new TemperatureControllerImpl[0]),
+                                tankIds.length);
+    }
+    
+    /**
+     * Add the tanks of a snapshot to the fleet, all or none. The snapshot is checked first,
+     * then every controller is rebuilt with its configuration in place, without reading its
+     * sensor or commanding its adjuster, and only then are the tanks added. Once every tank
+     * is added, each is reconciled on the worker thread of its shard: its sensor is read once
+     * and its adjuster commanded once to the state decided, whatever it was.
+     *
+     * @param snapshot  The snapshot
+     * @param sensors   The factory of the TemperatureSensor of each tank, given its tank id
+     * @param adjusters The factory of the TemperatureAdjuster of each tank, given its tank id
+     *
+     * @return the number of tanks added
+     *
+     * @throws IllegalArgumentException if a tank of the snapshot appears twice in it or is
+     *                                  already in the fleet, in which case no tank is added
+     * @throws RuntimeException         thrown by a factory, in which case no tank is added
+     *                                  either and the controllers built are detached from
+     *                                  their sensors
+     */
+    public int restore(FleetSnapshot snapshot, IntFunction<? extends TemperatureSensor> sensors,
+                       IntFunction<? extends TemperatureAdjuster> adjusters) {
+        int size = snapshot.size();
+        Set<Integer> ids = new HashSet<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            int tankId = snapshot.getTankId(i);
+            if (!ids.add(tankId))
+                throw new IllegalArgumentException("Tank " + tankId + " appears twice in the " +
+                                                   "snapshot");
+            if (getTank(tankId) != null)
+                throw new IllegalArgumentException("Tank " + tankId + " is already in the fleet");
+        }
+        TemperatureControllerImpl[] controllers = new TemperatureControllerImpl[size];
+        int added = 0;
+        try {
+            for (int i = 0; i < size; i++) {
+                int tankId = snapshot.getTankId(i);
+                TemperatureSensor sensor = sensors.apply(tankId);
+                TemperatureAdjuster adjuster = adjusters.apply(tankId);
+                controllers[i] = TemperatureControllerImpl.restore(sensor, adjuster, snapshot
+                        .getConfiguration(i), snapshot.getMaxReadingAge(i));
+            }
+            for (; added < size; added++)
+                addTank(snapshot.getTankId(added), controllers[added]);
+        } catch (RuntimeException e) {
+            for (int i = 0; i < added; i++)
+                removeTank(snapshot.getTankId(i));
+            for (TemperatureControllerImpl controller : controllers)
+                if (controller != null)
+                    controller.detach();
+            throw e;
+        }
+        Map<Shard, List<Restored>> restored = new IdentityHashMap<>();
+        for (int i = 0; i < size; i++) {
+            Restored tank = new Restored(controllers[i], snapshot.getCommandedState(i));
+            restored.computeIfAbsent(shardOf(snapshot.getTankId(i)), shard -> new ArrayList<>())
+                    .add(tank);
+        }
+        fanIn(shard -> {
+            for (Restored tank : restored.getOrDefault(shard, Collections.emptyList()))
+                tank.controller.reconcile(tank.previous);
+            return null;
+        });
+        return size;
+    }
+    
+    /**
+     * Get the metrics of the fleet, aggregated over every tank
+     *
+     * @return the fleet metrics
+     */
+    public FleetMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Get the stream of the readings and adjuster transitions of every tank of the fleet.
+     * Tanks added later are published as they come. Only tanks controlled by a
+     * TemperatureControllerImpl are published.
+     *
+     * @return the publisher of the fleet
+     */
+    public ReadingPublisher getPublisher() {
+        return publisher;
+    }
+    
+    /**
+     * Publish the metrics of the fleet over JMX, as aquarium:type=Fleet,name=fleetName, and
+     * those of every tank, as aquarium:type=TemperatureController,fleet=fleetName,tank=id.
+     * Tanks added or removed later are registered or unregistered as they come and go.
+     *
+     * @param server    The MBeanServer to register with
+     * @param fleetName The name of the fleet in the object names
+     *
+     * @throws JMException if an MBean cannot be registered
+     */
+    public synchronized void registerMBeans(MBeanServer server, String fleetName) throws
+            JMException {
+        if (registration != null)
+            throw new IllegalStateException("The fleet metrics are already registered");
+        Registration next = new Registration(server, fleetName);
+        server.registerMBean(metrics, next.fleetName());
+        registration = next;
+        forEach(next::registerTank);
+    }
+    
+    /**
+     * Withdraw the MBeans registered by registerMBeans
+     */
+    public synchronized void unregisterMBeans() {
+        Registration current = registration;
+        if (current == null)
+            return;
+        registration = null;
+        forEach((tankId, controller) -> current.unregisterTank(tankId));
+        current.unregister(current.fleetName());
+    }
+    
+    /**
+     * Withdraw the MBeans of the fleet, complete the subscribers of its publisher and stop
+     * its worker threads
+     */
+    @Override
+    public void close() {
+        unregisterMBeans();
+        publisher.close();
+        for (Shard shard : shards)
+            shard.worker.shutdown();
+    }
+    
+    /**
+     * Run a task on every shard in parallel and gather the results. Called from a worker
+     * thread of the fleet, such as from a listener or an action of forEach, the task runs on
+     * every shard in turn on the calling thread, since waiting for the workers could wait for
+     * the calling thread itself.
+     *
+     * @param task The task to run on every shard
+     * @param <T>  The type of result of the task
+     *
+     * @return the results of every shard
+     */
+    private <T> List<T> fanIn(Function<Shard, T> task) {
+        if (isWorkerThread()) {
+            List<T> results = new ArrayList<>(shards.length);
+            for (Shard shard : shards)
+                results.add(task.apply(shard));
+            return results;
+        }
+        List<Future<T>> futures = new ArrayList<>(shards.length);
+        for (Shard shard : shards)
+            futures.add(shard.worker.submit(() -> task.apply(shard)));
+        List<T> results = new ArrayList<>(shards.length);
+        try {
+            for (Future<T> future : futures)
+                results.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the fleet", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+        return results;
+    }
+    
+    /**
+     * Check whether the calling thread is the worker thread of a shard
+     *
+     * @return true on a worker thread of the fleet, false otherwise
+     */
+    private boolean isWorkerThread() {
+        Thread current = Thread.currentThread();
+        for (Shard shard : shards)
+            if (shard.thread == current)
+                return true;
+        return false;
+    }
+    
+    /**
+     * Get the shard owning a tank
+     *
+     * @param tankId The id of the tank
+     *
+     * @return the shard owning the tank
+     */
+    private Shard shardOf(int tankId) {
+        int hash = tankId * 0x9E3779B9; // Spread consecutive ids across shards
+        return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+    }
+    
+    /**
+     * The MBeanServer the metrics of the fleet are registered with, and the name they are
+     * registered under
+     */
+    private static final class Registration {
+        private final MBeanServer server; // The MBeanServer
+        private final String      fleetName; // The name of the fleet in the object names
+        
+        /**
+         * Constructor.
+         *
+         * @param server    The MBeanServer
+         * @param fleetName The name of the fleet in the object names
+         */
+        Registration(MBeanServer server, String fleetName) {
+            this.server = server;
+            this.fleetName = fleetName;
+        }
+        
+        /**
+         * Get the object name of the fleet metrics
+         *
+         * @return the object name
+         */
+        ObjectName fleetName() {
+            return objectName("aquarium:type=Fleet,name=" + fleetName);
+        }
+        
+        /**
+         * Get the object name of the metrics of a tank
+         *
+         * @param tankId The id of the tank
+         *
+         * @return the object name
+         */
+        ObjectName tankName(int tankId) {
+            return objectName("aquarium:type=TemperatureController,fleet=" + fleetName +
+                              ",tank=" + tankId);
+        }
+        
+        /**
+         * Register the metrics of a tank, if its controller keeps some
+         *
+         * @param tankId     The id of the tank
+         * @param controller The controller of the tank
+         */
+        void registerTank(int tankId, TemperatureController controller) {
+            if (!(controller instanceof TemperatureControllerImpl))
+                return;
+            try {
+                server.registerMBean(((TemperatureControllerImpl) controller).getMetrics(),
+                                     tankName(tankId));
+            } catch (JMException e) {
+                throw new IllegalStateException("Cannot register the metrics of tank " +
+                                                tankId, e);
+            }
+        }
+        
+        /**
+         * Unregister the metrics of a tank, if they were registered
+         *
+         * @param tankId The id of the tank
+         */
+        void unregisterTank(int tankId) {
+            unregister(tankName(tankId));
+        }
+        
+        /**
+         * Unregister an MBean, if it is registered
+         *
+         * @param name The object name of the MBean
+         */
+        void unregister(ObjectName name) {
+            try {
+                if (server.isRegistered(name))
+                    server.unregisterMBean(name);
+            } catch (JMException e) {
+                throw new IllegalStateException("Cannot unregister " + name, e);
+            }
+        }
+        
+        /**
+         * Parse an object name
+         *
+         * @param name The object name
+         *
+         * @return the object name
+         */
+        private static ObjectName objectName(String name) {
+            try {
+                return new ObjectName(name);
+            } catch (JMException e) {
+                throw new IllegalArgumentException("Invalid object name: " + name, e);
+            }
+        }
+    }
+    
+    /**
+     * A controller rebuilt from a snapshot, waiting for its reconciliation
+     */
+    private static final class Restored {
+        private final TemperatureControllerImpl controller; // The controller
+        private final AdjusterState             previous; // The state commanded before the
+        // snapshot, or null
+        
+        /**
+         * Constructor.
+         *
+         * @param controller The controller
+         * @param previous   The state commanded before the snapshot, or null
+         */
+        Restored(TemperatureControllerImpl controller, AdjusterState previous) {
+            this.controller = controller;
+            this.previous = previous;
+        }
+    }
+    
+    /**
+     * A shard of the fleet, owning a disjoint set of tanks and the worker thread serving them
+     */
+    private static final class Shard {
+        private final Map<Integer, TemperatureController> tanks; // The tanks of the shard
+        private final ExecutorService                     worker; // The worker thread
+        private volatile Thread                           thread; // The thread of the
+        // worker, or null before its first task
+        
+        /**
+         * Constructor.
+         *
+         * @param index The index of the shard
+         */
+        Shard(int index) {
+            tanks = new ConcurrentHashMap<>();
+            worker = Executors.newSingleThreadExecutor(runnable -> {
+                thread = new Thread(runnable, "aquarium-fleet-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -15,10 +15,15 @@ package aquarium;
 import aquarium.hw.TemperatureAdjuster;
 import aquarium.hw.TemperatureSensor;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleConsumer;
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
-import static aquarium.TemperatureController.TemperatureScale.CELSIUS;
-import static aquarium.Utility.*;
+import static aquarium.hw.TemperatureAdjuster.AdjusterState;
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.*;
 
 /**
  * The TemperatureController is a key part of the Aquarium system. It monitors the
@@ -28,21 +33,47 @@ import static aquarium.Utility.*;
  * @version Jan 21, 2017
  */
 public final class TemperatureControllerImpl implements TemperatureController {
-    private TemperatureSensor   sensor; // The TemperatureSensor
-    private TemperatureAdjuster adjuster; // The TemperatureAdjuster
-    private TemperatureScale    temperatureScale; // The TemperatureScale
-    private double              desiredTemperature; // Always keep the desired temperature in
-    // Celsius degrees
-    private double              temperatureVariance; // Always keep the desired temperature
-    // variation in Celsius degrees
+    private static final ReadingListener[] NO_LISTENERS = new ReadingListener[0]; // The empty
+    // listener array
+    private static final AdjusterState[]   STATES = AdjusterState.values(); // The states by
+    // ordinal
+    private static final int               STATE_BITS = 2; // The bits of a command holding the
+    // ordinal of its state
     
+    private TemperatureSensor       sensor; // The TemperatureSensor
+    private TemperatureAdjuster     adjuster; // The TemperatureAdjuster
+    private volatile AdjusterState  commandedState; // The state last commanded to the
+    // adjuster, or null before the first command
+    private volatile long           command; // The sequence number of the last command shifted
+    // left by STATE_BITS, or'ed with the ordinal of its state, or 0 before the first command
+    private volatile long           lastIssued; // The last command handed to the adjuster, or
+    // 0 if none was or the adjuster failed it
+    private volatile AdjusterState  latchedState; // The state commanded whatever the readings
+    // until the water is back within the turn-on variation, or null
+    private final ControllerMetrics metrics = new ControllerMetrics(); // The hot-path metrics
+    private volatile long           readingStamp; // Incremented before and after the last
+    // reading and its time are written, so odd while they are being written
+    private volatile double         lastReading = Double.NaN; // The last observed water
+    // temperature in Celsius degrees, or NaN before the first reading
+    private volatile long           lastReadingTime; // The System.nanoTime of the last reading
+    private volatile long           maxReadingAge = Long.MAX_VALUE; // The age in nanoseconds
+    // after which the cached reading is stale
+    
+    private final Object                                      decisionLock = new Object();
+    // Held from reading the commanded state until the decided state is published as a
+    // command, but not while the adjuster is commanded
+    private final AtomicReference<ControllerConfiguration>    configuration; // The current
+    // configuration, always replaced as a whole so that the decision reads it only once
+    private volatile TelemetryHistory                         history; // The history of sensor
+    // readings, or null when no history is kept
+    private final ObserverRegistry.Listeners<ReadingListener> listeners = new ObserverRegistry
+            .Listeners<>(NO_LISTENERS); // The listeners of readings and transitions
+    
+    private final DoubleConsumer         adjustTemperature = (double temperature) ->
+            adjustTemperature(temperature, true); // The primitive observer used when the
+    // sensor is a DoubleObservable
     private final Function<Double, Void> adjustTemperatureObserser = (Double temperature) -> {
-        double diff = temperature - desiredTemperature;
-        if (diff < temperatureVariance && diff > -temperatureVariance)
-            adjuster.setState(TemperatureAdjuster.AdjusterState.OFF);
-        else if (diff > temperatureVariance)
-            adjuster.setState(TemperatureAdjuster.AdjusterState.COOLING);
-        else adjuster.setState(TemperatureAdjuster.AdjusterState.HEATING);
+        adjustTemperature(temperature, true);
         return null;
     }; // The observer automatically adjust temperature when water temperature or desired
     // temperature changes
@@ -56,13 +87,18 @@ public final class TemperatureControllerImpl implements TemperatureController {
      */
     private TemperatureControllerImpl(TemperatureSensor sensor, TemperatureAdjuster adjuster) {
         this.sensor = sensor;
-        this.sensor.addObserver(this.adjustTemperatureObserser);
         this.adjuster = adjuster;
+        this.configuration = new AtomicReference<>(ControllerConfiguration.DEFAULT);
+        if (sensor instanceof DoubleObservable)
+            ((DoubleObservable) sensor).addObserver(this.adjustTemperature);
+        else this.sensor.addObserver(this.adjustTemperatureObserser);
     }
     
     /**
      * Factory method for creating an instance of the TemperatureControllerImpl. This creates
-     * the
+     * the controller and subscribes it to the sensor. When the sensor is also a
+     * DoubleObservable the controller subscribes to its primitive channel, so readings reach
+     * the decision without being boxed.
      *
      * @param sensor   the sensor associated with the controller
      * @param adjuster the adjuster associated with the controller
@@ -71,21 +107,79 @@ public final class TemperatureControllerImpl implements TemperatureController {
      */
     static public TemperatureController makeTemperatureController(TemperatureSensor sensor,
                                                                   TemperatureAdjuster adjuster) {
+        return new TemperatureControllerImpl(sensor, adjuster);
+    }
+    
+    /**
+     * Factory method for creating a controller whose sensor readings go through a filter
+     * stage first, so that noise within the filter does not reach the decision.
+     *
+     * @param sensor   the sensor associated with the controller
+     * @param adjuster the adjuster associated with the controller
+     * @param filter   the filter applied to the readings of the sensor
+     *
+     * @return the resulting controller
+     */
+    static public TemperatureController makeTemperatureController(TemperatureSensor sensor,
+                                                                  TemperatureAdjuster adjuster,
+                                                                  ReadingFilter filter) {
+        return new TemperatureControllerImpl(filter == ReadingFilter.NONE ? sensor : new
+                FilteredSensor(sensor, filter), adjuster);
+    }
+    
+    /**
+     * Factory method for creating a controller of a tank with several probes. The controller
+     * is given the fusion of the latest readings of the probes as a single sensor.
+     *
+     * @param probes   the probes associated with the controller, at least one
+     * @param adjuster the adjuster associated with the controller
+     * @param fusion   the fusion of the readings of the probes
+     *
+     * @return the resulting controller
+     */
+    static public TemperatureController makeTemperatureController(List<? extends
+            TemperatureSensor> probes, TemperatureAdjuster adjuster, SensorFusion fusion) {
+        return new TemperatureControllerImpl(new FusedSensor(probes, fusion), adjuster);
+    }
+    
+    /**
+     * Factory method for rebuilding a controller from a snapshot. The configuration is put in
+     * place as is: neither the sensor nor the adjuster is touched until reconcile is called.
+     *
+     * @param sensor        the sensor associated with the controller
+     * @param adjuster      the adjuster associated with the controller
+     * @param configuration the configuration of the controller
+     * @param maxReadingAge the age in nanoseconds after which the cached reading is stale
+     *
+     * @return the resulting controller
+     */
+    static TemperatureControllerImpl restore(TemperatureSensor sensor,
+                                             TemperatureAdjuster adjuster,
+                                             ControllerConfiguration configuration,
+                                             long maxReadingAge) {
         TemperatureControllerImpl controller = new TemperatureControllerImpl(sensor, adjuster);
-        controller.temperatureScale = CELSIUS;
-        controller.desiredTemperature = 20;
-        controller.temperatureVariance = 1.0;
+        controller.configuration.set(configuration);
+        controller.maxReadingAge = maxReadingAge;
         return controller;
     }
     
+    /**
+     * Stop observing the sensor, for a controller that is dropped before taking part in the
+     * fleet.
+     */
+    void detach() {
+        if (sensor instanceof DoubleObservable)
+            ((DoubleObservable) sensor).removeObserver(this.adjustTemperature);
+        else this.sensor.removeObserver(this.adjustTemperatureObserser);
+    }
+    
     /*
      * @see aquarium.TemperatureController#setTemperature(double)
      */
     @Override
     public void setTemperature(double temperature) {
-        desiredTemperature = temperatureScale == CELSIUS ? temperature : fahrenheitToCelsius
-                (temperature);
-        adjustTemperatureObserser.apply(sensor.getTemperature());
+        updateConfiguration(config -> config.withDesiredTemperature(config.toCelsius
+                (temperature)));
     }
     
     /*
@@ -93,8 +187,45 @@ public final class TemperatureControllerImpl implements TemperatureController {
      */
     @Override
     public double getCurrentTemperature() {
-        double currTemp = sensor.getTemperature();
-        return temperatureScale == CELSIUS ? currTemp : celsiusToFahrenheit(currTemp);
+        long stamp;
+        double reading;
+        long readingTime;
+        do {
+            stamp = readingStamp;
+            reading = lastReading;
+            readingTime = lastReadingTime;
+        } while ((stamp & 1) != 0 || stamp != readingStamp);
+        if (Double.isNaN(reading) || System.nanoTime() - readingTime > maxReadingAge) {
+            long start = System.nanoTime();
+            double currTemp = sensor.getTemperature();
+            synchronized (decisionLock) {
+                recordReading(currTemp, start);
+                reading = lastReading;
+            }
+        }
+        return configuration.get().fromCelsius(reading);
+    }
+    
+    /**
+     * Bound the age of the cached reading served by getCurrentTemperature. Older readings
+     * are refreshed from the sensor. By default the cached reading never goes stale, since
+     * the sensor reports every significant change.
+     *
+     * @param maxAge the maximum age of the cached reading, zero to always read the sensor,
+     *               or a negative value for no bound
+     * @param unit   the unit of maxAge
+     */
+    public void setMaxReadingAge(long maxAge, TimeUnit unit) {
+        maxReadingAge = maxAge < 0 ? Long.MAX_VALUE : unit.toNanos(maxAge) - 1;
+    }
+    
+    /**
+     * Return the age after which the cached reading is stale.
+     *
+     * @return the age in nanoseconds, Long.MAX_VALUE when the cached reading never goes stale
+     */
+    long getMaxReadingAge() {
+        return maxReadingAge;
     }
     
     /*
@@ -102,8 +233,8 @@ public final class TemperatureControllerImpl implements TemperatureController {
      */
     @Override
     public double getAcceptableVariation() {
-        return temperatureScale == CELSIUS ? temperatureVariance : celsiusToFahrenheitVariance
-                (temperatureVariance);
+        ControllerConfiguration config = configuration.get();
+        return config.varianceFromCelsius(config.getTurnOnVariance());
     }
     
     /*
@@ -111,9 +242,155 @@ public final class TemperatureControllerImpl implements TemperatureController {
      */
     @Override
     public void setAcceptableVariation(double variance) {
-        temperatureVariance = temperatureScale == CELSIUS ? variance :
-                              fahrenheitToCelsiusVariance(variance);
-        adjustTemperatureObserser.apply(sensor.getTemperature());
+        updateConfiguration(config -> config.withVariance(config.varianceToCelsius(variance),
+                                                          config.varianceToCelsius(variance)));
+    }
+    
+    /**
+     * Set separate turn-on and turn-off thresholds. The adjuster starts heating or cooling
+     * once the water temperature is turnOnVariance or more away from the desired temperature,
+     * and keeps running until it is within turnOffVariance of it. A turn-off threshold
+     * narrower than the turn-on threshold stops a reading hovering at the boundary from
+     * flipping the adjuster back and forth.
+     *
+     * @param turnOnVariance  the variation starting the adjuster, specified in the current
+     *                        temperature scale
+     * @param turnOffVariance the variation stopping the adjuster, specified in the current
+     *                        temperature scale
+     *
+     * @throws IllegalArgumentException if turnOffVariance is negative or larger than
+     *                                  turnOnVariance
+     */
+    public void setHysteresis(double turnOnVariance, double turnOffVariance) {
+        updateConfiguration(config -> config.withVariance(config.varianceToCelsius
+                (turnOnVariance), config.varianceToCelsius(turnOffVariance)));
+    }
+    
+    /**
+     * Return the variation at which a running adjuster is turned off, reported in the
+     * current temperature scale.
+     *
+     * @return the turn-off variation
+     */
+    public double getTurnOffVariation() {
+        ControllerConfiguration config = configuration.get();
+        return config.varianceFromCelsius(config.getTurnOffVariance());
+    }
+    
+    /**
+     * Return the current configuration snapshot.
+     *
+     * @return the current configuration
+     */
+    public ControllerConfiguration getConfiguration() {
+        return configuration.get();
+    }
+    
+    /**
+     * Atomically replace the configuration, then re-evaluate the adjuster against the
+     * current water temperature. The update is retried with the latest snapshot if another
+     * thread changed the configuration meanwhile, so it must be free of side effects.
+     *
+     * @param update the function computing the new configuration from the current one
+     *
+     * @return the configuration that was published
+     */
+    public ControllerConfiguration updateConfiguration(UnaryOperator<ControllerConfiguration>
+                                                               update) {
+        ControllerConfiguration current;
+        ControllerConfiguration next;
+        do {
+            current = configuration.get();
+            next = update.apply(current);
+        } while (!configuration.compareAndSet(current, next));
+        adjustTemperature(sensor.getTemperature(), false);
+        return next;
+    }
+    
+    /**
+     * Keep a history of the readings delivered by the sensor, with the adjuster state decided
+     * for each. The history is appended to on the sensor's notification thread only.
+     *
+     * @param history the history to append to, or null to stop keeping a history
+     */
+    public void setHistory(TelemetryHistory history) {
+        this.history = history;
+    }
+    
+    /**
+     * Return the history of the readings delivered by the sensor.
+     *
+     * @return the history, or null if no history is kept
+     */
+    public TelemetryHistory getHistory() {
+        return history;
+    }
+    
+    /**
+     * Add a listener of the readings delivered by the sensor and of the adjuster transitions
+     * commanded by this controller. Listeners are called while the decision holds the
+     * controller, so they must be quick and must not wait for another thread deciding for it.
+     *
+     * @param listener the listener
+     */
+    public void addListener(ReadingListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Remove a listener added by addListener.
+     *
+     * @param listener the listener
+     */
+    public void removeListener(ReadingListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Return the state last commanded to the adjuster.
+     *
+     * @return the commanded state, or null if no command has been issued yet
+     */
+    public AdjusterState getCommandedState() {
+        return commandedState;
+    }
+    
+    /**
+     * Return the hot-path metrics of this controller, to be registered with an MBeanServer
+     * to publish them over JMX.
+     *
+     * @return the metrics
+     */
+    public ControllerMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Return the number of decisions made, one per reading or configuration change.
+     *
+     * @return the number of decisions
+     */
+    public long getDecisionCount() {
+        return metrics.getDecisionCount();
+    }
+    
+    /**
+     * Return the number of commands issued to the adjuster. Only transitions are commanded.
+     *
+     * @return the number of commands issued
+     */
+    public long getActuationCount() {
+        return metrics.getTransitionCount();
+    }
+    
+    /**
+     * Return the number of decisions that did not need a command because the decided state
+     * matched the commanded state.
+     *
+     * @return the number of adjuster calls saved
+     */
+    public long getSuppressedActuationCount() {
+        return metrics.getSuppressedCount();
     }
     
     /*
@@ -121,7 +398,7 @@ public final class TemperatureControllerImpl implements TemperatureController {
      */
     @Override
     public TemperatureScale getTemperatureScale() {
-        return temperatureScale;
+        return configuration.get().getTemperatureScale();
     }
     
     /*
@@ -130,6 +407,357 @@ public final class TemperatureControllerImpl implements TemperatureController {
      */
     @Override
     public void setTemperatureScale(TemperatureScale newTemperatureScale) {
-        temperatureScale = newTemperatureScale;
+        ControllerConfiguration current;
+        ControllerConfiguration next;
+        do {
+            current = configuration.get();
+            next = current.withTemperatureScale(newTemperatureScale);
+        } while (!configuration.compareAndSet(current, next));
+    }
+    
+    /**
+     * Turn the adjuster on or off according to a water temperature reading. The adjuster is
+     * only commanded when the decided state differs from the state last commanded, or when the
+     * commanded state was never handed to the adjuster, as a transition accepted by
+     * acceptDecision and not applied. This is
+     * the decision made on every reading, and allocates nothing. Decisions are serialized and
+     * publish the state they command; the adjuster is commanded once the decision is over,
+     * so a slow adjuster holds up only the thread commanding it. The decision latency
+     * excludes the time the adjuster takes to be commanded.
+     *
+     * @param temperature The water temperature in Celsius degrees
+     * @param fromSensor  True if the sensor delivered the reading, false if the controller
+     *                    read the sensor itself after a configuration change
+     */
+    private void adjustTemperature(double temperature, boolean fromSensor) {
+        long start = System.nanoTime();
+        long issued;
+        synchronized (decisionLock) {
+            ControllerConfiguration config = configuration.get();
+            AdjusterState current = commandedState;
+            AdjusterState state = decide(config, temperature - config.getDesiredTemperature(),
+                                         current);
+            boolean transition = account(temperature, start, current, state, fromSensor);
+            issued = transition || command != lastIssued ? command : 0;
+            metrics.recordDecisionLatency(System.nanoTime() - start);
+        }
+        if (issued != 0)
+            actuate(issued);
+    }
+    
+    /**
+     * Read the sensor and command the adjuster to the state decided, even if it was already
+     * commanded. Used once after a restore, when the state of the adjuster is unknown.
+     *
+     * @param previous The state commanded before the restore, kept for the hysteresis, or
+     *                 null
+     */
+    void reconcile(AdjusterState previous) {
+        long start = System.nanoTime();
+        double temperature = sensor.getTemperature();
+        long issued;
+        synchronized (decisionLock) {
+            ControllerConfiguration config = configuration.get();
+            AdjusterState state = decide(config, temperature - config.getDesiredTemperature(),
+                                         previous);
+            account(temperature, start, null, state, false);
+            metrics.recordDecisionLatency(System.nanoTime() - start);
+            issued = command;
+        }
+        actuate(issued);
+    }
+    
+    /**
+     * Account for a decision made on a reading outside of the controller, as by a batch
+     * ingestor. If the commanded state changed since the decision was made, or a state is
+     * latched, the reading is decided again against the new one. The adjuster itself is left
+     * to the caller, through command.
+     *
+     * @param temperature The water temperature in Celsius degrees
+     * @param readingTime The System.nanoTime at which the reading was taken
+     * @param current     The state commanded when the decision was made
+     * @param state       The decided state
+     * @param fromSensor  True if the sensor delivered the reading, false if the controller
+     *                    read the sensor itself after a configuration change
+     *
+     * @return the state the adjuster must be commanded to, or null if it needs no command
+     */
+    AdjusterState acceptDecision(double temperature, long readingTime, AdjusterState current,
+                                 AdjusterState state, boolean fromSensor) {
+        synchronized (decisionLock) {
+            AdjusterState actual = commandedState;
+            if (actual != current || latchedState != null) {
+                ControllerConfiguration config = configuration.get();
+                state = decide(config, temperature - config.getDesiredTemperature(), actual);
+            }
+            return account(temperature, readingTime, actual, state, fromSensor) ? state : null;
+        }
+    }
+    
+    /**
+     * Check whether the commanded state was never handed to the adjuster, as when a
+     * transition accepted by acceptDecision was not applied by command
+     *
+     * @return true if the adjuster is yet to be commanded to the commanded state
+     */
+    boolean isCommandPending() {
+        return command != lastIssued;
+    }
+    
+    /**
+     * Account for a decision made on a reading: cache the reading, append it to the history,
+     * notify the listeners and, on a transition, make the decided state the commanded one.
+     * The adjuster itself is left to the caller, through actuate. Called with the decision
+     * lock held.
+     *
+     * @param temperature The water temperature in Celsius degrees
+     * @param readingTime The System.nanoTime at which the reading was taken
+     * @param current     The state commanded when the decision was made
+     * @param state       The decided state
+     * @param fromSensor  True if the sensor delivered the reading, false if the controller
+     *                    read the sensor itself after a configuration change
+     *
+     * @return true if the adjuster must be commanded to the decided state, false otherwise
+     */
+    private boolean account(double temperature, long readingTime, AdjusterState current,
+                            AdjusterState state, boolean fromSensor) {
+        recordReading(temperature, readingTime);
+        metrics.recordDecision(fromSensor);
+        ReadingListener[] listeners = this.listeners.snapshot();
+        TelemetryHistory history = fromSensor ? this.history : null;
+        long now = history != null || listeners.length > 0 ? System.currentTimeMillis() : 0;
+        if (fromSensor) {
+            if (history != null)
+                history.append(now, temperature, state);
+            for (ReadingListener listener : listeners)
+                try {
+                    listener.onReading(now, temperature, state);
+                } catch (RuntimeException e) {
+                    this.listeners.failed(listener, e);
+                }
+        }
+        if (state == current) {
+            metrics.recordSuppression();
+            return false;
+        }
+        publish(state);
+        metrics.recordTransition(state, readingTime);
+        notifyTransition(listeners, now, temperature, current, state);
+        return true;
+    }
+    
+    /**
+     * Make a state the commanded one, as a new command. Called with the decision lock held.
+     *
+     * @param state The state commanded
+     */
+    private void publish(AdjusterState state) {
+        commandedState = state;
+        command = ((command >>> STATE_BITS) + 1) << STATE_BITS | state.ordinal();
+    }
+    
+    /**
+     * Command the adjuster to the state of a command, unless a newer command was published
+     * before, as the thread publishing it commands the adjuster afterwards. If a newer
+     * command is published while the adjuster is being commanded, the adjuster may complete
+     * that one first, so it is commanded again to the newest state. The adjuster is thus
+     * always left in the commanded state, without a decision ever waiting for it. A command
+     * the adjuster fails is left pending, so the next decision issues it again.
+     *
+     * @param issued The command published by the caller
+     */
+    private void actuate(long issued) {
+        while (command == issued) {
+            lastIssued = issued;
+            try {
+                adjuster.setState(stateOf(issued));
+            } catch (RuntimeException e) {
+                lastIssued = 0;
+                throw e;
+            }
+            long latest = command;
+            if (latest == issued)
+                return;
+            issued = latest;
+        }
+    }
+    
+    /**
+     * Notify listeners of an adjuster transition, isolating the others from a failing one
+     *
+     * @param listeners   The snapshot of the listeners
+     * @param timeMillis  The time of the transition in milliseconds since the epoch
+     * @param temperature The water temperature causing the transition
+     * @param from        The state previously commanded, or null for the first command
+     * @param to          The state being commanded
+     */
+    private void notifyTransition(ReadingListener[] listeners, long timeMillis,
+                                  double temperature, AdjusterState from, AdjusterState to) {
+        for (ReadingListener listener : listeners)
+            try {
+                listener.onTransition(timeMillis, temperature, from, to);
+            } catch (RuntimeException e) {
+                this.listeners.failed(listener, e);
+            }
+    }
+    
+    /**
+     * Get the state of a command
+     *
+     * @param command The command
+     *
+     * @return the state commanded
+     */
+    private static AdjusterState stateOf(long command) {
+        return STATES[(int) command & ((1 << STATE_BITS) - 1)];
+    }
+    
+    /**
+     * Command the adjuster to a state whatever the readings, making it the commanded state.
+     * Used by a watchdog to put a tank in a safe state; the next reading decides again.
+     *
+     * @param state The state to command
+     */
+    void force(AdjusterState state) {
+        long issued;
+        synchronized (decisionLock) {
+            issued = publishForced(state);
+        }
+        actuate(issued);
+    }
+    
+    /**
+     * Make a state the commanded one whatever the readings. Called with the decision lock
+     * held.
+     *
+     * @param state The state to command
+     *
+     * @return the command published
+     */
+    private long publishForced(AdjusterState state) {
+        long start = System.nanoTime();
+        AdjusterState current = commandedState;
+        publish(state);
+        if (current != state) {
+            metrics.recordTransition(state, start);
+            ReadingListener[] listeners = this.listeners.snapshot();
+            long now = listeners.length > 0 ? System.currentTimeMillis() : 0;
+            notifyTransition(listeners, now, lastReading, current, state);
+        }
+        return command;
+    }
+    
+    /**
+     * Command the adjuster to a state and keep it there whatever the readings, until a reading
+     * is back within the turn-on variation or the latch is released. Used by a watchdog to
+     * stop an adjuster that runs without the water reaching the band.
+     *
+     * @param state The state to command
+     */
+    void latch(AdjusterState state) {
+        long issued;
+        synchronized (decisionLock) {
+            latchedState = state;
+            issued = publishForced(state);
+        }
+        actuate(issued);
+    }
+    
+    /**
+     * Release the state latched, if any, so that the next reading decides again
+     *
+     * @return true if a state was latched, false otherwise
+     */
+    boolean releaseLatch() {
+        synchronized (decisionLock) {
+            AdjusterState latched = latchedState;
+            latchedState = null;
+            return latched != null;
+        }
+    }
+    
+    /**
+     * Get the state latched by latch
+     *
+     * @return the latched state, or null if none
+     */
+    AdjusterState getLatchedState() {
+        return latchedState;
+    }
+    
+    /**
+     * Command the adjuster to a state returned by acceptDecision, unless another state was
+     * commanded since, in which case that decision already commanded the adjuster
+     *
+     * @param state The state to command
+     */
+    void command(AdjusterState state) {
+        long issued = command;
+        if (issued != 0 && stateOf(issued) == state)
+            actuate(issued);
+    }
+    
+    /**
+     * Keep a reading as the cached current temperature, unless a reading taken later is
+     * already kept. The reading and its time are written between two increments of the
+     * reading stamp, so that getCurrentTemperature never pairs the value of one reading with
+     * the time of another. Called with the decision lock held.
+     *
+     * @param temperature The water temperature in Celsius degrees
+     * @param readingTime The System.nanoTime at which the reading was taken
+     */
+    private void recordReading(double temperature, long readingTime) {
+        long stamp = readingStamp;
+        if (stamp != 0 && readingTime - lastReadingTime < 0)
+            return;
+        readingStamp = stamp + 1;
+        lastReading = temperature;
+        lastReadingTime = readingTime;
+        readingStamp = stamp + 2;
+    }
+    
+    /**
+     * Decide the adjuster state for a difference from the desired temperature, keeping the
+     * latched state until the difference is back within the turn-on variation. Called with
+     * the decision lock held.
+     *
+     * @param config  The configuration the decision is made with
+     * @param diff    The water temperature minus the desired temperature, in Celsius degrees
+     * @param current The state last commanded to the adjuster
+     *
+     * @return the decided adjuster state
+     */
+    private AdjusterState decide(ControllerConfiguration config, double diff,
+                                 AdjusterState current) {
+        AdjusterState latched = latchedState;
+        if (latched != null) {
+            if (decideState(config, diff, OFF) != OFF)
+                return latched;
+            latchedState = null;
+        }
+        return decideState(config, diff, current);
+    }
+    
+    /**
+     * Decide the adjuster state for a difference from the desired temperature. A running
+     * adjuster is held until the difference is back within the turn-off variation.
+     *
+     * @param config  The configuration the decision is made with
+     * @param diff    The water temperature minus the desired temperature, in Celsius degrees
+     * @param current The state last commanded to the adjuster
+     *
+     * @return the decided adjuster state
+     */
+    static AdjusterState decideState(ControllerConfiguration config, double diff,
+                                             AdjusterState current) {
+        double coldBand = current == HEATING ? config.getTurnOffVariance() : config
+                .getTurnOnVariance();
+        double hotBand = current == COOLING ? config.getTurnOffVariance() : config
+                .getTurnOnVariance();
+        if (diff <= -coldBand)
+            return HEATING;
+        if (diff >= hotBand)
+            return COOLING;
+        return OFF;
     }
 }
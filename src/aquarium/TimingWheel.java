@@ -0,0 +1,383 @@
+package aquarium;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs tasks at a deadline from a hierarchical timing wheel driven by a single thread. Time
+ * is cut into ticks, and four wheels of 256 slots hold the timeouts due within 2^8, 2^16,
+ * 2^24 and 2^32 ticks; a timeout moves down one wheel when the slot holding it comes round.
+ * Scheduling, cancelling and firing a timeout cost the same whether ten or a hundred thousand
+ * are pending.
+ * <p>
+ * Timeouts may be scheduled and cancelled from any thread. They are handed to the wheel
+ * through a queue and only the wheel thread touches the slots, so the wheel takes no lock.
+ * Tasks run on the wheel thread, a timeout firing on the first tick at or after its
+ * deadline, and must therefore be quick. A task throwing an exception is counted and does not
+ * stop the wheel.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class TimingWheel implements AutoCloseable {
+    private static final int  WHEEL_BITS = 8; // The bits of a tick indexing a wheel
+    private static final int  WHEEL_SIZE = 1 << WHEEL_BITS; // The slots of a wheel
+    private static final int  WHEEL_MASK = WHEEL_SIZE - 1; // The mask of a slot index
+    private static final int  LEVELS = 4; // The number of wheels
+    private static final long HORIZON = 1L << WHEEL_BITS * LEVELS; // The ticks covered by the
+    // wheels, timeouts further away being moved down when the last wheel comes round
+    
+    private final long                           tickNanos; // The duration of a tick
+    private final LongSupplier                   clock; // The source of time in nanoseconds
+    private final long                           origin; // The time of tick 0
+    private final Timeout[][]                    slots; // The head of the list of each slot,
+    // wheel by wheel
+    private final ConcurrentLinkedQueue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    // The timeouts scheduled but not yet placed on a wheel
+    private final AtomicInteger                  pending = new AtomicInteger(); // The number
+    // of timeouts neither fired nor cancelled
+    private final LongAdder                      fired = new LongAdder(); // The number of
+    // tasks run
+    private final LongAdder                      failures = new LongAdder(); // The number of
+    // tasks that threw
+    private final Thread                         thread; // The thread driving the wheel, or
+    // null when it is driven by advance
+    private long                                 tick; // The last tick processed
+    private volatile boolean                     closed; // True once the wheel is closed
+    
+    /**
+     * Constructor. Starts a daemon thread driving the wheel with System.nanoTime.
+     *
+     * @param tickDuration The duration of a tick, the precision of the deadlines
+     * @param unit         The unit of the tick duration
+     */
+    public TimingWheel(long tickDuration, TimeUnit unit) {
+        this(unit.toNanos(tickDuration), System::nanoTime, true);
+    }
+    
+    /**
+     * Constructor. The wheel is driven by calls to advance, with time taken from a clock.
+     *
+     * @param tickNanos The duration of a tick in nanoseconds
+     * @param clock     The source of time in nanoseconds
+     */
+    TimingWheel(long tickNanos, LongSupplier clock) {
+        this(tickNanos, clock, false);
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param tickNanos   The duration of a tick in nanoseconds
+     * @param clock       The source of time in nanoseconds
+     * @param startThread True to start a thread driving the wheel
+     */
+    private TimingWheel(long tickNanos, LongSupplier clock, boolean startThread) {
+        if (tickNanos <= 0)
+            throw new IllegalArgumentException("The tick must be positive: " + tickNanos);
+        this.tickNanos = tickNanos;
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+        this.slots = new Timeout[LEVELS][WHEEL_SIZE];
+        if (startThread) {
+            thread = new Thread(this::drive, "aquarium-timing-wheel");
+            thread.setDaemon(true);
+            thread.start();
+        } else thread = null;
+    }
+    
+    /**
+     * Get the current time of the wheel
+     *
+     * @return the time in nanoseconds, on the time base of the deadlines
+     */
+    public long nanoTime() {
+        return clock.getAsLong();
+    }
+    
+    /**
+     * Run a task after a delay
+     *
+     * @param task  The task
+     * @param delay The delay, the task running on the next tick if it is not positive
+     * @param unit  The unit of the delay
+     *
+     * @return the timeout of the task
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return scheduleAt(task, nanoTime() + unit.toNanos(delay));
+    }
+    
+    /**
+     * Run a task at a deadline
+     *
+     * @param task     The task
+     * @param deadline The deadline in nanoseconds, on the time base of nanoTime
+     *
+     * @return the timeout of the task
+     */
+    public Timeout scheduleAt(Runnable task, long deadline) {
+        if (task == null)
+            throw new NullPointerException("task");
+        if (closed)
+            throw new IllegalStateException("The timing wheel is closed");
+        long ticks = deadline - origin;
+        Timeout timeout = new Timeout(task, ticks <= 0 ? 0 : (ticks + tickNanos - 1) /
+                                                             tickNanos);
+        pending.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+    
+    /**
+     * Get the number of timeouts neither fired nor cancelled
+     *
+     * @return the number of pending timeouts
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+    
+    /**
+     * Get the number of tasks run
+     *
+     * @return the number of fired timeouts
+     */
+    public long getFiredCount() {
+        return fired.sum();
+    }
+    
+    /**
+     * Get the number of tasks that threw an exception
+     *
+     * @return the number of failed tasks
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+    
+    /**
+     * Stop the wheel. Pending timeouts never fire.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (thread != null)
+            LockSupport.unpark(thread);
+    }
+    
+    /**
+     * Process every tick up to a time, firing the timeouts due. Only one thread may advance
+     * the wheel.
+     *
+     * @param now The time in nanoseconds
+     *
+     * @return the number of tasks run
+     */
+    int advance(long now) {
+        long target = (now - origin) / tickNanos;
+        int count = 0;
+        place();
+        while (tick < target && !closed) {
+            long current = ++tick;
+            if ((current & WHEEL_MASK) == 0)
+                for (int level = 1; level < LEVELS; level++) {
+                    int index = (int) (current >>> level * WHEEL_BITS) & WHEEL_MASK;
+                    cascade(level, index);
+                    if (index != 0)
+                        break;
+                }
+            count += fire((int) current & WHEEL_MASK);
+            place();
+        }
+        return count;
+    }
+    
+    /**
+     * Drive the wheel until it is closed, sleeping until the next tick. Run by the wheel
+     * thread.
+     */
+    private void drive() {
+        while (!closed) {
+            long now = clock.getAsLong();
+            advance(now);
+            long next = origin + (tick + 1) * tickNanos;
+            LockSupport.parkNanos(this, Math.max(next - now, 1));
+        }
+    }
+    
+    /**
+     * Place the timeouts scheduled since the last tick on the wheels
+     */
+    private void place() {
+        for (Timeout timeout = scheduled.poll(); timeout != null; timeout = scheduled.poll())
+            if (!timeout.cancelled)
+                insert(timeout, tick + 1);
+    }
+    
+    /**
+     * Link a timeout into the slot of the wheel covering its deadline
+     *
+     * @param timeout  The timeout
+     * @param earliest The earliest tick the timeout may fire on
+     */
+    private void insert(Timeout timeout, long earliest) {
+        long deadline = Math.max(timeout.deadlineTick, earliest);
+        long delta = deadline - tick;
+        if (delta >= HORIZON)
+            deadline = tick + HORIZON - 1;
+        int level = 0;
+        while (level < LEVELS - 1 && deadline - tick >= 1L << (level + 1) * WHEEL_BITS)
+            level++;
+        int index = (int) (deadline >>> level * WHEEL_BITS) & WHEEL_MASK;
+        Timeout head = slots[level][index];
+        timeout.level = level;
+        timeout.index = index;
+        timeout.previous = null;
+        timeout.next = head;
+        if (head != null)
+            head.previous = timeout;
+        slots[level][index] = timeout;
+    }
+    
+    /**
+     * Unlink a timeout from its slot
+     *
+     * @param timeout The timeout
+     */
+    private void unlink(Timeout timeout) {
+        if (timeout.previous != null)
+            timeout.previous.next = timeout.next;
+        else slots[timeout.level][timeout.index] = timeout.next;
+        if (timeout.next != null)
+            timeout.next.previous = timeout.previous;
+        timeout.previous = null;
+        timeout.next = null;
+    }
+    
+    /**
+     * Move the timeouts of a slot of an upper wheel down to the wheels now covering them
+     *
+     * @param level The wheel
+     * @param index The slot
+     */
+    private void cascade(int level, int index) {
+        Timeout timeout = slots[level][index];
+        slots[level][index] = null;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (!timeout.cancelled)
+                insert(timeout, tick);
+            timeout = next;
+        }
+    }
+    
+    /**
+     * Run the tasks of a slot of the lowest wheel
+     *
+     * @param index The slot
+     *
+     * @return the number of tasks run
+     */
+    private int fire(int index) {
+        int count = 0;
+        Timeout timeout = slots[0][index];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            unlink(timeout);
+            if (timeout.deadlineTick > tick)
+                insert(timeout, tick + 1);
+            else if (timeout.expire()) {
+                count++;
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    failures.increment();
+                }
+            }
+            timeout = next;
+        }
+        fired.add(count);
+        return count;
+    }
+    
+    /**
+     * A task waiting for its deadline on a timing wheel
+     */
+    public final class Timeout {
+        private final Runnable   task; // The task
+        private final long       deadlineTick; // The tick at which the task is due
+        private Timeout          previous; // The previous timeout of the slot
+        private Timeout          next; // The next timeout of the slot
+        private int              level; // The wheel holding the timeout
+        private int              index; // The slot holding the timeout
+        private volatile boolean cancelled; // True once cancelled
+        private volatile boolean expired; // True once the task ran
+        
+        /**
+         * Constructor.
+         *
+         * @param task         The task
+         * @param deadlineTick The tick at which the task is due
+         */
+        Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+        
+        /**
+         * Keep the task from running. It is dropped from the wheel when its slot comes
+         * round.
+         *
+         * @return true if the task will not run, false if it already ran
+         */
+        public boolean cancel() {
+            synchronized (this) {
+                if (expired)
+                    return false;
+                if (cancelled)
+                    return true;
+                cancelled = true;
+            }
+            pending.decrementAndGet();
+            return true;
+        }
+        
+        /**
+         * Check whether the timeout was cancelled
+         *
+         * @return true if cancelled, false otherwise
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+        
+        /**
+         * Check whether the task ran
+         *
+         * @return true if the task ran, false otherwise
+         */
+        public boolean isExpired() {
+            return expired;
+        }
+        
+        /**
+         * Mark the timeout as expired unless it was cancelled
+         *
+         * @return true if the task must run, false if it was cancelled
+         */
+        private boolean expire() {
+            synchronized (this) {
+                if (cancelled)
+                    return false;
+                expired = true;
+            }
+            pending.decrementAndGet();
+            return true;
+        }
+    }
+}
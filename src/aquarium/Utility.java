@@ -1,9 +1,20 @@
 package aquarium;
 
+import java.nio.BufferOverflowException;
+import java.nio.DoubleBuffer;
+import java.nio.ReadOnlyBufferException;
+
 /**
  * Created by harryliu on 1/21/17.
  */
 public class Utility {
+    private static final int C_TO_F = 0; // Celsius to Fahrenheit temperatures
+    private static final int F_TO_C = 1; // Fahrenheit to Celsius temperatures
+    private static final int C_TO_F_VARIANCE = 2; // Celsius to Fahrenheit variations
+    private static final int F_TO_C_VARIANCE = 3; // Fahrenheit to Celsius variations
+    private static final int CHUNK_SIZE = 1024; // The values copied at once out of a buffer
+    // without an accessible array
+    
     /**
      * Convert Celsius temperature to corresponding Fahrenheit temperature
      * 
@@ -47,4 +58,301 @@ public class Utility {
     public static double fahrenheitToCelsiusVariance(double f) {
         return f * 5.0 / 9;
     }
+    
+    /**
+     * Convert an array of Celsius temperatures to Fahrenheit temperatures in place
+     * 
+     * @param values The values to convert
+     */
+    public static void celsiusToFahrenheit(double[] values) {
+        celsiusToFahrenheit(values, 0, values, 0, values.length);
+    }
+    
+    /**
+     * Convert a range of Celsius temperatures to Fahrenheit temperatures. The source and
+     * destination ranges may overlap, as when converting in place.
+     * 
+     * @param src       The source values
+     * @param srcOffset The index of the first source value
+     * @param dst       The array receiving the converted values
+     * @param dstOffset The index receiving the first converted value
+     * @param length    The number of values to convert
+     */
+    public static void celsiusToFahrenheit(double[] src, int srcOffset, double[] dst,
+                                           int dstOffset, int length) {
+        int from = sourceOffset(src, srcOffset, dst, dstOffset, length);
+        if (from == dstOffset)
+            for (int i = from; i < from + length; i++)
+                dst[i] = celsiusToFahrenheit(src[i]);
+        else for (int i = 0; i < length; i++)
+            dst[dstOffset + i] = celsiusToFahrenheit(src[from + i]);
+    }
+    
+    /**
+     * Convert the Celsius temperatures remaining in a buffer to Fahrenheit temperatures in place,
+     * leaving the position of the buffer unchanged
+     * 
+     * @param values The buffer of values to convert
+     */
+    public static void celsiusToFahrenheit(DoubleBuffer values) {
+        convert(C_TO_F, values.duplicate(), values.duplicate());
+    }
+    
+    /**
+     * Convert the Celsius temperatures remaining in a buffer to Fahrenheit temperatures in another
+     * buffer, advancing the position of both buffers by the number of values converted
+     * 
+     * @param src The buffer of source values
+     * @param dst The buffer receiving the converted values
+     * 
+     * @throws BufferOverflowException if dst has less room than src has values
+     */
+    public static void celsiusToFahrenheit(DoubleBuffer src, DoubleBuffer dst) {
+        convert(C_TO_F, src, dst);
+    }
+    
+    /**
+     * Convert an array of Fahrenheit temperatures to Celsius temperatures in place
+     * 
+     * @param values The values to convert
+     */
+    public static void fahrenheitToCelsius(double[] values) {
+        fahrenheitToCelsius(values, 0, values, 0, values.length);
+    }
+    
+    /**
+     * Convert a range of Fahrenheit temperatures to Celsius temperatures. The source and
+     * destination ranges may overlap, as when converting in place.
+     * 
+     * @param src       The source values
+     * @param srcOffset The index of the first source value
+     * @param dst       The array receiving the converted values
+     * @param dstOffset The index receiving the first converted value
+     * @param length    The number of values to convert
+     */
+    public static void fahrenheitToCelsius(double[] src, int srcOffset, double[] dst,
+                                           int dstOffset, int length) {
+        int from = sourceOffset(src, srcOffset, dst, dstOffset, length);
+        if (from == dstOffset)
+            for (int i = from; i < from + length; i++)
+                dst[i] = fahrenheitToCelsius(src[i]);
+        else for (int i = 0; i < length; i++)
+            dst[dstOffset + i] = fahrenheitToCelsius(src[from + i]);
+    }
+    
+    /**
+     * Convert the Fahrenheit temperatures remaining in a buffer to Celsius temperatures in place,
+     * leaving the position of the buffer unchanged
+     * 
+     * @param values The buffer of values to convert
+     */
+    public static void fahrenheitToCelsius(DoubleBuffer values) {
+        convert(F_TO_C, values.duplicate(), values.duplicate());
+    }
+    
+    /**
+     * Convert the Fahrenheit temperatures remaining in a buffer to Celsius temperatures in another
+     * buffer, advancing the position of both buffers by the number of values converted
+     * 
+     * @param src The buffer of source values
+     * @param dst The buffer receiving the converted values
+     * 
+     * @throws BufferOverflowException if dst has less room than src has values
+     */
+    public static void fahrenheitToCelsius(DoubleBuffer src, DoubleBuffer dst) {
+        convert(F_TO_C, src, dst);
+    }
+    
+    /**
+     * Convert an array of Celsius temperature variations to Fahrenheit temperature variations in
+     * place
+     * 
+     * @param values The values to convert
+     */
+    public static void celsiusToFahrenheitVariance(double[] values) {
+        celsiusToFahrenheitVariance(values, 0, values, 0, values.length);
+    }
+    
+    /**
+     * Convert a range of Celsius temperature variations to Fahrenheit temperature variations. The
+     * source and destination ranges may overlap, as when converting in place.
+     * 
+     * @param src       The source values
+     * @param srcOffset The index of the first source value
+     * @param dst       The array receiving the converted values
+     * @param dstOffset The index receiving the first converted value
+     * @param length    The number of values to convert
+     */
+    public static void celsiusToFahrenheitVariance(double[] src, int srcOffset, double[] dst,
+                                                   int dstOffset, int length) {
+        int from = sourceOffset(src, srcOffset, dst, dstOffset, length);
+        if (from == dstOffset)
+            for (int i = from; i < from + length; i++)
+                dst[i] = celsiusToFahrenheitVariance(src[i]);
+        else for (int i = 0; i < length; i++)
+            dst[dstOffset + i] = celsiusToFahrenheitVariance(src[from + i]);
+    }
+    
+    /**
+     * Convert the Celsius temperature variations remaining in a buffer to Fahrenheit temperature
+     * variations in place, leaving the position of the buffer unchanged
+     * 
+     * @param values The buffer of values to convert
+     */
+    public static void celsiusToFahrenheitVariance(DoubleBuffer values) {
+        convert(C_TO_F_VARIANCE, values.duplicate(), values.duplicate());
+    }
+    
+    /**
+     * Convert the Celsius temperature variations remaining in a buffer to Fahrenheit temperature
+     * variations in another buffer, advancing the position of both buffers by the number of values
+     * converted
+     * 
+     * @param src The buffer of source values
+     * @param dst The buffer receiving the converted values
+     * 
+     * @throws BufferOverflowException if dst has less room than src has values
+     */
+    public static void celsiusToFahrenheitVariance(DoubleBuffer src, DoubleBuffer dst) {
+        convert(C_TO_F_VARIANCE, src, dst);
+    }
+    
+    /**
+     * Convert an array of Fahrenheit temperature variations to Celsius temperature variations in
+     * place
+     * 
+     * @param values The values to convert
+     */
+    public static void fahrenheitToCelsiusVariance(double[] values) {
+        fahrenheitToCelsiusVariance(values, 0, values, 0, values.length);
+    }
+    
+    /**
+     * Convert a range of Fahrenheit temperature variations to Celsius temperature variations. The
+     * source and destination ranges may overlap, as when converting in place.
+     * 
+     * @param src       The source values
+     * @param srcOffset The index of the first source value
+     * @param dst       The array receiving the converted values
+     * @param dstOffset The index receiving the first converted value
+     * @param length    The number of values to convert
+     */
+    public static void fahrenheitToCelsiusVariance(double[] src, int srcOffset, double[] dst,
+                                                   int dstOffset, int length) {
+        int from = sourceOffset(src, srcOffset, dst, dstOffset, length);
+        if (from == dstOffset)
+            for (int i = from; i < from + length; i++)
+                dst[i] = fahrenheitToCelsiusVariance(src[i]);
+        else for (int i = 0; i < length; i++)
+            dst[dstOffset + i] = fahrenheitToCelsiusVariance(src[from + i]);
+    }
+    
+    /**
+     * Convert the Fahrenheit temperature variations remaining in a buffer to Celsius temperature
+     * variations in place, leaving the position of the buffer unchanged
+     * 
+     * @param values The buffer of values to convert
+     */
+    public static void fahrenheitToCelsiusVariance(DoubleBuffer values) {
+        convert(F_TO_C_VARIANCE, values.duplicate(), values.duplicate());
+    }
+    
+    /**
+     * Convert the Fahrenheit temperature variations remaining in a buffer to Celsius temperature
+     * variations in another buffer, advancing the position of both buffers by the number of values
+     * converted
+     * 
+     * @param src The buffer of source values
+     * @param dst The buffer receiving the converted values
+     * 
+     * @throws BufferOverflowException if dst has less room than src has values
+     */
+    public static void fahrenheitToCelsiusVariance(DoubleBuffer src, DoubleBuffer dst) {
+        convert(F_TO_C_VARIANCE, src, dst);
+    }
+    
+    /**
+     * Check a range conversion and locate its source values. Each range conversion runs its
+     * own loop over plain arrays calling the scalar conversion, which the JIT inlines, unrolls
+     * and vectorizes. Source and destination at the same offset share the loop index, which
+     * lets the JIT vectorize without proving that the arrays do not overlap.
+     * 
+     * @param src       The source values
+     * @param srcOffset The index of the first source value
+     * @param dst       The array receiving the converted values
+     * @param dstOffset The index receiving the first converted value
+     * @param length    The number of values to convert
+     * 
+     * @return the index of the first source value to convert
+     */
+    private static int sourceOffset(double[] src, int srcOffset, double[] dst, int dstOffset,
+                                    int length) {
+        if (length < 0 || srcOffset < 0 || dstOffset < 0 || srcOffset > src.length - length ||
+            dstOffset > dst.length - length)
+            throw new IndexOutOfBoundsException("Range of " + length + " values");
+        if (src != dst || dstOffset <= srcOffset || dstOffset >= srcOffset + length)
+            return srcOffset;
+        // Converting forward would overwrite source values not yet converted, so move the
+        // source values to the destination first and convert them in place
+        System.arraycopy(src, srcOffset, dst, dstOffset, length);
+        return dstOffset;
+    }
+    
+    /**
+     * Convert a range of values
+     * 
+     * @param conversion The conversion
+     * @param src        The source values
+     * @param srcOffset  The index of the first source value
+     * @param dst        The array receiving the converted values
+     * @param dstOffset  The index receiving the first converted value
+     * @param length     The number of values to convert
+     */
+    private static void convert(int conversion, double[] src, int srcOffset, double[] dst,
+                                int dstOffset, int length) {
+        switch (conversion) {
+            case C_TO_F:
+                celsiusToFahrenheit(src, srcOffset, dst, dstOffset, length);
+                break;
+            case F_TO_C:
+                fahrenheitToCelsius(src, srcOffset, dst, dstOffset, length);
+                break;
+            case C_TO_F_VARIANCE:
+                celsiusToFahrenheitVariance(src, srcOffset, dst, dstOffset, length);
+                break;
+            default:
+                fahrenheitToCelsiusVariance(src, srcOffset, dst, dstOffset, length);
+        }
+    }
+    
+    /**
+     * Convert the remaining values of a buffer into another buffer. Buffers backed by arrays are
+     * converted in place in their arrays; other buffers are converted in chunks copied through a
+     * scratch array, since bulk copies outrun element-wise access.
+     * 
+     * @param conversion The conversion
+     * @param src        The buffer of source values
+     * @param dst        The buffer receiving the converted values
+     */
+    private static void convert(int conversion, DoubleBuffer src, DoubleBuffer dst) {
+        int length = src.remaining();
+        if (length > dst.remaining())
+            throw new BufferOverflowException();
+        if (dst.isReadOnly())
+            throw new ReadOnlyBufferException();
+        if (src.hasArray() && dst.hasArray()) {
+            convert(conversion, src.array(), src.arrayOffset() + src.position(), dst.array(),
+                    dst.arrayOffset() + dst.position(), length);
+            src.position(src.position() + length);
+            dst.position(dst.position() + length);
+            return;
+        }
+        double[] chunk = new double[Math.min(length, CHUNK_SIZE)];
+        while (src.hasRemaining()) {
+            int count = Math.min(src.remaining(), chunk.length);
+            src.get(chunk, 0, count);
+            convert(conversion, chunk, 0, chunk, 0, count);
+            dst.put(chunk, 0, count);
+        }
+    }
 }
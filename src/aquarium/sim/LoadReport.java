@@ -0,0 +1,168 @@
+package aquarium.sim;
+
+import aquarium.LatencyHistogram;
+
+/**
+ * The result of a LoadTest: the load applied, the throughput reached, the latency from the
+ * time each reading was due to the return of the controller and to the adjuster command,
+ * and the garbage collections of the run. Only the readings due after the warm-up are
+ * accounted for. The report is written as one JSON object, so two builds can be compared by
+ * diffing their reports.
+ *
+ * @version Oct 18, 2026
+ */
+public final class LoadReport {
+    private static final double[] PERCENTILES = {50, 99, 99.9}; // The percentiles reported
+    private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p999"}; // Their names
+    
+    private final String           configuration; // The JSON fields of the load applied
+    private final long             readings; // The number of readings measured
+    private final long             transitions; // The number of adjuster commands measured
+    private final double           seconds; // The time the measured readings took
+    private final LatencyHistogram readingLatency; // The latency of each reading
+    private final LatencyHistogram actuationLatency; // The latency of each adjuster command
+    private final long             gcCount; // The number of garbage collections
+    private final long             gcMillis; // The time spent collecting garbage
+    private final long             gcMaxPauseMillis; // The longest garbage collection
+    
+    /**
+     * Constructor.
+     *
+     * @param configuration    The JSON fields of the load applied
+     * @param readings         The number of readings measured
+     * @param transitions      The number of adjuster commands measured
+     * @param seconds          The time the measured readings took
+     * @param readingLatency   The latency of each reading
+     * @param actuationLatency The latency of each adjuster command
+     * @param gcCount          The number of garbage collections
+     * @param gcMillis         The time spent collecting garbage
+     * @param gcMaxPauseMillis The longest garbage collection
+     */
+    LoadReport(String configuration, long readings, long transitions, double seconds,
+               LatencyHistogram readingLatency, LatencyHistogram actuationLatency, long gcCount,
+               long gcMillis, long gcMaxPauseMillis) {
+        this.configuration = configuration;
+        this.readings = readings;
+        this.transitions = transitions;
+        this.seconds = seconds;
+        this.readingLatency = readingLatency;
+        this.actuationLatency = actuationLatency;
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+        this.gcMaxPauseMillis = gcMaxPauseMillis;
+    }
+    
+    /**
+     * Get the number of readings measured
+     *
+     * @return the number of readings
+     */
+    public long getReadingCount() {
+        return readings;
+    }
+    
+    /**
+     * Get the number of adjuster commands measured
+     *
+     * @return the number of transitions
+     */
+    public long getTransitionCount() {
+        return transitions;
+    }
+    
+    /**
+     * Get the throughput reached
+     *
+     * @return the number of readings handled per second
+     */
+    public double getThroughput() {
+        return seconds > 0 ? readings / seconds : 0;
+    }
+    
+    /**
+     * Get the latency from the time each reading was due to the return of its controller
+     *
+     * @return the histogram of the reading latencies in nanoseconds
+     */
+    public LatencyHistogram getReadingLatency() {
+        return readingLatency;
+    }
+    
+    /**
+     * Get the latency from the time a reading was due to the adjuster command it caused
+     *
+     * @return the histogram of the actuation latencies in nanoseconds
+     */
+    public LatencyHistogram getActuationLatency() {
+        return actuationLatency;
+    }
+    
+    /**
+     * Get the number of garbage collections during the measurement
+     *
+     * @return the number of collections
+     */
+    public long getGcCount() {
+        return gcCount;
+    }
+    
+    /**
+     * Get the time spent collecting garbage during the measurement
+     *
+     * @return the time in milliseconds
+     */
+    public long getGcMillis() {
+        return gcMillis;
+    }
+    
+    /**
+     * Get the longest garbage collection during the measurement
+     *
+     * @return the duration in milliseconds, or -1 if the JVM does not report collections
+     * one by one
+     */
+    public long getGcMaxPauseMillis() {
+        return gcMaxPauseMillis;
+    }
+    
+    /**
+     * Describe the report as JSON, with latencies in nanoseconds
+     *
+     * @return the JSON object of the report
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(512).append('{').append(configuration);
+        json.append(",\"readings\":").append(readings);
+        json.append(",\"transitions\":").append(transitions);
+        json.append(",\"seconds\":").append(seconds);
+        json.append(",\"throughput\":").append(getThroughput());
+        json.append(",\"readingLatency\":");
+        latency(json, readingLatency);
+        json.append(",\"actuationLatency\":");
+        latency(json, actuationLatency);
+        json.append(",\"gc\":{\"count\":").append(gcCount).append(",\"millis\":").append
+                (gcMillis).append(",\"maxPauseMillis\":").append(gcMaxPauseMillis);
+        return json.append("}}").toString();
+    }
+    
+    @Override
+    public String toString() {
+        return toJson();
+    }
+    
+    /**
+     * Describe a latency histogram as JSON
+     *
+     * @param json      The JSON being built
+     * @param histogram The histogram
+     */
+    private static void latency(StringBuilder json, LatencyHistogram histogram) {
+        json.append("{\"count\":").append(histogram.getCount());
+        double mean = histogram.getMean();
+        json.append(",\"mean\":").append(Double.isNaN(mean) ? 0 : Math.round(mean));
+        for (int i = 0; i < PERCENTILES.length; i++)
+            json.append(",\"").append(PERCENTILE_NAMES[i]).append("\":").append(histogram
+                    .getPercentile(PERCENTILES[i]));
+        json.append(",\"max\":").append(histogram.getMax()).append('}');
+    }
+}
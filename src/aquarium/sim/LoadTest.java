@@ -0,0 +1,529 @@
+package aquarium.sim;
+
+import aquarium.DoubleObservable;
+import aquarium.LatencyHistogram;
+import aquarium.Observable;
+import aquarium.ObservableAdapter;
+import aquarium.ObserverRegistry;
+import aquarium.TemperatureControllerImpl;
+import aquarium.hw.TemperatureAdjuster;
+import aquarium.hw.TemperatureSensor;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+
+/**
+ * An immutable description of an end-to-end load test of the controller, and its runner.
+ * The test builds one simulated probe per tank, acting both as the sensor and as the
+ * adjuster of a real TemperatureControllerImpl, and drives the probes from several threads,
+ * each tank reporting a reading of its NoiseProfile at a fixed rate. The readings are due at
+ * fixed times whatever the latency of the previous ones, so a load the controllers cannot
+ * keep up with shows as a growing latency instead of a lower rate.
+ * <p>
+ * Every reading is timed from the time it was due to the return of its controller, and
+ * every adjuster command from the time its reading was due, into latency histograms kept
+ * per thread. The report is written as JSON; run the class with name=value arguments, such
+ * as tanks=10000 rate=20, to print it.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class LoadTest {
+    private static final double DESIRED = 20.0; // The desired temperature of every tank
+    private static final long   DEFAULT_DURATION = TimeUnit.SECONDS.toNanos(10); // The
+    // time measured by default
+    private static final long   DEFAULT_WARMUP = TimeUnit.SECONDS.toNanos(2); // The warm-up
+    // by default
+    private static final long   SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(50); // The wait
+    // below which a thread spins instead of parking
+    
+    private final int          tanks; // The number of tanks
+    private final int          threads; // The number of threads driving the tanks
+    private final double       rate; // The readings per second of each tank
+    private final long         durationNanos; // The time measured, after the warm-up
+    private final long         warmupNanos; // The time driven before measuring
+    private final NoiseProfile noise; // The readings of the probes
+    
+    /**
+     * Constructor. The tanks report 10 readings per second for 10 seconds after a 2 second
+     * warm-up, from one thread per core, swinging 2 Celsius degrees every minute with 0.05
+     * degrees of noise.
+     *
+     * @param tanks The number of tanks
+     */
+    public LoadTest(int tanks) {
+        this(tanks, Runtime.getRuntime().availableProcessors(), 10, DEFAULT_DURATION,
+             DEFAULT_WARMUP, NoiseProfile.QUIET.withSwing(2.0, 60).withNoise(0.05));
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param tanks         The number of tanks
+     * @param threads       The number of threads driving the tanks
+     * @param rate          The readings per second of each tank
+     * @param durationNanos The time measured, after the warm-up
+     * @param warmupNanos   The time driven before measuring
+     * @param noise         The readings of the probes
+     */
+    private LoadTest(int tanks, int threads, double rate, long durationNanos, long warmupNanos,
+                     NoiseProfile noise) {
+        if (tanks < 1 || threads < 1)
+            throw new IllegalArgumentException("Invalid tank or thread count: " + tanks + ", " +
+                                               threads);
+        if (!(rate > 0) || durationNanos <= 0 || warmupNanos < 0)
+            throw new IllegalArgumentException("Invalid rate or duration");
+        this.tanks = tanks;
+        this.threads = Math.min(threads, tanks);
+        this.rate = rate;
+        this.durationNanos = durationNanos;
+        this.warmupNanos = warmupNanos;
+        this.noise = noise;
+    }
+    
+    /**
+     * Run a load test from the command line and print its report as JSON. The arguments are
+     * name=value pairs: tanks, threads, rate, duration and warmup in seconds, swing and
+     * swingSeconds, noise, spikes and spike.
+     *
+     * @param args The arguments
+     */
+    public static void main(String[] args) {
+        LoadTest test = new LoadTest(1000);
+        NoiseProfile noise = test.noise;
+        double swing = 2.0;
+        double swingSeconds = 60;
+        double spikes = 0;
+        double spike = 5.0;
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 0)
+                throw new IllegalArgumentException("Expected name=value: " + arg);
+            String name = arg.substring(0, equals);
+            String value = arg.substring(equals + 1);
+            switch (name) {
+                case "tanks":
+                    test = new LoadTest(Integer.parseInt(value), test.threads, test.rate,
+                                        test.durationNanos, test.warmupNanos, noise);
+                    break;
+                case "threads":
+                    test = test.withThreads(Integer.parseInt(value));
+                    break;
+                case "rate":
+                    test = test.withRate(Double.parseDouble(value));
+                    break;
+                case "duration":
+                    test = test.withDuration(Long.parseLong(value), TimeUnit.SECONDS);
+                    break;
+                case "warmup":
+                    test = test.withWarmup(Long.parseLong(value), TimeUnit.SECONDS);
+                    break;
+                case "swing":
+                    swing = Double.parseDouble(value);
+                    break;
+                case "swingSeconds":
+                    swingSeconds = Double.parseDouble(value);
+                    break;
+                case "noise":
+                    noise = noise.withNoise(Double.parseDouble(value));
+                    break;
+                case "spikes":
+                    spikes = Double.parseDouble(value);
+                    break;
+                case "spike":
+                    spike = Double.parseDouble(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown setting: " + name);
+            }
+        }
+        noise = noise.withSwing(swing, swingSeconds).withSpikes(spikes, spike);
+        System.out.println(test.withNoise(noise).run().toJson());
+    }
+    
+    /**
+     * Return a copy of this test driven by another number of threads
+     *
+     * @param count The number of threads, at most one per tank being used
+     *
+     * @return the new test
+     */
+    public LoadTest withThreads(int count) {
+        return new LoadTest(tanks, count, rate, durationNanos, warmupNanos, noise);
+    }
+    
+    /**
+     * Return a copy of this test with another reading rate
+     *
+     * @param readingsPerSecond The readings per second of each tank
+     *
+     * @return the new test
+     */
+    public LoadTest withRate(double readingsPerSecond) {
+        return new LoadTest(tanks, threads, readingsPerSecond, durationNanos, warmupNanos,
+                            noise);
+    }
+    
+    /**
+     * Return a copy of this test measured for another time
+     *
+     * @param duration The time measured, after the warm-up
+     * @param unit     The unit of the duration
+     *
+     * @return the new test
+     */
+    public LoadTest withDuration(long duration, TimeUnit unit) {
+        return new LoadTest(tanks, threads, rate, unit.toNanos(duration), warmupNanos, noise);
+    }
+    
+    /**
+     * Return a copy of this test with another warm-up
+     *
+     * @param warmup The time driven before measuring
+     * @param unit   The unit of the warm-up
+     *
+     * @return the new test
+     */
+    public LoadTest withWarmup(long warmup, TimeUnit unit) {
+        return new LoadTest(tanks, threads, rate, durationNanos, unit.toNanos(warmup), noise);
+    }
+    
+    /**
+     * Return a copy of this test with other readings
+     *
+     * @param profile The readings of the probes
+     *
+     * @return the new test
+     */
+    public LoadTest withNoise(NoiseProfile profile) {
+        return new LoadTest(tanks, threads, rate, durationNanos, warmupNanos, profile);
+    }
+    
+    /**
+     * Run the test on the calling thread and the threads it starts
+     *
+     * @return the report of the test
+     */
+    public LoadReport run() {
+        Driver[] drivers = new Driver[threads];
+        for (int i = 0; i < threads; i++)
+            drivers[i] = new Driver(i);
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+        List<Thread> running = new ArrayList<>(threads);
+        try (GcMonitor gc = new GcMonitor()) {
+            for (Driver driver : drivers) {
+                Thread thread = new Thread(() -> driver.drive(start, measureFrom, end),
+                                           "aquarium-load-" + driver.index);
+                thread.setDaemon(true);
+                thread.start();
+                running.add(thread);
+            }
+            LockSupport.parkNanos(measureFrom - System.nanoTime());
+            gc.reset();
+            for (Thread thread : running)
+                thread.join();
+            long finished = System.nanoTime();
+            LatencyHistogram readingLatency = new LatencyHistogram();
+            LatencyHistogram actuationLatency = new LatencyHistogram();
+            for (Driver driver : drivers) {
+                readingLatency.add(driver.readingLatency);
+                actuationLatency.add(driver.actuationLatency);
+            }
+            return new LoadReport(configurationJson(), readingLatency.getCount(),
+                                  actuationLatency.getCount(), (finished - measureFrom) / 1e9,
+                                  readingLatency, actuationLatency, gc.count(), gc.millis(),
+                                  gc.maxPauseMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during the load test", e);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "LoadTest{" + configurationJson() + '}';
+    }
+    
+    /**
+     * Describe the load applied as JSON fields
+     *
+     * @return the JSON fields, without braces
+     */
+    private String configurationJson() {
+        return "\"tanks\":" + tanks + ",\"threads\":" + threads + ",\"rate\":" + rate +
+               ",\"durationMillis\":" + TimeUnit.NANOSECONDS.toMillis(durationNanos) +
+               ",\"warmupMillis\":" + TimeUnit.NANOSECONDS.toMillis(warmupNanos) +
+               ",\"noise\":" + noise.toJson();
+    }
+    
+    /**
+     * A thread's share of the tanks, driven in turn at evenly spaced times
+     */
+    private final class Driver {
+        private final int              index; // The index of the thread
+        private final Probe[]          probes; // The probes of the tanks of the thread
+        private final LatencyHistogram readingLatency = new LatencyHistogram(); // The latency
+        // of the readings measured
+        private final LatencyHistogram actuationLatency = new LatencyHistogram(); // The
+        // latency of the adjuster commands measured
+        
+        /**
+         * Constructor. Creates the probes and controllers of the tanks of the thread, every
+         * tank whose index is the index of the thread modulo the number of threads.
+         *
+         * @param index The index of the thread
+         */
+        Driver(int index) {
+            this.index = index;
+            this.probes = new Probe[(tanks - index + threads - 1) / threads];
+            for (int i = 0; i < probes.length; i++) {
+                int tank = index + i * threads;
+                probes[i] = new Probe(this, 2 * Math.PI * tank / tanks);
+                TemperatureControllerImpl.makeTemperatureController(probes[i], probes[i])
+                                         .setTemperature(DESIRED);
+            }
+        }
+        
+        /**
+         * Report the readings of the tanks of the thread until the end of the test
+         *
+         * @param start       The System.nanoTime the first reading is due
+         * @param measureFrom The System.nanoTime from which readings are measured
+         * @param end         The System.nanoTime after which no reading is due
+         */
+        void drive(long start, long measureFrom, long end) {
+            Random random = new Random(index);
+            double interval = 1e9 / rate / probes.length;
+            for (long n = 0; ; n++) {
+                long due = start + (long) (n * interval);
+                if (due >= end)
+                    return;
+                long wait = due - System.nanoTime();
+                if (wait > SPIN_NANOS)
+                    LockSupport.parkNanos(wait - SPIN_NANOS);
+                while (System.nanoTime() < due)
+                    Thread.yield();
+                Probe probe = probes[(int) (n % probes.length)];
+                double reading = noise.reading(DESIRED, (due - start) / 1e9, probe.phase,
+                                               random);
+                probe.report(reading, due, due >= measureFrom);
+            }
+        }
+    }
+    
+    /**
+     * A simulated probe, the sensor and adjuster of one tank
+     */
+    private static final class Probe implements TemperatureSensor, DoubleObservable,
+                                                 TemperatureAdjuster {
+        private final Driver                    driver; // The thread driving the probe
+        private final double                    phase; // The phase of the swing of the probe
+        private final Observable                legacy; // The legacy view of the primitive
+        // observers
+        private final ObserverRegistry.OfDouble observers = new ObserverRegistry.OfDouble();
+        // The observers
+        private double                          temperature = DESIRED; // The last reading
+        private long                            due; // The System.nanoTime the reading being
+        // handled was due
+        private boolean                         measured; // True if the reading being handled is
+        // measured
+        
+        /**
+         * Constructor.
+         *
+         * @param driver The thread driving the probe
+         * @param phase  The phase of the swing of the probe
+         */
+        Probe(Driver driver, double phase) {
+            this.driver = driver;
+            this.phase = phase;
+            this.legacy = ObservableAdapter.toLegacy(new DoubleObservable() {
+                @Override
+                public void addObserver(DoubleConsumer observer) {
+                    Probe.this.addObserver(observer);
+                }
+                
+                @Override
+                public void removeObserver(DoubleConsumer observer) {
+                    Probe.this.removeObserver(observer);
+                }
+            });
+        }
+        
+        /**
+         * Report a reading to the observers and time it
+         *
+         * @param reading  The reading in Celsius degrees
+         * @param due      The System.nanoTime the reading was due
+         * @param measured True if the reading is measured
+         */
+        void report(double reading, long due, boolean measured) {
+            this.temperature = reading;
+            this.due = due;
+            this.measured = measured;
+            observers.notifyObservers(reading);
+            if (measured)
+                driver.readingLatency.record(System.nanoTime() - due);
+        }
+        
+        @Override
+        public void setState(AdjusterState state) {
+            if (measured)
+                driver.actuationLatency.record(System.nanoTime() - due);
+        }
+        
+        @Override
+        public void addObserver(DoubleConsumer observer) {
+            observers.add(observer);
+        }
+        
+        @Override
+        public void removeObserver(DoubleConsumer observer) {
+            observers.remove(observer);
+        }
+        
+        @Override
+        public void addObserver(Function<Double, Void> observer) {
+            legacy.addObserver(observer);
+        }
+        
+        @Override
+        public void removeObserver(Function<Double, Void> observer) {
+            legacy.removeObserver(observer);
+        }
+        
+        @Override
+        public void setDelta(double delta) {
+        }
+        
+        @Override
+        public double getTemperature() {
+            return temperature;
+        }
+    }
+    
+    /**
+     * The garbage collections since the last reset, from the collector MXBeans and their
+     * notifications
+     */
+    private static final class GcMonitor implements NotificationListener, AutoCloseable {
+        private final List<GarbageCollectorMXBean> collectors = ManagementFactory
+                .getGarbageCollectorMXBeans(); // The garbage collectors
+        private final AtomicLong                   maxPause = new AtomicLong(-1); // The
+        // longest collection notified, or -1 if none was
+        private long                               baseCount; // The collections at the reset
+        private long                               baseMillis; // Their time at the reset
+        private volatile boolean                   started; // True once reset
+        
+        /**
+         * Constructor. Listens to the collectors notifying their collections.
+         */
+        GcMonitor() {
+            for (GarbageCollectorMXBean collector : collectors)
+                if (collector instanceof NotificationEmitter)
+                    ((NotificationEmitter) collector).addNotificationListener(this, null, null);
+        }
+        
+        /**
+         * Start counting from now
+         */
+        void reset() {
+            baseCount = totalCount();
+            baseMillis = totalMillis();
+            maxPause.set(-1);
+            started = true;
+        }
+        
+        /**
+         * Get the number of collections since the reset
+         *
+         * @return the number of collections
+         */
+        long count() {
+            return totalCount() - baseCount;
+        }
+        
+        /**
+         * Get the time spent collecting since the reset
+         *
+         * @return the time in milliseconds
+         */
+        long millis() {
+            return totalMillis() - baseMillis;
+        }
+        
+        /**
+         * Get the longest collection since the reset
+         *
+         * @return the duration in milliseconds, 0 if there was no collection, or -1 if the
+         * collectors do not notify their collections
+         */
+        long maxPauseMillis() {
+            long max = maxPause.get();
+            return max < 0 && count() == 0 ? 0 : max;
+        }
+        
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (!started || !GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+                    .equals(notification.getType()))
+                return;
+            long duration = GarbageCollectionNotificationInfo.from((CompositeData) notification
+                    .getUserData()).getGcInfo().getDuration();
+            long highest = maxPause.get();
+            while (duration > highest && !maxPause.compareAndSet(highest, duration))
+                highest = maxPause.get();
+        }
+        
+        @Override
+        public void close() {
+            for (GarbageCollectorMXBean collector : collectors)
+                if (collector instanceof NotificationEmitter)
+                    try {
+                        ((NotificationEmitter) collector).removeNotificationListener(this);
+                    } catch (ListenerNotFoundException e) {
+                        // Never registered
+                    }
+        }
+        
+        /**
+         * Get the number of collections since the start of the JVM
+         *
+         * @return the number of collections
+         */
+        private long totalCount() {
+            long count = 0;
+            for (GarbageCollectorMXBean collector : collectors)
+                count += Math.max(0, collector.getCollectionCount());
+            return count;
+        }
+        
+        /**
+         * Get the time spent collecting since the start of the JVM
+         *
+         * @return the time in milliseconds
+         */
+        private long totalMillis() {
+            long millis = 0;
+            for (GarbageCollectorMXBean collector : collectors)
+                millis += Math.max(0, collector.getCollectionTime());
+            return millis;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package aquarium.sim;
+
+import java.util.Random;
+
+/**
+ * An immutable description of the readings a simulated probe of a load test reports around
+ * the desired temperature of its tank: a slow sinusoidal swing, driving the adjuster on and
+ * off, plus Gaussian noise and occasional spikes. The quiet profile reports the desired
+ * temperature unchanged.
+ *
+ * @version Oct 18, 2026
+ */
+public final class NoiseProfile {
+    public static final NoiseProfile QUIET = new NoiseProfile(0.0, 1.0, 0.0, 0.0, 0.0); // The
+    // profile reporting the desired temperature unchanged
+    
+    private final double swing; // The amplitude of the swing in Celsius degrees
+    private final double swingSeconds; // The period of the swing in seconds
+    private final double sigma; // The standard deviation of the noise in Celsius degrees
+    private final double spikeProbability; // The probability of a reading being a spike
+    private final double spike; // The size of a spike in Celsius degrees
+    
+    /**
+     * Constructor.
+     *
+     * @param swing            The amplitude of the swing in Celsius degrees
+     * @param swingSeconds     The period of the swing in seconds
+     * @param sigma            The standard deviation of the noise in Celsius degrees
+     * @param spikeProbability The probability of a reading being a spike
+     * @param spike            The size of a spike in Celsius degrees
+     *
+     * @throws IllegalArgumentException if a setting is out of range
+     */
+    private NoiseProfile(double swing, double swingSeconds, double sigma,
+                         double spikeProbability, double spike) {
+        if (!(swing >= 0) || !(swingSeconds > 0) || !(sigma >= 0) || !(spike >= 0))
+            throw new IllegalArgumentException("Invalid noise profile");
+        if (!(spikeProbability >= 0 && spikeProbability <= 1))
+            throw new IllegalArgumentException("Invalid spike probability: " +
+                                               spikeProbability);
+        this.swing = swing;
+        this.swingSeconds = swingSeconds;
+        this.sigma = sigma;
+        this.spikeProbability = spikeProbability;
+        this.spike = spike;
+    }
+    
+    /**
+     * Return a copy of this profile with another swing
+     *
+     * @param amplitude The amplitude of the swing in Celsius degrees
+     * @param seconds   The period of the swing in seconds
+     *
+     * @return the new profile
+     */
+    public NoiseProfile withSwing(double amplitude, double seconds) {
+        return new NoiseProfile(amplitude, seconds, sigma, spikeProbability, spike);
+    }
+    
+    /**
+     * Return a copy of this profile with another Gaussian noise
+     *
+     * @param standardDeviation The standard deviation of the noise in Celsius degrees
+     *
+     * @return the new profile
+     */
+    public NoiseProfile withNoise(double standardDeviation) {
+        return new NoiseProfile(swing, swingSeconds, standardDeviation, spikeProbability,
+                                spike);
+    }
+    
+    /**
+     * Return a copy of this profile with other spikes
+     *
+     * @param probability The probability of a reading being a spike
+     * @param size        The size of a spike in Celsius degrees, up or down
+     *
+     * @return the new profile
+     */
+    public NoiseProfile withSpikes(double probability, double size) {
+        return new NoiseProfile(swing, swingSeconds, sigma, probability, size);
+    }
+    
+    /**
+     * Compute a reading
+     *
+     * @param desired The desired temperature in Celsius degrees
+     * @param seconds The time since the start of the load test in seconds
+     * @param phase   The phase of the swing of the probe, in radians
+     * @param random  The random generator of the calling thread
+     *
+     * @return the reading in Celsius degrees
+     */
+    double reading(double desired, double seconds, double phase, Random random) {
+        double reading = desired;
+        if (swing > 0)
+            reading += swing * Math.sin(2 * Math.PI * seconds / swingSeconds + phase);
+        if (sigma > 0)
+            reading += sigma * random.nextGaussian();
+        if (spikeProbability > 0 && random.nextDouble() < spikeProbability)
+            reading += random.nextBoolean() ? spike : -spike;
+        return reading;
+    }
+    
+    /**
+     * Describe the profile as JSON
+     *
+     * @return the JSON object of the profile
+     */
+    String toJson() {
+        return "{\"swing\":" + swing + ",\"swingSeconds\":" + swingSeconds + ",\"sigma\":" +
+               sigma + ",\"spikeProbability\":" + spikeProbability + ",\"spike\":" + spike +
+               "}";
+    }
+    
+    @Override
+    public String toString() {
+        return "NoiseProfile{" + "swing=" + swing + ", swingSeconds=" + swingSeconds +
+               ", sigma=" + sigma + ", spikeProbability=" + spikeProbability + ", spike=" +
+               spike + '}';
+    }
+}
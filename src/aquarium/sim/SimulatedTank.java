@@ -0,0 +1,197 @@
+package aquarium.sim;
+
+import aquarium.DoubleObservable;
+import aquarium.Observable;
+import aquarium.ObservableAdapter;
+import aquarium.ObserverRegistry;
+import aquarium.hw.TemperatureAdjuster;
+import aquarium.hw.TemperatureSensor;
+
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+
+/**
+ * A simulated tank, acting both as the TemperatureSensor and as the TemperatureAdjuster of
+ * its controller. Its water temperature follows its ThermalModel on the virtual clock of the
+ * ThermalSimulation it belongs to. The sensor samples the water at every simulation event
+ * and notifies its observers when the temperature moved by at least the sensor delta.
+ *
+ * @version Oct 18, 2026
+ */
+public final class SimulatedTank implements TemperatureSensor, DoubleObservable,
+                                            TemperatureAdjuster {
+    private static final AdjusterState[] STATES = AdjusterState.values(); // The adjuster
+    // states by ordinal
+    
+    private final ThermalSimulation         simulation; // The simulation owning the tank
+    private final ThermalModel              model; // The thermal properties of the tank
+    private final Observable                legacy; // The legacy view of the primitive observers
+    private final long[]                    timeInState = new long[STATES.length]; // The virtual
+    // milliseconds spent in each adjuster state
+    private final ObserverRegistry.OfDouble observers = new ObserverRegistry.OfDouble();
+    // The observers
+    private AdjusterState                   state = AdjusterState.OFF; // The adjuster state
+    private long                            stateSince; // The virtual time the state was entered
+    private double                          temperature; // The water temperature at updatedAt
+    private long                            updatedAt; // The virtual time of the water temperature
+    private double                          lastReported; // The last temperature reported
+    private double                          delta; // The change notifying the observers
+    private double                          minTemperature; // The lowest sampled temperature
+    private double                          maxTemperature; // The highest sampled temperature
+    private long                            transitions; // The number of adjuster state changes
+    
+    /**
+     * Constructor.
+     *
+     * @param simulation  The simulation owning the tank
+     * @param model       The thermal properties of the tank
+     * @param temperature The initial water temperature in Celsius degrees
+     */
+    SimulatedTank(ThermalSimulation simulation, ThermalModel model, double temperature) {
+        this.simulation = simulation;
+        this.model = model;
+        this.temperature = temperature;
+        this.lastReported = Double.NaN;
+        this.minTemperature = temperature;
+        this.maxTemperature = temperature;
+        this.updatedAt = simulation.nowMillis();
+        this.stateSince = updatedAt;
+        this.legacy = ObservableAdapter.toLegacy(new DoubleObservable() {
+            @Override
+            public void addObserver(DoubleConsumer observer) {
+                SimulatedTank.this.addObserver(observer);
+            }
+            
+            @Override
+            public void removeObserver(DoubleConsumer observer) {
+                SimulatedTank.this.removeObserver(observer);
+            }
+        });
+    }
+    
+    @Override
+    public void addObserver(DoubleConsumer observer) {
+        observers.add(observer);
+    }
+    
+    @Override
+    public void removeObserver(DoubleConsumer observer) {
+        observers.remove(observer);
+    }
+    
+    @Override
+    public void addObserver(Function<Double, Void> observer) {
+        legacy.addObserver(observer);
+    }
+    
+    @Override
+    public void removeObserver(Function<Double, Void> observer) {
+        legacy.removeObserver(observer);
+    }
+    
+    @Override
+    public void setDelta(double delta) {
+        this.delta = Math.abs(delta);
+    }
+    
+    @Override
+    public double getTemperature() {
+        advance();
+        return temperature;
+    }
+    
+    @Override
+    public void setState(AdjusterState newState) {
+        if (newState == state)
+            return;
+        advance();
+        timeInState[state.ordinal()] += updatedAt - stateSince;
+        stateSince = updatedAt;
+        state = newState;
+        transitions++;
+    }
+    
+    /**
+     * Get the adjuster state
+     *
+     * @return the adjuster state
+     */
+    public AdjusterState getState() {
+        return state;
+    }
+    
+    /**
+     * Get the virtual time spent in an adjuster state, including the current one
+     *
+     * @param inState The adjuster state
+     *
+     * @return the time in milliseconds
+     */
+    public long getTimeInState(AdjusterState inState) {
+        long time = timeInState[inState.ordinal()];
+        return inState == state ? time + simulation.nowMillis() - stateSince : time;
+    }
+    
+    /**
+     * Get the number of adjuster state changes
+     *
+     * @return the number of transitions
+     */
+    public long getTransitionCount() {
+        return transitions;
+    }
+    
+    /**
+     * Get the lowest water temperature sampled
+     *
+     * @return the lowest temperature in Celsius degrees
+     */
+    public double getMinTemperature() {
+        return minTemperature;
+    }
+    
+    /**
+     * Get the highest water temperature sampled
+     *
+     * @return the highest temperature in Celsius degrees
+     */
+    public double getMaxTemperature() {
+        return maxTemperature;
+    }
+    
+    /**
+     * Get the thermal properties of the tank
+     *
+     * @return the thermal model
+     */
+    public ThermalModel getModel() {
+        return model;
+    }
+    
+    /**
+     * Sample the water temperature at the current virtual time, notifying the observers if
+     * it moved by at least the sensor delta since it was last reported
+     */
+    void sample() {
+        advance();
+        minTemperature = Math.min(minTemperature, temperature);
+        maxTemperature = Math.max(maxTemperature, temperature);
+        if (Double.isNaN(lastReported) || Math.abs(temperature - lastReported) >= delta) {
+            lastReported = temperature;
+            observers.notifyObservers(temperature);
+        }
+    }
+    
+    /**
+     * Bring the water temperature up to the current virtual time
+     */
+    private void advance() {
+        long now = simulation.nowMillis();
+        if (now == updatedAt)
+            return;
+        double power = state == AdjusterState.HEATING ? model.heatingPower() :
+                       state == AdjusterState.COOLING ? model.coolingPower() : 0;
+        temperature = model.advance(temperature, power, (now - updatedAt) / 1000.0);
+        updatedAt = now;
+    }
+}
@@ -0,0 +1,95 @@
+package aquarium.sim;
+
+/**
+ * The thermal properties of a simulated tank. The water exchanges heat with the room in
+ * proportion to their temperature difference, and the adjuster adds or removes heat at a
+ * constant power while heating or cooling.
+ *
+ * @version Oct 18, 2026
+ */
+public final class ThermalModel {
+    private static final double WATER_HEAT_CAPACITY = 4186.0; // Joules per liter and kelvin
+    
+    private final double volumeLiters; // The volume of water in the tank
+    private final double heaterWatts; // The power of the adjuster while heating
+    private final double coolerWatts; // The power of the adjuster while cooling
+    private final double lossWattsPerKelvin; // The heat lost to the room per kelvin of
+    // difference
+    private final double ambientCelsius; // The temperature of the room
+    
+    /**
+     * Constructor.
+     *
+     * @param volumeLiters       The volume of water in the tank
+     * @param heaterWatts        The power of the adjuster while heating
+     * @param coolerWatts        The power of the adjuster while cooling
+     * @param lossWattsPerKelvin The heat lost to the room per kelvin of difference
+     * @param ambientCelsius     The temperature of the room in Celsius degrees
+     */
+    public ThermalModel(double volumeLiters, double heaterWatts, double coolerWatts, double
+            lossWattsPerKelvin, double ambientCelsius) {
+        if (volumeLiters <= 0 || heaterWatts < 0 || coolerWatts < 0 || lossWattsPerKelvin < 0)
+            throw new IllegalArgumentException("Invalid thermal model");
+        this.volumeLiters = volumeLiters;
+        this.heaterWatts = heaterWatts;
+        this.coolerWatts = coolerWatts;
+        this.lossWattsPerKelvin = lossWattsPerKelvin;
+        this.ambientCelsius = ambientCelsius;
+    }
+    
+    /**
+     * Get the volume of water in the tank
+     *
+     * @return the volume in liters
+     */
+    public double getVolumeLiters() {
+        return volumeLiters;
+    }
+    
+    /**
+     * Get the temperature of the room
+     *
+     * @return the temperature of the room in Celsius degrees
+     */
+    public double getAmbientCelsius() {
+        return ambientCelsius;
+    }
+    
+    /**
+     * Compute the water temperature after some time at a constant adjuster power. The
+     * temperature relaxes exponentially towards the equilibrium where the adjuster power
+     * balances the loss to the room, so any time span is computed exactly in one step.
+     *
+     * @param temperature The water temperature at the start in Celsius degrees
+     * @param power       The adjuster power in watts, positive heating and negative cooling
+     * @param seconds     The time span in seconds
+     *
+     * @return the water temperature at the end in Celsius degrees
+     */
+    double advance(double temperature, double power, double seconds) {
+        double heatCapacity = volumeLiters * WATER_HEAT_CAPACITY;
+        if (lossWattsPerKelvin == 0)
+            return temperature + power * seconds / heatCapacity;
+        double equilibrium = ambientCelsius + power / lossWattsPerKelvin;
+        double decay = Math.exp(-seconds * lossWattsPerKelvin / heatCapacity);
+        return equilibrium + (temperature - equilibrium) * decay;
+    }
+    
+    /**
+     * Get the adjuster power while heating
+     *
+     * @return the power in watts
+     */
+    double heatingPower() {
+        return heaterWatts;
+    }
+    
+    /**
+     * Get the adjuster power while cooling
+     *
+     * @return the power in watts, negative
+     */
+    double coolingPower() {
+        return -coolerWatts;
+    }
+}
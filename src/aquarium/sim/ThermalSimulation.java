@@ -0,0 +1,183 @@
+package aquarium.sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A deterministic discrete-event simulation of many tanks on a virtual clock. Every tank
+ * has its sensor sampled at a fixed virtual interval; pending samples are kept in a binary
+ * heap ordered by virtual time, ties broken by the order the tanks were added. Between
+ * samples the water temperature is advanced in one exact step of the thermal model, so
+ * months of operation run in seconds and two runs of the same setup produce the same
+ * result.
+ * <p>
+ * The simulation runs on the calling thread, and controllers driving its tanks must command
+ * the adjusters synchronously for the run to stay deterministic.
+ * </p>
+ *
+ * @version Oct 18, 2026
+ */
+public final class ThermalSimulation {
+    private final long                sampleIntervalMillis; // The virtual time between two
+    // samples of a tank
+    private final List<SimulatedTank> tanks; // The tanks in the order they were added
+    private long[]                    heapTimes; // The virtual time of each pending sample
+    private int[]                     heapTanks; // The tank index of each pending sample
+    private long                      now; // The virtual time in milliseconds
+    private long                      events; // The number of samples processed
+    
+    /**
+     * Constructor.
+     *
+     * @param sampleIntervalMillis The virtual time between two samples of a tank
+     */
+    public ThermalSimulation(long sampleIntervalMillis) {
+        if (sampleIntervalMillis < 1)
+            throw new IllegalArgumentException("Invalid sample interval: " +
+                                               sampleIntervalMillis);
+        this.sampleIntervalMillis = sampleIntervalMillis;
+        this.tanks = new ArrayList<>();
+        this.heapTimes = new long[16];
+        this.heapTanks = new int[16];
+    }
+    
+    /**
+     * Add a tank to the simulation. Its first sample is taken at the current virtual time.
+     *
+     * @param model       The thermal properties of the tank
+     * @param temperature The initial water temperature in Celsius degrees
+     *
+     * @return the tank, to be used as the sensor and the adjuster of its controller
+     */
+    public SimulatedTank addTank(ThermalModel model, double temperature) {
+        SimulatedTank tank = new SimulatedTank(this, model, temperature);
+        int index = tanks.size();
+        tanks.add(tank);
+        if (index == heapTimes.length) {
+            heapTimes = Arrays.copyOf(heapTimes, index * 2);
+            heapTanks = Arrays.copyOf(heapTanks, index * 2);
+        }
+        heapTimes[index] = now;
+        heapTanks[index] = index;
+        siftUp(index);
+        return tank;
+    }
+    
+    /**
+     * Get the tanks of the simulation
+     *
+     * @return the tanks in the order they were added
+     */
+    public List<SimulatedTank> getTanks() {
+        return Collections.unmodifiableList(tanks);
+    }
+    
+    /**
+     * Get the virtual time
+     *
+     * @return the virtual time in milliseconds since the start of the simulation
+     */
+    public long nowMillis() {
+        return now;
+    }
+    
+    /**
+     * Get the number of samples processed
+     *
+     * @return the number of events
+     */
+    public long getEventCount() {
+        return events;
+    }
+    
+    /**
+     * Run the simulation for a span of virtual time
+     *
+     * @param durationMillis The virtual time to run for in milliseconds
+     */
+    public void run(long durationMillis) {
+        runUntil(now + durationMillis);
+    }
+    
+    /**
+     * Run the simulation until a virtual time, processing every sample due until then
+     *
+     * @param endMillis The virtual time to stop at
+     */
+    public void runUntil(long endMillis) {
+        int size = tanks.size();
+        while (size > 0 && heapTimes[0] <= endMillis) {
+            now = heapTimes[0];
+            tanks.get(heapTanks[0]).sample();
+            events++;
+            heapTimes[0] = now + sampleIntervalMillis;
+            siftDown(0, size);
+        }
+        now = Math.max(now, endMillis);
+    }
+    
+    /**
+     * Move a pending sample up the heap to its place
+     *
+     * @param index The heap index of the sample
+     */
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!before(index, parent))
+                return;
+            swap(index, parent);
+            index = parent;
+        }
+    }
+    
+    /**
+     * Move a pending sample down the heap to its place
+     *
+     * @param index The heap index of the sample
+     * @param size  The number of pending samples
+     */
+    private void siftDown(int index, int size) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size)
+                return;
+            if (child + 1 < size && before(child + 1, child))
+                child++;
+            if (!before(child, index))
+                return;
+            swap(index, child);
+            index = child;
+        }
+    }
+    
+    /**
+     * Check whether a pending sample is due before another
+     *
+     * @param a The heap index of a sample
+     * @param b The heap index of the other sample
+     *
+     * @return true if sample a is due first, false otherwise
+     */
+    private boolean before(int a, int b) {
+        return heapTimes[a] < heapTimes[b] || heapTimes[a] == heapTimes[b] && heapTanks[a] <
+                                                                              heapTanks[b];
+    }
+    
+    /**
+     * Swap two pending samples in the heap
+     *
+     * @param a The heap index of a sample
+     * @param b The heap index of the other sample
+     */
+    private void swap(int a, int b) {
+        long time = heapTimes[a];
+        heapTimes[a] = heapTimes[b];
+        heapTimes[b] = time;
+        int tank = heapTanks[a];
+        heapTanks[a] = heapTanks[b];
+        heapTanks[b] = tank;
+    }
+}
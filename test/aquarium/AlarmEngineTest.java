@@ -0,0 +1,183 @@
+package aquarium;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.*;
+import static org.junit.Assert.*;
+
+public class AlarmEngineTest {
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    
+    @Test
+    public void outsideBandIsRaisedAfterTheHoldTimeAndClearedInside() {
+        AlarmRule rule = AlarmRule.outsideBand("out of band", 2.0, 5, TimeUnit.MINUTES);
+        AlarmEngine engine = new AlarmEngine(Collections.singletonList(rule));
+        Recorder recorder = new Recorder();
+        engine.addListener(recorder);
+        ReadingListener listener = engine.listenerFor(1, controller(20.0));
+        listener.onReading(0, 23.0, COOLING);
+        listener.onReading(4 * MINUTE, 23.0, COOLING);
+        assertFalse(engine.isRaised(1, rule));
+        listener.onReading(5 * MINUTE, 23.0, COOLING);
+        assertTrue(engine.isRaised(1, rule));
+        assertEquals(1, engine.getRaisedCount());
+        listener.onReading(6 * MINUTE, 23.0, COOLING);
+        assertEquals(Collections.singletonList("raised 1 out of band 300000"), recorder.events);
+        listener.onReading(7 * MINUTE, 21.5, COOLING);
+        assertFalse(engine.isRaised(1, rule));
+        assertEquals(0, engine.getRaisedCount());
+        assertEquals("cleared 1 out of band 420000", recorder.events.get(1));
+    }
+    
+    @Test
+    public void anInterruptedViolationRestartsTheHoldTime() {
+        AlarmRule rule = AlarmRule.outsideBand("out of band", 2.0, 5, TimeUnit.MINUTES);
+        AlarmEngine engine = new AlarmEngine(Collections.singletonList(rule));
+        ReadingListener listener = engine.listenerFor(1, controller(20.0));
+        listener.onReading(0, 17.0, HEATING);
+        listener.onReading(4 * MINUTE, 20.0, OFF);
+        listener.onReading(5 * MINUTE, 17.0, HEATING);
+        listener.onReading(9 * MINUTE, 17.0, HEATING);
+        assertFalse(engine.isRaised(1, rule));
+        listener.onReading(10 * MINUTE, 17.0, HEATING);
+        assertTrue(engine.isRaised(1, rule));
+    }
+    
+    @Test
+    public void holdTimeExpiresWithoutReadings() {
+        AtomicLong now = new AtomicLong();
+        TimingWheel wheel = new TimingWheel(TimeUnit.SECONDS.toNanos(1), now::get);
+        AlarmRule rule = AlarmRule.outsideBand("out of band", 2.0, 5, TimeUnit.MINUTES);
+        AlarmEngine engine = new AlarmEngine(Collections.singletonList(rule), wheel);
+        Recorder recorder = new Recorder();
+        engine.addListener(recorder);
+        ReadingListener listener = engine.listenerFor(1, controller(20.0));
+        listener.onReading(0, 23.0, COOLING);
+        wheel.advance(now.addAndGet(TimeUnit.MINUTES.toNanos(4)));
+        assertFalse(engine.isRaised(1, rule));
+        wheel.advance(now.addAndGet(TimeUnit.MINUTES.toNanos(1)));
+        assertTrue(engine.isRaised(1, rule));
+        assertEquals(Collections.singletonList("raised 1 out of band 300000"), recorder.events);
+        listener.onReading(6 * MINUTE, 23.0, COOLING);
+        listener.onReading(7 * MINUTE, 20.0, OFF);
+        listener.onReading(8 * MINUTE, 23.0, COOLING);
+        listener.onReading(9 * MINUTE, 20.0, OFF);
+        wheel.advance(now.addAndGet(TimeUnit.MINUTES.toNanos(10)));
+        assertFalse(engine.isRaised(1, rule));
+        assertEquals(2, recorder.events.size());
+        assertEquals(0, wheel.getPendingCount());
+    }
+    
+    @Test
+    public void aReplacedListenerClearsItsAlarms() {
+        AlarmRule rule = AlarmRule.outsideBand("out of band", 1.0, 0, TimeUnit.MINUTES);
+        try (AlarmEngine engine = new AlarmEngine(Collections.singletonList(rule))) {
+            Recorder recorder = new Recorder();
+            engine.addListener(recorder);
+            TemperatureControllerImpl controller = controller(20.0);
+            ReadingListener first = engine.listenerFor(1, controller);
+            first.onReading(0, 25.0, COOLING);
+            assertEquals(1, engine.getRaisedCount());
+            ReadingListener second = engine.listenerFor(1, controller);
+            assertEquals(0, engine.getRaisedCount());
+            assertFalse(engine.isRaised(1, rule));
+            assertTrue(recorder.events.get(1).startsWith("cleared 1 out of band"));
+            first.onReading(MINUTE, 25.0, COOLING);
+            assertEquals(0, engine.getRaisedCount());
+            second.onReading(MINUTE, 25.0, COOLING);
+            assertEquals(1, engine.getRaisedCount());
+        }
+    }
+    
+    @Test
+    public void stuckHeatingIgnoresOtherStatesAndTheBand() {
+        AlarmRule stuck = AlarmRule.stuckIn("stuck heating", HEATING, 2, TimeUnit.HOURS);
+        AlarmRule band = AlarmRule.outsideBand("out of band", 2.0, 5, TimeUnit.MINUTES);
+        AlarmEngine engine = new AlarmEngine(Arrays.asList(stuck, band));
+        ReadingListener listener = engine.listenerFor(3, controller(20.0));
+        long hours = TimeUnit.HOURS.toMillis(1);
+        listener.onReading(0, 18.5, HEATING);
+        listener.onReading(hours, 18.5, COOLING);
+        listener.onReading(hours + 1, 18.5, HEATING);
+        listener.onReading(3 * hours, 18.5, HEATING);
+        assertFalse(engine.isRaised(3, stuck));
+        listener.onReading(3 * hours + 1, 18.5, HEATING);
+        assertEquals(Collections.singletonList(stuck), engine.getRaised(3));
+        listener.onReading(3 * hours + 2, 19.5, HEATING);
+        assertTrue(engine.getRaised(3).isEmpty());
+    }
+    
+    @Test
+    public void tanksAreEvaluatedIndependently() {
+        AlarmRule rule = AlarmRule.outsideBand("out of band", 1.0, 0, TimeUnit.MINUTES);
+        AlarmEngine engine = new AlarmEngine(Collections.singletonList(rule));
+        ReadingListener first = engine.listenerFor(1, controller(20.0));
+        ReadingListener second = engine.listenerFor(2, controller(25.0));
+        first.onReading(0, 25.0, COOLING);
+        second.onReading(0, 25.0, OFF);
+        assertTrue(engine.isRaised(1, rule));
+        assertFalse(engine.isRaised(2, rule));
+        assertFalse(engine.isRaised(3, rule));
+        assertEquals(2, engine.getEvaluationLatency().getCount());
+    }
+    
+    @Test
+    public void controllerReadingsRaiseAlarms() {
+        AlarmRule rule = AlarmRule.outsideBand("out of band", 2.0, 0, TimeUnit.MINUTES);
+        AlarmEngine engine = new AlarmEngine(Collections.singletonList(rule));
+        Recorder recorder = new Recorder();
+        engine.addListener(recorder);
+        TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+        sensor.setTemperature(20.0);
+        TemperatureControllerImpl controller = (TemperatureControllerImpl)
+                TemperatureControllerImpl.makeTemperatureController(sensor, state -> {
+                });
+        controller.addListener(engine.listenerFor(5, controller));
+        sensor.setTemperature(23.0);
+        assertTrue(engine.isRaised(5, rule));
+        sensor.setTemperature(20.0);
+        assertFalse(engine.isRaised(5, rule));
+        engine.removeListener(recorder);
+        sensor.setTemperature(23.0);
+        assertEquals(2, recorder.events.size());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void moreThan64RulesAreRejected() {
+        List<AlarmRule> rules = new ArrayList<>();
+        for (int i = 0; i < 65; i++)
+            rules.add(AlarmRule.outsideBand("rule " + i, 1.0, 0, TimeUnit.MINUTES));
+        new AlarmEngine(rules);
+    }
+    
+    private static TemperatureControllerImpl controller(double desired) {
+        TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+        sensor.setTemperature(desired);
+        TemperatureControllerImpl controller = (TemperatureControllerImpl)
+                TemperatureControllerImpl.makeTemperatureController(sensor, state -> {
+                });
+        controller.setTemperature(desired);
+        return controller;
+    }
+    
+    private static final class Recorder implements AlarmListener {
+        private final List<String> events = new ArrayList<>();
+        
+        @Override
+        public void onRaised(int tankId, AlarmRule rule, long timeMillis, double temperature) {
+            events.add("raised " + tankId + " " + rule + " " + timeMillis);
+        }
+        
+        @Override
+        public void onCleared(int tankId, AlarmRule rule, long timeMillis, double temperature) {
+            events.add("cleared " + tankId + " " + rule + " " + timeMillis);
+        }
+    }
+}
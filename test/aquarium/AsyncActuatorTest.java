@@ -0,0 +1,139 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster;
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+import aquarium.hw.TestTemperatureSensor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.*;
+import static org.junit.Assert.*;
+
+public class AsyncActuatorTest {
+    private AsyncActuator       actuator;
+    private List<AdjusterState> applied;
+    
+    @Before
+    public void setUp() {
+        actuator = new AsyncActuator();
+        applied = new CopyOnWriteArrayList<>();
+    }
+    
+    @After
+    public void tearDown() {
+        actuator.close();
+    }
+    
+    @Test
+    public void onlyLatestStateIsApplied() throws InterruptedException {
+        actuator.close();
+        actuator = new AsyncActuator(Executors.newSingleThreadExecutor()); // Takes over only
+        // once the blocker returns
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TemperatureAdjuster blocker = actuator.adjusterFor(state -> {
+            busy.countDown();
+            await(release);
+        });
+        TemperatureAdjuster adjuster = actuator.adjusterFor(applied::add);
+        blocker.setState(OFF);
+        busy.await();
+        
+        adjuster.setState(HEATING);
+        adjuster.setState(COOLING);
+        adjuster.setState(OFF);
+        release.countDown();
+        actuator.close();
+        
+        assertEquals(1, applied.size());
+        assertEquals(OFF, applied.get(0));
+    }
+    
+    @Test
+    public void readingsDoNotRecurseIntoActuation() {
+        TestTemperatureSensor sensor = new TestTemperatureSensor(0.001);
+        sensor.setTemperature(10.0);
+        Thread sensorThread = Thread.currentThread();
+        TemperatureController controller = TemperatureControllerImpl.makeTemperatureController
+                (sensor, actuator.adjusterFor(state -> {
+                    assertNotSame(sensorThread, Thread.currentThread());
+                    applied.add(state);
+                }));
+        for (double temperature = 10.0; temperature < 20.0; temperature += 0.001)
+            sensor.setTemperature(temperature);
+        controller.setTemperature(20.0);
+        actuator.close();
+        
+        assertFalse(applied.isEmpty());
+        assertEquals(OFF, applied.get(applied.size() - 1));
+    }
+    
+    @Test(timeout = 10_000)
+    public void adjusterRunningUntilChangedIsTurnedOff() throws InterruptedException {
+        TestTemperatureSensor sensor = new TestTemperatureSensor(0.001);
+        sensor.setTemperature(10.0);
+        TestObservableTemperatureAdjuster adjuster = new TestObservableTemperatureAdjuster
+                (sensor);
+        CountDownLatch off = new CountDownLatch(1);
+        adjuster.addObserver(state -> {
+            if (state == OFF)
+                off.countDown();
+            return null;
+        });
+        TemperatureController controller = TemperatureControllerImpl.makeTemperatureController
+                (sensor, actuator.adjusterFor(adjuster));
+        controller.setTemperature(20.0);
+        off.await();
+        actuator.close();
+        
+        assertEquals(OFF, adjuster.getState());
+        assertTrue(sensor.getTemperature() >= 19.0);
+    }
+    
+    @Test
+    public void failingAdjusterDoesNotStopTheActuator() {
+        TemperatureAdjuster failing = actuator.adjusterFor(state -> {
+            throw new AssertionError("Relay failed");
+        });
+        TemperatureAdjuster adjuster = actuator.adjusterFor(applied::add);
+        failing.setState(HEATING);
+        adjuster.setState(COOLING);
+        actuator.close();
+        
+        assertEquals(1, applied.size());
+        assertEquals(COOLING, applied.get(0));
+    }
+    
+    @Test
+    public void commandsAfterCloseAreAppliedByTheCaller() {
+        Thread caller = Thread.currentThread();
+        TemperatureAdjuster adjuster = actuator.adjusterFor(state -> {
+            assertSame(caller, Thread.currentThread());
+            applied.add(state);
+        });
+        actuator.close();
+        adjuster.setState(HEATING);
+        
+        assertEquals(1, applied.size());
+        assertEquals(HEATING, applied.get(0));
+    }
+    
+    /**
+     * Wait for a latch without throwing a checked exception
+     *
+     * @param latch The latch
+     */
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
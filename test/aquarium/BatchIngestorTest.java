@@ -0,0 +1,151 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.*;
+import static org.junit.Assert.*;
+
+public class BatchIngestorTest {
+    private static final int TANKS = 64;
+    
+    private List<TemperatureControllerImpl> controllers;
+    private List<List<AdjusterState>>       commands;
+    private BatchIngestor                   ingestor;
+    
+    @Before
+    public void setUp() {
+        controllers = new ArrayList<>();
+        commands = new ArrayList<>();
+        for (int i = 0; i < TANKS; i++) {
+            TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+            sensor.setTemperature(20.0);
+            List<AdjusterState> tankCommands = new ArrayList<>();
+            commands.add(tankCommands);
+            TemperatureControllerImpl controller = (TemperatureControllerImpl)
+                    TemperatureControllerImpl.makeTemperatureController(sensor,
+                                                                        tankCommands::add);
+            controller.setHysteresis(1.0 + i % 3, 0.5 * (i % 3));
+            controllers.add(controller);
+        }
+        ingestor = new BatchIngestor(controllers);
+    }
+    
+    @Test
+    public void transitionsArePackedAndApplied() {
+        int[] transitions = new int[3];
+        int count = ingestor.ingest(new int[]{3, 5, 7}, new double[]{10.0, 20.0, 30.0}, 3,
+                                    transitions);
+        assertEquals(2, count);
+        assertEquals(3, BatchIngestor.tankOf(transitions[0]));
+        assertEquals(HEATING, BatchIngestor.stateOf(transitions[0]));
+        assertEquals(7, BatchIngestor.tankOf(transitions[1]));
+        assertEquals(COOLING, BatchIngestor.stateOf(transitions[1]));
+        assertEquals(HEATING, controllers.get(3).getCommandedState());
+        assertEquals(Arrays.asList(OFF), commands.get(3));
+        ingestor.apply(transitions, count);
+        assertEquals(Arrays.asList(OFF, HEATING), commands.get(3));
+        assertEquals(Arrays.asList(OFF, COOLING), commands.get(7));
+        assertEquals(10.0, controllers.get(3).getCurrentTemperature(), 0.0);
+    }
+    
+    @Test
+    public void transitionNotAppliedIsReturnedAgain() {
+        int[] transitions = new int[2];
+        assertEquals(1, ingestor.ingest(new int[]{3}, new double[]{10.0}, 1, transitions));
+        assertEquals(HEATING, controllers.get(3).getCommandedState());
+        assertEquals(Arrays.asList(OFF), commands.get(3));
+        int count = ingestor.ingest(new int[]{3, 3}, new double[]{10.5, 11.0}, 2, transitions);
+        assertEquals(1, count);
+        assertEquals(HEATING, BatchIngestor.stateOf(transitions[0]));
+        ingestor.apply(transitions, count);
+        assertEquals(Arrays.asList(OFF, HEATING), commands.get(3));
+        assertEquals(0, ingestor.ingest(new int[]{3}, new double[]{11.5}, 1, transitions));
+    }
+    
+    @Test
+    public void failingAdjusterDoesNotStopTheFrame() {
+        List<AdjusterState> applied = new ArrayList<>();
+        boolean[] failing = {true};
+        TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+        sensor.setTemperature(20.0);
+        List<TemperatureControllerImpl> tanks = Arrays.asList((TemperatureControllerImpl)
+                TemperatureControllerImpl.makeTemperatureController(sensor, state -> {
+                    if (state != OFF && failing[0])
+                        throw new IllegalStateException("Relay failed");
+                }), (TemperatureControllerImpl) TemperatureControllerImpl
+                .makeTemperatureController(sensor, applied::add));
+        BatchIngestor frames = new BatchIngestor(tanks);
+        int[] transitions = new int[2];
+        int count = frames.ingest(new int[]{0, 1}, new double[]{10.0, 10.0}, 2, transitions);
+        try {
+            frames.apply(transitions, count);
+            fail("The failure of the first adjuster is rethrown");
+        } catch (IllegalStateException e) {
+            assertEquals("Relay failed", e.getMessage());
+        }
+        assertEquals(Arrays.asList(HEATING), applied);
+        failing[0] = false;
+        count = frames.ingest(new int[]{0, 1}, new double[]{10.5, 10.5}, 2, transitions);
+        assertEquals(1, count);
+        assertEquals(0, BatchIngestor.tankOf(transitions[0]));
+        assertEquals(HEATING, BatchIngestor.stateOf(transitions[0]));
+    }
+    
+    @Test
+    public void batchMatchesReadingByReading() {
+        List<TemperatureControllerImpl> reference = new ArrayList<>();
+        List<TestDoubleTemperatureSensor> sensors = new ArrayList<>();
+        for (int i = 0; i < TANKS; i++) {
+            TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+            sensor.setTemperature(20.0);
+            TemperatureControllerImpl controller = (TemperatureControllerImpl)
+                    TemperatureControllerImpl.makeTemperatureController(sensor, state -> {
+                    });
+            controller.setHysteresis(1.0 + i % 3, 0.5 * (i % 3));
+            reference.add(controller);
+            sensors.add(sensor);
+        }
+        Random random = new Random(42);
+        int[] tanks = new int[256];
+        double[] temperatures = new double[256];
+        int[] transitions = new int[256];
+        for (int frame = 0; frame < 200; frame++) {
+            for (int i = 0; i < tanks.length; i++) {
+                tanks[i] = random.nextInt(TANKS);
+                temperatures[i] = 15.0 + 10.0 * random.nextDouble();
+                sensors.get(tanks[i]).setTemperature(temperatures[i]);
+            }
+            ingestor.apply(transitions, ingestor.ingest(tanks, temperatures, tanks.length,
+                                                        transitions));
+            for (int tank = 0; tank < TANKS; tank++)
+                assertEquals(reference.get(tank).getCommandedState(), controllers.get(tank)
+                        .getCommandedState());
+        }
+        for (int tank = 0; tank < TANKS; tank++)
+            assertEquals(reference.get(tank).getActuationCount(), controllers.get(tank)
+                    .getActuationCount());
+    }
+    
+    @Test
+    public void repeatedTankFollowsFrameOrder() {
+        int[] transitions = new int[4];
+        int count = ingestor.ingest(new int[]{0, 0, 0, 0}, new double[]{18.0, 19.5, 20.5,
+                                                                        22.0}, 4, transitions);
+        assertEquals(3, count);
+        assertEquals(HEATING, BatchIngestor.stateOf(transitions[0]));
+        assertEquals(OFF, BatchIngestor.stateOf(transitions[1]));
+        assertEquals(COOLING, BatchIngestor.stateOf(transitions[2]));
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void unknownTank() {
+        ingestor.ingest(new int[]{TANKS}, new double[]{20.0}, 1, new int[1]);
+    }
+}
@@ -0,0 +1,151 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster;
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+import aquarium.hw.TestTemperatureSensor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.*;
+import static org.junit.Assert.*;
+
+public class BatchingActuatorTest {
+    private List<Integer>       frames;
+    private List<AdjusterState> commands;
+    private RelayBus            bus;
+    
+    @Before
+    public void setUp() {
+        frames = new ArrayList<>();
+        commands = new ArrayList<>();
+        bus = (tankIds, states, count) -> {
+            frames.add(count);
+            for (int i = 0; i < count; i++)
+                commands.add(states[i]);
+        };
+    }
+    
+    @Test
+    public void onlyLatestStateIsSent() {
+        BatchingActuator actuator = new BatchingActuator(bus);
+        TemperatureAdjuster adjuster = actuator.adjusterFor(1);
+        adjuster.setState(HEATING);
+        adjuster.setState(COOLING);
+        adjuster.setState(OFF);
+        
+        assertEquals(1, actuator.flush());
+        assertEquals(OFF, commands.get(0));
+        assertEquals(3, actuator.getCommandedCount());
+        assertEquals(1, actuator.getSentCount());
+    }
+    
+    @Test
+    public void flipBackToSentStateIsNotSent() {
+        BatchingActuator actuator = new BatchingActuator(bus);
+        TemperatureAdjuster adjuster = actuator.adjusterFor(1);
+        adjuster.setState(HEATING);
+        actuator.flush();
+        adjuster.setState(OFF);
+        adjuster.setState(HEATING);
+        adjuster.setState(HEATING);
+        
+        assertEquals(0, actuator.flush());
+        assertEquals(1, actuator.getFrameCount());
+        assertEquals(1, commands.size());
+    }
+    
+    @Test
+    public void commandsAfterCloseAreSentAtOnce() {
+        BatchingActuator actuator = new BatchingActuator(bus, 1, TimeUnit.HOURS);
+        TemperatureAdjuster adjuster = actuator.adjusterFor(1);
+        adjuster.setState(HEATING);
+        actuator.close();
+        assertEquals(1, commands.size());
+        adjuster.setState(OFF);
+        adjuster.setState(COOLING);
+        
+        assertEquals(3, actuator.getFrameCount());
+        assertEquals(3, commands.size());
+        assertEquals(COOLING, commands.get(2));
+    }
+    
+    @Test
+    public void tanksShareOneFramePerFlush() {
+        BatchingActuator actuator = new BatchingActuator(bus);
+        for (int tankId = 0; tankId < 1000; tankId++)
+            actuator.adjusterFor(tankId).setState(tankId % 2 == 0 ? HEATING : COOLING);
+        assertSame(actuator.adjusterFor(7), actuator.adjusterFor(7));
+        
+        assertEquals(1000, actuator.flush());
+        assertEquals(1, frames.size());
+        assertEquals(1000, (int) frames.get(0));
+        assertEquals(1000, actuator.getCommandLatency().getCount());
+    }
+    
+    @Test
+    public void failedFrameIsRetried() {
+        boolean[] failing = {true};
+        BatchingActuator actuator = new BatchingActuator((tankIds, states, count) -> {
+            if (failing[0])
+                throw new IllegalStateException("bus down");
+            bus.send(tankIds, states, count);
+        });
+        actuator.adjusterFor(1).setState(HEATING);
+        actuator.adjusterFor(2).setState(COOLING);
+        assertEquals(0, actuator.flush());
+        assertEquals(1, actuator.getFailureCount());
+        
+        actuator.adjusterFor(2).setState(OFF);
+        failing[0] = false;
+        assertEquals(2, actuator.flush());
+        assertTrue(commands.contains(HEATING));
+        assertTrue(commands.contains(OFF));
+        assertFalse(commands.contains(COOLING));
+    }
+    
+    @Test
+    public void burstyReadingsSendFewerCommands() {
+        BatchingActuator actuator = new BatchingActuator(bus);
+        TestTemperatureSensor sensor = new TestTemperatureSensor(0.001);
+        sensor.setTemperature(25.0);
+        TemperatureController controller = TemperatureControllerImpl.makeTemperatureController
+                (sensor, actuator.adjusterFor(1));
+        controller.setTemperature(25.0);
+        controller.setAcceptableVariation(0.5);
+        actuator.flush();
+        for (int burst = 0; burst < 10; burst++) {
+            for (int i = 0; i < 100; i++)
+                sensor.setTemperature(i % 2 == 0 ? 24.0 : 26.0);
+            sensor.setTemperature(25.0);
+            actuator.flush();
+        }
+        
+        assertTrue(actuator.getCommandedCount() > 1000);
+        assertTrue(actuator.getSentCount() <= 1);
+    }
+    
+    @Test
+    public void threadSendsFramesEveryTick() throws InterruptedException {
+        LocalRelayBus local = new LocalRelayBus(1, TimeUnit.MILLISECONDS);
+        List<AdjusterState> applied = new CopyOnWriteArrayList<>();
+        local.connect(1, applied::add);
+        try (BatchingActuator actuator = new BatchingActuator(local, 5, TimeUnit.MILLISECONDS)) {
+            actuator.adjusterFor(1).setState(HEATING);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (applied.isEmpty() && System.nanoTime() < deadline)
+                Thread.sleep(1);
+            actuator.adjusterFor(1).setState(COOLING);
+            actuator.adjusterFor(2).setState(OFF);
+        }
+        
+        assertEquals(2, applied.size());
+        assertEquals(COOLING, applied.get(1));
+        assertEquals(1, local.getDroppedCount());
+        assertEquals(2, local.getCommandCount());
+    }
+}
@@ -0,0 +1,79 @@
+package aquarium;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BulkConversionTest {
+    private double[] values;
+    
+    @Before
+    public void setUp() {
+        Random random = new Random(7);
+        values = new double[3001];
+        for (int i = 0; i < values.length; i++)
+            values[i] = -50.0 + 200.0 * random.nextDouble();
+    }
+    
+    @Test
+    public void arraysMatchScalarConversions() {
+        double[] converted = values.clone();
+        Utility.celsiusToFahrenheit(converted);
+        for (int i = 0; i < values.length; i++)
+            assertEquals(Utility.celsiusToFahrenheit(values[i]), converted[i], 0.0);
+        double[] back = new double[values.length + 2];
+        Utility.fahrenheitToCelsius(converted, 0, back, 2, converted.length);
+        for (int i = 0; i < values.length; i++)
+            assertEquals(Utility.fahrenheitToCelsius(converted[i]), back[i + 2], 0.0);
+        double[] variances = values.clone();
+        Utility.celsiusToFahrenheitVariance(variances);
+        Utility.fahrenheitToCelsiusVariance(variances);
+        for (int i = 0; i < values.length; i++)
+            assertEquals(Utility.fahrenheitToCelsiusVariance(Utility.celsiusToFahrenheitVariance
+                    (values[i])), variances[i], 0.0);
+    }
+    
+    @Test
+    public void overlappingRanges() {
+        double[] shifted = values.clone();
+        Utility.celsiusToFahrenheit(shifted, 0, shifted, 1, 100);
+        double[] backwards = values.clone();
+        Utility.celsiusToFahrenheit(backwards, 1, backwards, 0, 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Utility.celsiusToFahrenheit(values[i]), shifted[i + 1], 0.0);
+            assertEquals(Utility.celsiusToFahrenheit(values[i + 1]), backwards[i], 0.0);
+        }
+    }
+    
+    @Test
+    public void buffers() {
+        DoubleBuffer heap = DoubleBuffer.wrap(values.clone());
+        DoubleBuffer direct = ByteBuffer.allocateDirect(values.length * 8).asDoubleBuffer();
+        heap.position(1);
+        Utility.celsiusToFahrenheit(heap, direct);
+        assertFalse(heap.hasRemaining());
+        assertEquals(values.length - 1, direct.position());
+        direct.flip();
+        Utility.fahrenheitToCelsiusVariance(direct);
+        assertEquals(0, direct.position());
+        for (int i = 1; i < values.length; i++)
+            assertEquals(Utility.fahrenheitToCelsiusVariance(Utility.celsiusToFahrenheit
+                    (values[i])), direct.get(i - 1), 0.0);
+    }
+    
+    @Test(expected = BufferOverflowException.class)
+    public void destinationTooSmall() {
+        Utility.celsiusToFahrenheit(DoubleBuffer.wrap(values), DoubleBuffer.allocate(10));
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rangeOutOfBounds() {
+        Utility.celsiusToFahrenheit(values, 10, new double[values.length], 0, values.length);
+    }
+}
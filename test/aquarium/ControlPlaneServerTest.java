@@ -0,0 +1,231 @@
+package aquarium;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static aquarium.TemperatureController.TemperatureScale.CELSIUS;
+import static aquarium.TemperatureController.TemperatureScale.FAHRENHEIT;
+import static org.junit.Assert.*;
+
+public class ControlPlaneServerTest {
+    private static final int              TANKS = 4; // The number of tanks in the fleet
+    private TemperatureControllerFleet    fleet;
+    private TestDoubleTemperatureSensor[] sensors;
+    private ControlPlaneServer            server;
+    
+    @Before
+    public void setUp() throws IOException {
+        fleet = new TemperatureControllerFleet(2);
+        sensors = new TestDoubleTemperatureSensor[TANKS];
+        for (int tankId = 0; tankId < TANKS; tankId++) {
+            sensors[tankId] = new TestDoubleTemperatureSensor();
+            sensors[tankId].setTemperature(20.0);
+            fleet.addTank(tankId, TemperatureControllerImpl.makeTemperatureController
+                    (sensors[tankId], state -> {
+                    }));
+        }
+        server = ControlPlaneServer.start(fleet, new InetSocketAddress("localhost", 0));
+    }
+    
+    @After
+    public void tearDown() {
+        server.close();
+        fleet.close();
+    }
+    
+    @Test
+    public void stateIsDumped() throws IOException {
+        sensors[2].setTemperature(20.5);
+        Response all = request("GET", "/tanks", null);
+        assertEquals(200, all.status);
+        assertTrue(all.body.startsWith("[{\"tank\":0,"));
+        assertTrue(all.body.contains("{\"tank\":3,"));
+        Response one = request("GET", "/tanks/2", null);
+        assertEquals("{\"tank\":2,\"temperature\":20.5,\"desired\":20.0,\"state\":\"OFF\"," +
+                     "\"variance\":1.0,\"scale\":\"CELSIUS\"}", one.body);
+        assertEquals("20.5", request("GET", "/tanks/2/temperature", null).body.trim());
+        assertEquals("CELSIUS", request("GET", "/tanks/2/scale", null).body.trim());
+    }
+    
+    @Test
+    public void settingsAreChanged() throws IOException {
+        assertEquals(204, request("PUT", "/tanks/1/scale", "fahrenheit").status);
+        assertEquals(204, request("PUT", "/tanks/1/temperature", "77").status);
+        assertEquals(204, request("PUT", "/tanks/1/variance", "0.9").status);
+        TemperatureControllerImpl controller = (TemperatureControllerImpl) fleet.getTank(1);
+        assertEquals(FAHRENHEIT, controller.getTemperatureScale());
+        assertEquals(25.0, controller.getConfiguration().getDesiredTemperature(), 1e-9);
+        assertEquals(0.9, controller.getAcceptableVariation(), 1e-9);
+    }
+    
+    @Test
+    public void invalidRequestsAreRejected() throws IOException {
+        assertEquals(400, request("PUT", "/tanks/1/temperature", "warm").status);
+        assertEquals(400, request("PUT", "/tanks/1/variance", "-1").status);
+        assertEquals(400, request("PUT", "/tanks/1/scale", "KELVIN").status);
+        assertEquals(404, request("PUT", "/tanks/1/color", "blue").status);
+        assertEquals(404, request("GET", "/tanks/9", null).status);
+        assertEquals(400, request("GET", "/tanks/x", null).status);
+        assertEquals(405, request("DELETE", "/tanks/1", null).status);
+        assertEquals(400, request("GET", "/readings?limit=0", null).status);
+    }
+    
+    @Test
+    public void batchUpdatesManyTanks() throws IOException {
+        Response response = request("POST", "/tanks", "* variance=0.5\n0 temperature=25\n" +
+                                                      "1 temperature=77 scale=FAHRENHEIT\n");
+        assertEquals(200, response.status);
+        assertEquals("{\"updated\":3}", response.body);
+        for (int tankId = 0; tankId < TANKS; tankId++)
+            assertEquals(tankId == 1 ? 0.9 : 0.5, fleet.getTank(tankId)
+                    .getAcceptableVariation(), 1e-9);
+        TemperatureControllerImpl first = (TemperatureControllerImpl) fleet.getTank(0);
+        TemperatureControllerImpl second = (TemperatureControllerImpl) fleet.getTank(1);
+        assertEquals(25.0, first.getConfiguration().getDesiredTemperature(), 1e-9);
+        assertEquals(25.0, second.getConfiguration().getDesiredTemperature(), 1e-9);
+        assertEquals(FAHRENHEIT, second.getTemperatureScale());
+    }
+    
+    @Test
+    public void invalidBatchChangesNothing() throws IOException {
+        assertEquals(404, request("POST", "/tanks", "0 temperature=25\n9 temperature=25")
+                .status);
+        assertEquals(400, request("POST", "/tanks", "0 temperature=25\n1 temperature")
+                .status);
+        TemperatureControllerImpl first = (TemperatureControllerImpl) fleet.getTank(0);
+        assertEquals(20.0, first.getConfiguration().getDesiredTemperature(), 1e-9);
+        assertEquals(CELSIUS, first.getTemperatureScale());
+    }
+    
+    @Test
+    public void readingsAreStreamed() throws Exception {
+        ExecutorService client = Executors.newSingleThreadExecutor();
+        try {
+            Future<Response> stream = client.submit(() -> request("GET",
+                                                                  "/readings?tank=2&limit=3",
+                                                                  null));
+            for (int i = 0; !stream.isDone() && i < 500; i++) {
+                for (TestDoubleTemperatureSensor sensor : sensors)
+                    sensor.setTemperature(20.0 + (i % 2) / 10.0);
+                Thread.sleep(10);
+            }
+            Response response = stream.get(5, TimeUnit.SECONDS);
+            assertEquals(200, response.status);
+            List<String> events = new ArrayList<>();
+            for (String line : response.body.split("\n"))
+                if (!line.isEmpty())
+                    events.add(line);
+            assertEquals(3, events.size());
+            for (String event : events)
+                assertTrue(event, event.startsWith("{\"tank\":2,") && event.endsWith("}"));
+        } finally {
+            client.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void clientLeavingTheStreamEndsItsSubscription() throws Exception {
+        URL url = new URL("http", "localhost", server.getAddress().getPort(), "/readings");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertEquals(200, connection.getResponseCode());
+        assertEquals(1, fleet.getPublisher().getSubscriberCount());
+        connection.getInputStream().close();
+        connection.disconnect();
+        for (int i = 0; fleet.getPublisher().getSubscriberCount() > 0 && i < 1000; i++) {
+            for (TestDoubleTemperatureSensor sensor : sensors)
+                sensor.setTemperature(20.0 + (i % 2) / 10.0);
+            Thread.sleep(10);
+        }
+        assertEquals(0, fleet.getPublisher().getSubscriberCount());
+    }
+    
+    @Test
+    public void concurrentRequestsAreServed() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(64);
+        try {
+            List<Future<Response>> responses = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                String tank = "/tanks/" + i % TANKS;
+                if (i % 3 == 0)
+                    responses.add(clients.submit(() -> request("PUT", tank + "/variance",
+                                                               "0.5")));
+                else responses.add(clients.submit(() -> request("GET", tank, null)));
+            }
+            for (Future<Response> response : responses)
+                assertTrue(response.get(10, TimeUnit.SECONDS).status < 300);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+    
+    /**
+     * Send a request to the server
+     *
+     * @param method The HTTP method
+     * @param path   The path and query
+     * @param body   The body, or null
+     *
+     * @return the response
+     *
+     * @throws IOException if the request fails
+     */
+    private Response request(String method, String path, String body) throws IOException {
+        URL url = new URL("http", "localhost", server.getAddress().getPort(), path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection
+                .getErrorStream();
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        if (in != null)
+            try (InputStream stream = in) {
+                byte[] chunk = new byte[4096];
+                for (int read = stream.read(chunk); read >= 0; read = stream.read(chunk))
+                    received.write(chunk, 0, read);
+            }
+        connection.disconnect();
+        return new Response(status, new String(received.toByteArray(), StandardCharsets
+                .UTF_8));
+    }
+    
+    /**
+     * A response of the server
+     */
+    private static final class Response {
+        private final int    status; // The status code
+        private final String body; // The body
+        
+        /**
+         * Constructor.
+         *
+         * @param status The status code
+         * @param body   The body
+         */
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package aquarium;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static aquarium.TemperatureController.TemperatureScale.CELSIUS;
+import static aquarium.TemperatureController.TemperatureScale.FAHRENHEIT;
+import static org.junit.Assert.*;
+
+public class ControllerConfigurationTest {
+    private TemperatureControllerImpl controller;
+    
+    @Before
+    public void setUp() {
+        TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+        sensor.setTemperature(20.0);
+        controller = (TemperatureControllerImpl) TemperatureControllerImpl
+                .makeTemperatureController(sensor, state -> {
+                });
+    }
+    
+    @Test
+    public void defaultConfiguration() {
+        assertSame(ControllerConfiguration.DEFAULT, controller.getConfiguration());
+        assertEquals(CELSIUS, controller.getTemperatureScale());
+        assertEquals(1.0, controller.getAcceptableVariation(), 0.0);
+    }
+    
+    @Test
+    public void settersPublishNewSnapshots() {
+        ControllerConfiguration before = controller.getConfiguration();
+        controller.setTemperatureScale(FAHRENHEIT);
+        controller.setTemperature(77.0);
+        ControllerConfiguration after = controller.getConfiguration();
+        assertEquals(CELSIUS, before.getTemperatureScale());
+        assertEquals(20.0, before.getDesiredTemperature(), 0.0);
+        assertEquals(FAHRENHEIT, after.getTemperatureScale());
+        assertEquals(25.0, after.getDesiredTemperature(), 1e-9);
+    }
+    
+    @Test
+    public void concurrentUpdatesAreNotLost() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 1000; j++)
+                    controller.updateConfiguration(config -> config.withDesiredTemperature
+                            (config.getDesiredTemperature() + 1));
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(4020.0, controller.getConfiguration().getDesiredTemperature(), 0.0);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidConfigurationIsRejected() {
+        new ControllerConfiguration(CELSIUS, 20.0, 1.0, 2.0);
+    }
+    
+    @Test
+    public void nanAndNegativeVariationAreRejected() {
+        Runnable[] updates = {() -> controller.setTemperature(Double.NaN),
+                              () -> controller.setAcceptableVariation(Double.NaN),
+                              () -> controller.setAcceptableVariation(-1.0),
+                              () -> controller.setHysteresis(1.0, Double.NaN)};
+        for (Runnable update : updates)
+            try {
+                update.run();
+                fail("An invalid configuration was accepted");
+            } catch (IllegalArgumentException expected) {
+                assertSame(ControllerConfiguration.DEFAULT, controller.getConfiguration());
+            }
+    }
+}
@@ -0,0 +1,110 @@
+package aquarium;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.concurrent.TimeUnit;
+
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.*;
+import static org.junit.Assert.*;
+
+public class ControllerMetricsTest {
+    private TestDoubleTemperatureSensor sensor;
+    private TemperatureControllerImpl   controller;
+    
+    @Before
+    public void setUp() {
+        sensor = new TestDoubleTemperatureSensor();
+        sensor.setTemperature(20.0);
+        controller = (TemperatureControllerImpl) TemperatureControllerImpl
+                .makeTemperatureController(sensor, state -> {
+                });
+    }
+    
+    @Test
+    public void readingsAndTransitionsAreCounted() {
+        for (double temperature : new double[]{15.0, 16.0, 20.0, 25.0})
+            sensor.setTemperature(temperature);
+        controller.setTemperature(25.0);
+        ControllerMetrics metrics = controller.getMetrics();
+        assertEquals(4, metrics.getReadingCount());
+        assertEquals(5, metrics.getDecisionCount());
+        assertEquals(4, metrics.getTransitionCount());
+        assertEquals(5, metrics.getDecisionLatency().getCount());
+        assertTrue(metrics.getMaxDecisionNanos() >= metrics.getDecisionNanosP50());
+        assertEquals("OFF", metrics.getAdjusterState());
+    }
+    
+    @Test
+    public void timeInStateAccumulates() throws InterruptedException {
+        ControllerMetrics metrics = controller.getMetrics();
+        assertNull(metrics.getAdjusterState());
+        sensor.setTemperature(15.0);
+        Thread.sleep(20);
+        sensor.setTemperature(20.0);
+        long heating = metrics.getTimeInState(HEATING, TimeUnit.MILLISECONDS);
+        assertTrue(heating >= 20);
+        Thread.sleep(20);
+        assertEquals(heating, metrics.getHeatingMillis());
+        assertTrue(metrics.getOffMillis() >= 20);
+        assertEquals(0, metrics.getCoolingMillis());
+    }
+    
+    @Test
+    public void histogramBuckets() {
+        for (long nanos = 0; nanos < 1 << 20; nanos += 7) {
+            int bucket = LatencyHistogram.bucketOf(nanos);
+            assertTrue(nanos <= LatencyHistogram.upperBound(bucket));
+            assertTrue(bucket == 0 || nanos > LatencyHistogram.upperBound(bucket - 1));
+        }
+        int last = LatencyHistogram.BUCKET_COUNT - 1;
+        assertEquals(last, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(last));
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++)
+            histogram.record(i * 100);
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050.0, histogram.getMean(), 0.0);
+        assertEquals(10000, histogram.getMax());
+        long p50 = histogram.getPercentile(50);
+        assertTrue(p50 >= 5000 && p50 <= 5000 * 1.25);
+        assertEquals(10000, histogram.getPercentile(100));
+    }
+    
+    @Test
+    public void fleetMetricsArePublishedOverJmx() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        try (TemperatureControllerFleet fleet = new TemperatureControllerFleet(2)) {
+            TestDoubleTemperatureSensor[] sensors = new TestDoubleTemperatureSensor[3];
+            for (int i = 0; i < sensors.length; i++) {
+                sensors[i] = new TestDoubleTemperatureSensor();
+                sensors[i].setTemperature(20.0);
+                fleet.addTank(i, sensors[i], state -> {
+                });
+            }
+            fleet.registerMBeans(server, "test");
+            fleet.addTank(3, controller);
+            sensors[0].setTemperature(15.0);
+            sensors[1].setTemperature(25.0);
+            sensor.setTemperature(30.0);
+            ObjectName fleetName = new ObjectName("aquarium:type=Fleet,name=test");
+            assertEquals(4, server.getAttribute(fleetName, "TankCount"));
+            assertEquals(1, server.getAttribute(fleetName, "TanksHeating"));
+            assertEquals(2, server.getAttribute(fleetName, "TanksCooling"));
+            assertEquals(3L, server.getAttribute(fleetName, "ReadingCount"));
+            assertSame(fleet.getMetrics().getDecisionLatency(), fleet.getMetrics()
+                    .getDecisionLatency());
+            ObjectName tankName = new ObjectName("aquarium:type=TemperatureController," +
+                                                 "fleet=test,tank=3");
+            assertEquals(1L, server.getAttribute(tankName, "TransitionCount"));
+            assertEquals("COOLING", server.getAttribute(tankName, "AdjusterState"));
+            fleet.removeTank(3);
+            assertFalse(server.isRegistered(tankName));
+            fleet.unregisterMBeans();
+            assertFalse(server.isRegistered(fleetName));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package aquarium;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static aquarium.TemperatureController.TemperatureScale.CELSIUS;
+import static aquarium.TemperatureController.TemperatureScale.FAHRENHEIT;
+import static org.junit.Assert.*;
+
+public class CurrentTemperatureCacheTest {
+    private int                         sensorReads;
+    private TestDoubleTemperatureSensor sensor;
+    private TemperatureControllerImpl   controller;
+    
+    @Before
+    public void setUp() {
+        sensor = new TestDoubleTemperatureSensor() {
+            @Override
+            public double getTemperature() {
+                sensorReads++;
+                return super.getTemperature();
+            }
+        };
+        controller = (TemperatureControllerImpl) TemperatureControllerImpl
+                .makeTemperatureController(sensor, state -> {
+                });
+        sensor.setTemperature(20.0);
+        sensorReads = 0;
+    }
+    
+    @Test
+    public void readsAreServedFromLastReading() {
+        for (int i = 0; i < 1000; i++)
+            assertEquals(20.0, controller.getCurrentTemperature(), 0.0);
+        sensor.setTemperature(21.0);
+        assertEquals(21.0, controller.getCurrentTemperature(), 0.0);
+        assertEquals(0, sensorReads);
+    }
+    
+    @Test
+    public void cachedReadingFollowsTemperatureScale() {
+        controller.setTemperatureScale(FAHRENHEIT);
+        assertEquals(68.0, controller.getCurrentTemperature(), 1e-9);
+        sensor.setTemperature(25.0);
+        assertEquals(77.0, controller.getCurrentTemperature(), 1e-9);
+        controller.setTemperatureScale(CELSIUS);
+        assertEquals(25.0, controller.getCurrentTemperature(), 1e-9);
+        assertEquals(0, sensorReads);
+    }
+    
+    @Test
+    public void staleReadingFallsBackToSensor() throws InterruptedException {
+        controller.setMaxReadingAge(1, TimeUnit.MILLISECONDS);
+        Thread.sleep(5);
+        assertEquals(20.0, controller.getCurrentTemperature(), 0.0);
+        assertEquals(1, sensorReads);
+        controller.setMaxReadingAge(0, TimeUnit.MILLISECONDS);
+        controller.getCurrentTemperature();
+        assertEquals(2, sensorReads);
+    }
+    
+    @Test(timeout = 10000)
+    public void slowSensorReadDoesNotOverwriteANewerReading() throws InterruptedException {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TestDoubleTemperatureSensor slow = new TestDoubleTemperatureSensor() {
+            @Override
+            public double getTemperature() {
+                double temperature = super.getTemperature();
+                if (Thread.currentThread().getName().equals("slow-read")) {
+                    reading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return temperature;
+            }
+        };
+        slow.setTemperature(20.0);
+        TemperatureControllerImpl slowController = (TemperatureControllerImpl)
+                TemperatureControllerImpl.makeTemperatureController(slow, state -> {
+                });
+        slowController.setMaxReadingAge(0, TimeUnit.MILLISECONDS);
+        Thread read = new Thread(slowController::getCurrentTemperature, "slow-read");
+        read.start();
+        reading.await();
+        slow.setTemperature(25.0);
+        release.countDown();
+        read.join();
+        
+        slowController.setMaxReadingAge(-1, TimeUnit.MILLISECONDS);
+        assertEquals(25.0, slowController.getCurrentTemperature(), 0.0);
+    }
+}
@@ -0,0 +1,169 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static aquarium.TemperatureController.TemperatureScale.FAHRENHEIT;
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.*;
+import static org.junit.Assert.*;
+
+public class DecisionEngineTest {
+    private TestDoubleTemperatureSensor sensor;
+    private List<AdjusterState>         commands;
+    private TemperatureControllerImpl   controller;
+    
+    @Before
+    public void setUp() {
+        sensor = new TestDoubleTemperatureSensor();
+        sensor.setTemperature(20.0);
+        commands = new ArrayList<>();
+        controller = (TemperatureControllerImpl) TemperatureControllerImpl
+                .makeTemperatureController(sensor, commands::add);
+    }
+    
+    @Test
+    public void onlyTransitionsAreCommanded() {
+        for (double temperature : new double[]{15.0, 15.5, 16.0, 17.0, 20.0, 20.1, 19.9, 20.0})
+            sensor.setTemperature(temperature);
+        assertEquals(Arrays.asList(HEATING, OFF), commands);
+        assertEquals(8, controller.getDecisionCount());
+        assertEquals(2, controller.getActuationCount());
+        assertEquals(6, controller.getSuppressedActuationCount());
+        assertEquals(OFF, controller.getCommandedState());
+    }
+    
+    @Test(timeout = 10000)
+    public void concurrentDecisionsLeaveAdjusterInCommandedState() throws InterruptedException {
+        AtomicReference<AdjusterState> adjusted = new AtomicReference<>();
+        CountDownLatch commanding = new CountDownLatch(1);
+        TemperatureControllerImpl shared = (TemperatureControllerImpl) TemperatureControllerImpl
+                .makeTemperatureController(sensor, state -> {
+                    if (state == HEATING) {
+                        commanding.countDown();
+                        sleep(100); // Let the forced command race this one
+                    }
+                    adjusted.set(state);
+                });
+        Thread reading = new Thread(() -> sensor.setTemperature(15.0));
+        reading.start();
+        commanding.await();
+        shared.force(OFF);
+        reading.join();
+        
+        assertEquals(OFF, shared.getCommandedState());
+        assertEquals(shared.getCommandedState(), adjusted.get());
+    }
+    
+    @Test(timeout = 10000)
+    public void decisionsDoNotWaitForASlowAdjuster() throws InterruptedException {
+        AtomicReference<AdjusterState> adjusted = new AtomicReference<>();
+        CountDownLatch commanding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TemperatureControllerImpl shared = (TemperatureControllerImpl) TemperatureControllerImpl
+                .makeTemperatureController(sensor, state -> {
+                    if (state == HEATING) {
+                        commanding.countDown();
+                        await(release);
+                    }
+                    adjusted.set(state);
+                });
+        Thread reading = new Thread(() -> sensor.setTemperature(15.0));
+        reading.start();
+        commanding.await();
+        shared.setTemperature(10.0);
+        assertEquals(COOLING, shared.getCommandedState());
+        assertEquals(COOLING, adjusted.get());
+        release.countDown();
+        reading.join();
+        
+        assertEquals(COOLING, adjusted.get());
+    }
+    
+    @Test
+    public void forcedStateIsNotCountedAsSuppressed() {
+        sensor.setTemperature(15.0);
+        controller.force(OFF);
+        sensor.setTemperature(15.5);
+        assertEquals(Arrays.asList(HEATING, OFF, HEATING), commands);
+        assertEquals(0, controller.getSuppressedActuationCount());
+        sensor.setTemperature(16.0);
+        assertEquals(1, controller.getSuppressedActuationCount());
+    }
+    
+    @Test
+    public void hoveringAtBoundaryDoesNotFlipWithHysteresis() {
+        controller.setHysteresis(1.0, 0.25);
+        commands.clear();
+        for (int i = 0; i < 10; i++) {
+            sensor.setTemperature(18.95);
+            sensor.setTemperature(19.05);
+        }
+        assertEquals(Arrays.asList(HEATING), commands);
+        sensor.setTemperature(19.8);
+        assertEquals(Arrays.asList(HEATING, OFF), commands);
+    }
+    
+    @Test
+    public void coolingRunsUntilTurnOffVariation() {
+        controller.setHysteresis(1.0, 0.5);
+        commands.clear();
+        sensor.setTemperature(21.5);
+        sensor.setTemperature(20.6);
+        assertEquals(Arrays.asList(COOLING), commands);
+        sensor.setTemperature(20.4);
+        assertEquals(Arrays.asList(COOLING, OFF), commands);
+    }
+    
+    @Test
+    public void hysteresisFollowsTemperatureScale() {
+        controller.setTemperatureScale(FAHRENHEIT);
+        controller.setHysteresis(1.8, 0.9);
+        assertEquals(1.8, controller.getAcceptableVariation(), 1e-9);
+        assertEquals(0.9, controller.getTurnOffVariation(), 1e-9);
+    }
+    
+    @Test
+    public void setAcceptableVariationResetsHysteresis() {
+        controller.setHysteresis(1.0, 0.25);
+        controller.setAcceptableVariation(2.0);
+        assertEquals(2.0, controller.getTurnOffVariation(), 0.0);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void turnOffVariationWiderThanTurnOnIsRejected() {
+        controller.setHysteresis(0.5, 1.0);
+    }
+    
+    /**
+     * Wait for a latch without throwing a checked exception
+     *
+     * @param latch The latch
+     */
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Sleep without throwing a checked exception
+     *
+     * @param millis The time to sleep in milliseconds
+     */
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
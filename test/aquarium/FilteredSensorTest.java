@@ -0,0 +1,215 @@
+package aquarium;
+
+import aquarium.hw.TestTemperatureSensor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FilteredSensorTest {
+    private TestDoubleTemperatureSensor sensor;
+    private List<Double>                forwarded;
+    private long                        now;
+    private TimingWheel                 wheel;
+    
+    @Before
+    public void setUp() {
+        sensor = new TestDoubleTemperatureSensor();
+        sensor.setTemperature(20.0);
+        forwarded = new ArrayList<>();
+        wheel = new TimingWheel(TimeUnit.MILLISECONDS.toNanos(1), () -> now);
+    }
+    
+    @Test
+    public void deadbandDropsSmallChanges() {
+        FilteredSensor filtered = filter(ReadingFilter.NONE.withDeadband(0.5));
+        for (double temperature : new double[]{20.0, 20.2, 20.4, 20.6, 20.3, 19.9, 21.2})
+            sensor.setTemperature(temperature);
+        assertEquals(list(20.0, 20.6, 19.9, 21.2), forwarded);
+        assertEquals(7, filtered.getReceivedCount());
+        assertEquals(4, filtered.getForwardedCount());
+    }
+    
+    @Test
+    public void debounceHoldsBackFastReadings() {
+        filter(ReadingFilter.NONE.withMinInterval(100, TimeUnit.MILLISECONDS));
+        for (int i = 0; i < 10; i++) {
+            sensor.setTemperature(20.0 + i);
+            now += TimeUnit.MILLISECONDS.toNanos(30);
+        }
+        assertEquals(list(20.0, 24.0, 28.0), forwarded);
+    }
+    
+    @Test
+    public void debounceDeliversTheLastHeldReading() {
+        FilteredSensor filtered = filter(ReadingFilter.NONE.withMinInterval(100,
+                                                                            TimeUnit.MILLISECONDS));
+        sensor.setTemperature(20.0);
+        advance(30);
+        sensor.setTemperature(25.0);
+        advance(30);
+        sensor.setTemperature(27.0);
+        advance(30);
+        assertEquals(list(20.0), forwarded);
+        advance(10);
+        assertEquals(list(20.0, 27.0), forwarded);
+        advance(500);
+        assertEquals(list(20.0, 27.0), forwarded);
+        assertEquals(3, filtered.getReceivedCount());
+        assertEquals(2, filtered.getForwardedCount());
+    }
+    
+    @Test
+    public void heldReadingIsHandedToTheDeliveryExecutor() {
+        List<Runnable> tasks = new ArrayList<>();
+        FilteredSensor filtered = new FilteredSensor(sensor, ReadingFilter.NONE.withMinInterval
+                (100, TimeUnit.MILLISECONDS), wheel, tasks::add);
+        filtered.addObserver((double temperature) -> forwarded.add(temperature));
+        sensor.setTemperature(20.0);
+        advance(30);
+        sensor.setTemperature(25.0);
+        advance(100);
+        assertEquals(list(20.0), forwarded);
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        assertEquals(list(20.0, 25.0), forwarded);
+    }
+    
+    @Test
+    public void closedSensorDropsTheHeldReading() {
+        FilteredSensor filtered = filter(ReadingFilter.NONE.withMinInterval(100,
+                                                                            TimeUnit.MILLISECONDS));
+        sensor.setTemperature(20.0);
+        advance(30);
+        sensor.setTemperature(25.0);
+        filtered.close();
+        advance(500);
+        assertEquals(list(20.0), forwarded);
+        assertEquals(0, wheel.getPendingCount());
+    }
+    
+    @Test
+    public void sharedWheelDeliversOffTheWheelThread() throws InterruptedException {
+        BlockingQueue<String> threads = new ArrayBlockingQueue<>(2);
+        for (int run = 0; run < 2; run++) {
+            double held = 25.0 + run;
+            FilteredSensor filtered = new FilteredSensor(sensor, ReadingFilter.NONE
+                    .withMinInterval(200, TimeUnit.MILLISECONDS));
+            filtered.addObserver((double temperature) -> {
+                if (temperature == held)
+                    threads.add(Thread.currentThread().getName());
+            });
+            sensor.setTemperature(20.0);
+            sensor.setTemperature(held);
+            String thread = threads.poll(5, TimeUnit.SECONDS);
+            assertNotNull(thread);
+            assertTrue(thread, thread.startsWith("aquarium-filter-delivery-"));
+            filtered.close();
+        }
+    }
+    
+    @Test
+    public void heldReadingBackWithinTheDeadbandIsDropped() {
+        filter(ReadingFilter.NONE.withDeadband(0.5).withMinInterval(100, TimeUnit.MILLISECONDS));
+        sensor.setTemperature(20.0);
+        advance(30);
+        sensor.setTemperature(20.8);
+        advance(30);
+        sensor.setTemperature(20.3);
+        advance(500);
+        assertEquals(list(20.0), forwarded);
+    }
+    
+    @Test
+    public void medianRemovesSpikes() {
+        filter(ReadingFilter.NONE.withMedianOf(3));
+        for (double temperature : new double[]{20.0, 20.0, 35.0, 20.0, 20.0, 21.0, 21.0})
+            sensor.setTemperature(temperature);
+        assertEquals(list(20.0, 20.0, 20.0, 20.0, 20.0, 20.0, 21.0), forwarded);
+    }
+    
+    @Test
+    public void noiseNoLongerReachesTheDecision() {
+        TestDoubleTemperatureSensor noisy = new TestDoubleTemperatureSensor();
+        List<Object> filteredCommands = new ArrayList<>();
+        List<Object> noisyCommands = new ArrayList<>();
+        TemperatureControllerImpl filteredController = (TemperatureControllerImpl)
+                TemperatureControllerImpl.makeTemperatureController(sensor, filteredCommands::add,
+                                                                    ReadingFilter.NONE
+                                                                            .withDeadband(0.25)
+                                                                            .withMedianOf(5));
+        TemperatureControllerImpl.makeTemperatureController(noisy, noisyCommands::add);
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            double temperature = 20.9 + 0.2 * random.nextGaussian();
+            sensor.setTemperature(temperature);
+            noisy.setTemperature(temperature);
+        }
+        assertTrue(filteredController.getDecisionCount() < 500);
+        assertTrue(filteredCommands.size() * 10 < noisyCommands.size());
+    }
+    
+    @Test
+    public void legacySensorsAreFiltered() {
+        TestTemperatureSensor legacySensor = new TestTemperatureSensor(0.0);
+        FilteredSensor filtered = new FilteredSensor(legacySensor, ReadingFilter.NONE
+                .withDeadband(1.0));
+        filtered.addObserver(temperature -> {
+            forwarded.add(temperature);
+            return null;
+        });
+        for (double temperature : new double[]{20.0, 20.5, 21.5, 21.0})
+            legacySensor.setTemperature(temperature);
+        assertEquals(list(20.0, 21.5), forwarded);
+        assertEquals(21.0, filtered.getTemperature(), 0.0);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidMedian() {
+        ReadingFilter.NONE.withMedianOf(0);
+    }
+    
+    /**
+     * Filter the test sensor, recording the forwarded readings
+     *
+     * @param filter The filter
+     *
+     * @return the filtered sensor
+     */
+    private FilteredSensor filter(ReadingFilter filter) {
+        FilteredSensor filtered = new FilteredSensor(sensor, filter, wheel);
+        filtered.addObserver((double temperature) -> forwarded.add(temperature));
+        return filtered;
+    }
+    
+    /**
+     * Move the test clock forward, firing the timeouts due
+     *
+     * @param millis The time elapsed in milliseconds
+     */
+    private void advance(long millis) {
+        now += TimeUnit.MILLISECONDS.toNanos(millis);
+        wheel.advance(now);
+    }
+    
+    /**
+     * Make a list of readings
+     *
+     * @param readings The readings
+     *
+     * @return the list
+     */
+    private static List<Double> list(double... readings) {
+        List<Double> list = new ArrayList<>();
+        for (double reading : readings)
+            list.add(reading);
+        return list;
+    }
+}
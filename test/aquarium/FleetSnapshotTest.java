@@ -0,0 +1,178 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static aquarium.TemperatureController.TemperatureScale.CELSIUS;
+import static aquarium.TemperatureController.TemperatureScale.FAHRENHEIT;
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.*;
+import static org.junit.Assert.*;
+
+public class FleetSnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private TemperatureControllerFleet                source;
+    private TemperatureControllerFleet                target;
+    private Map<Integer, List<AdjusterState>>         commands;
+    private Map<Integer, TestDoubleTemperatureSensor> sensors;
+    
+    @Before
+    public void setUp() {
+        source = new TemperatureControllerFleet(2);
+        target = new TemperatureControllerFleet(2);
+        commands = new ConcurrentHashMap<>();
+        sensors = new ConcurrentHashMap<>();
+    }
+    
+    @After
+    public void tearDown() {
+        source.close();
+        target.close();
+    }
+    
+    @Test
+    public void restoredControllersKeepTheirConfiguration() throws IOException {
+        TemperatureControllerImpl first = addSource(1, 25.0);
+        first.setTemperature(25.0);
+        first.setHysteresis(2.0, 0.5);
+        first.setMaxReadingAge(5, TimeUnit.SECONDS);
+        TemperatureController second = addSource(2, 20.0);
+        second.setTemperatureScale(FAHRENHEIT);
+        second.setTemperature(70.0);
+        Path file = folder.getRoot().toPath().resolve("fleet.snapshot");
+        source.snapshot().writeTo(file);
+        assertEquals(12 + 2 * FleetSnapshot.RECORD_SIZE + 4, Files.size(file));
+        assertEquals(2, restore(FleetSnapshot.readFrom(file), 22.0));
+        TemperatureControllerImpl restoredFirst = (TemperatureControllerImpl) target.getTank(1);
+        assertEquals(25.0, restoredFirst.getConfiguration().getDesiredTemperature(), 0.0);
+        assertEquals(2.0, restoredFirst.getAcceptableVariation(), 0.0);
+        assertEquals(0.5, restoredFirst.getTurnOffVariation(), 0.0);
+        assertEquals(TimeUnit.SECONDS.toNanos(5) - 1, restoredFirst.getMaxReadingAge());
+        ControllerConfiguration restoredSecond = ((TemperatureControllerImpl) target.getTank(2))
+                .getConfiguration();
+        assertEquals(FAHRENHEIT, restoredSecond.getTemperatureScale());
+        assertEquals(70.0, restoredSecond.fromCelsius(restoredSecond.getDesiredTemperature()),
+                     1e-9);
+        assertEquals(CELSIUS, restoredFirst.getTemperatureScale());
+    }
+    
+    @Test
+    public void everyTankIsReconciledWithASingleCommand() {
+        for (int tankId = 0; tankId < 10_000; tankId++)
+            addSource(tankId, 20.0);
+        FleetSnapshot snapshot = source.snapshot();
+        assertEquals(10_000, snapshot.size());
+        assertEquals(10_000, restore(snapshot, 18.0));
+        assertEquals(10_000, target.size());
+        for (int tankId = 0; tankId < 10_000; tankId++) {
+            assertEquals(1, commands.get(tankId).size());
+            assertEquals(HEATING, commands.get(tankId).get(0));
+        }
+    }
+    
+    @Test
+    public void reconciliationKeepsTheHysteresisOfTheCommandedState() {
+        TemperatureControllerImpl controller = addSource(1, 17.0);
+        controller.setHysteresis(1.0, 0.2);
+        sensors.get(1).setTemperature(19.5);
+        assertEquals(HEATING, controller.getCommandedState());
+        FleetSnapshot snapshot = source.snapshot();
+        assertEquals(HEATING, snapshot.getCommandedState(0));
+        restore(snapshot, 19.5);
+        assertEquals(HEATING, commands.get(1).get(0));
+        assertEquals(HEATING, ((TemperatureControllerImpl) target.getTank(1)).getCommandedState());
+    }
+    
+    @Test
+    public void aTankAlreadyInTheFleetFailsTheWholeRestore() {
+        addSource(1, 20.0);
+        addSource(2, 20.0);
+        target.addTank(2, new TestDoubleTemperatureSensor(), state -> {
+        });
+        try {
+            restore(source.snapshot(), 20.0);
+            fail("Tank 2 is already in the fleet");
+        } catch (IllegalArgumentException e) {
+            assertNull(target.getTank(1));
+        }
+    }
+    
+    @Test
+    public void aTankTwiceInTheSnapshotFailsTheWholeRestore() {
+        TemperatureControllerImpl controller = addSource(1, 20.0);
+        FleetSnapshot snapshot = FleetSnapshot.of(new int[]{1, 2, 1}, new
+                TemperatureControllerImpl[]{controller, controller, controller}, 3);
+        try {
+            restore(snapshot, 20.0);
+            fail("Tank 1 appears twice");
+        } catch (IllegalArgumentException e) {
+            assertEquals(0, target.size());
+            assertTrue(commands.isEmpty());
+        }
+    }
+    
+    @Test
+    public void aFailingFactoryFailsTheWholeRestore() {
+        addSource(1, 20.0);
+        addSource(2, 20.0);
+        TestDoubleTemperatureSensor first = new TestDoubleTemperatureSensor();
+        List<AdjusterState> firstCommands = new CopyOnWriteArrayList<>();
+        try {
+            target.restore(source.snapshot(), tankId -> {
+                if (tankId == 2)
+                    throw new IllegalStateException("Probe missing");
+                return first;
+            }, tankId -> firstCommands::add);
+            fail("The sensor of tank 2 is missing");
+        } catch (IllegalStateException e) {
+            assertEquals(0, target.size());
+        }
+        first.setTemperature(10.0);
+        assertTrue(firstCommands.isEmpty());
+    }
+    
+    @Test(expected = IOException.class)
+    public void aCorruptSnapshotIsRejected() throws IOException {
+        addSource(1, 20.0);
+        Path file = folder.getRoot().toPath().resolve("fleet.snapshot");
+        source.snapshot().writeTo(file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[20] ^= 1;
+        Files.write(file, bytes);
+        FleetSnapshot.readFrom(file);
+    }
+    
+    private TemperatureControllerImpl addSource(int tankId, double temperature) {
+        TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+        sensor.setTemperature(temperature);
+        sensors.put(tankId, sensor);
+        return (TemperatureControllerImpl) source.addTank(tankId, sensor, state -> {
+        });
+    }
+    
+    private int restore(FleetSnapshot snapshot, double temperature) {
+        return target.restore(snapshot, tankId -> {
+            TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+            sensor.setTemperature(temperature);
+            return sensor;
+        }, tankId -> {
+            List<AdjusterState> tankCommands = new CopyOnWriteArrayList<>();
+            commands.put(tankId, tankCommands);
+            return tankCommands::add;
+        });
+    }
+}
@@ -0,0 +1,153 @@
+package aquarium;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.*;
+import static org.junit.Assert.*;
+
+public class FusedSensorTest {
+    private List<TestDoubleTemperatureSensor> probes;
+    private List<Double>                      fused;
+    
+    @Before
+    public void setUp() {
+        probes = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            probes.add(new TestDoubleTemperatureSensor());
+        fused = new ArrayList<>();
+    }
+    
+    @Test
+    public void meanAveragesTheProbesThatReported() {
+        fuse(SensorFusion.MEAN);
+        probes.get(0).setTemperature(20.0);
+        probes.get(1).setTemperature(22.0);
+        assertEquals(Arrays.asList(20.0, 21.0), fused);
+    }
+    
+    @Test
+    public void medianIgnoresASingleFaultyProbe() {
+        FusedSensor sensor = fuse(SensorFusion.MEDIAN);
+        report(20.0, 20.5, 45.0, 21.0, 19.5);
+        assertEquals(20.5, last(), 0.0);
+        probes.get(1).setTemperature(-10.0);
+        assertEquals(20.0, last(), 0.0);
+        assertEquals(-10.0, sensor.getProbeReading(1), 0.0);
+        assertEquals(5, sensor.getProbeCount());
+    }
+    
+    @Test
+    public void medianOfAnEvenCountAveragesTheMiddleReadings() {
+        fuse(SensorFusion.MEDIAN);
+        probes.remove(4);
+        report(20.0, 21.0, 22.0, 30.0);
+        assertEquals(21.5, last(), 0.0);
+    }
+    
+    @Test
+    public void trimmedMeanDropsBothEnds() {
+        fuse(SensorFusion.trimmedMean(0.2));
+        report(10.0, 20.0, 21.0, 22.0, 40.0);
+        assertEquals(21.0, last(), 1e-9);
+    }
+    
+    @Test
+    public void outlierLimitRejectsDistantProbes() {
+        fuse(SensorFusion.MEAN.withOutlierLimit(1.0));
+        report(20.0, 20.4, 20.8, 35.0, 20.6);
+        assertEquals(20.45, last(), 1e-9);
+    }
+    
+    @Test
+    public void getTemperatureReadsEveryProbe() {
+        FusedSensor sensor = fuse(SensorFusion.MEAN);
+        report(20.0, 21.0, 22.0, 23.0, 24.0);
+        assertEquals(22.0, sensor.getTemperature(), 1e-9);
+    }
+    
+    @Test
+    public void controllerDecidesOnTheFusedTemperature() {
+        List<Object> commands = new ArrayList<>();
+        TemperatureControllerImpl controller = (TemperatureControllerImpl)
+                TemperatureControllerImpl.makeTemperatureController(probes, commands::add,
+                                                                    SensorFusion.MEDIAN);
+        controller.setTemperature(25.0);
+        report(25.0, 25.0, 25.0, 25.0, 25.0);
+        assertEquals(OFF, controller.getCommandedState());
+        probes.get(2).setTemperature(10.0);
+        probes.get(3).setTemperature(10.0);
+        assertEquals(OFF, controller.getCommandedState());
+        probes.get(4).setTemperature(10.0);
+        assertEquals(HEATING, controller.getCommandedState());
+        assertEquals(10.0, controller.getCurrentTemperature(), 0.0);
+    }
+    
+    @Test
+    public void concurrentProbesAreFusedWithoutLosingReadings() throws InterruptedException {
+        FusedSensor sensor = new FusedSensor(probes, SensorFusion.MEAN);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        double[] last = {Double.NaN};
+        sensor.addObserver((double temperature) -> {
+            if (inside.incrementAndGet() > 1)
+                overlapped.set(true);
+            last[0] = temperature;
+            inside.decrementAndGet();
+        });
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < probes.size(); i++) {
+            TestDoubleTemperatureSensor probe = probes.get(i);
+            double target = 20.0 + i;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 10_000; j++)
+                    probe.setTemperature(target + j % 3 - 1);
+                probe.setTemperature(target);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        for (int i = 0; i < probes.size(); i++)
+            assertEquals(20.0 + i, sensor.getProbeReading(i), 0.0);
+        assertEquals(22.0, sensor.getTemperature(), 1e-9);
+        assertFalse(overlapped.get());
+        assertEquals(22.0, last[0], 1e-9);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidTrimFractionIsRejected() {
+        SensorFusion.trimmedMean(0.6);
+    }
+    
+    private FusedSensor fuse(SensorFusion fusion) {
+        FusedSensor sensor = new FusedSensor(probes, fusion);
+        sensor.addObserver((double temperature) -> fused.add(temperature));
+        return sensor;
+    }
+    
+    private void report(double... temperatures) {
+        for (int i = 0; i < temperatures.length; i++)
+            probes.get(i).setTemperature(temperatures[i]);
+    }
+    
+    private double last() {
+        return fused.get(fused.size() - 1);
+    }
+}
@@ -0,0 +1,159 @@
+package aquarium;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.*;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+
+public class LivenessWatchdogTest {
+    private final AtomicLong now = new AtomicLong(); // The time of the wheel
+    private TimingWheel      wheel;
+    private LivenessWatchdog watchdog;
+    private List<Object>     commands;
+    
+    @Before
+    public void setUp() {
+        wheel = new TimingWheel(SECONDS.toNanos(1), now::get);
+        watchdog = new LivenessWatchdog(wheel, 30, 10 * 60, SECONDS, OFF);
+        commands = new ArrayList<>();
+    }
+    
+    @Test
+    public void stalledSensorForcesTheSafeState() {
+        TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+        TemperatureControllerImpl controller = controller(sensor);
+        watchdog.watch(1, controller);
+        sensor.setTemperature(15.0);
+        assertEquals(HEATING, controller.getCommandedState());
+        advance(29, SECONDS);
+        assertFalse(watchdog.isExpired(1));
+        advance(2, SECONDS);
+        assertTrue(watchdog.isExpired(1));
+        assertEquals(OFF, controller.getCommandedState());
+        assertEquals(OFF, commands.get(commands.size() - 1));
+        assertEquals(1, watchdog.getStalledCount());
+        assertEquals(0, wheel.getPendingCount());
+        sensor.setTemperature(15.5);
+        assertFalse(watchdog.isExpired(1));
+        assertEquals(HEATING, controller.getCommandedState());
+        assertEquals(1, wheel.getPendingCount());
+    }
+    
+    @Test
+    public void readingsKeepTheTankAlive() {
+        TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+        TemperatureControllerImpl controller = controller(sensor);
+        watchdog.watch(1, controller);
+        for (int i = 0; i < 20; i++) {
+            sensor.setTemperature(20.0 + (i % 2) * 0.1);
+            advance(20, SECONDS);
+        }
+        assertEquals(0, watchdog.getStalledCount());
+        assertEquals(1, wheel.getPendingCount());
+    }
+    
+    @Test
+    public void adjusterStuckInAStateIsStopped() {
+        TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+        TemperatureControllerImpl controller = controller(sensor);
+        watchdog.watch(1, controller);
+        sensor.setTemperature(15.0);
+        for (int i = 0; i < 29; i++) {
+            advance(20, SECONDS);
+            sensor.setTemperature(15.0 + (i % 2) * 0.1);
+            assertEquals(HEATING, controller.getCommandedState());
+        }
+        advance(20, SECONDS);
+        assertEquals(OFF, controller.getCommandedState());
+        assertEquals(1, watchdog.getStuckCount());
+        assertEquals(0, watchdog.getStalledCount());
+    }
+    
+    @Test
+    public void stuckAdjusterStaysSafeUntilTheBandIsReached() {
+        TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+        TemperatureControllerImpl controller = controller(sensor);
+        watchdog.watch(1, controller);
+        for (int i = 0; i < 30; i++) {
+            sensor.setTemperature(15.0 + (i % 2) * 0.1);
+            advance(20, SECONDS);
+        }
+        assertEquals(OFF, controller.getCommandedState());
+        for (int i = 0; i < 10; i++) {
+            sensor.setTemperature(15.0 + (i % 2) * 0.1);
+            assertEquals(OFF, controller.getCommandedState());
+            advance(20, SECONDS);
+        }
+        assertEquals(OFF, commands.get(commands.size() - 1));
+        assertEquals(1, watchdog.getStuckCount());
+        sensor.setTemperature(24.8);
+        assertEquals(OFF, controller.getCommandedState());
+        sensor.setTemperature(20.5);
+        assertEquals(OFF, controller.getCommandedState());
+        sensor.setTemperature(15.0);
+        assertEquals(HEATING, controller.getCommandedState());
+    }
+    
+    @Test
+    public void resetReleasesTheSafeState() {
+        TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+        TemperatureControllerImpl controller = controller(sensor);
+        watchdog.watch(1, controller);
+        for (int i = 0; i < 30; i++) {
+            sensor.setTemperature(15.0 + (i % 2) * 0.1);
+            advance(20, SECONDS);
+        }
+        assertEquals(OFF, controller.getCommandedState());
+        assertTrue(watchdog.reset(1));
+        assertFalse(watchdog.reset(1));
+        sensor.setTemperature(15.0);
+        assertEquals(HEATING, controller.getCommandedState());
+    }
+    
+    @Test
+    public void unwatchedTanksAreLeftAlone() {
+        TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+        TemperatureControllerImpl controller = controller(sensor);
+        watchdog.watch(1, controller);
+        sensor.setTemperature(15.0);
+        assertTrue(watchdog.unwatch(1));
+        advance(1, MINUTES);
+        assertEquals(HEATING, controller.getCommandedState());
+        assertEquals(0, watchdog.getWatchedCount());
+        assertFalse(watchdog.unwatch(1));
+    }
+    
+    @Test
+    public void fiftyThousandTanksShareOneWheel() {
+        List<TestDoubleTemperatureSensor> sensors = new ArrayList<>();
+        for (int tankId = 0; tankId < 50_000; tankId++) {
+            TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+            sensors.add(sensor);
+            watchdog.watch(tankId, controller(sensor));
+            sensor.setTemperature(20.0);
+        }
+        advance(20, SECONDS);
+        for (int tankId = 0; tankId < 50_000; tankId += 2)
+            sensors.get(tankId).setTemperature(20.1);
+        advance(20, SECONDS);
+        assertEquals(25_000, watchdog.getStalledCount());
+        assertEquals(25_000, wheel.getPendingCount());
+    }
+    
+    private TemperatureControllerImpl controller(TestDoubleTemperatureSensor sensor) {
+        return (TemperatureControllerImpl) TemperatureControllerImpl.makeTemperatureController
+                (sensor, commands::add);
+    }
+    
+    private void advance(long duration, TimeUnit unit) {
+        wheel.advance(now.addAndGet(unit.toNanos(duration)));
+    }
+}
@@ -0,0 +1,150 @@
+package aquarium;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class ObserverRegistryTest {
+    @Test
+    public void failingObserverIsIsolated() {
+        List<RuntimeException> failures = new ArrayList<>();
+        ObserverRegistry<Double> registry = new ObserverRegistry<>((observer, e) -> failures
+                .add(e));
+        List<Double> received = new ArrayList<>();
+        registry.add(temperature -> {
+            throw new IllegalStateException("broken");
+        });
+        registry.add(temperature -> {
+            received.add(temperature);
+            return null;
+        });
+        registry.notifyObservers(20.0);
+        registry.notifyObservers(21.0);
+        assertEquals(2, received.size());
+        assertEquals(2, registry.getFailureCount());
+        assertEquals("broken", failures.get(0).getMessage());
+    }
+    
+    @Test
+    public void addAndRemove() {
+        ObserverRegistry<Double> registry = new ObserverRegistry<>();
+        Function<Double, Void> observer = temperature -> null;
+        assertTrue(registry.add(observer));
+        assertFalse(registry.add(observer));
+        assertEquals(1, registry.size());
+        assertTrue(registry.remove(observer));
+        assertFalse(registry.remove(observer));
+        assertTrue(registry.isEmpty());
+    }
+    
+    @Test
+    public void observersMayChangeDuringNotification() {
+        ObserverRegistry<Double> registry = new ObserverRegistry<>();
+        List<String> calls = new ArrayList<>();
+        Function<Double, Void> second = temperature -> {
+            calls.add("second");
+            return null;
+        };
+        registry.add(temperature -> {
+            calls.add("first");
+            registry.remove(second);
+            registry.add(t -> {
+                calls.add("third");
+                return null;
+            });
+            return null;
+        });
+        registry.add(second);
+        registry.notifyObservers(20.0);
+        assertEquals(2, calls.size());
+        assertEquals("second", calls.get(1));
+        assertEquals(2, registry.size());
+    }
+    
+    @Test
+    public void slowObserverDoesNotStallNotification() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ObserverRegistry<Double> registry = new ObserverRegistry<>();
+            CountDownLatch release = new CountDownLatch(1);
+            List<Double> received = new CopyOnWriteArrayList<>();
+            registry.add(temperature -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                received.add(temperature);
+                return null;
+            }, executor);
+            long start = System.nanoTime();
+            for (int i = 0; i < 1000; i++)
+                registry.notifyObservers(20.0 + i);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(1019.0, received.get(received.size() - 1), 0.0);
+            assertTrue(received.size() < 1000);
+            for (int i = 1; i < received.size(); i++)
+                assertTrue(received.get(i) > received.get(i - 1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void notificationAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)
+                ManagementFactory.getThreadMXBean();
+        ObserverRegistry<Double> registry = new ObserverRegistry<>();
+        double[] sum = new double[1];
+        for (int i = 0; i < 4; i++)
+            registry.add(temperature -> {
+                sum[0] += temperature;
+                return null;
+            });
+        Double reading = 20.0;
+        for (int i = 0; i < 100_000; i++)
+            registry.notifyObservers(reading);
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 100_000; i++)
+            registry.notifyObservers(reading);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertTrue("Allocated " + allocated + " bytes", allocated < 1024);
+        assertEquals(20.0 * 4 * 200_000, sum[0], 0.0);
+    }
+    
+    @Test
+    public void failingPrimitiveObserverIsIsolated() {
+        List<RuntimeException> failures = new ArrayList<>();
+        ObserverRegistry.OfDouble registry = new ObserverRegistry.OfDouble((observer, e) ->
+                failures.add(e));
+        List<Double> received = new ArrayList<>();
+        DoubleConsumer broken = temperature -> {
+            throw new IllegalStateException("broken");
+        };
+        assertTrue(registry.add(broken));
+        assertFalse(registry.add(broken));
+        registry.add(received::add);
+        registry.notifyObservers(20.0);
+        assertTrue(registry.remove(broken));
+        registry.notifyObservers(21.0);
+        assertEquals(2, received.size());
+        assertEquals(1, registry.getFailureCount());
+        assertEquals("broken", failures.get(0).getMessage());
+        assertEquals(1, registry.size());
+    }
+}
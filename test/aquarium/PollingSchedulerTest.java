@@ -0,0 +1,170 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+import aquarium.hw.TemperatureSensor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.*;
+import static org.junit.Assert.*;
+
+public class PollingSchedulerTest {
+    private PollingScheduler    scheduler;
+    private List<AdjusterState> commands;
+    
+    @Before
+    public void setUp() {
+        scheduler = new PollingScheduler();
+        commands = new CopyOnWriteArrayList<>();
+    }
+    
+    @After
+    public void tearDown() {
+        scheduler.close();
+    }
+    
+    @Test
+    public void polledReadingsDriveTheController() throws InterruptedException {
+        PullOnlyProbe probe = new PullOnlyProbe(15.0);
+        PollingScheduler.Probe polled = scheduler.addProbe(probe, commands::add, 2, 2,
+                                                           TimeUnit.MILLISECONDS);
+        awaitState(polled, HEATING);
+        probe.temperature = 20.0;
+        awaitState(polled, OFF);
+        assertEquals(HEATING, commands.get(0));
+        assertEquals(20.0, polled.getController().getCurrentTemperature(), 0.0);
+    }
+    
+    @Test
+    public void activeTanksArePolledFaster() throws InterruptedException {
+        long hour = TimeUnit.HOURS.toMillis(1);
+        PollingScheduler.Probe heating = scheduler.addProbe(new PullOnlyProbe(15.0),
+                                                            commands::add, 2, hour,
+                                                            TimeUnit.MILLISECONDS);
+        PollingScheduler.Probe idle = scheduler.addProbe(new PullOnlyProbe(20.0), state -> {
+        }, 2, hour, TimeUnit.MILLISECONDS);
+        awaitCount(heating::getPollCount, 10);
+        awaitCount(idle::getPollCount, 1);
+        assertEquals(1, idle.getPollCount());
+    }
+    
+    @Test
+    public void failuresAndCancellation() throws InterruptedException {
+        try (PollingScheduler platform = new PollingScheduler(1)) {
+            assertFalse(platform.usesVirtualThreads());
+            GatedProbe probe = new GatedProbe(3);
+            PollingScheduler.Probe polled = platform.addProbe(probe, commands::add, 1, 1,
+                                                              TimeUnit.MILLISECONDS);
+            assertTrue(probe.held.await(5, TimeUnit.SECONDS));
+            polled.cancel();
+            probe.release.countDown();
+            awaitCount(polled::getFailureCount, 3);
+            assertEquals(0, polled.getPollCount());
+            // The poll in flight during cancel must not schedule another one
+            assertFalse(probe.polledAfterHeld.await(50, TimeUnit.MILLISECONDS));
+            assertEquals(3, polled.getFailureCount());
+        }
+    }
+    
+    /**
+     * Wait for the controller of a probe to command a state
+     *
+     * @param polled The polled probe
+     * @param state  The expected state
+     */
+    private static void awaitState(PollingScheduler.Probe polled, AdjusterState state) throws
+            InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (polled.getController().getCommandedState() != state)
+            if (System.nanoTime() > deadline)
+                fail("Timed out waiting for " + state);
+            else Thread.sleep(1);
+    }
+    
+    /**
+     * Wait for a counter of a probe to reach a value
+     *
+     * @param counter The counter
+     * @param count   The expected value
+     */
+    private static void awaitCount(LongSupplier counter, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (counter.getAsLong() < count)
+            if (System.nanoTime() > deadline)
+                fail("Timed out waiting for " + count);
+            else Thread.sleep(1);
+    }
+    
+    /**
+     * A probe answering getTemperature only, failing while its temperature is NaN
+     */
+    private static class PullOnlyProbe implements TemperatureSensor {
+        private volatile double temperature; // The temperature answered
+        
+        PullOnlyProbe(double temperature) {
+            this.temperature = temperature;
+        }
+        
+        @Override
+        public void addObserver(Function<Double, Void> observer) {
+            throw new UnsupportedOperationException("Pull-only probe");
+        }
+        
+        @Override
+        public void removeObserver(Function<Double, Void> observer) {
+            throw new UnsupportedOperationException("Pull-only probe");
+        }
+        
+        @Override
+        public void setDelta(double delta) {
+        }
+        
+        @Override
+        public double getTemperature() {
+            if (Double.isNaN(temperature))
+                throw new IllegalStateException("Bus timeout");
+            return temperature;
+        }
+    }
+    
+    /**
+     * A failing probe holding one of its polls until released
+     */
+    private static final class GatedProbe extends PullOnlyProbe {
+        private final CountDownLatch held            = new CountDownLatch(1); // Poll is held
+        private final CountDownLatch release         = new CountDownLatch(1); // Releases it
+        private final CountDownLatch polledAfterHeld = new CountDownLatch(1); // Polled again
+        private final int            heldPoll; // The number of the poll held
+        private final AtomicInteger  polls = new AtomicInteger(); // The polls started
+        
+        GatedProbe(int heldPoll) {
+            super(Double.NaN);
+            this.heldPoll = heldPoll;
+        }
+        
+        @Override
+        public double getTemperature() {
+            int poll = polls.incrementAndGet();
+            if (poll > heldPoll)
+                polledAfterHeld.countDown();
+            else if (poll == heldPoll) {
+                held.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.getTemperature();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+import aquarium.hw.TestTemperatureSensor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.*;
+import static org.junit.Assert.*;
+
+public class PrimitiveObserverTest {
+    private TestDoubleTemperatureSensor sensor;
+    private List<AdjusterState>         states;
+    private TemperatureController       controller;
+    
+    @Before
+    public void setUp() {
+        sensor = new TestDoubleTemperatureSensor();
+        states = new ArrayList<>();
+        sensor.setTemperature(20.0);
+        controller = TemperatureControllerImpl.makeTemperatureController(sensor, states::add);
+    }
+    
+    @Test
+    public void controllerDecidesFromPrimitiveReadings() {
+        states.clear();
+        sensor.setTemperature(15.0);
+        sensor.setTemperature(25.0);
+        sensor.setTemperature(20.0);
+        assertEquals(3, states.size());
+        assertEquals(HEATING, states.get(0));
+        assertEquals(COOLING, states.get(1));
+        assertEquals(OFF, states.get(2));
+    }
+    
+    @Test
+    public void primitiveDecisionPathDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)
+                ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        sensor = new TestDoubleTemperatureSensor();
+        controller = TemperatureControllerImpl.makeTemperatureController(sensor, state -> {
+        });
+        for (int i = 0; i < 100_000; i++)
+            sensor.setTemperature(15.0 + i % 10);
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 1_000_000; i++)
+            sensor.setTemperature(15.0 + i % 10);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+    
+    @Test
+    public void legacyObservableBridgesToPrimitiveObservers() {
+        TestTemperatureSensor legacy = new TestTemperatureSensor(0.5);
+        DoubleObservable readings = ObservableAdapter.fromLegacy(legacy);
+        List<Double> received = new ArrayList<>();
+        DoubleConsumer observer = received::add;
+        readings.addObserver(observer);
+        legacy.setTemperature(21.0);
+        readings.removeObserver(observer);
+        legacy.setTemperature(23.0);
+        assertEquals(1, received.size());
+        assertEquals(21.0, received.get(0), 0.0);
+    }
+    
+    @Test
+    public void primitiveObservableBridgesToLegacyObservers() {
+        List<Double> received = new ArrayList<>();
+        Function<Double, Void> observer = (Double temperature) -> {
+            received.add(temperature);
+            return null;
+        };
+        sensor.addObserver(observer);
+        sensor.setTemperature(21.0);
+        sensor.removeObserver(observer);
+        sensor.setTemperature(23.0);
+        assertEquals(1, received.size());
+        assertEquals(21.0, received.get(0), 0.0);
+    }
+}
@@ -0,0 +1,195 @@
+package aquarium;
+
+import aquarium.hw.TemperatureAdjuster.AdjusterState;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.*;
+import static org.junit.Assert.*;
+
+public class ReadingJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void replayReturnsRecordsInOrder() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (ReadingJournal journal = ReadingJournal.open(directory)) {
+            journal.appendReading(1, 100, 19.5);
+            journal.appendTransition(1, 100, 19.5, HEATING);
+            journal.appendReading(2, 101, 22.0);
+        }
+        List<String> records = replay(directory);
+        assertEquals("reading 1 100 19.5", records.get(0));
+        assertEquals("transition 1 100 19.5 HEATING", records.get(1));
+        assertEquals("reading 2 101 22.0", records.get(2));
+        assertEquals(3, records.size());
+    }
+    
+    @Test
+    public void segmentsRollWhenFull() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (ReadingJournal journal = ReadingJournal.open(directory, 4)) {
+            for (int i = 0; i < 10; i++)
+                journal.appendReading(i, i, i);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(3, files.count());
+        }
+        List<String> records = replay(directory);
+        assertEquals(10, records.size());
+        assertEquals("reading 9 9 9.0", records.get(9));
+    }
+    
+    @Test
+    public void reopeningResumesAfterLastRecord() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (ReadingJournal journal = ReadingJournal.open(directory, 16)) {
+            journal.appendReading(1, 1, 20.0);
+        }
+        try (ReadingJournal journal = ReadingJournal.open(directory, 16)) {
+            journal.appendReading(1, 2, 21.0);
+        }
+        assertEquals(2, replay(directory).size());
+    }
+    
+    @Test
+    public void recoveryStopsAtTornRecord() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (ReadingJournal journal = ReadingJournal.open(directory, 16)) {
+            for (int i = 0; i < 5; i++)
+                journal.appendReading(1, i, 20.0 + i);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve
+                ("0000000000000000.journal").toFile(), "rw")) {
+            file.seek(3 * ReadingJournal.RECORD_SIZE + 8);
+            file.writeLong(Double.doubleToLongBits(99.0)); // Tear the fourth record
+        }
+        assertEquals(3, replay(directory).size());
+        try (ReadingJournal journal = ReadingJournal.open(directory, 16)) {
+            journal.appendReading(1, 10, 30.0);
+        }
+        List<String> records = replay(directory);
+        assertEquals(4, records.size());
+        assertEquals("reading 1 10 30.0", records.get(3));
+    }
+    
+    @Test
+    public void replaySkipsTheRestOfASegmentAfterATornRecord() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (ReadingJournal journal = ReadingJournal.open(directory, 4)) {
+            for (int i = 0; i < 10; i++)
+                journal.appendReading(1, i, 20.0 + i);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve
+                ("0000000000000000.journal").toFile(), "rw")) {
+            file.seek(2 * ReadingJournal.RECORD_SIZE + 8);
+            file.writeLong(Double.doubleToLongBits(99.0)); // Tear the third record
+        }
+        List<String> records = replay(directory);
+        assertEquals(8, records.size());
+        assertEquals("reading 1 1 21.0", records.get(1));
+        assertEquals("reading 1 4 24.0", records.get(2));
+    }
+    
+    @Test
+    public void recordsAppendedAfterATornEarlierSegmentAreReplayed() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (ReadingJournal journal = ReadingJournal.open(directory, 4)) {
+            for (int i = 0; i < 6; i++)
+                journal.appendReading(1, i, 20.0 + i);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve
+                ("0000000000000000.journal").toFile(), "rw")) {
+            file.seek(2 * ReadingJournal.RECORD_SIZE + 28);
+            file.writeInt(0); // Leave the third record uncommitted
+        }
+        try (ReadingJournal journal = ReadingJournal.open(directory, 4)) {
+            for (int i = 0; i < 100; i++)
+                journal.appendReading(2, 100 + i, 25.0);
+        }
+        List<String> records = replay(directory);
+        assertEquals(104, records.size());
+        assertEquals("reading 2 199 25.0", records.get(103));
+    }
+    
+    @Test
+    public void concurrentAppendsAreAllJournaled() throws IOException, InterruptedException {
+        Path directory = folder.getRoot().toPath();
+        Thread[] threads = new Thread[4];
+        try (ReadingJournal journal = ReadingJournal.open(directory, 100)) {
+            for (int t = 0; t < threads.length; t++) {
+                int tankId = t;
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 1000; i++)
+                        journal.appendReading(tankId, i, i);
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads)
+                thread.join();
+        }
+        List<String> records = replay(directory);
+        assertEquals(4000, records.size());
+        for (int t = 0; t < threads.length; t++)
+            assertTrue(records.contains("reading " + t + " 999 999.0"));
+    }
+    
+    @Test
+    public void controllerReadingsAndTransitionsAreJournaled() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+        TemperatureControllerImpl controller = (TemperatureControllerImpl)
+                TemperatureControllerImpl.makeTemperatureController(sensor, state -> {
+                });
+        try (ReadingJournal journal = ReadingJournal.open(directory, 16)) {
+            controller.addListener(journal.listenerFor(7));
+            sensor.setTemperature(15.0);
+            sensor.setTemperature(16.0);
+        }
+        List<String> records = replay(directory);
+        assertEquals(3, records.size());
+        assertTrue(records.get(0).startsWith("reading 7 "));
+        assertTrue(records.get(1).startsWith("transition 7 "));
+        assertTrue(records.get(1).endsWith(" 15.0 HEATING"));
+        assertTrue(records.get(2).startsWith("reading 7 "));
+    }
+    
+    /**
+     * Replay a journal into a list of readable records
+     *
+     * @param directory The directory of the journal
+     *
+     * @return the records
+     *
+     * @throws IOException if the journal cannot be read
+     */
+    private static List<String> replay(Path directory) throws IOException {
+        List<String> records = new ArrayList<>();
+        try (ReadingJournal journal = ReadingJournal.open(directory)) {
+            journal.replay(new ReadingJournal.Replay() {
+                @Override
+                public void reading(int tankId, long timeMillis, double temperature) {
+                    records.add("reading " + tankId + " " + timeMillis + " " + temperature);
+                }
+                
+                @Override
+                public void transition(int tankId, long timeMillis, double temperature,
+                                       AdjusterState state) {
+                    records.add("transition " + tankId + " " + timeMillis + " " + temperature +
+                                " " + state);
+                }
+            });
+        }
+        return records;
+    }
+}
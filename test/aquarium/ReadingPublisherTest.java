@@ -0,0 +1,254 @@
+package aquarium;
+
+import aquarium.ReadingPublisher.OverflowPolicy;
+import aquarium.ReadingPublisher.Subscriber;
+import aquarium.ReadingPublisher.Subscription;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.*;
+import static org.junit.Assert.*;
+
+public class ReadingPublisherTest {
+    @Test
+    public void controllerReadingsAndTransitionsArePublished() {
+        ReadingPublisher publisher = new ReadingPublisher(Runnable::run);
+        TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+        sensor.setTemperature(20.0);
+        TemperatureControllerImpl controller = (TemperatureControllerImpl)
+                TemperatureControllerImpl.makeTemperatureController(sensor, state -> {
+                });
+        controller.addListener(publisher.listenerFor(7));
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        publisher.subscribe(recorder);
+        sensor.setTemperature(18.0);
+        sensor.setTemperature(20.0);
+        assertEquals(4, recorder.events.size());
+        ReadingEvent reading = recorder.events.get(0);
+        assertFalse(reading.isTransition());
+        assertEquals(7, reading.getTankId());
+        assertEquals(18.0, reading.getTemperature(), 0.0);
+        assertEquals(HEATING, reading.getState());
+        ReadingEvent transition = recorder.events.get(1);
+        assertTrue(transition.isTransition());
+        assertNull(transition.getPreviousState());
+        assertEquals(HEATING, transition.getState());
+        assertEquals(HEATING, recorder.events.get(3).getPreviousState());
+        assertEquals(OFF, recorder.events.get(3).getState());
+    }
+    
+    @Test
+    public void onlyRequestedEventsAreDelivered() {
+        ReadingPublisher publisher = new ReadingPublisher(Runnable::run);
+        ReadingListener listener = publisher.listenerFor(1);
+        Recorder recorder = new Recorder(2);
+        publisher.subscribe(recorder);
+        for (int i = 0; i < 5; i++)
+            listener.onReading(i, 20.0 + i, OFF);
+        assertEquals(2, recorder.events.size());
+        recorder.subscription.request(10);
+        assertEquals(5, recorder.events.size());
+        for (int i = 0; i < 5; i++)
+            assertEquals(20.0 + i, recorder.events.get(i).getTemperature(), 0.0);
+    }
+    
+    @Test
+    public void dropOldestKeepsTheMostRecentEvents() {
+        ReadingPublisher publisher = new ReadingPublisher(Runnable::run);
+        ReadingListener listener = publisher.listenerFor(1);
+        Recorder recorder = new Recorder(0);
+        publisher.subscribe(recorder, 3, OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 10; i++)
+            listener.onReading(i, i, OFF);
+        recorder.subscription.request(Long.MAX_VALUE);
+        assertEquals(3, recorder.events.size());
+        assertEquals(7.0, recorder.events.get(0).getTemperature(), 0.0);
+        assertEquals(9.0, recorder.events.get(2).getTemperature(), 0.0);
+        assertEquals(7, publisher.getDroppedCount());
+    }
+    
+    @Test
+    public void conflateLatestKeepsTheBacklogAndTheLatestEvent() {
+        ReadingPublisher publisher = new ReadingPublisher(Runnable::run);
+        ReadingListener listener = publisher.listenerFor(1);
+        Recorder recorder = new Recorder(0);
+        publisher.subscribe(recorder, 3, OverflowPolicy.CONFLATE_LATEST);
+        for (int i = 0; i < 10; i++)
+            listener.onReading(i, i, OFF);
+        recorder.subscription.request(Long.MAX_VALUE);
+        assertEquals(3, recorder.events.size());
+        assertEquals(0.0, recorder.events.get(0).getTemperature(), 0.0);
+        assertEquals(1.0, recorder.events.get(1).getTemperature(), 0.0);
+        assertEquals(9.0, recorder.events.get(2).getTemperature(), 0.0);
+    }
+    
+    @Test
+    public void closeCompletesAfterTheBufferedEvents() {
+        ReadingPublisher publisher = new ReadingPublisher(Runnable::run);
+        ReadingListener listener = publisher.listenerFor(1);
+        Recorder recorder = new Recorder(0);
+        publisher.subscribe(recorder);
+        listener.onReading(0, 20.0, OFF);
+        publisher.close();
+        assertFalse(recorder.completed);
+        recorder.subscription.request(1);
+        assertEquals(1, recorder.events.size());
+        assertTrue(recorder.completed);
+        assertEquals(0, publisher.getSubscriberCount());
+        Recorder late = new Recorder(1);
+        publisher.subscribe(late);
+        assertTrue(late.completed);
+    }
+    
+    @Test
+    public void protocolViolationsAreSignalled() {
+        ReadingPublisher publisher = new ReadingPublisher(Runnable::run);
+        Recorder recorder = new Recorder(0);
+        publisher.subscribe(recorder);
+        publisher.subscribe(recorder);
+        assertTrue(recorder.error instanceof IllegalStateException);
+        Recorder other = new Recorder(0);
+        publisher.subscribe(other);
+        other.subscription.request(0);
+        assertTrue(other.error instanceof IllegalArgumentException);
+        assertEquals(1, publisher.getSubscriberCount());
+        recorder.subscription.cancel();
+        assertEquals(0, publisher.getSubscriberCount());
+    }
+    
+    @Test
+    public void slowSubscriberDoesNotSlowThePublisher() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ReadingPublisher publisher = new ReadingPublisher(executor);
+            ReadingListener listener = publisher.listenerFor(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(1);
+            List<ReadingEvent> received = new ArrayList<>();
+            publisher.subscribe(new Subscriber() {
+                @Override
+                public void onSubscribe(Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+                
+                @Override
+                public void onNext(ReadingEvent event) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    received.add(event);
+                }
+                
+                @Override
+                public void onError(Throwable throwable) {
+                }
+                
+                @Override
+                public void onComplete() {
+                    done.countDown();
+                }
+            }, 16, OverflowPolicy.DROP_OLDEST);
+            long start = System.nanoTime();
+            for (int i = 0; i < 100_000; i++)
+                listener.onReading(i, i, OFF);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+            publisher.close();
+            release.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(received.size() <= 17);
+            assertEquals(99_999.0, received.get(received.size() - 1).getTemperature(), 0.0);
+            assertEquals(100_000 - received.size(), publisher.getDroppedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void fleetPublishesEveryTank() throws InterruptedException {
+        TemperatureControllerFleet fleet = new TemperatureControllerFleet(2);
+        try {
+            TestDoubleTemperatureSensor[] sensors = new TestDoubleTemperatureSensor[4];
+            for (int tankId = 0; tankId < sensors.length; tankId++) {
+                sensors[tankId] = new TestDoubleTemperatureSensor();
+                sensors[tankId].setTemperature(20.0);
+                fleet.addTank(tankId, TemperatureControllerImpl.makeTemperatureController
+                        (sensors[tankId], state -> {
+                        }));
+            }
+            CountDownLatch done = new CountDownLatch(1);
+            Recorder recorder = new Recorder(Long.MAX_VALUE) {
+                @Override
+                public void onComplete() {
+                    super.onComplete();
+                    done.countDown();
+                }
+            };
+            fleet.getPublisher().subscribe(recorder);
+            fleet.removeTank(3);
+            for (TestDoubleTemperatureSensor sensor : sensors)
+                sensor.setTemperature(20.5);
+            fleet.close();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(6, recorder.events.size());
+            boolean[] seen = new boolean[3];
+            for (ReadingEvent event : recorder.events)
+                if (!event.isTransition())
+                    seen[event.getTankId()] = true;
+            assertTrue(seen[0] && seen[1] && seen[2]);
+        } finally {
+            fleet.close();
+        }
+    }
+    
+    /**
+     * A subscriber recording what it receives, requesting a fixed number of events when
+     * subscribed
+     */
+    private static class Recorder implements Subscriber {
+        private final long               initial; // The events requested when subscribed
+        private final List<ReadingEvent> events = new ArrayList<>(); // The events received
+        private Subscription             subscription; // The subscription
+        private Throwable                error; // The error received, or null
+        private volatile boolean         completed; // True once completed
+        
+        /**
+         * Constructor.
+         *
+         * @param initial The events requested when subscribed, or 0
+         */
+        Recorder(long initial) {
+            this.initial = initial;
+        }
+        
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            if (this.subscription == null)
+                this.subscription = subscription;
+            if (initial > 0)
+                subscription.request(initial);
+        }
+        
+        @Override
+        public synchronized void onNext(ReadingEvent event) {
+            events.add(event);
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+        
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
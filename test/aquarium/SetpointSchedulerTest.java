@@ -0,0 +1,335 @@
+package aquarium;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+
+public class SetpointSchedulerTest {
+    private final AtomicLong  now = new AtomicLong(); // The time of the wheel
+    private TimingWheel       wheel;
+    private SetpointScheduler scheduler;
+    
+    @Before
+    public void setUp() {
+        wheel = new TimingWheel(SECONDS.toNanos(1), now::get);
+        scheduler = new SetpointScheduler(wheel, new WheelClock(Instant.parse
+                ("2026-10-18T03:00:00Z"), ZoneOffset.UTC));
+    }
+    
+    @Test
+    public void rampIsAppliedInSteps() {
+        TemperatureControllerImpl controller = controller();
+        scheduler.setProfile(1, controller, SetpointProfile.once().at(0, HOURS, 20.0).rampTo
+                (60, MINUTES, 26.0).withRampStep(10, MINUTES).at(2, HOURS, 25.0)
+                .withVariance(0.5));
+        assertEquals(20.0, desired(controller), 1e-9);
+        advance(10, MINUTES);
+        assertEquals(21.0, desired(controller), 1e-9);
+        advance(25, MINUTES);
+        assertEquals(23.0, desired(controller), 1e-9);
+        advance(25, MINUTES);
+        assertEquals(26.0, desired(controller), 1e-9);
+        assertEquals(1.0, controller.getAcceptableVariation(), 1e-9);
+        advance(60, MINUTES);
+        assertEquals(25.0, desired(controller), 1e-9);
+        assertEquals(0.5, controller.getAcceptableVariation(), 1e-9);
+        assertEquals(0, scheduler.getProfileCount());
+        assertEquals(0, wheel.getPendingCount());
+    }
+    
+    @Test
+    public void dailyProfileStartsAtTheTimeOfDay() {
+        TemperatureControllerImpl controller = controller();
+        SetpointProfile overnight = SetpointProfile.daily().at(LocalTime.of(6, 0), 25.0)
+                .withVariance(0.8).at(LocalTime.of(22, 0), 25.0).rampTo(LocalTime.of(23, 0),
+                                                                        23.0);
+        scheduler.setProfile(1, controller, overnight);
+        assertEquals(23.0, desired(controller), 1e-9);
+        assertEquals(0.8, controller.getAcceptableVariation(), 1e-9);
+        advance(3, HOURS);
+        assertEquals(25.0, desired(controller), 1e-9);
+        advance(16 * 60 + 30, MINUTES);
+        assertEquals(24.0, desired(controller), 1e-9);
+        advance(30, MINUTES);
+        assertEquals(23.0, desired(controller), 1e-9);
+        advance(7, HOURS);
+        assertEquals(25.0, desired(controller), 1e-9);
+        assertEquals(1, scheduler.getProfileCount());
+        assertEquals(1, wheel.getPendingCount());
+    }
+    
+    @Test
+    public void profilesAreReplacedAndRemoved() {
+        TemperatureControllerImpl controller = controller();
+        scheduler.setProfile(1, controller, SetpointProfile.once().at(0, HOURS, 22.0).at(1,
+                                                                                        HOURS,
+                                                                                        24.0));
+        scheduler.setProfile(1, controller, SetpointProfile.once().at(0, HOURS, 21.0).at(2,
+                                                                                        HOURS,
+                                                                                        23.0));
+        advance(90, MINUTES);
+        assertEquals(21.0, desired(controller), 1e-9);
+        assertTrue(scheduler.removeProfile(1));
+        assertFalse(scheduler.removeProfile(1));
+        advance(1, HOURS);
+        assertEquals(21.0, desired(controller), 1e-9);
+        assertEquals(0, wheel.getPendingCount());
+    }
+    
+    @Test
+    public void dailyProfileFollowsDaylightSaving() {
+        ZoneId paris = ZoneId.of("Europe/Paris");
+        scheduler = new SetpointScheduler(wheel, new WheelClock(Instant.parse
+                ("2026-10-24T20:00:00Z"), paris));
+        TemperatureControllerImpl controller = controller();
+        scheduler.setProfile(1, controller, SetpointProfile.daily().at(LocalTime.of(6, 0), 25.0)
+                .at(LocalTime.of(22, 0), 23.0));
+        assertEquals(23.0, desired(controller), 1e-9);
+        advance(8, HOURS);
+        assertEquals(23.0, desired(controller), 1e-9);
+        advance(1, HOURS);
+        assertEquals(25.0, desired(controller), 1e-9);
+    }
+    
+    @Test
+    public void dayLongPeriodStartsWhenSet() {
+        SetpointProfile profile = SetpointProfile.repeating(1, TimeUnit.DAYS).at(0, HOURS, 22.0)
+                .at(1, HOURS, 24.0);
+        assertFalse(profile.isDaily());
+        assertTrue(SetpointProfile.daily().isDaily());
+        TemperatureControllerImpl controller = controller();
+        scheduler.setProfile(1, controller, profile);
+        assertEquals(22.0, desired(controller), 1e-9);
+        advance(1, HOURS);
+        assertEquals(24.0, desired(controller), 1e-9);
+        advance(23, HOURS);
+        assertEquals(22.0, desired(controller), 1e-9);
+    }
+    
+    @Test
+    public void replacedProfileAppliesNothingMore() throws InterruptedException {
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingController controller = new BlockingController(24.0, held, release);
+        scheduler.setProfile(1, controller, SetpointProfile.once().at(0, HOURS, 22.0).at(1,
+                                                                                        HOURS,
+                                                                                        24.0));
+        Thread wheelThread = new Thread(() -> advance(1, HOURS));
+        wheelThread.start();
+        assertTrue(held.await(5, SECONDS));
+        Thread replacing = new Thread(() -> scheduler.setProfile(1, controller, SetpointProfile
+                .once().at(0, HOURS, 21.0)));
+        replacing.start();
+        long deadline = System.nanoTime() + SECONDS.toNanos(5);
+        while (replacing.getState() != Thread.State.BLOCKED && replacing.isAlive())
+            if (System.nanoTime() > deadline)
+                fail("Timed out waiting for the replacement");
+            else Thread.sleep(1);
+        release.countDown();
+        wheelThread.join();
+        replacing.join();
+        assertEquals(21.0, controller.temperature, 0.0);
+    }
+    
+    @Test
+    public void oneWheelDrivesManyTanks() {
+        int tanks = 100_000;
+        long[] changes = new long[1];
+        TemperatureController controller = new CountingController(changes);
+        SetpointProfile profile = SetpointProfile.daily().at(LocalTime.of(6, 0), 25.0).at
+                (LocalTime.of(12, 0), 26.0).at(LocalTime.of(18, 0), 25.0).at(LocalTime.of(22,
+                                                                                          0),
+                                                                             24.0);
+        for (int tankId = 0; tankId < tanks; tankId++)
+            scheduler.setProfile(tankId, controller, profile);
+        assertEquals(tanks, changes[0]);
+        assertEquals(tanks, wheel.getPendingCount());
+        advance(1, TimeUnit.DAYS);
+        assertEquals(5L * tanks, changes[0]);
+        assertEquals(tanks, wheel.getPendingCount());
+    }
+    
+    /**
+     * Advance the wheel
+     *
+     * @param duration The time to advance by
+     * @param unit     The unit of the duration
+     */
+    private void advance(long duration, TimeUnit unit) {
+        wheel.advance(now.addAndGet(unit.toNanos(duration)));
+    }
+    
+    /**
+     * Create a controller of a tank at 20 degrees
+     *
+     * @return the controller
+     */
+    private static TemperatureControllerImpl controller() {
+        TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+        sensor.setTemperature(20.0);
+        return (TemperatureControllerImpl) TemperatureControllerImpl.makeTemperatureController
+                (sensor, state -> {
+                });
+    }
+    
+    /**
+     * Get the desired temperature of a controller
+     *
+     * @param controller The controller
+     *
+     * @return the desired temperature in Celsius degrees
+     */
+    private static double desired(TemperatureControllerImpl controller) {
+        return controller.getConfiguration().getDesiredTemperature();
+    }
+    
+    /**
+     * A wall clock moving with the time of the wheel
+     */
+    private final class WheelClock extends Clock {
+        private final Instant start; // The wall time at wheel time 0
+        private final ZoneId  zone; // The time zone
+        
+        /**
+         * Constructor.
+         *
+         * @param start The wall time at wheel time 0
+         * @param zone  The time zone
+         */
+        WheelClock(Instant start, ZoneId zone) {
+            this.start = start;
+            this.zone = zone;
+        }
+        
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+        
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new WheelClock(start, zone);
+        }
+        
+        @Override
+        public Instant instant() {
+            return start.plusNanos(now.get());
+        }
+    }
+    
+    /**
+     * A controller holding the setting of one temperature until released
+     */
+    private static final class BlockingController implements TemperatureController {
+        private final double         blockOn; // The temperature whose setting is held
+        private final CountDownLatch held; // Opened when the setting is held
+        private final CountDownLatch release; // Opened to release the setting
+        private volatile double      temperature = Double.NaN; // The temperature last set
+        
+        /**
+         * Constructor.
+         *
+         * @param blockOn The temperature whose setting is held
+         * @param held    Opened when the setting is held
+         * @param release Opened to release the setting
+         */
+        BlockingController(double blockOn, CountDownLatch held, CountDownLatch release) {
+            this.blockOn = blockOn;
+            this.held = held;
+            this.release = release;
+        }
+        
+        @Override
+        public void setTemperature(double temperature) {
+            if (temperature == blockOn) {
+                held.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            this.temperature = temperature;
+        }
+        
+        @Override
+        public double getCurrentTemperature() {
+            return 0;
+        }
+        
+        @Override
+        public double getAcceptableVariation() {
+            return 0;
+        }
+        
+        @Override
+        public void setAcceptableVariation(double variance) {
+        }
+        
+        @Override
+        public TemperatureScale getTemperatureScale() {
+            return TemperatureScale.CELSIUS;
+        }
+        
+        @Override
+        public void setTemperatureScale(TemperatureScale newTemperatureScale) {
+        }
+    }
+    
+    /**
+     * A controller counting the setpoint changes it receives
+     */
+    private static final class CountingController implements TemperatureController {
+        private final long[] changes; // The number of setpoint changes
+        
+        /**
+         * Constructor.
+         *
+         * @param changes The counter of setpoint changes
+         */
+        CountingController(long[] changes) {
+            this.changes = changes;
+        }
+        
+        @Override
+        public void setTemperature(double temperature) {
+            changes[0]++;
+        }
+        
+        @Override
+        public double getCurrentTemperature() {
+            return 0;
+        }
+        
+        @Override
+        public double getAcceptableVariation() {
+            return 0;
+        }
+        
+        @Override
+        public void setAcceptableVariation(double variance) {
+        }
+        
+        @Override
+        public TemperatureScale getTemperatureScale() {
+            return TemperatureScale.CELSIUS;
+        }
+        
+        @Override
+        public void setTemperatureScale(TemperatureScale newTemperatureScale) {
+        }
+    }
+}
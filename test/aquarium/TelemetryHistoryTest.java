@@ -0,0 +1,121 @@
+package aquarium;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.*;
+import static org.junit.Assert.*;
+
+public class TelemetryHistoryTest {
+    @Test
+    public void windowAggregates() {
+        TelemetryHistory history = TelemetryHistory.onHeap(16);
+        for (int i = 0; i < 10; i++)
+            history.append(1000 + i * 100, 20.0 + i, i < 5 ? HEATING : OFF);
+        TelemetryWindow window = history.aggregate(1200, 1500, new TelemetryWindow());
+        assertEquals(4, window.getCount());
+        assertEquals(22.0, window.getMin(), 0.0);
+        assertEquals(25.0, window.getMax(), 0.0);
+        assertEquals(23.5, window.getAverage(), 1e-9);
+        assertEquals(3, window.getCount(HEATING));
+        assertEquals(1, window.getCount(OFF));
+        assertEquals(1200, window.getFirstMillis());
+        assertEquals(1500, window.getLastMillis());
+    }
+    
+    @Test
+    public void oldestRecordsAreOverwritten() {
+        TelemetryHistory history = TelemetryHistory.offHeap(4);
+        for (int i = 0; i < 10; i++)
+            history.append(i, i, COOLING);
+        assertEquals(4, history.size());
+        TelemetryWindow window = history.aggregate(0, Long.MAX_VALUE >>> 8, new
+                TelemetryWindow());
+        assertEquals(4, window.getCount());
+        assertEquals(6.0, window.getMin(), 0.0);
+        assertEquals(9.0, window.getMax(), 0.0);
+    }
+    
+    @Test
+    public void queriesLappedByTheWriterSeeNoTornRecord() throws InterruptedException {
+        TelemetryHistory history = TelemetryHistory.onHeap(64);
+        Thread writer = new Thread(() -> {
+            for (int time = 0; time < 2_000_000; time++)
+                history.append(time, time, null);
+        });
+        writer.start();
+        long[] last = new long[1];
+        while (writer.isAlive()) {
+            last[0] = -1;
+            history.forEach(0, Long.MAX_VALUE, (timeMillis, temperature, state) -> {
+                assertEquals(timeMillis, temperature, 0.0);
+                assertTrue(timeMillis > last[0]);
+                last[0] = timeMillis;
+            });
+            TelemetryWindow window = history.aggregate(0, Long.MAX_VALUE, new TelemetryWindow());
+            if (window.getCount() > 0) {
+                assertEquals(window.getFirstMillis(), window.getMin(), 0.0);
+                assertEquals(window.getLastMillis(), window.getMax(), 0.0);
+            }
+        }
+        writer.join();
+    }
+    
+    @Test
+    public void emptyWindow() {
+        TelemetryHistory history = TelemetryHistory.onHeap(4);
+        history.append(10, 20.0, null);
+        TelemetryWindow window = history.aggregate(11, 20, new TelemetryWindow());
+        assertEquals(0, window.getCount());
+        assertTrue(Double.isNaN(window.getAverage()));
+        assertEquals(-1, window.getFirstMillis());
+    }
+    
+    @Test
+    public void visitRecords() {
+        TelemetryHistory history = TelemetryHistory.onHeap(8);
+        history.append(1, 19.0, null);
+        history.append(2, 21.0, HEATING);
+        StringBuilder visited = new StringBuilder();
+        assertEquals(2, history.forEach(0, 10, (time, temperature, state) -> visited.append
+                (time).append(':').append(temperature).append(':').append(state).append(' ')));
+        assertEquals("1:19.0:null 2:21.0:HEATING ", visited.toString());
+    }
+    
+    @Test
+    public void controllerRecordsSensorReadings() {
+        TestDoubleTemperatureSensor sensor = new TestDoubleTemperatureSensor();
+        TemperatureControllerImpl controller = (TemperatureControllerImpl)
+                TemperatureControllerImpl.makeTemperatureController(sensor, state -> {
+                });
+        controller.setHistory(TelemetryHistory.onHeap(64));
+        sensor.setTemperature(15.0);
+        sensor.setTemperature(20.0);
+        TelemetryWindow window = controller.getHistory().aggregate(0, Long.MAX_VALUE >>> 8, new
+                TelemetryWindow());
+        assertEquals(2, window.getCount());
+        assertEquals(1, window.getCount(HEATING));
+        assertEquals(1, window.getCount(OFF));
+    }
+    
+    @Test
+    public void appendAndAggregateDoNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)
+                ManagementFactory.getThreadMXBean();
+        TelemetryHistory history = TelemetryHistory.offHeap(1024);
+        TelemetryWindow window = new TelemetryWindow();
+        for (int i = 0; i < 10_000; i++) {
+            history.append(i, i % 7, OFF);
+            history.aggregate(i - 100, i, window);
+        }
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 10_000; i < 110_000; i++) {
+            history.append(i, i % 7, OFF);
+            history.aggregate(i - 100, i, window);
+        }
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) -
+                         before;
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+}
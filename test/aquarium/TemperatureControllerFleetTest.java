@@ -0,0 +1,87 @@
+package aquarium;
+
+import aquarium.hw.TestTemperatureSensor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static aquarium.TemperatureController.TemperatureScale.FAHRENHEIT;
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.OFF;
+import static org.junit.Assert.*;
+
+public class TemperatureControllerFleetTest {
+    private static final int TANKS = 64; // The number of tanks in the fleet
+    private TemperatureControllerFleet                     fleet;
+    private Map<Integer, TestObservableTemperatureAdjuster> adjusters;
+    
+    @Before
+    public void setUp() {
+        fleet = new TemperatureControllerFleet(4);
+        adjusters = new HashMap<>();
+        for (int tankId = 0; tankId < TANKS; tankId++) {
+            TestTemperatureSensor sensor = new TestTemperatureSensor(0.5);
+            TestObservableTemperatureAdjuster adjuster = new TestObservableTemperatureAdjuster
+                    (sensor, 0.1);
+            sensor.setTemperature(20.0);
+            adjusters.put(tankId, adjuster);
+            fleet.addTank(tankId, sensor, adjuster);
+        }
+    }
+    
+    @After
+    public void tearDown() {
+        fleet.close();
+    }
+    
+    @Test
+    public void tanksAreKeyedById() {
+        assertEquals(TANKS, fleet.size());
+        assertNotNull(fleet.getTank(7));
+        assertNotNull(fleet.removeTank(7));
+        assertNull(fleet.getTank(7));
+        assertEquals(TANKS - 1, fleet.size());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateTankIsRejected() {
+        fleet.addTank(3, fleet.getTank(3));
+    }
+    
+    @Test
+    public void bulkSetTemperatureReachesEveryTank() {
+        fleet.setAcceptableVariation(0.5);
+        fleet.setTemperature(24.0);
+        Map<Integer, Double> temperatures = fleet.getCurrentTemperatures();
+        assertEquals(TANKS, temperatures.size());
+        temperatures.values().forEach(t -> assertEquals(24.0, t, 0.5));
+        adjusters.values().forEach(adjuster -> assertEquals(OFF, adjuster.getState()));
+    }
+    
+    @Test
+    public void bulkOperationsRunOnShardThreads() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        fleet.forEach((tankId, controller) -> threads.add(Thread.currentThread().getName()));
+        assertEquals(fleet.getShardCount(), threads.size());
+        assertFalse(threads.contains(Thread.currentThread().getName()));
+    }
+    
+    @Test(timeout = 10000)
+    public void bulkOperationFromShardThreadRunsInline() {
+        Map<Integer, Integer> sizes = new ConcurrentHashMap<>();
+        fleet.forEach((tankId, controller) -> sizes.put(tankId, fleet
+                .getCurrentTemperatures().size()));
+        assertEquals(TANKS, sizes.size());
+        sizes.values().forEach(size -> assertEquals(TANKS, (int) size));
+    }
+    
+    @Test
+    public void bulkSetTemperatureScale() {
+        fleet.setTemperatureScale(FAHRENHEIT);
+        fleet.getCurrentTemperatures().values().forEach(t -> assertEquals(68.0, t, 0.1));
+    }
+}
@@ -0,0 +1,74 @@
+package aquarium;
+
+import aquarium.hw.TemperatureSensor;
+
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+
+/**
+ * The mock TemperatureSensor notifying its observers through the primitive channel
+ *
+ * @version Oct 18, 2026
+ */
+public class TestDoubleTemperatureSensor implements TemperatureSensor, DoubleObservable {
+    private final Observable                legacy; // The legacy view of the primitive channel
+    private final ObserverRegistry.OfDouble observers = new ObserverRegistry.OfDouble();
+    // The observers
+    private       double                    temperature; // The current temperature
+    
+    /**
+     * Constructor.
+     */
+    public TestDoubleTemperatureSensor() {
+        this.legacy = ObservableAdapter.toLegacy(new DoubleObservable() {
+            @Override
+            public void addObserver(DoubleConsumer observer) {
+                TestDoubleTemperatureSensor.this.addObserver(observer);
+            }
+            
+            @Override
+            public void removeObserver(DoubleConsumer observer) {
+                TestDoubleTemperatureSensor.this.removeObserver(observer);
+            }
+        });
+    }
+    
+    @Override
+    public void addObserver(DoubleConsumer observer) {
+        observers.add(observer);
+    }
+    
+    @Override
+    public void removeObserver(DoubleConsumer observer) {
+        observers.remove(observer);
+    }
+    
+    @Override
+    public void addObserver(Function<Double, Void> observer) {
+        legacy.addObserver(observer);
+    }
+    
+    @Override
+    public void removeObserver(Function<Double, Void> observer) {
+        legacy.removeObserver(observer);
+    }
+    
+    @Override
+    public void setDelta(double delta) {
+    }
+    
+    @Override
+    public double getTemperature() {
+        return temperature;
+    }
+    
+    /**
+     * Set the temperature and notify every observer
+     *
+     * @param temperature The new temperature
+     */
+    public void setTemperature(double temperature) {
+        this.temperature = temperature;
+        observers.notifyObservers(temperature);
+    }
+}
@@ -3,8 +3,6 @@ package aquarium;
 import aquarium.hw.TemperatureAdjuster;
 import aquarium.hw.TestTemperatureSensor;
 
-import java.util.Collection;
-import java.util.LinkedList;
 import java.util.function.Function;
 
 /**
@@ -19,8 +17,8 @@ public class TestObservableTemperatureAdjuster implements TemperatureAdjuster {
     // temperature changes
     private volatile AdjusterState                             state; // The current state of
     // adjuster
-    private          Collection<Function<AdjusterState, Void>> observers; // Collection of
-    // observers subscribing to adjuster state changes
+    private final    ObserverRegistry<AdjusterState>           observers; // The observers
+    // subscribing to adjuster state changes
     
     /**
      * Constructor.
@@ -42,7 +40,7 @@ public class TestObservableTemperatureAdjuster implements TemperatureAdjuster {
         this.sensor = sensor;
         this.delta = Math.abs(delta);
         this.state = AdjusterState.OFF;
-        this.observers = new LinkedList();
+        this.observers = new ObserverRegistry<>();
     }
     
     /**
@@ -59,7 +57,7 @@ public class TestObservableTemperatureAdjuster implements TemperatureAdjuster {
      *
      * @param observer The observer
      */
-    public void removeObserver(Function<Double, Void> observer) {
+    public void removeObserver(Function<AdjusterState, Void> observer) {
         this.observers.remove(observer);
     }
     
@@ -106,8 +104,6 @@ public class TestObservableTemperatureAdjuster implements TemperatureAdjuster {
      * Notify all observers that the state of adjuster changed
      */
     private void notifyObservers() {
-        this.observers.forEach((f) -> {
-            f.apply(this.state);
-        });
+        this.observers.notifyObservers(this.state);
     }
 }
\ No newline at end of file
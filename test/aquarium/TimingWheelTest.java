@@ -0,0 +1,94 @@
+package aquarium;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelTest {
+    private final AtomicLong  now = new AtomicLong(); // The time of the wheel
+    private final TimingWheel wheel = new TimingWheel(1, now::get); // A wheel of 1ns ticks
+    
+    @Test
+    public void timeoutsFireOnTheirTickInOrder() {
+        Random random = new Random(42);
+        List<Long> fired = new ArrayList<>();
+        long[] deadlines = new long[10_000];
+        for (int i = 0; i < deadlines.length; i++) {
+            long deadline = 1 + random.nextInt(1 << 18);
+            deadlines[i] = deadline;
+            wheel.scheduleAt(() -> {
+                assertEquals(deadline, now.get());
+                fired.add(deadline);
+            }, deadline);
+        }
+        assertEquals(deadlines.length, wheel.getPendingCount());
+        for (long time = 1; time <= 1 << 18; time++) {
+            now.set(time);
+            wheel.advance(time);
+        }
+        assertEquals(deadlines.length, fired.size());
+        for (int i = 1; i < fired.size(); i++)
+            assertTrue(fired.get(i) >= fired.get(i - 1));
+        assertEquals(0, wheel.getPendingCount());
+        assertEquals(deadlines.length, wheel.getFiredCount());
+    }
+    
+    @Test
+    public void lateAdvanceCatchesUp() {
+        List<Long> fired = new ArrayList<>();
+        for (long deadline : new long[]{5, 300, 70_000, 20_000_000})
+            wheel.scheduleAt(() -> fired.add(deadline), deadline);
+        assertEquals(2, wheel.advance(69_999));
+        assertEquals(1, wheel.advance(19_999_999));
+        assertEquals(70_000L, (long) fired.get(2));
+        assertEquals(1, wheel.advance(20_000_000));
+        assertEquals(4, fired.size());
+    }
+    
+    @Test
+    public void cancelledTimeoutsNeverFire() {
+        List<String> fired = new ArrayList<>();
+        TimingWheel.Timeout first = wheel.scheduleAt(() -> fired.add("first"), 10);
+        TimingWheel.Timeout second = wheel.scheduleAt(() -> fired.add("second"), 1000);
+        wheel.advance(5);
+        assertTrue(first.cancel());
+        assertEquals(1, wheel.getPendingCount());
+        wheel.advance(2000);
+        assertEquals(1, fired.size());
+        assertTrue(second.isExpired());
+        assertFalse(second.cancel());
+        assertTrue(first.isCancelled());
+    }
+    
+    @Test
+    public void failingTaskDoesNotStopTheWheel() {
+        List<String> fired = new ArrayList<>();
+        wheel.scheduleAt(() -> {
+            throw new IllegalStateException();
+        }, 3);
+        wheel.scheduleAt(() -> fired.add("after"), 3);
+        wheel.scheduleAt(() -> wheel.scheduleAt(() -> fired.add("nested"), 4), 3);
+        wheel.advance(10);
+        assertEquals(2, fired.size());
+        assertEquals(1, wheel.getFailureCount());
+    }
+    
+    @Test
+    public void threadDrivesTheWheel() throws InterruptedException {
+        try (TimingWheel driven = new TimingWheel(1, TimeUnit.MILLISECONDS)) {
+            CountDownLatch fired = new CountDownLatch(100);
+            long start = System.nanoTime();
+            for (int i = 0; i < 100; i++)
+                driven.schedule(fired::countDown, 20 + i % 10, TimeUnit.MILLISECONDS);
+            assertTrue(fired.await(5, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package aquarium.sim;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LoadTestTest {
+    @Test
+    public void everyDueReadingIsMeasured() {
+        LoadReport report = new LoadTest(50).withThreads(4).withRate(100).withDuration(300,
+                TimeUnit.MILLISECONDS).withWarmup(100, TimeUnit.MILLISECONDS).run();
+        assertEquals(1500, report.getReadingCount(), 8);
+        assertEquals(report.getReadingCount(), report.getReadingLatency().getCount());
+        assertTrue(report.getTransitionCount() > 0);
+        assertTrue(report.getThroughput() > 0);
+        assertTrue(report.getReadingLatency().getPercentile(99.9) <= report.getReadingLatency()
+                .getMax());
+        assertTrue(report.getGcMaxPauseMillis() >= -1);
+    }
+    
+    @Test
+    public void quietProbesNeverCommandTheAdjusters() {
+        LoadReport report = new LoadTest(10).withThreads(2).withRate(200).withDuration(200,
+                TimeUnit.MILLISECONDS).withWarmup(0, TimeUnit.MILLISECONDS).withNoise
+                (NoiseProfile.QUIET).run();
+        assertTrue(report.getReadingCount() > 0);
+        assertEquals(0, report.getTransitionCount());
+    }
+    
+    @Test
+    public void reportIsOneJsonObject() {
+        LoadReport report = new LoadTest(4).withThreads(1).withRate(100).withDuration(100,
+                TimeUnit.MILLISECONDS).withWarmup(0, TimeUnit.MILLISECONDS).run();
+        String json = report.toJson();
+        assertTrue(json.startsWith("{\"tanks\":4,\"threads\":1,\"rate\":100.0,"));
+        for (String field : new String[]{"\"noise\":{", "\"throughput\":", "\"p50\":",
+                                         "\"p99\":", "\"p999\":", "\"gc\":{\"count\":"})
+            assertTrue(field, json.contains(field));
+        assertTrue(json.endsWith("}}"));
+    }
+    
+    @Test
+    public void noiseProfileAddsSwingNoiseAndSpikes() {
+        Random random = new Random(1);
+        assertEquals(20.0, NoiseProfile.QUIET.reading(20.0, 5.0, 0.0, random), 0.0);
+        NoiseProfile swing = NoiseProfile.QUIET.withSwing(2.0, 60);
+        assertEquals(22.0, swing.reading(20.0, 15.0, 0.0, random), 1e-9);
+        assertEquals(18.0, swing.reading(20.0, 45.0, 0.0, random), 1e-9);
+        NoiseProfile spikes = NoiseProfile.QUIET.withSpikes(1.0, 5.0);
+        assertEquals(5.0, Math.abs(spikes.reading(20.0, 0.0, 0.0, random) - 20.0), 1e-9);
+    }
+}
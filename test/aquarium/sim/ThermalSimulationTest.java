@@ -0,0 +1,101 @@
+package aquarium.sim;
+
+import aquarium.TemperatureController;
+import aquarium.TemperatureControllerImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static aquarium.hw.TemperatureAdjuster.AdjusterState.*;
+import static org.junit.Assert.*;
+
+public class ThermalSimulationTest {
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    
+    @Test
+    public void idleTankRelaxesToAmbient() {
+        ThermalSimulation simulation = new ThermalSimulation(MINUTE);
+        SimulatedTank tank = simulation.addTank(new ThermalModel(100, 200, 200, 5, 18), 25);
+        simulation.run(30 * DAY);
+        assertEquals(18.0, tank.getTemperature(), 0.01);
+        assertEquals(25.0, tank.getMaxTemperature(), 0.0);
+        assertEquals(30 * DAY, tank.getTimeInState(OFF));
+        assertEquals(30 * 24 * 60 + 1, simulation.getEventCount());
+    }
+    
+    @Test
+    public void controllerHoldsTankInBand() {
+        ThermalSimulation simulation = new ThermalSimulation(MINUTE);
+        SimulatedTank tank = simulation.addTank(new ThermalModel(100, 200, 200, 5, 18), 18);
+        TemperatureController controller = TemperatureControllerImpl.makeTemperatureController
+                (tank, tank);
+        controller.setTemperature(25);
+        simulation.run(DAY);
+        assertTrue(tank.getTransitionCount() > 2);
+        assertTrue(tank.getTimeInState(HEATING) > 0);
+        double minimum = Double.POSITIVE_INFINITY;
+        double maximum = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < 24 * 60; i++) {
+            simulation.run(MINUTE);
+            minimum = Math.min(minimum, tank.getTemperature());
+            maximum = Math.max(maximum, tank.getTemperature());
+        }
+        assertTrue(minimum >= 23.9);
+        assertTrue(maximum <= 26.1);
+        assertEquals(tank.getTemperature(), controller.getCurrentTemperature(), 0.0);
+    }
+    
+    @Test
+    public void runsAreDeterministic() {
+        assertEquals(simulate(), simulate());
+    }
+    
+    @Test
+    public void sensorDeltaFiltersNotifications() {
+        ThermalSimulation simulation = new ThermalSimulation(MINUTE);
+        SimulatedTank tank = simulation.addTank(new ThermalModel(100, 200, 200, 5, 18), 25);
+        List<Double> readings = new ArrayList<>();
+        tank.setDelta(1.0);
+        tank.addObserver(temperature -> {
+            readings.add(temperature);
+            return null;
+        });
+        simulation.run(30 * DAY);
+        assertEquals(25.0, readings.get(0), 0.0);
+        for (int i = 1; i < readings.size(); i++)
+            assertTrue(readings.get(i - 1) - readings.get(i) >= 1.0);
+        assertEquals(7, readings.size());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSampleInterval() {
+        new ThermalSimulation(0);
+    }
+    
+    /**
+     * Simulate a month of operation of a hundred tanks of assorted sizes
+     *
+     * @return the final temperatures and transition counts of the tanks
+     */
+    private static List<Object> simulate() {
+        ThermalSimulation simulation = new ThermalSimulation(MINUTE);
+        for (int i = 0; i < 100; i++) {
+            SimulatedTank tank = simulation.addTank(new ThermalModel(50 + i * 10, 300, 300, 4,
+                                                                     15 + i % 15), 20);
+            TemperatureController controller = TemperatureControllerImpl
+                    .makeTemperatureController(tank, tank);
+            controller.setTemperature(22 + i % 5);
+        }
+        simulation.run(30 * DAY);
+        List<Object> result = new ArrayList<>();
+        for (SimulatedTank tank : simulation.getTanks()) {
+            result.add(tank.getTemperature());
+            result.add(tank.getTransitionCount());
+        }
+        result.add(simulation.getEventCount());
+        return result;
+    }
+}